@@ -106,6 +106,11 @@ android {
         additionalParameters += listOf("--allow-reserved-package-id", "--package-id", "0x36")
     }
 
+    testOptions {
+        // 纯 JVM 用例中日志等 framework 调用返回默认值，依赖 framework 实现的用例在 Robolectric 下运行
+        unitTests.isReturnDefaultValues = true
+    }
+
     packaging {
         resources {
             merges += listOf("META-INF/xposed/*")
@@ -227,4 +232,7 @@ dependencies {
     // FTS 支持
     api (libs.room.ktx)
     annotationProcessor (libs.room.compiler)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
 }
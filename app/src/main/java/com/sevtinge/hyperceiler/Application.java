@@ -21,6 +21,7 @@ package com.sevtinge.hyperceiler;
 import static android.os.Process.killProcess;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.os.Process;
 
 import androidx.annotation.NonNull;
@@ -33,8 +34,10 @@ import com.sevtinge.hyperceiler.home.task.AppInitializer;
 import com.sevtinge.hyperceiler.log.LogManager;
 import com.sevtinge.hyperceiler.log.XposedLogLoader;
 import com.sevtinge.hyperceiler.provision.fragment.PermissionSettingsFragment;
+import com.sevtinge.hyperceiler.utils.AppIconCache;
 import com.sevtinge.hyperceiler.utils.DeviceInfoBuilder;
 import com.sevtinge.hyperceiler.utils.FrameworkStatusManager;
+import com.sevtinge.hyperceiler.utils.InputMethodPackagesPublisher;
 import com.sevtinge.hyperceiler.utils.LSPosedScopeHelper;
 import com.sevtinge.hyperceiler.utils.ScopeManager;
 
@@ -70,6 +73,17 @@ public class Application extends fan.app.Application
         setupCrashHandler();
     }
 
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        AppIconCache.onConfigurationChanged();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        AppIconCache.onTrimMemory(level);
+    }
 
     @Override
     public void onServiceBind(@NonNull XposedService service) {
@@ -83,6 +97,7 @@ public class Application extends fan.app.Application
             LSPosedScopeHelper.reloadScope();
             refreshHomePageBanner();
         }
+        InputMethodPackagesPublisher.start(this);
     }
 
     @Override
@@ -83,22 +83,28 @@ public class AppTaskManager {
             }
         });
 
-        // 异步业务逻辑：初始化 Shell、执行签名校验
+        // 异步业务逻辑：初始化 Shell
         runner.addTask(new Task("BusinessLogic", true, "BaseEnv", "attachBaseContext") {
             @Override
             public void execute() {
                 ShellInit.init(activity);
-                // 原 Activity 的 checkAppMod 逻辑迁移到此
-                CHECK_LIST.parallelStream().forEach(pkg -> {
-                    checkAppMod(activity, pkg);
-                });
             }
         });
 
+        // 原 Activity 的 checkAppMod 逻辑迁移到此，每个包一个任务，由调度器控制并发
+        for (String pkg : CHECK_LIST) {
+            runner.addTask(new Task("CheckAppMod:" + pkg, true, "BaseEnv", "attachBaseContext") {
+                @Override
+                public void execute() {
+                    checkAppMod(activity, pkg);
+                }
+            });
+        }
+
         runner.addTask(new Task("UI_Effect", false) {
             @Override
             public void execute() {
-                SearchHelper.initIndex(activity, true);
+                SearchHelper.initIndex(activity, false);
             }
         });
     }
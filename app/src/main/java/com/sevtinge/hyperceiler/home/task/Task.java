@@ -1,17 +1,15 @@
 package com.sevtinge.hyperceiler.home.task;
 
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 
 /**
- * 任务抽象基类：支持依赖项阻塞和线程切换
+ * 任务抽象基类：声明依赖项和执行线程，由 {@link TaskRunner} 在依赖全部完成后调度
  */
-public abstract class Task implements Runnable {
+public abstract class Task {
 
     public final String id;
     private final boolean isAsync;
     private final List<String> depends = new ArrayList<>();
-    private final CountDownLatch latch;
 
     public Task(String id, boolean isAsync, String... dependsOn) {
         this.id = id;
@@ -19,8 +17,6 @@ public abstract class Task implements Runnable {
         if (dependsOn != null) {
             this.depends.addAll(Arrays.asList(dependsOn));
         }
-        // 计数器大小为依赖任务的数量
-        this.latch = new CountDownLatch(this.depends.size());
     }
 
     public boolean isAsync() {
@@ -28,23 +24,7 @@ public abstract class Task implements Runnable {
     }
 
     public List<String> getDepends() {
-        return depends;
-    }
-
-    // 依赖完成时减少计数
-    public void satisfy() {
-        latch.countDown();
-    }
-
-    @Override
-    public final void run() {
-        try {
-            latch.await(); // 阻塞等待所有依赖项完成
-            execute();
-            TaskRunner.getInstance().notifyFinished(id);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        return Collections.unmodifiableList(depends);
     }
 
     public abstract void execute();
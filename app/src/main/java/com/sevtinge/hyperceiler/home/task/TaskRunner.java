@@ -1,63 +1,244 @@
 package com.sevtinge.hyperceiler.home.task;
 
+import com.sevtinge.hyperceiler.common.log.AndroidLog;
+import com.sevtinge.hyperceiler.utils.ThreadUtils;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * 调度引擎：负责任务分发、去重和依赖通知
+ * 调度引擎：按依赖关系构成的有向无环图分发任务。
+ * <p>
+ * 任务只有在依赖全部完成后才会被提交，等待依赖期间不占用任何线程；
+ * 同步任务在主线程执行，异步任务在并发数有限的线程池中执行。
+ * 注册时检查依赖环，每个任务的依赖等待、排队和执行耗时记录在跟踪信息中。
  */
 public class TaskRunner {
+    private static final String TAG = "TaskRunner";
+    private static final int MAX_PARALLELISM =
+        Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    // 须在 MAX_PARALLELISM 之后初始化
     private static final TaskRunner INSTANCE = new TaskRunner();
-    private final Map<String, Task> mTaskMap = new ConcurrentHashMap<>();
-    private final Map<String, List<String>> mDependedBy = new ConcurrentHashMap<>();
-    private final Set<String> mStartedTasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final Set<String> mFinishedTasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    private final ExecutorService mPool = Executors.newCachedThreadPool();
 
-    private TaskRunner() {}
+    private final Object mLock = new Object();
+    // 按注册顺序保存尚未完成的任务
+    private final Map<String, Node> mPending = new LinkedHashMap<>();
+    private final Map<String, List<Node>> mDependedBy = new HashMap<>();
+    private final Set<String> mFinishedTasks = new HashSet<>();
+    private final List<TraceEntry> mTrace = new ArrayList<>();
+    private final long mOrigin = System.nanoTime();
+
+    private final Executor mMainExecutor;
+    private final Executor mPool;
+
+    private TaskRunner() {
+        this(runnable -> {
+            if (ThreadUtils.isMainThread()) runnable.run();
+            else ThreadUtils.postOnMainThread(runnable);
+        }, createPool());
+    }
+
+    TaskRunner(Executor mainExecutor, Executor pool) {
+        mMainExecutor = mainExecutor;
+        mPool = pool;
+    }
 
     public static TaskRunner getInstance() {
         return INSTANCE;
     }
 
+    private static Executor createPool() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_PARALLELISM, MAX_PARALLELISM,
+            10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> new Thread(r, "TaskRunner-" + count.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 注册任务，同名任务尚未完成时忽略
+     *
+     * @throws IllegalStateException 依赖关系构成环
+     */
     public void addTask(Task task) {
-        if (mTaskMap.containsKey(task.id)) return;
-        mTaskMap.put(task.id, task);
-        for (String depId : task.getDepends()) {
-            mDependedBy.computeIfAbsent(depId, k -> new ArrayList<>()).add(task.id);
-            if (mFinishedTasks.contains(depId)) {
-                task.satisfy();
+        synchronized (mLock) {
+            if (mPending.containsKey(task.id)) return;
+            checkCycleLocked(task);
+
+            Node node = new Node(task, now());
+            for (String depId : task.getDepends()) {
+                if (!mFinishedTasks.contains(depId)) {
+                    node.remaining++;
+                    mDependedBy.computeIfAbsent(depId, k -> new ArrayList<>()).add(node);
+                }
             }
+            mPending.put(task.id, node);
         }
     }
 
+    /**
+     * 放行已注册的任务，依赖已满足的任务立即分发，其余任务在依赖完成时分发
+     */
     public void start() {
-        for (Task task : mTaskMap.values()) {
-            if (mStartedTasks.add(task.id)) { // 确保任务只启动一次
-                if (task.isAsync()) mPool.execute(task);
-                else task.run();
+        List<Node> ready = new ArrayList<>();
+        synchronized (mLock) {
+            for (Node node : mPending.values()) {
+                node.released = true;
+                collectIfReadyLocked(node, ready);
+            }
+        }
+        dispatch(ready);
+    }
+
+    /**
+     * 已完成任务的跟踪信息，时间均相对调度器创建时刻
+     */
+    public String dumpTrace() {
+        StringBuilder sb = new StringBuilder();
+        synchronized (mLock) {
+            for (TraceEntry entry : mTrace) {
+                sb.append(entry).append('\n');
+            }
+            for (Node node : mPending.values()) {
+                sb.append(String.format(Locale.ROOT, "%-20s pending, waiting for %d dependencies%n",
+                    node.task.id, node.remaining));
+            }
+        }
+        return sb.toString();
+    }
+
+    public List<TraceEntry> getTrace() {
+        synchronized (mLock) {
+            return new ArrayList<>(mTrace);
+        }
+    }
+
+    private void checkCycleLocked(Task task) {
+        // 新任务尚未加入图中，若从它的依赖出发能回到它自身则构成环
+        ArrayDeque<List<String>> stack = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        for (String depId : task.getDepends()) {
+            stack.push(List.of(task.id, depId));
+        }
+        while (!stack.isEmpty()) {
+            List<String> path = stack.pop();
+            String last = path.get(path.size() - 1);
+            if (last.equals(task.id)) {
+                throw new IllegalStateException("Task dependency cycle: " + String.join(" -> ", path));
             }
+            if (!visited.add(last)) continue;
+            for (String depId : dependsOf(last)) {
+                List<String> next = new ArrayList<>(path);
+                next.add(depId);
+                stack.push(next);
+            }
+        }
+    }
+
+    private List<String> dependsOf(String id) {
+        Node node = mPending.get(id);
+        return node != null ? node.task.getDepends() : List.of();
+    }
+
+    private void collectIfReadyLocked(Node node, List<Node> ready) {
+        if (node.released && node.remaining == 0 && !node.dispatched) {
+            node.dispatched = true;
+            node.readyAt = now();
+            ready.add(node);
         }
     }
 
-    public void notifyFinished(String taskId) {
-        mFinishedTasks.add(taskId);
-        List<String> dependents = mDependedBy.get(taskId);
-        if (dependents != null) {
-            for (String nextId : dependents) {
-                Task next = mTaskMap.get(nextId);
-                if (next != null) next.satisfy();
+    private void dispatch(List<Node> ready) {
+        for (Node node : ready) {
+            (node.task.isAsync() ? mPool : mMainExecutor).execute(() -> runNode(node));
+        }
+    }
+
+    private void runNode(Node node) {
+        long startAt = now();
+        node.task.execute();
+        long endAt = now();
+
+        List<Node> ready = new ArrayList<>();
+        TraceEntry entry = new TraceEntry(node.task.id, Thread.currentThread().getName(),
+            node.addedAt, node.readyAt, startAt, endAt);
+        boolean idle;
+        synchronized (mLock) {
+            mPending.remove(node.task.id);
+            mFinishedTasks.add(node.task.id);
+            mTrace.add(entry);
+            List<Node> dependents = mDependedBy.remove(node.task.id);
+            if (dependents != null) {
+                for (Node next : dependents) {
+                    next.remaining--;
+                    collectIfReadyLocked(next, ready);
+                }
             }
+            idle = mPending.isEmpty();
+        }
+        AndroidLog.d(TAG, entry.toString());
+        if (idle) AndroidLog.d(TAG, "All tasks finished, trace:\n" + dumpTrace());
+        dispatch(ready);
+    }
+
+    private long now() {
+        return System.nanoTime() - mOrigin;
+    }
+
+    private static final class Node {
+        final Task task;
+        final long addedAt;
+        // 尚未完成的依赖数，仅在 mLock 下访问
+        int remaining;
+        boolean released;
+        boolean dispatched;
+        // 在 mLock 下写入，经线程池或主线程 Handler 的提交对执行线程可见
+        long readyAt;
+
+        Node(Task task, long addedAt) {
+            this.task = task;
+            this.addedAt = addedAt;
+        }
+    }
+
+    /**
+     * 单个任务的执行记录，时间单位为纳秒
+     *
+     * @param addedAt 注册时刻
+     * @param readyAt 依赖全部完成并被分发的时刻
+     * @param startAt 开始执行的时刻
+     * @param endAt   执行结束的时刻
+     */
+    public record TraceEntry(String id, String thread, long addedAt, long readyAt, long startAt, long endAt) {
+        public long dependencyWaitNanos() {
+            return readyAt - addedAt;
+        }
+
+        public long queueWaitNanos() {
+            return startAt - readyAt;
         }
 
-        mTaskMap.remove(taskId);
-        mStartedTasks.remove(taskId);
-        mDependedBy.remove(taskId);
+        public long runNanos() {
+            return endAt - startAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-20s [%s] start=%.1fms depWait=%.1fms queue=%.1fms run=%.1fms",
+                id, thread, startAt / 1e6, dependencyWaitNanos() / 1e6, queueWaitNanos() / 1e6, runNanos() / 1e6);
+        }
     }
 }
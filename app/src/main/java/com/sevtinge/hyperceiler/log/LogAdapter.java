@@ -76,6 +76,16 @@ public class LogAdapter extends CardGroupAdapter<LogAdapter.LogViewHolder> {
         diffResult.dispatchUpdatesTo(this);
     }
 
+    /**
+     * 追加下一页数据
+     */
+    public void appendData(List<LogEntry> moreData) {
+        if (moreData.isEmpty()) return;
+        int start = mData.size();
+        mData.addAll(moreData);
+        notifyItemRangeInserted(start, moreData.size());
+    }
+
     @NonNull
     @Override
     public LogViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
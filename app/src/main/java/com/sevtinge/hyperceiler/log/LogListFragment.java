@@ -36,6 +36,7 @@ import com.sevtinge.hyperceiler.R;
 import com.sevtinge.hyperceiler.common.utils.ShellUtils;
 import com.sevtinge.hyperceiler.log.db.LogDao;
 import com.sevtinge.hyperceiler.log.db.LogEntry;
+import com.sevtinge.hyperceiler.log.db.LogQuery;
 import com.sevtinge.hyperceiler.log.db.LogRepository;
 import com.sevtinge.hyperceiler.widget.PullToRefreshListener;
 import com.sevtinge.hyperceiler.widget.PullViewHelper;
@@ -51,6 +52,8 @@ public class LogListFragment extends Fragment {
     private static final int STATE_LOADING = 0;
     private static final int STATE_CONTENT = 1;
     private static final int STATE_EMPTY = 2;
+    // 距离列表底部剩余多少条时预加载下一页
+    private static final int LOAD_MORE_THRESHOLD = 50;
 
     private int mModule;
     private LogAdapter mAdapter;
@@ -71,6 +74,12 @@ public class LogListFragment extends Fragment {
     private boolean mHasRootPermission = false;
     private boolean mHasAnyModuleLogs = false;
 
+    // 翻页游标：当前列表最后一条，以及本次查询条件的版本号，条件变化后丢弃过期的分页结果
+    private LogEntry mLastEntry;
+    private boolean mHasMore = false;
+    private boolean mLoadingMore = false;
+    private int mQueryGeneration = 0;
+
     public static LogListFragment newInstance(int module) {
         LogListFragment fragment = new LogListFragment();
         Bundle args = new Bundle();
@@ -96,6 +105,17 @@ public class LogListFragment extends Fragment {
         mRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
         mRecyclerView.addItemDecoration(new CardItemDecoration(requireContext()));
         mRecyclerView.setAdapter(mAdapter);
+        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0 || !mHasMore || mLoadingMore) return;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager == null) return;
+                if (layoutManager.findLastVisibleItemPosition() >= mAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadMore();
+                }
+            }
+        });
 
         mPullViewHelper = new PullViewHelper(requireContext(), new PullToRefreshListener() {
             @Override
@@ -172,6 +192,8 @@ public class LogListFragment extends Fragment {
         final String level = mCurrentLevel;
         final String tag = mCurrentTag;
         final boolean isFiltering = !keyword.isEmpty() || !LogLevelFilter.isAll(level) || !ALL_TAG_VALUE.equals(tag);
+        final int generation = ++mQueryGeneration;
+        mLoadingMore = false;
 
         new Thread(() -> {
             boolean hasRootPermission;
@@ -185,13 +207,15 @@ public class LogListFragment extends Fragment {
             }
 
             LogDao dao = LogRepository.getInstance().getDao();
-            List<LogEntry> logs = dao.queryLogs(module, level, tag, keyword);
-            boolean hasAnyModuleLogs = isFiltering
-                ? !dao.queryLogs(module, LogLevelFilter.ALL.getValue(), ALL_TAG_VALUE, "").isEmpty()
-                : !logs.isEmpty();
+            LogQuery query = buildQuery(module, level, tag, keyword);
+            List<LogEntry> logs = dao.query(query);
+            boolean hasAnyModuleLogs = isFiltering ? dao.hasLogs(module) : !logs.isEmpty();
 
             if (getActivity() != null) {
                 getActivity().runOnUiThread(() -> {
+                    if (generation != mQueryGeneration) return;
+                    mLastEntry = logs.isEmpty() ? null : logs.get(logs.size() - 1);
+                    mHasMore = logs.size() >= query.getLimit();
                     mHasRootPermission = hasRootPermission;
                     mHasAnyModuleLogs = hasAnyModuleLogs;
                     mAdapter.updateData(logs, keyword);
@@ -204,6 +228,42 @@ public class LogListFragment extends Fragment {
         }).start();
     }
 
+    private void loadMore() {
+        final LogEntry last = mLastEntry;
+        if (last == null) return;
+        mLoadingMore = true;
+
+        final String module = mModule == 0 ? "App" : "Xposed";
+        final String keyword = mCurrentKeyword;
+        final String level = mCurrentLevel;
+        final String tag = mCurrentTag;
+        final int generation = mQueryGeneration;
+
+        new Thread(() -> {
+            LogQuery query = buildQuery(module, level, tag, keyword).after(last);
+            List<LogEntry> logs = LogRepository.getInstance().getDao().query(query);
+
+            if (getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    if (generation != mQueryGeneration) return;
+                    mLoadingMore = false;
+                    mHasMore = logs.size() >= query.getLimit();
+                    if (!logs.isEmpty()) {
+                        mLastEntry = logs.get(logs.size() - 1);
+                        mAdapter.appendData(logs);
+                    }
+                });
+            }
+        }).start();
+    }
+
+    private static LogQuery buildQuery(String module, String level, String tag, String keyword) {
+        return LogQuery.forModule(module)
+            .level(level)
+            .tag(tag)
+            .keyword(keyword);
+    }
+
     private void showLogDetail(LogEntry entry) {
         if (getActivity() == null) {
             return;
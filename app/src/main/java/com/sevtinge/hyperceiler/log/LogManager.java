@@ -29,6 +29,7 @@ import com.sevtinge.hyperceiler.common.log.LogStatusManager;
 import com.sevtinge.hyperceiler.home.safemode.AppCrashStore;
 import com.sevtinge.hyperceiler.home.safemode.CrashRecordStore;
 import com.sevtinge.hyperceiler.log.db.LogEntry;
+import com.sevtinge.hyperceiler.log.db.LogQuery;
 import com.sevtinge.hyperceiler.log.db.LogRepository;
 import com.sevtinge.hyperceiler.utils.ScopeManager;
 
@@ -177,11 +178,12 @@ public class LogManager {
      * 查询日志 (供 Fragment 使用)
      */
     public List<LogEntry> query(String module, String level, String tag, String keyword) {
-        return LogRepository.getInstance().getDao().queryLogs(
-            module,
-            (level == null || LogLevelFilter.isAll(level)) ? LogLevelFilter.ALL.getValue() : level,
-            tag == null ? "" : tag,
-            keyword == null ? "" : keyword
+        return LogRepository.getInstance().getDao().query(
+            LogQuery.forModule(module)
+                .level(level)
+                .tag(tag)
+                .keyword(keyword)
+                .limit(1000)
         );
     }
 
@@ -392,7 +394,7 @@ public class LogManager {
             return false;
         }
 
-        int offset = 0;
+        LogEntry last = null;
         int pageIndex = 1;
         long pageSize = 0;
         long markerSize = 0;
@@ -406,17 +408,17 @@ public class LogManager {
 
         while (true) {
             List<LogEntry> logs = sourceGroup == null
-                ? LogRepository.getInstance().getLogsByModulePageForExportSync(module, EXPORT_QUERY_BATCH_SIZE, offset)
+                ? LogRepository.getInstance().getLogsByModulePageForExportSync(module, last, EXPORT_QUERY_BATCH_SIZE)
                 : LogRepository.getInstance().getLogsByModuleAndSourceGroupPageForExportSync(
                     module,
                     sourceGroup,
-                    EXPORT_QUERY_BATCH_SIZE,
-                    offset
+                    last,
+                    EXPORT_QUERY_BATCH_SIZE
                 );
             if (logs.isEmpty()) {
                 break;
             }
-            offset += logs.size();
+            last = logs.get(logs.size() - 1);
 
             for (LogEntry entry : logs) {
                 String exportText = formatLogEntryForExport(entry);
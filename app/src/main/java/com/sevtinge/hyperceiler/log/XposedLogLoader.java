@@ -19,6 +19,7 @@
 package com.sevtinge.hyperceiler.log;
 
 import android.content.Context;
+import android.os.SystemClock;
 
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
 import com.sevtinge.hyperceiler.common.utils.ShellUtils;
@@ -27,18 +28,23 @@ import com.sevtinge.hyperceiler.log.db.LogEntry;
 import com.sevtinge.hyperceiler.log.db.LogRepository;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class XposedLogLoader {
 
@@ -51,23 +57,26 @@ public class XposedLogLoader {
     private static final String LSPD_COPY_DIR = "lspd";
     private static final String LSPD_LOG_SUBDIR = "log";
     private static final String LSPD_LOG_OLD_SUBDIR = "log.old";
-    private static final String FILTERED_MODULE = "Xposed";
+    private static final String IMPORT_STATE_FILE = ".xposed_import_state";
+    private static final String FILTERED_MODULE = XposedLogParser.FILTERED_MODULE;
     private static final String MODULES_LOG_PREFIX = "modules_";
     private static final String VERBOSE_LOG_PREFIX = "verbose_";
 
-    private static final String HYPERCEILER_TAG = "HyperCeiler";
+    private static final String HYPERCEILER_TAG = XposedLogParser.HYPERCEILER_TAG;
     private static final int MAX_ENTRY_MESSAGE_LENGTH = 32 * 1024;
     private static final int INSERT_BATCH_SIZE = 500;
 
-    private static final Pattern TIME_PATTERN = Pattern.compile(
-        "\\[\\s*(\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3})"
-    );
-    private static final SimpleDateFormat TIME_FORMAT =
-        new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", Locale.US);
-    private static final Pattern LINE_PREFIX_LEVEL_PATTERN = Pattern.compile(
-        "\\[\\s*\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}\\s+(\\d+):\\s*(\\d+):\\s*(\\d+)\\s+([VDIWEC])/"
-    );
-    private static final Pattern NEW_MODULE_PATTERN = Pattern.compile("\\[([^,\\]]+),([^\\]]+)\\]");
+    private static final RootShell ROOT_SHELL = new RootShell() {
+        @Override
+        public boolean hasRoot() {
+            return ShellUtils.checkRootPermission() == 0;
+        }
+
+        @Override
+        public String exec(String command) {
+            return ShellUtils.rootExecCmd(command);
+        }
+    };
 
     private static volatile XposedLogLoader sInstance;
     private static volatile boolean sSyncDeferredUntilNextLaunch;
@@ -77,13 +86,31 @@ public class XposedLogLoader {
     private final File mLspdCopyBaseDir;
     private final File mLspdLogDir;
     private final File mLspdLogOldDir;
+    private final File mImportStateFile;
+    private final String mSourceLogDir;
+    private final String mSourceLogOldDir;
+    private final RootShell mShell;
+    private final Supplier<LogDao> mDao;
 
     private XposedLogLoader(Context context) {
+        this(context, LSPD_LOG_DIR, LSPD_LOG_OLD_DIR, ROOT_SHELL, () -> LogRepository.getInstance().getDao());
+    }
+
+    /**
+     * @param sourceLogDir    LSPosed 当前日志目录
+     * @param sourceLogOldDir LSPosed 上一次启动的日志目录
+     */
+    XposedLogLoader(Context context, String sourceLogDir, String sourceLogOldDir, RootShell shell, Supplier<LogDao> dao) {
         mContext = context.getApplicationContext();
+        mSourceLogDir = sourceLogDir;
+        mSourceLogOldDir = sourceLogOldDir;
+        mShell = shell;
+        mDao = dao;
         mAppLogBaseDir = new File(mContext.getFilesDir(), APP_LOG_BASE_DIR);
         mLspdCopyBaseDir = new File(mAppLogBaseDir, LSPD_COPY_DIR);
         mLspdLogDir = new File(mLspdCopyBaseDir, LSPD_LOG_SUBDIR);
         mLspdLogOldDir = new File(mLspdCopyBaseDir, LSPD_LOG_OLD_SUBDIR);
+        mImportStateFile = new File(mAppLogBaseDir, IMPORT_STATE_FILE);
         initLogDirectories();
     }
 
@@ -137,15 +164,53 @@ public class XposedLogLoader {
         new Thread(() -> clearAllSync(context), "XposedLogClear").start();
     }
 
-    private void syncToDatabase() {
-        if (ShellUtils.checkRootPermission() != 0) {
+    /**
+     * 增量同步：按 inode 和已复制长度追踪每个 LSPosed 日志文件，只复制并解析新增的字节。
+     * LSPosed 启动时会把 log 整体移动为 log.old（inode 不变），此时把已导入的记录改为 log.old 分组；
+     * 文件被截断、替换或无法对应时回退为全量重新导入。
+     */
+    void syncToDatabase() {
+        if (!mShell.hasRoot()) {
             AndroidLog.w(TAG, "Root permission is required to sync Xposed logs.");
             return;
         }
 
         initLogDirectories();
-        copyLspdLogs();
-        persistFilteredLogsToDatabase();
+        long startTime = SystemClock.elapsedRealtime();
+        LogDao dao = mDao.get();
+        List<SourceFile> sources = listSourceFiles();
+        ImportState state = ImportState.load(mImportStateFile);
+
+        boolean incremental = prepareIncremental(sources, state, dao);
+        if (!incremental) {
+            dao.deleteByModule(FILTERED_MODULE);
+            state.clear();
+            clearDirectory(mLspdLogDir);
+            clearDirectory(mLspdLogOldDir);
+        }
+        removeStaleCopies(sources);
+
+        ImportStats stats = new ImportStats();
+        XposedLogParser parser = new XposedLogParser();
+        List<LogEntry> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (SourceFile source : sources) {
+            FileState fileState = state.files.get(source.key());
+            if (fileState == null) {
+                fileState = new FileState(source.inode);
+                state.files.put(source.key(), fileState);
+            }
+            try {
+                importSourceFile(source, fileState, parser, dao, batch, stats);
+            } catch (IOException e) {
+                AndroidLog.e(TAG, "Failed to import filtered log: " + source.name, e);
+            }
+        }
+        flushBatch(dao, batch, stats);
+        dao.autoTrim();
+
+        state.hasEntries |= stats.entries > 0;
+        state.save(mImportStateFile);
+        stats.report(incremental, SystemClock.elapsedRealtime() - startTime);
     }
 
     private void initLogDirectories() {
@@ -158,295 +223,248 @@ public class XposedLogLoader {
         );
     }
 
-    private void copyLspdLogs() {
-        copyLspdDirectory(LSPD_LOG_DIR, mLspdLogDir);
-        copyLspdDirectory(LSPD_LOG_OLD_DIR, mLspdLogOldDir);
-    }
-
-    private void copyLspdDirectory(String sourceDir, File targetDir) {
-        String checkCmd = "[ -d '" + sourceDir + "' ] && echo exists || echo missing";
-        if (!"exists".equals(ShellUtils.rootExecCmd(checkCmd).trim())) {
-            clearDirectory(targetDir);
-            return;
+    /**
+     * 一次 root 调用获取两个日志目录下所有文件的 inode 和大小
+     */
+    private List<SourceFile> listSourceFiles() {
+        String output = mShell.exec("stat -c '%i %s %n' '" + mSourceLogDir + "'/*.log '"
+            + mSourceLogOldDir + "'/*.log 2>/dev/null");
+        List<SourceFile> current = new ArrayList<>();
+        List<SourceFile> old = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            String[] parts = line.trim().split(" ", 3);
+            if (parts.length != 3) continue;
+            long inode;
+            long size;
+            try {
+                inode = Long.parseLong(parts[0]);
+                size = Long.parseLong(parts[1]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            String path = parts[2];
+            if (path.startsWith(mSourceLogOldDir + "/")) {
+                old.add(new SourceFile(LogEntry.SOURCE_GROUP_OLD, path, inode, size));
+            } else if (path.startsWith(mSourceLogDir + "/")) {
+                current.add(new SourceFile(LogEntry.SOURCE_GROUP_CURRENT, path, inode, size));
+            }
         }
 
-        ensureDirs(targetDir);
-        clearDirectory(targetDir);
-        ShellUtils.rootExecCmd("cp -f '" + sourceDir + "'/* '" + targetDir.getAbsolutePath() + "/' 2>/dev/null");
-        ShellUtils.rootExecCmd("chmod -R 644 '" + targetDir.getAbsolutePath() + "'/* 2>/dev/null");
+        List<SourceFile> sources = new ArrayList<>(selectSourceFiles(old));
+        sources.addAll(selectSourceFiles(current));
+        return sources;
     }
 
-    private void persistFilteredLogsToDatabase() {
-        LogDao dao = LogRepository.getInstance().getDao();
-        dao.deleteByModule(FILTERED_MODULE);
-
-        List<LogEntry> batch = new ArrayList<>(INSERT_BATCH_SIZE);
-        importDirectoryToDatabase(mLspdLogOldDir, LogEntry.SOURCE_GROUP_OLD, dao, batch);
-        importDirectoryToDatabase(mLspdLogDir, LogEntry.SOURCE_GROUP_CURRENT, dao, batch);
-        if (!batch.isEmpty()) {
-            dao.insertAll(batch);
-            batch.clear();
+    private List<SourceFile> selectSourceFiles(List<SourceFile> files) {
+        List<SourceFile> selected = new ArrayList<>();
+        for (SourceFile file : files) {
+            if (file.name.startsWith(MODULES_LOG_PREFIX)) selected.add(file);
         }
-        dao.autoTrim();
-    }
-
-    private void importDirectoryToDatabase(File directory, String sourceGroup, LogDao dao, List<LogEntry> batch) {
-        if (!directory.exists()) {
-            return;
-        }
-
-        File[] files = getSourceLogFiles(directory);
-        if (files == null) {
-            return;
-        }
-
-        for (File file : files) {
-            try {
-                importSourceFile(file, sourceGroup, dao, batch);
-            } catch (IOException e) {
-                AndroidLog.e(TAG, "Failed to import filtered log: " + file.getName(), e);
+        if (selected.isEmpty()) {
+            for (SourceFile file : files) {
+                if (file.name.startsWith(VERBOSE_LOG_PREFIX)) selected.add(file);
             }
         }
+        selected.sort(Comparator.comparing(file -> file.name));
+        return selected;
     }
 
-    private File[] getSourceLogFiles(File directory) {
-        File[] files = directory.listFiles((dir, name) ->
-            name.startsWith(MODULES_LOG_PREFIX) && name.endsWith(".log")
-        );
-        if (files == null || files.length == 0) {
-            files = directory.listFiles((dir, name) ->
-                name.startsWith(VERBOSE_LOG_PREFIX) && name.endsWith(".log")
-            );
+    /**
+     * 把数据库和本地副本对齐到当前源文件，返回 false 表示需要全量重新导入
+     */
+    private boolean prepareIncremental(List<SourceFile> sources, ImportState state, LogDao dao) {
+        if (state.files.isEmpty()) {
+            return false;
         }
-        if (files != null) {
-            Arrays.sort(files, Comparator.comparing(File::getName));
+        if (state.hasEntries && !dao.hasLogs(FILTERED_MODULE)) {
+            // 数据库被重建或清空，但导入状态仍在
+            return false;
         }
-        return files;
-    }
 
-    private void importSourceFile(File file, String sourceGroup, LogDao dao, List<LogEntry> batch) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(file), 16384)) {
-            String line;
-            StringBuilder currentEntry = new StringBuilder();
-            boolean isTarget = false;
-
-            while ((line = reader.readLine()) != null) {
-                if (isNewLogEntry(line)) {
-                    if (isTarget && !currentEntry.isEmpty()) {
-                        addFilteredEntry(dao, batch, currentEntry.toString(), sourceGroup);
+        if (isRotated(sources, state)) {
+            dao.deleteByModuleAndSourceGroup(FILTERED_MODULE, LogEntry.SOURCE_GROUP_OLD);
+            dao.moveSourceGroup(FILTERED_MODULE, LogEntry.SOURCE_GROUP_CURRENT, LogEntry.SOURCE_GROUP_OLD);
+            clearDirectory(mLspdLogOldDir);
+            File[] copies = mLspdLogDir.listFiles();
+            if (copies != null) {
+                for (File copy : copies) {
+                    if (!copy.renameTo(new File(mLspdLogOldDir, copy.getName()))) {
+                        AndroidLog.w(TAG, "Failed to move rotated log copy: " + copy.getName());
+                        return false;
                     }
-                    isTarget = line.contains(HYPERCEILER_TAG);
-                    currentEntry = new StringBuilder(line);
-                } else if (!currentEntry.isEmpty()
-                    && currentEntry.length() + line.length() + 1 <= MAX_ENTRY_MESSAGE_LENGTH) {
-                    currentEntry.append('\n').append(line);
                 }
             }
-
-            if (isTarget && !currentEntry.isEmpty()) {
-                addFilteredEntry(dao, batch, currentEntry.toString(), sourceGroup);
-            }
-        }
-    }
-
-    private void addFilteredEntry(LogDao dao, List<LogEntry> batch, String rawEntry, String sourceGroup) {
-        LogEntry entry = parseFilteredEntry(rawEntry, sourceGroup);
-        if (entry == null) {
-            return;
-        }
-        addBatchEntry(dao, batch, entry);
-    }
-
-    private void addBatchEntry(LogDao dao, List<LogEntry> batch, LogEntry entry) {
-        batch.add(entry);
-        if (batch.size() >= INSERT_BATCH_SIZE) {
-            dao.insertAll(batch);
-            batch.clear();
-        }
-    }
-
-    private LogEntry parseFilteredEntry(String rawEntry, String sourceGroup) {
-        if (rawEntry == null || rawEntry.isEmpty()) {
-            return null;
+            state.rotate();
+            AndroidLog.i(TAG, "LSPosed log rotation detected");
         }
 
-        int lineBreak = rawEntry.indexOf('\n');
-        if (lineBreak < 0) {
-            return parseXposedLogLine(rawEntry, sourceGroup);
+        Set<String> seen = new HashSet<>();
+        for (SourceFile source : sources) {
+            FileState fileState = state.files.get(source.key());
+            if (fileState == null) {
+                // 当前目录中新出现的文件从头导入即可，log.old 中出现未知文件说明状态已失效
+                if (LogEntry.SOURCE_GROUP_OLD.equals(source.group)) return false;
+                continue;
+            }
+            File copy = copyFileOf(source);
+            if (fileState.inode != source.inode
+                || source.size < fileState.copied
+                || copy.length() != fileState.copied) {
+                return false;
+            }
+            seen.add(source.key());
         }
-
-        String firstLine = rawEntry.substring(0, lineBreak);
-        LogEntry template = parseXposedLogLine(firstLine, sourceGroup);
-        return buildLogEntry(template, template.getMessage() + '\n' + rawEntry.substring(lineBreak + 1), sourceGroup);
+        // 已导入的文件消失但没有发生轮转，无法只删除它对应的记录
+        return seen.size() == state.files.size();
     }
 
-    private LogEntry parseXposedLogLine(String line, String sourceGroup) {
-        long timestamp = parseTimestamp(line);
-        String level = parseLevel(line);
-        String message = extractMessage(line);
-        String uidPid = extractUidPid(line);
-        String processIds = extractProcessIds(line);
-        String tag = extractPackageName(message);
-
-        if (message.contains("[CrashMonitor]")) {
-            level = "C";
+    private boolean isRotated(List<SourceFile> sources, ImportState state) {
+        for (SourceFile source : sources) {
+            if (!LogEntry.SOURCE_GROUP_OLD.equals(source.group)) continue;
+            FileState previous = state.files.get(SourceFile.key(LogEntry.SOURCE_GROUP_CURRENT, source.name));
+            if (previous != null && previous.inode == source.inode) {
+                return true;
+            }
         }
-        return new LogEntry(
-            FILTERED_MODULE,
-            level,
-            tag,
-            LogDisplayHelper.withUidPidMeta(message, uidPid),
-            timestamp,
-            sourceGroup,
-            processIds
-        );
+        return false;
     }
 
-    private LogEntry buildLogEntry(LogEntry template, String message, String sourceGroup) {
-        return new LogEntry(
-            FILTERED_MODULE,
-            template.getLevel(),
-            template.getTag(),
-            message.trim(),
-            template.getTimestamp(),
-            sourceGroup,
-            template.getProcessIds()
-        );
-    }
-
-    private boolean isNewLogEntry(String line) {
-        return line != null && line.startsWith("[") && TIME_PATTERN.matcher(line).find();
-    }
-
-    private long parseTimestamp(String line) {
-        Matcher matcher = TIME_PATTERN.matcher(line);
-        if (matcher.find()) {
-            try {
-                Date date = TIME_FORMAT.parse(matcher.group(1));
-                return date == null ? 0 : date.getTime();
-            } catch (Exception ignored) {
-                return 0;
-            }
+    private void removeStaleCopies(List<SourceFile> sources) {
+        Set<String> keys = new HashSet<>();
+        for (SourceFile source : sources) {
+            keys.add(source.key());
         }
-        return 0;
+        removeStaleCopies(mLspdLogDir, LogEntry.SOURCE_GROUP_CURRENT, keys);
+        removeStaleCopies(mLspdLogOldDir, LogEntry.SOURCE_GROUP_OLD, keys);
     }
 
-    private String parseLevel(String line) {
-        Matcher prefixMatcher = LINE_PREFIX_LEVEL_PATTERN.matcher(line);
-        if (prefixMatcher.find()) {
-            String level = prefixMatcher.group(4);
-            if (level != null && !level.isEmpty() && isNewFormat(line)) {
-                return level;
+    private void removeStaleCopies(File directory, String group, Set<String> keys) {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (!keys.contains(SourceFile.key(group, file.getName())) && !file.delete()) {
+                AndroidLog.w(TAG, "Failed to delete file: " + file.getAbsolutePath());
             }
         }
-        if (line.contains("[E]")) return "E";
-        if (line.contains("[W]")) return "W";
-        if (line.contains("[I]")) return "I";
-        if (line.contains("[D]")) return "D";
-        return "I";
     }
 
-    private String extractUidPid(String line) {
-        Matcher prefixMatcher = LINE_PREFIX_LEVEL_PATTERN.matcher(line);
-        if (!prefixMatcher.find()) {
-            return "";
-        }
-        String uid = prefixMatcher.group(1);
-        String pid = prefixMatcher.group(2);
-        if (uid == null || pid == null || uid.isEmpty() || pid.isEmpty()) {
-            return "";
+    private File copyFileOf(SourceFile source) {
+        File dir = LogEntry.SOURCE_GROUP_OLD.equals(source.group) ? mLspdLogOldDir : mLspdLogDir;
+        return new File(dir, source.name);
+    }
+
+    /**
+     * 把源文件新增的字节追加到本地副本，并从上次提交的位置开始解析
+     */
+    private void importSourceFile(
+        SourceFile source,
+        FileState fileState,
+        XposedLogParser parser,
+        LogDao dao,
+        List<LogEntry> batch,
+        ImportStats stats
+    ) throws IOException {
+        File copy = copyFileOf(source);
+        boolean isOld = LogEntry.SOURCE_GROUP_OLD.equals(source.group);
+        boolean appended = false;
+        if (source.size > fileState.copied || !copy.exists()) {
+            appended = true;
+            String redirect = fileState.copied == 0 ? " > '" : " >> '";
+            mShell.exec("tail -c +" + (fileState.copied + 1) + " '" + source.path + "'"
+                + redirect + copy.getAbsolutePath() + "' 2>/dev/null");
+            mShell.exec("chmod 644 '" + copy.getAbsolutePath() + "' 2>/dev/null");
+            fileState.copied = copy.length();
+        }
+        // 没有新内容时只有刚轮转到 log.old、末尾日志还未确认的文件需要再解析一次
+        if (fileState.parsed >= fileState.copied || (!appended && !isOld)) {
+            return;
         }
-        return uid + ":" + pid;
-    }
 
-    private String extractProcessIds(String line) {
-        Matcher prefixMatcher = LINE_PREFIX_LEVEL_PATTERN.matcher(line);
-        if (!prefixMatcher.find()) {
-            return "";
-        }
-        String uid = prefixMatcher.group(1);
-        String pid = prefixMatcher.group(2);
-        String tid = prefixMatcher.group(3);
-        if (uid == null || pid == null || tid == null || uid.isEmpty() || pid.isEmpty() || tid.isEmpty()) {
-            return "";
+        // 上次末尾那条日志可能还有后续行，删除后从它的起始位置重新解析
+        if (fileState.tailId != 0) {
+            dao.deleteById(fileState.tailId);
+            fileState.tailId = 0;
         }
-        return uid + ":" + pid + ":" + tid;
-    }
 
-    private boolean isNewFormat(String line) {
-        return NEW_MODULE_PATTERN.matcher(line).find();
-    }
-
-    private String extractMessage(String line) {
-        Matcher moduleMatcher = NEW_MODULE_PATTERN.matcher(line);
-        if (moduleMatcher.find()) {
-            int start = moduleMatcher.end();
-            while (start < line.length() && line.charAt(start) == ' ') {
-                start++;
-            }
-            return start < line.length() ? line.substring(start) : line;
-        }
-        int tagIndex = line.indexOf("[" + HYPERCEILER_TAG + "]");
-        return tagIndex != -1 ? line.substring(tagIndex) : line;
-    }
+        try (FileInputStream in = new FileInputStream(copy)) {
+            in.getChannel().position(fileState.parsed);
+            LineReader reader = new LineReader(in, fileState.parsed);
+            StringBuilder currentEntry = new StringBuilder();
+            long entryStart = -1;
+            boolean isTarget = false;
+            String line;
 
-    private String extractPackageName(String message) {
-        for (String level : new String[]{"[I]", "[D]", "[W]", "[E]", "[C]"}) {
-            int index = message.indexOf(level);
-            if (index == -1) {
-                continue;
-            }
-            int start = index + level.length();
-            if (start < message.length() && message.charAt(start) == '[') {
-                int end = message.indexOf(']', start + 1);
-                if (end != -1) {
-                    String candidate = message.substring(start + 1, end);
-                    if (isValidPackageName(candidate)) {
-                        return candidate;
+            while ((line = reader.readLine()) != null) {
+                stats.lines++;
+                if (parser.isHeader(line)) {
+                    if (isTarget && !currentEntry.isEmpty()) {
+                        addFilteredEntry(parser, dao, batch, stats, currentEntry.toString(), source.group);
                     }
+                    isTarget = line.contains(HYPERCEILER_TAG);
+                    currentEntry.setLength(0);
+                    currentEntry.append(line);
+                    entryStart = reader.lineStart();
+                } else if (!currentEntry.isEmpty()
+                    && currentEntry.length() + line.length() + 1 <= MAX_ENTRY_MESSAGE_LENGTH) {
+                    currentEntry.append('\n').append(line);
                 }
             }
-            break;
-        }
+            stats.bytes += reader.offset() - fileState.parsed;
 
-        if (message.startsWith("[")) {
-            int end = message.indexOf(']');
-            if (end != -1) {
-                String candidate = message.substring(1, end);
-                if (isValidPackageName(candidate)) {
-                    return candidate;
+            if (isOld) {
+                // log.old 不会再增长，末尾的日志直接视为完整
+                if (isTarget && !currentEntry.isEmpty()) {
+                    addFilteredEntry(parser, dao, batch, stats, currentEntry.toString(), source.group);
+                }
+                fileState.parsed = reader.offset();
+            } else if (entryStart >= 0) {
+                // 末尾的日志先写入并记住行 id，下次同步时连同后续行重新解析
+                fileState.parsed = entryStart;
+                if (isTarget && !currentEntry.isEmpty()) {
+                    LogEntry entry = parser.parseEntry(currentEntry.toString(), source.group);
+                    if (entry != null) {
+                        flushBatch(dao, batch, stats);
+                        fileState.tailId = dao.insert(entry);
+                        stats.entries++;
+                    }
                 }
+            } else {
+                fileState.parsed = reader.lastCompleteLineEnd();
             }
         }
-        return LogDisplayHelper.OTHER_TAG_VALUE;
     }
 
-    private boolean isValidPackageName(String name) {
-        if (name == null || name.isEmpty()) {
-            return false;
-        }
-        if ("system".equals(name)) {
-            return true;
-        }
-        if (!name.contains(".")) {
-            return false;
+    private void addFilteredEntry(
+        XposedLogParser parser,
+        LogDao dao,
+        List<LogEntry> batch,
+        ImportStats stats,
+        String rawEntry,
+        String sourceGroup
+    ) {
+        LogEntry entry = parser.parseEntry(rawEntry, sourceGroup);
+        if (entry == null) {
+            return;
         }
-        for (String part : name.split("\\.")) {
-            if (part.isEmpty() || !Character.isLetter(part.charAt(0))) {
-                return false;
-            }
-            for (char c : part.toCharArray()) {
-                if (!Character.isLetterOrDigit(c) && c != '_') {
-                    return false;
-                }
-            }
+        batch.add(entry);
+        if (batch.size() >= INSERT_BATCH_SIZE) {
+            flushBatch(dao, batch, stats);
         }
-        return true;
+    }
+
+    private void flushBatch(LogDao dao, List<LogEntry> batch, ImportStats stats) {
+        if (batch.isEmpty()) return;
+        dao.insertAll(batch);
+        stats.entries += batch.size();
+        batch.clear();
     }
 
     private void clearLogs() {
-        LogRepository.getInstance().getDao().deleteByModule(FILTERED_MODULE);
+        mDao.get().deleteByModule(FILTERED_MODULE);
         deleteDirectory(mLspdCopyBaseDir);
+        if (mImportStateFile.exists() && !mImportStateFile.delete()) {
+            AndroidLog.w(TAG, "Failed to delete import state");
+        }
         cleanupLegacyRotationMarker();
         initLogDirectories();
     }
@@ -492,4 +510,210 @@ public class XposedLogLoader {
             AndroidLog.w(TAG, "Failed to delete legacy rotation marker");
         }
     }
+
+    /**
+     * 以 root 身份执行命令，测试中替换为普通 shell
+     */
+    interface RootShell {
+        boolean hasRoot();
+
+        String exec(String command);
+    }
+
+    private static final class SourceFile {
+        final String group;
+        final String path;
+        final String name;
+        final long inode;
+        final long size;
+
+        SourceFile(String group, String path, long inode, long size) {
+            this.group = group;
+            this.path = path;
+            this.name = path.substring(path.lastIndexOf('/') + 1);
+            this.inode = inode;
+            this.size = size;
+        }
+
+        String key() {
+            return key(group, name);
+        }
+
+        static String key(String group, String name) {
+            return group + "/" + name;
+        }
+    }
+
+    private static final class FileState {
+        long inode;
+        // 已复制到本地副本的字节数
+        long copied;
+        // 已确认解析完成的位置，总是落在某条日志的起始处
+        long parsed;
+        // 末尾那条日志在数据库中的 id，0 表示没有
+        long tailId;
+
+        FileState(long inode) {
+            this.inode = inode;
+        }
+    }
+
+    /**
+     * 导入进度，格式：首行 "v1 hasEntries"，其后每行 "group\tname\tinode\tcopied\tparsed\ttailId"
+     */
+    private static final class ImportState {
+        private static final String VERSION = "v1";
+
+        final Map<String, FileState> files = new HashMap<>();
+        boolean hasEntries;
+
+        static ImportState load(File file) {
+            ImportState state = new ImportState();
+            if (!file.exists()) {
+                return state;
+            }
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String header = reader.readLine();
+                if (header == null || !header.startsWith(VERSION + " ")) {
+                    return state;
+                }
+                state.hasEntries = header.endsWith(" 1");
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t");
+                    if (parts.length != 6) continue;
+                    FileState fileState = new FileState(Long.parseLong(parts[2]));
+                    fileState.copied = Long.parseLong(parts[3]);
+                    fileState.parsed = Long.parseLong(parts[4]);
+                    fileState.tailId = Long.parseLong(parts[5]);
+                    state.files.put(SourceFile.key(parts[0], parts[1]), fileState);
+                }
+            } catch (IOException | NumberFormatException e) {
+                AndroidLog.w(TAG, "Failed to read import state, fall back to full import", e);
+                state.clear();
+            }
+            return state;
+        }
+
+        void save(File file) {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
+                writer.write(VERSION + " " + (hasEntries ? 1 : 0));
+                writer.newLine();
+                for (Map.Entry<String, FileState> entry : files.entrySet()) {
+                    String key = entry.getKey();
+                    int slash = key.indexOf('/');
+                    FileState fileState = entry.getValue();
+                    writer.write(key.substring(0, slash) + '\t' + key.substring(slash + 1) + '\t'
+                        + fileState.inode + '\t' + fileState.copied + '\t'
+                        + fileState.parsed + '\t' + fileState.tailId);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                AndroidLog.e(TAG, "Failed to write import state", e);
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                AndroidLog.w(TAG, "Failed to replace import state");
+            }
+        }
+
+        void clear() {
+            files.clear();
+            hasEntries = false;
+        }
+
+        /**
+         * log 目录整体变为 log.old，原 log.old 被丢弃
+         */
+        void rotate() {
+            Map<String, FileState> rotated = new HashMap<>();
+            String currentPrefix = LogEntry.SOURCE_GROUP_CURRENT + "/";
+            for (Map.Entry<String, FileState> entry : files.entrySet()) {
+                if (entry.getKey().startsWith(currentPrefix)) {
+                    String name = entry.getKey().substring(currentPrefix.length());
+                    rotated.put(SourceFile.key(LogEntry.SOURCE_GROUP_OLD, name), entry.getValue());
+                }
+            }
+            files.clear();
+            files.putAll(rotated);
+        }
+    }
+
+    private static final class ImportStats {
+        long lines;
+        long entries;
+        long bytes;
+
+        void report(boolean incremental, long costMs) {
+            long linesPerSecond = costMs > 0 ? lines * 1000 / costMs : lines;
+            AndroidLog.i(TAG, (incremental ? "Incremental" : "Full") + " Xposed log sync: "
+                + lines + " lines, " + entries + " entries, " + (bytes / 1024) + " KiB in "
+                + costMs + " ms (" + linesPerSecond + " lines/s)");
+        }
+    }
+
+    /**
+     * 按字节读取 UTF-8 行并记录每行在文件中的偏移，用于提交解析位置
+     */
+    private static final class LineReader {
+        private final InputStream mIn;
+        private final byte[] mBuffer = new byte[64 * 1024];
+        private byte[] mLine = new byte[1024];
+        private int mPos;
+        private int mLimit;
+        private long mOffset;
+        private long mLineStart;
+        private long mLastCompleteLineEnd;
+
+        LineReader(InputStream in, long offset) {
+            mIn = in;
+            mOffset = offset;
+            mLastCompleteLineEnd = offset;
+        }
+
+        String readLine() throws IOException {
+            int length = 0;
+            mLineStart = mOffset;
+            while (true) {
+                if (mPos >= mLimit) {
+                    mLimit = mIn.read(mBuffer, 0, mBuffer.length);
+                    mPos = 0;
+                    if (mLimit <= 0) {
+                        mLimit = 0;
+                        return length > 0 ? decode(length) : null;
+                    }
+                }
+                byte b = mBuffer[mPos++];
+                mOffset++;
+                if (b == '\n') {
+                    mLastCompleteLineEnd = mOffset;
+                    return decode(length);
+                }
+                if (length == mLine.length) {
+                    mLine = Arrays.copyOf(mLine, length * 2);
+                }
+                mLine[length++] = b;
+            }
+        }
+
+        private String decode(int length) {
+            if (length > 0 && mLine[length - 1] == '\r') {
+                length--;
+            }
+            return new String(mLine, 0, length, StandardCharsets.UTF_8);
+        }
+
+        long lineStart() {
+            return mLineStart;
+        }
+
+        long offset() {
+            return mOffset;
+        }
+
+        long lastCompleteLineEnd() {
+            return mLastCompleteLineEnd;
+        }
+    }
 }
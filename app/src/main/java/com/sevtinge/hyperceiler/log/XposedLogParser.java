@@ -0,0 +1,320 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.log;
+
+import com.sevtinge.hyperceiler.log.db.LogEntry;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * LSPosed 日志行解析器
+ * <p>
+ * 逐字符扫描行首 "[ yyyy-MM-ddTHH:mm:ss.SSS uid: pid: tid L/..." 前缀，不使用正则和 SimpleDateFormat；
+ * 时间戳按小时缓存本地时区偏移，同一小时内的行只做整数运算。非线程安全，每次同步创建一个实例。
+ */
+final class XposedLogParser {
+
+    static final String FILTERED_MODULE = "Xposed";
+    static final String HYPERCEILER_TAG = "HyperCeiler";
+
+    // "yyyy-MM-ddTHH:mm:ss.SSS"
+    private static final int TIME_LENGTH = 23;
+    private static final String[] INLINE_LEVELS = {"[I]", "[D]", "[W]", "[E]", "[C]"};
+
+    private final ZoneId mZone = ZoneId.systemDefault();
+    private long mCachedHourKey = Long.MIN_VALUE;
+    private long mCachedHourMillis;
+
+    // 最近一次 scanPrefix 的结果
+    private int mUidStart, mUidEnd, mPidStart, mPidEnd, mTidStart, mTidEnd;
+    private char mPrefixLevel;
+
+    /**
+     * 是否为一条新日志的首行
+     */
+    boolean isHeader(String line) {
+        return line != null && !line.isEmpty() && line.charAt(0) == '[' && timeStart(line) >= 0;
+    }
+
+    /**
+     * 解析一条完整日志（首行 + 续行）
+     */
+    LogEntry parseEntry(String rawEntry, String sourceGroup) {
+        if (rawEntry == null || rawEntry.isEmpty()) {
+            return null;
+        }
+
+        int lineBreak = rawEntry.indexOf('\n');
+        if (lineBreak < 0) {
+            return parseLine(rawEntry, sourceGroup);
+        }
+
+        LogEntry template = parseLine(rawEntry.substring(0, lineBreak), sourceGroup);
+        return new LogEntry(
+            FILTERED_MODULE,
+            template.getLevel(),
+            template.getTag(),
+            (template.getMessage() + '\n' + rawEntry.substring(lineBreak + 1)).trim(),
+            template.getTimestamp(),
+            sourceGroup,
+            template.getProcessIds()
+        );
+    }
+
+    private LogEntry parseLine(String line, String sourceGroup) {
+        int timeStart = line.startsWith("[") ? timeStart(line) : -1;
+        long timestamp = timeStart >= 0 ? parseTimestamp(line, timeStart) : 0;
+        boolean hasPrefix = timeStart >= 0 && scanPrefix(line, timeStart + TIME_LENGTH);
+        int moduleEnd = findModuleBracketEnd(line);
+
+        String level = hasPrefix && moduleEnd >= 0 ? String.valueOf(mPrefixLevel) : parseInlineLevel(line);
+        String message = extractMessage(line, moduleEnd);
+        String uidPid = "";
+        String processIds = "";
+        if (hasPrefix) {
+            String uid = line.substring(mUidStart, mUidEnd);
+            String pid = line.substring(mPidStart, mPidEnd);
+            uidPid = uid + ":" + pid;
+            processIds = uidPid + ":" + line.substring(mTidStart, mTidEnd);
+        }
+
+        if (message.contains("[CrashMonitor]")) {
+            level = "C";
+        }
+        return new LogEntry(
+            FILTERED_MODULE,
+            level,
+            extractPackageName(message),
+            LogDisplayHelper.withUidPidMeta(message, uidPid),
+            timestamp,
+            sourceGroup,
+            processIds
+        );
+    }
+
+    /**
+     * 返回行首 "[" 与可选空白之后时间字段的起始位置，不匹配返回 -1
+     */
+    private static int timeStart(String line) {
+        int i = 1;
+        int length = line.length();
+        while (i < length && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        if (length - i < TIME_LENGTH) return -1;
+        for (int k = 0; k < TIME_LENGTH; k++) {
+            char c = line.charAt(i + k);
+            boolean ok = switch (k) {
+                case 4, 7 -> c == '-';
+                case 10 -> c == 'T';
+                case 13, 16 -> c == ':';
+                case 19 -> c == '.';
+                default -> c >= '0' && c <= '9';
+            };
+            if (!ok) return -1;
+        }
+        return i;
+    }
+
+    private long parseTimestamp(String line, int i) {
+        int year = digits(line, i, 4);
+        int month = digits(line, i + 5, 2);
+        int day = digits(line, i + 8, 2);
+        int hour = digits(line, i + 11, 2);
+        int minute = digits(line, i + 14, 2);
+        int second = digits(line, i + 17, 2);
+        int millis = digits(line, i + 20, 3);
+
+        long hourKey = ((year * 100L + month) * 100L + day) * 100L + hour;
+        if (hourKey != mCachedHourKey) {
+            try {
+                mCachedHourMillis = LocalDateTime.of(year, month, day, hour, 0)
+                    .atZone(mZone)
+                    .toInstant()
+                    .toEpochMilli();
+                mCachedHourKey = hourKey;
+            } catch (DateTimeException e) {
+                return 0;
+            }
+        }
+        return mCachedHourMillis + minute * 60_000L + second * 1_000L + millis;
+    }
+
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int k = 0; k < count; k++) {
+            value = value * 10 + (line.charAt(start + k) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 扫描时间之后的 "\s+uid:\s*pid:\s*tid\s+L/"
+     */
+    private boolean scanPrefix(String line, int i) {
+        int length = line.length();
+        int start = i;
+        i = skipWhitespace(line, i);
+        if (i == start) return false;
+
+        mUidStart = i;
+        i = skipDigits(line, i);
+        mUidEnd = i;
+        if (mUidEnd == mUidStart || i >= length || line.charAt(i) != ':') return false;
+
+        i = skipWhitespace(line, i + 1);
+        mPidStart = i;
+        i = skipDigits(line, i);
+        mPidEnd = i;
+        if (mPidEnd == mPidStart || i >= length || line.charAt(i) != ':') return false;
+
+        i = skipWhitespace(line, i + 1);
+        mTidStart = i;
+        i = skipDigits(line, i);
+        mTidEnd = i;
+        if (mTidEnd == mTidStart) return false;
+
+        start = i;
+        i = skipWhitespace(line, i);
+        if (i == start || i + 1 >= length || line.charAt(i + 1) != '/') return false;
+
+        char level = line.charAt(i);
+        if ("VDIWEC".indexOf(level) < 0) return false;
+        mPrefixLevel = level;
+        return true;
+    }
+
+    private static int skipWhitespace(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(String line, int i) {
+        while (i < line.length() && line.charAt(i) >= '0' && line.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 查找第一个 "[a,b]" 形式的模块标记（新版 LSPosed 格式），返回其后一位，未找到返回 -1
+     */
+    private static int findModuleBracketEnd(String line) {
+        int length = line.length();
+        int open = line.indexOf('[');
+        while (open >= 0) {
+            int i = open + 1;
+            while (i < length && line.charAt(i) != ',' && line.charAt(i) != ']') {
+                i++;
+            }
+            if (i > open + 1 && i < length && line.charAt(i) == ',') {
+                int close = line.indexOf(']', i + 1);
+                if (close > i + 1) {
+                    return close + 1;
+                }
+                if (close < 0) {
+                    return -1;
+                }
+            }
+            open = line.indexOf('[', open + 1);
+        }
+        return -1;
+    }
+
+    private static String parseInlineLevel(String line) {
+        if (line.contains("[E]")) return "E";
+        if (line.contains("[W]")) return "W";
+        if (line.contains("[I]")) return "I";
+        if (line.contains("[D]")) return "D";
+        return "I";
+    }
+
+    private static String extractMessage(String line, int moduleEnd) {
+        if (moduleEnd >= 0) {
+            int start = moduleEnd;
+            while (start < line.length() && line.charAt(start) == ' ') {
+                start++;
+            }
+            return start < line.length() ? line.substring(start) : line;
+        }
+        int tagIndex = line.indexOf("[" + HYPERCEILER_TAG + "]");
+        return tagIndex != -1 ? line.substring(tagIndex) : line;
+    }
+
+    private static String extractPackageName(String message) {
+        for (String level : INLINE_LEVELS) {
+            int index = message.indexOf(level);
+            if (index == -1) {
+                continue;
+            }
+            int start = index + level.length();
+            if (start < message.length() && message.charAt(start) == '[') {
+                int end = message.indexOf(']', start + 1);
+                if (end != -1) {
+                    String candidate = message.substring(start + 1, end);
+                    if (isValidPackageName(candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+            break;
+        }
+
+        if (message.startsWith("[")) {
+            int end = message.indexOf(']');
+            if (end != -1) {
+                String candidate = message.substring(1, end);
+                if (isValidPackageName(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return LogDisplayHelper.OTHER_TAG_VALUE;
+    }
+
+    private static boolean isValidPackageName(String name) {
+        if (name == null || name.isEmpty()) {
+            return false;
+        }
+        if ("system".equals(name)) {
+            return true;
+        }
+        if (name.indexOf('.') < 0) {
+            return false;
+        }
+        boolean partStart = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.') {
+                if (partStart) return false;
+                partStart = true;
+            } else if (partStart) {
+                if (!Character.isLetter(c)) return false;
+                partStart = false;
+            } else if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return !partStart;
+    }
+}
@@ -22,6 +22,8 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
 import java.util.List;
 
@@ -32,7 +34,7 @@ public interface LogDao {
      * 1. 写入：插入单条 (App 运行时产生)
      */
     @Insert
-    void insert(LogEntry entry);
+    long insert(LogEntry entry);
 
     /**
      * 2. 批量写入：用于 Xposed 日志同步 (性能更高)
@@ -42,13 +44,20 @@ public interface LogDao {
 
     /**
      * 3. UI 列表核心查询：
-     * 支持模块筛选、级别过滤、关键词搜索，单页查看时放宽到最近 20000 条
+     * 支持模块、级别、标签、时间范围、关键词过滤，按 (timestamp, id) 游标分页，条件由 {@link LogQuery} 构建
      */
-    @Query("SELECT * FROM logs WHERE module = :module " +
-        "AND (:level = 'ALL' OR level = :level) " +
-        "AND (:keyword = '' OR message LIKE '%' || :keyword || '%' OR tag LIKE '%' || :keyword || '%') " +
-        "ORDER BY timestamp DESC LIMIT 1000")
-    List<LogEntry> queryLogs(String module, String level, String keyword);
+    @RawQuery
+    List<LogEntry> query(SupportSQLiteQuery query);
+
+    default List<LogEntry> query(LogQuery query) {
+        return query(query.build());
+    }
+
+    /**
+     * 指定模块下是否存在任意日志
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM logs WHERE module = :module)")
+    boolean hasLogs(String module);
 
     /**
      * 4. 清理功能：按模块清空日志
@@ -56,10 +65,23 @@ public interface LogDao {
     @Query("DELETE FROM logs WHERE module = :module")
     void deleteByModule(String module);
 
+    @Query("DELETE FROM logs WHERE module = :module AND source_group = :sourceGroup")
+    void deleteByModuleAndSourceGroup(String module, String sourceGroup);
+
+    @Query("DELETE FROM logs WHERE id = :id")
+    void deleteById(long id);
+
+    /**
+     * Xposed 日志轮转时把已导入的记录改到新的来源分组
+     */
+    @Query("UPDATE logs SET source_group = :to WHERE module = :module AND source_group = :from")
+    void moveSourceGroup(String module, String from, String to);
+
     /**
      * 5. 维护功能：防止数据库过大，只保留最近的 50000 条
      */
-    @Query("DELETE FROM logs WHERE id NOT IN (SELECT id FROM logs ORDER BY timestamp DESC LIMIT 50000)")
+    @Query("DELETE FROM logs WHERE id IN " +
+        "(SELECT id FROM logs ORDER BY timestamp DESC, id DESC LIMIT -1 OFFSET 50000)")
     void autoTrim();
 
     /**
@@ -75,27 +97,27 @@ public interface LogDao {
     @Query("SELECT DISTINCT tag FROM logs WHERE module = :module AND tag IS NOT NULL ORDER BY tag ASC")
     List<String> getDistinctTags(String module);
 
-    /**
-     * 四参数核心查询：支持 模块 + 级别 + 标签 + 关键词
-     * 处理逻辑：如果 level 是 'ALL'，或者 tag 为空，则跳过该条件
-     */
-    @Query("SELECT * FROM logs WHERE module = :module " +
-        "AND (:level = 'ALL' OR level = :level) " +
-        "AND (:tag = '' OR tag = :tag) " +
-        "AND (:keyword = '' OR message LIKE '%' || :keyword || '%' OR tag LIKE '%' || :keyword || '%') " +
-        "ORDER BY timestamp DESC LIMIT 1000")
-    List<LogEntry> queryLogs(String module, String level, String tag, String keyword);
-
     @Query("SELECT * FROM logs ORDER BY timestamp ASC")
     List<LogEntry> getAllLogsForExport();
 
     @Query("SELECT * FROM logs WHERE module = :module ORDER BY timestamp ASC")
     List<LogEntry> getLogsByModuleForExport(String module);
 
-    @Query("SELECT * FROM logs WHERE module = :module ORDER BY timestamp ASC, id ASC LIMIT :limit OFFSET :offset")
-    List<LogEntry> getLogsByModulePageForExport(String module, int limit, int offset);
+    /**
+     * 导出分页：返回 (afterTimestamp, afterId) 之后的一页，首页传入 Long.MIN_VALUE
+     */
+    @Query("SELECT * FROM logs WHERE module = :module AND (timestamp, id) > (:afterTimestamp, :afterId) " +
+        "ORDER BY timestamp ASC, id ASC LIMIT :limit")
+    List<LogEntry> getLogsByModulePageForExport(String module, long afterTimestamp, long afterId, int limit);
 
     @Query("SELECT * FROM logs WHERE module = :module AND source_group = :sourceGroup " +
-        "ORDER BY timestamp ASC, id ASC LIMIT :limit OFFSET :offset")
-    List<LogEntry> getLogsByModuleAndSourceGroupPageForExport(String module, String sourceGroup, int limit, int offset);
+        "AND (timestamp, id) > (:afterTimestamp, :afterId) " +
+        "ORDER BY timestamp ASC, id ASC LIMIT :limit")
+    List<LogEntry> getLogsByModuleAndSourceGroupPageForExport(
+        String module,
+        String sourceGroup,
+        long afterTimestamp,
+        long afterId,
+        int limit
+    );
 }
@@ -21,7 +21,7 @@ package com.sevtinge.hyperceiler.log.db;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
 
-@Database(entities = {LogEntry.class}, version = 2, exportSchema = false)
+@Database(entities = {LogEntry.class, LogFtsEntity.class}, version = 3, exportSchema = false)
 public abstract class LogDatabase extends RoomDatabase {
     public abstract LogDao logDao();
 }
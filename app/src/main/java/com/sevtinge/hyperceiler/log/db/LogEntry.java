@@ -31,7 +31,11 @@ import java.util.Locale;
 @Entity(
     tableName = "logs",
     indices = {
-        @Index("module"),
+        // 复合索引末尾隐含 rowid (id)，可直接满足 (timestamp, id) 游标排序
+        @Index({"module", "timestamp"}),
+        @Index({"module", "level", "timestamp"}),
+        @Index({"module", "tag", "timestamp"}),
+        @Index({"module", "source_group", "timestamp"}),
         @Index("timestamp")
     }
 )
@@ -0,0 +1,260 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.log.db;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 日志列表查询条件
+ * <p>
+ * 只拼接实际生效的过滤条件，使 (module, level/tag/source_group, timestamp) 复合索引可以被命中；
+ * 翻页使用 (timestamp, id) 游标而不是 OFFSET，任意页的开销都与第一页相同。
+ * 关键词按词前缀经 logs_fts 全文索引匹配 message 与 tag，例如 "Exception" 可以搜到 "Exception:" 与
+ * ExceptionInInitializerError，但不会搜到词中间的 NullPointerException；
+ * 含无法按 unicode61 规则归类的字符或不含任何词字符的关键词退回子串匹配（LIKE）。
+ */
+public final class LogQuery {
+    public static final String LEVEL_ALL = "ALL";
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final String module;
+    private String level;
+    private String tag;
+    private String sourceGroup;
+    private String keyword;
+    private long fromTimestamp = Long.MIN_VALUE;
+    private long toTimestamp = Long.MAX_VALUE;
+    private boolean ascending = false;
+    private boolean hasCursor = false;
+    private long cursorTimestamp;
+    private long cursorId;
+    private int limit = DEFAULT_PAGE_SIZE;
+
+    private LogQuery(@NonNull String module) {
+        this.module = module;
+    }
+
+    public static LogQuery forModule(@NonNull String module) {
+        return new LogQuery(module);
+    }
+
+    /**
+     * 日志级别，null 或 "ALL" 表示不过滤
+     */
+    public LogQuery level(@Nullable String level) {
+        this.level = level == null || LEVEL_ALL.equals(level) || level.isEmpty() ? null : level;
+        return this;
+    }
+
+    /**
+     * 标签，null 或空串表示不过滤
+     */
+    public LogQuery tag(@Nullable String tag) {
+        this.tag = tag == null || tag.isEmpty() ? null : tag;
+        return this;
+    }
+
+    public LogQuery sourceGroup(@Nullable String sourceGroup) {
+        this.sourceGroup = sourceGroup == null || sourceGroup.isEmpty() ? null : sourceGroup;
+        return this;
+    }
+
+    public LogQuery keyword(@Nullable String keyword) {
+        this.keyword = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim();
+        return this;
+    }
+
+    /**
+     * 时间范围，闭区间，单位毫秒
+     */
+    public LogQuery timeRange(long fromTimestamp, long toTimestamp) {
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        return this;
+    }
+
+    /**
+     * 按时间正序返回（导出使用），默认倒序（列表查看使用）
+     */
+    public LogQuery ascending() {
+        this.ascending = true;
+        return this;
+    }
+
+    /**
+     * 从上一页最后一条之后继续
+     */
+    public LogQuery after(@Nullable LogEntry last) {
+        if (last != null) {
+            hasCursor = true;
+            cursorTimestamp = last.getTimestamp();
+            cursorId = last.getId();
+        }
+        return this;
+    }
+
+    public LogQuery limit(int limit) {
+        this.limit = Math.max(1, limit);
+        return this;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @NonNull
+    public SupportSQLiteQuery build() {
+        StringBuilder sql = new StringBuilder("SELECT * FROM logs WHERE module = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(module);
+
+        if (level != null) {
+            sql.append(" AND level = ?");
+            args.add(level);
+        }
+        if (tag != null) {
+            sql.append(" AND tag = ?");
+            args.add(tag);
+        }
+        if (sourceGroup != null) {
+            sql.append(" AND source_group = ?");
+            args.add(sourceGroup);
+        }
+        if (fromTimestamp != Long.MIN_VALUE) {
+            sql.append(" AND timestamp >= ?");
+            args.add(fromTimestamp);
+        }
+        if (toTimestamp != Long.MAX_VALUE) {
+            sql.append(" AND timestamp <= ?");
+            args.add(toTimestamp);
+        }
+        if (keyword != null) {
+            String match = toMatchQuery(keyword);
+            if (match != null) {
+                sql.append(" AND id IN (SELECT rowid FROM logs_fts WHERE logs_fts MATCH ?)");
+                args.add(match);
+            } else {
+                sql.append(" AND (message LIKE ? ESCAPE '\\' OR tag LIKE ? ESCAPE '\\')");
+                String pattern = "%" + escapeLike(keyword) + "%";
+                args.add(pattern);
+                args.add(pattern);
+            }
+        }
+        if (hasCursor) {
+            sql.append(ascending ? " AND (timestamp, id) > (?, ?)" : " AND (timestamp, id) < (?, ?)");
+            args.add(cursorTimestamp);
+            args.add(cursorId);
+        }
+        sql.append(ascending ? " ORDER BY timestamp ASC, id ASC" : " ORDER BY timestamp DESC, id DESC");
+        sql.append(" LIMIT ").append(limit);
+
+        return new SimpleSQLiteQuery(sql.toString(), args.toArray());
+    }
+
+    /**
+     * 生成关键词的全文索引条件。
+     * <p>
+     * 关键词按 unicode61 的规则切分为词，依次组成短语；末个词后没有分隔符时作为前缀，
+     * 例如 "Exception" -> "exception*"，"com.miui.home" -> "com miui home*"，"com.miui." -> "com miui"。
+     *
+     * @return 关键词含无法归类的字符或不含词字符时返回 null，此时使用 LIKE
+     */
+    @Nullable
+    static String toMatchQuery(@NonNull String keyword) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean trailingSeparator = false;
+        for (int i = 0; i < keyword.length(); ) {
+            int cp = keyword.codePointAt(i);
+            i += Character.charCount(cp);
+            int type = classify(cp);
+            if (type == CHAR_UNKNOWN) return null;
+            if (type == CHAR_TOKEN) {
+                token.appendCodePoint(cp);
+                trailingSeparator = false;
+            } else {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+                trailingSeparator = true;
+            }
+        }
+        if (token.length() > 0) tokens.add(token.toString());
+        if (tokens.isEmpty()) return null;
+
+        StringBuilder phrase = new StringBuilder();
+        for (String t : tokens) {
+            if (phrase.length() > 0) phrase.append(' ');
+            phrase.append(t.toLowerCase(Locale.ROOT));
+        }
+        if (!trailingSeparator) phrase.append('*');
+        return "\"" + phrase + "\"";
+    }
+
+    private static final int CHAR_TOKEN = 0;
+    private static final int CHAR_SEPARATOR = 1;
+    private static final int CHAR_UNKNOWN = 2;
+
+    /**
+     * 与 unicode61 分词器一致：ASCII 中只有字母和数字是词字符；非 ASCII 的字母、数字是词字符，空白和标点是分隔符。
+     * 符号、组合标记等其余字符在两边的归类不一定相同，返回 {@link #CHAR_UNKNOWN}
+     */
+    private static int classify(int cp) {
+        if (cp < 0x80) {
+            return (cp >= '0' && cp <= '9') || (cp >= 'a' && cp <= 'z') || (cp >= 'A' && cp <= 'Z')
+                ? CHAR_TOKEN : CHAR_SEPARATOR;
+        }
+        switch (Character.getType(cp)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+                return CHAR_TOKEN;
+            case Character.SPACE_SEPARATOR:
+            case Character.LINE_SEPARATOR:
+            case Character.PARAGRAPH_SEPARATOR:
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return CHAR_SEPARATOR;
+            default:
+                return CHAR_UNKNOWN;
+        }
+    }
+
+    private static String escapeLike(String keyword) {
+        return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -20,6 +20,7 @@ package com.sevtinge.hyperceiler.log.db;
 
 import android.content.Context;
 
+import androidx.annotation.Nullable;
 import androidx.room.Room;
 
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
@@ -137,9 +138,14 @@ public class LogRepository {
         }
     }
 
-    public List<LogEntry> getLogsByModulePageForExportSync(String module, int limit, int offset) {
+    /**
+     * 导出分页，传入上一页最后一条作为游标，首页传 null
+     */
+    public List<LogEntry> getLogsByModulePageForExportSync(String module, @Nullable LogEntry last, int limit) {
+        long afterTimestamp = last == null ? Long.MIN_VALUE : last.getTimestamp();
+        long afterId = last == null ? Long.MIN_VALUE : last.getId();
         try {
-            return mIoExecutor.submit(() -> mLogDao.getLogsByModulePageForExport(module, limit, offset))
+            return mIoExecutor.submit(() -> mLogDao.getLogsByModulePageForExport(module, afterTimestamp, afterId, limit))
                 .get(5, TimeUnit.SECONDS);
         } catch (Exception e) {
             AndroidLog.e(TAG, "Failed to query paged logs for export: " + module, e);
@@ -150,11 +156,14 @@ public class LogRepository {
     public List<LogEntry> getLogsByModuleAndSourceGroupPageForExportSync(
         String module,
         String sourceGroup,
-        int limit,
-        int offset
+        @Nullable LogEntry last,
+        int limit
     ) {
+        long afterTimestamp = last == null ? Long.MIN_VALUE : last.getTimestamp();
+        long afterId = last == null ? Long.MIN_VALUE : last.getId();
         try {
-            return mIoExecutor.submit(() -> mLogDao.getLogsByModuleAndSourceGroupPageForExport(module, sourceGroup, limit, offset))
+            return mIoExecutor.submit(() -> mLogDao.getLogsByModuleAndSourceGroupPageForExport(
+                    module, sourceGroup, afterTimestamp, afterId, limit))
                 .get(5, TimeUnit.SECONDS);
         } catch (Exception e) {
             AndroidLog.e(TAG, "Failed to query paged logs for export: " + module + ", " + sourceGroup, e);
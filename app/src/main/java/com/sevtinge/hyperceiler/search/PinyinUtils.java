@@ -1,29 +1,72 @@
 package com.sevtinge.hyperceiler.search;
 
+import android.icu.text.Transliterator;
 import android.text.TextUtils;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 public class PinyinUtils {
+
+    // 系统 ICU 自带的汉字转拼音规则，去掉声调并转为小写，无需额外打包字典
+    private static final String HAN_TO_PINYIN = "Han-Latin; Latin-ASCII; Lower";
+
+    private static final Map<Integer, String> sCache = new HashMap<>();
+    private static Transliterator sTransliterator;
+
+    /**
+     * 是否为汉字（含扩展区、兼容区）
+     */
+    public static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+
     /**
-     * 获取汉字串拼音首字母，英文字符不变
+     * 获取单个汉字的无声调拼音，非汉字或无法转换时返回 null
+     */
+    public static String getPinyin(int codePoint) {
+        if (!isHan(codePoint)) return null;
+        synchronized (sCache) {
+            String cached = sCache.get(codePoint);
+            if (cached != null) return cached.isEmpty() ? null : cached;
+
+            if (sTransliterator == null) {
+                sTransliterator = Transliterator.getInstance(HAN_TO_PINYIN);
+            }
+            String result = sTransliterator.transliterate(new String(Character.toChars(codePoint))).trim();
+            // 无对应读音时 ICU 会原样返回汉字
+            String pinyin = isAsciiLetters(result) ? result : "";
+            sCache.put(codePoint, pinyin);
+            return pinyin.isEmpty() ? null : pinyin;
+        }
+    }
+
+    /**
+     * 获取汉字串拼音首字母，其它字符不变
      */
     public static String getFirstLetters(String str) {
         if (TextUtils.isEmpty(str)) return "";
         StringBuilder sb = new StringBuilder();
-        for (char c : str.toCharArray()) {
-            if (c >= 0x4E00 && c <= 0x9FA5) { // 如果是中文字符
-                sb.append(getCharFirstLetter(c));
+        for (int i = 0; i < str.length(); ) {
+            int cp = str.codePointAt(i);
+            i += Character.charCount(cp);
+            String pinyin = getPinyin(cp);
+            if (pinyin != null) {
+                sb.append(pinyin.charAt(0));
             } else {
-                sb.append(c);
+                sb.appendCodePoint(cp);
             }
         }
-        return sb.toString().toLowerCase();
+        return sb.toString().toLowerCase(Locale.ROOT);
     }
 
-    // 这是一个简单的汉字首字母映射表逻辑（简化版）
-    // 实际生产中如果没有库，也可以只存原文本，但搜索体验会打折扣
-    private static char getCharFirstLetter(char ch) {
-        // 这里可以实现一个简单的映射，或者暂时返回原字符
-        // 为了代码完整性，这里建议还是先存原文本，等后期有需求再加库
-        return ch;
+    private static boolean isAsciiLetters(String str) {
+        if (str.isEmpty()) return false;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 'a' || c > 'z') return false;
+        }
+        return true;
     }
 }
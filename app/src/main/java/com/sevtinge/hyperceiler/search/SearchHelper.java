@@ -1,10 +1,13 @@
 package com.sevtinge.hyperceiler.search;
 
 import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.content.res.XmlResourceParser;
 import android.graphics.Color;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import androidx.preference.PreferenceCategory;
@@ -20,6 +23,7 @@ import com.sevtinge.hyperceiler.prefs.PreferenceHeader;
 import com.sevtinge.hyperceiler.search.data.AppDatabase;
 import com.sevtinge.hyperceiler.search.data.ModDao;
 import com.sevtinge.hyperceiler.search.data.ModEntity;
+import com.sevtinge.hyperceiler.search.data.SearchMetaEntity;
 import com.sevtinge.hyperceiler.utils.LanguageHelper;
 
 import org.xmlpull.v1.XmlPullParser;
@@ -27,9 +31,12 @@ import org.xmlpull.v1.XmlPullParser;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,6 +48,11 @@ public class SearchHelper {
     private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
     private static final String APP_NS = "http://schemas.android.com/apk/res-auto";
 
+    // 分词规则或索引结构变化时递增，使旧索引失效
+    private static final int INDEX_FORMAT_VERSION = 1;
+    private static final String META_FINGERPRINT = "fingerprint";
+    private static final Object INDEX_LOCK = new Object();
+
     private static final Set<Integer> REGISTERED = Collections.synchronizedSet(new HashSet<>());
 
     private static final Map<String, String> GROUP_PACKAGE_MAP = new LinkedHashMap<>();
@@ -55,36 +67,74 @@ public class SearchHelper {
         return Collections.unmodifiableMap(GROUP_ICON_MAP);
     }
 
+    /**
+     * 初始化搜索索引
+     *
+     * @param force true 时忽略指纹强制重建，否则仅在应用版本、语言或设置页资源变化后重建
+     */
     public static void initIndex(Context context, boolean force) {
         AndroidLog.d(TAG, "initIndex: force = " + force);
         ThreadPoolManager.getInstance().submit(() -> {
-            ModDao dao = AppDatabase.getInstance(context).modDao();
-            if (force || dao.getCount() == 0) {
-                rebuildIndex(context, dao);
+            synchronized (INDEX_LOCK) {
+                long start = SystemClock.elapsedRealtime();
+                ModDao dao = AppDatabase.getInstance(context).modDao();
+                Resources res = getLocaleResources(context);
+                int headersXmlResId = HomePageFragment.getHomeHeadersResourceId();
+                if (headersXmlResId == 0) {
+                    AndroidLog.e(TAG, "Home headers xml not found!");
+                    return;
+                }
+
+                String fingerprint = computeFingerprint(context, res, headersXmlResId);
+                if (!force && fingerprint.equals(dao.getMeta(META_FINGERPRINT)) && dao.getCount() > 0) {
+                    // 索引仍然有效，只恢复分组的包名和图标
+                    scanHeaders(res, headersXmlResId, null);
+                    AndroidLog.d(TAG, "initIndex: index up to date, took " + (SystemClock.elapsedRealtime() - start) + " ms");
+                    return;
+                }
+                rebuildIndex(context, res, headersXmlResId, dao, fingerprint);
+                AndroidLog.d(TAG, "initIndex: rebuilt, took " + (SystemClock.elapsedRealtime() - start) + " ms");
             }
         });
     }
 
-    private static void rebuildIndex(Context context, ModDao dao) {
+    /**
+     * 索引指纹：分词规则版本 + 应用版本与安装时间（覆盖资源变化）+ 语言 + 入口 XML
+     */
+    private static String computeFingerprint(Context context, Resources res, int headersXmlResId) {
+        long versionCode = 0;
+        long lastUpdateTime = 0;
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            versionCode = info.getLongVersionCode();
+            lastUpdateTime = info.lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            AndroidLog.w(TAG, "computeFingerprint: package info unavailable", e);
+        }
+        return INDEX_FORMAT_VERSION + "|" + versionCode + "|" + lastUpdateTime + "|"
+            + res.getConfiguration().getLocales().toLanguageTags() + "|" + headersXmlResId;
+    }
+
+    private static void rebuildIndex(Context context, Resources res, int headersXmlResId, ModDao dao, String fingerprint) {
         REGISTERED.clear();
-        Resources res = getLocaleResources(context);
         List<ModEntity> entities = new ArrayList<>();
 
-        int headersXmlResId = HomePageFragment.getHomeHeadersResourceId();
-        if (headersXmlResId == 0) {
-            AndroidLog.e(TAG, "Home headers xml not found!");
-            return;
-        }
-
         scanHeaders(res, headersXmlResId, entities);
+        for (ModEntity mod : entities) {
+            mod.searchTokens = SearchTokenizer.buildIndexTokens(mod.title);
+        }
 
         AppDatabase.getInstance(context).runInTransaction(() -> {
             dao.deleteAll();
             dao.insertAll(entities);
+            dao.putMeta(new SearchMetaEntity(META_FINGERPRINT, fingerprint));
             AndroidLog.d(TAG, "rebuildIndex: inserted " + entities.size() + " entries");
         });
     }
 
+    /**
+     * 扫描首页入口，填充分组信息；entities 为 null 时不递归扫描各页面
+     */
     private static void scanHeaders(Resources res, int headersXmlResId, List<ModEntity> entities) {
         GROUP_PACKAGE_MAP.clear();
         GROUP_ICON_MAP.clear();
@@ -111,13 +161,15 @@ public class SearchHelper {
                         GROUP_ICON_MAP.put(groupTitle, iconResId);
                     }
 
-                    if (inflatedXml > 0) {
-                        String frag = fragment != null ? fragment : DashboardFragment.class.getName();
-                        scanEntryXml(res, frag, inflatedXml, groupTitle, groupTitle, entities);
-                    } else if (fragment != null) {
-                        int xmlResId = getXmlResIdFromFragment(fragment);
-                        if (xmlResId > 0) {
-                            scanEntryXml(res, fragment, xmlResId, groupTitle, groupTitle, entities);
+                    if (entities != null) {
+                        if (inflatedXml > 0) {
+                            String frag = fragment != null ? fragment : DashboardFragment.class.getName();
+                            scanEntryXml(res, frag, inflatedXml, groupTitle, groupTitle, entities);
+                        } else if (fragment != null) {
+                            int xmlResId = getXmlResIdFromFragment(fragment);
+                            if (xmlResId > 0) {
+                                scanEntryXml(res, fragment, xmlResId, groupTitle, groupTitle, entities);
+                            }
                         }
                     }
                 }
@@ -194,27 +246,55 @@ public class SearchHelper {
     public static List<ModEntity> search(Context context, String keyword) {
         if (TextUtils.isEmpty(keyword)) return new ArrayList<>();
         String trimmed = keyword.trim();
+        String query = SearchTokenizer.buildMatchQuery(trimmed);
+        if (query == null) return new ArrayList<>();
+
+        long start = SystemClock.elapsedRealtime();
         ModDao dao = AppDatabase.getInstance(context).modDao();
+        List<ModEntity> results = rankResults(dao.search(query), trimmed);
+        AndroidLog.d(TAG, "search: " + results.size() + " results in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return results;
+    }
 
-        // 中文（简体/繁体）按字模糊匹配，其它语言按词汇匹配
-        if (containsChinese(trimmed)) {
-            return dao.testSearch(trimmed);
-        } else {
-            String query = trimmed.replace("'", "''") + "*";
-            return dao.search(query);
+    /**
+     * 按标题匹配程度排序：完全一致 > 前缀 > 包含原文 > 仅拼音/分词命中。
+     * 结果按分组展示，分组之间按组内最佳名次排序，组内保持名次与原有顺序
+     */
+    private static List<ModEntity> rankResults(List<ModEntity> results, String keyword) {
+        if (results.size() < 2) return results;
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        Map<String, Integer> groupBest = new HashMap<>();
+        Map<String, Integer> groupFirst = new HashMap<>();
+        List<RankedMod> ranked = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ModEntity mod = results.get(i);
+            String title = mod.title == null ? "" : mod.title.toLowerCase(Locale.ROOT);
+            int rank;
+            if (title.equals(lowerKeyword)) rank = 0;
+            else if (title.startsWith(lowerKeyword)) rank = 1;
+            else if (title.contains(lowerKeyword)) rank = 2;
+            else rank = 3;
+
+            String group = mod.groupName == null ? "" : mod.groupName;
+            groupBest.merge(group, rank, Math::min);
+            groupFirst.putIfAbsent(group, i);
+            ranked.add(new RankedMod(mod, group, rank, i));
         }
-    }
 
-    private static boolean containsChinese(String text) {
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c >= 0x4E00 && c <= 0x9FFF  // CJK Unified Ideographs
-                || c >= 0x3400 && c <= 0x4DBF  // CJK Extension A
-                || c >= 0xF900 && c <= 0xFAFF) { // CJK Compatibility Ideographs
-                return true;
-            }
+        ranked.sort(Comparator
+            .comparingInt((RankedMod r) -> groupBest.get(r.group()))
+            .thenComparingInt(r -> groupFirst.get(r.group()))
+            .thenComparingInt(RankedMod::rank)
+            .thenComparingInt(RankedMod::index));
+
+        List<ModEntity> sorted = new ArrayList<>(ranked.size());
+        for (RankedMod r : ranked) {
+            sorted.add(r.mod());
         }
-        return false;
+        return sorted;
+    }
+
+    private record RankedMod(ModEntity mod, String group, int rank, int index) {
     }
 
     public static void clearIndex() {
@@ -0,0 +1,169 @@
+package com.sevtinge.hyperceiler.search;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索索引分词
+ * <p>
+ * FTS 的 simple 分词器只按 ASCII 标点和空白切分，无法处理连续的汉字，
+ * 因此索引前在 Java 侧把标题预先切成以空格分隔的词：
+ * <ul>
+ *     <li>字母数字串：转小写后作为一个词</li>
+ *     <li>汉字串：按相邻两字切分（bigram），单字串保留原字</li>
+ *     <li>附加段：全部汉字的单字、逐字拼音、整串拼音和拼音首字母</li>
+ * </ul>
+ * 查询时用同样的规则生成短语查询，使中文、英文、拼音都走 MATCH。
+ */
+final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    private record Run(String text, boolean han) {
+    }
+
+    /**
+     * 生成标题的索引词串
+     */
+    static String buildIndexTokens(String title) {
+        if (title == null || title.isEmpty()) return "";
+        List<Run> runs = splitRuns(title);
+        StringBuilder tokens = new StringBuilder();
+
+        for (Run run : runs) {
+            if (run.han()) {
+                appendBigrams(tokens, run.text());
+            } else {
+                appendToken(tokens, run.text());
+            }
+        }
+
+        for (Run run : runs) {
+            if (!run.han()) continue;
+            String text = run.text();
+            // 单字串在主段中已经是原字
+            boolean multiChar = text.codePointCount(0, text.length()) > 1;
+            StringBuilder syllables = new StringBuilder();
+            StringBuilder full = new StringBuilder();
+            StringBuilder initials = new StringBuilder();
+            for (int i = 0; i < text.length(); ) {
+                int cp = text.codePointAt(i);
+                int next = i + Character.charCount(cp);
+                if (multiChar) {
+                    appendToken(tokens, text.substring(i, next));
+                }
+                String pinyin = PinyinUtils.getPinyin(cp);
+                if (pinyin != null) {
+                    appendToken(syllables, pinyin);
+                    full.append(pinyin);
+                    initials.append(pinyin.charAt(0));
+                }
+                i = next;
+            }
+            // 逐字拼音连续排列，支持 "zhuang tai" 这样的短语查询
+            appendToken(tokens, syllables.toString());
+            if (initials.length() > 1) {
+                appendToken(tokens, full.toString());
+                appendToken(tokens, initials.toString());
+            }
+        }
+        return tokens.toString();
+    }
+
+    /**
+     * 把用户输入转换为 MATCH 表达式，没有可检索内容时返回 null
+     */
+    @Nullable
+    static String buildMatchQuery(String keyword) {
+        if (keyword == null) return null;
+        List<Run> runs = splitRuns(keyword.trim());
+        if (runs.isEmpty()) return null;
+
+        List<String> tokens = new ArrayList<>();
+        boolean phrase = true;
+        for (Run run : runs) {
+            if (run.han()) {
+                if (run.text().codePointCount(0, run.text().length()) == 1) {
+                    // 单字只存在于附加段，无法参与短语匹配
+                    phrase = false;
+                    tokens.add(run.text());
+                } else {
+                    StringBuilder bigrams = new StringBuilder();
+                    appendBigrams(bigrams, run.text());
+                    for (String bigram : bigrams.toString().split(" ")) {
+                        tokens.add(bigram);
+                    }
+                }
+            } else {
+                tokens.add(run.text());
+            }
+        }
+
+        Run last = runs.get(runs.size() - 1);
+        String suffix = last.han() ? "" : "*";
+        if (phrase) {
+            return "\"" + String.join(" ", tokens) + suffix + "\"";
+        }
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) query.append(' ');
+            query.append('"').append(tokens.get(i));
+            if (i == tokens.size() - 1) query.append(suffix);
+            query.append('"');
+        }
+        return query.toString();
+    }
+
+    private static List<Run> splitRuns(String text) {
+        List<Run> runs = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean currentHan = false;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            boolean han = PinyinUtils.isHan(cp);
+            if (!han && !Character.isLetterOrDigit(cp)) {
+                flushRun(runs, current, currentHan);
+                continue;
+            }
+            if (current.length() > 0 && han != currentHan) {
+                flushRun(runs, current, currentHan);
+            }
+            currentHan = han;
+            current.appendCodePoint(han ? cp : Character.toLowerCase(cp));
+        }
+        flushRun(runs, current, currentHan);
+        return runs;
+    }
+
+    private static void flushRun(List<Run> runs, StringBuilder current, boolean han) {
+        if (current.length() == 0) return;
+        runs.add(new Run(current.toString().toLowerCase(Locale.ROOT), han));
+        current.setLength(0);
+    }
+
+    private static void appendBigrams(StringBuilder tokens, String text) {
+        int count = text.codePointCount(0, text.length());
+        if (count == 1) {
+            appendToken(tokens, text);
+            return;
+        }
+        int start = 0;
+        for (int k = 0; k < count - 1; k++) {
+            int mid = text.offsetByCodePoints(start, 1);
+            int end = text.offsetByCodePoints(mid, 1);
+            appendToken(tokens, text.substring(start, end));
+            start = mid;
+        }
+    }
+
+    private static void appendToken(StringBuilder tokens, String token) {
+        if (token.isEmpty()) return;
+        if (tokens.length() > 0) tokens.append(' ');
+        tokens.append(token);
+    }
+}
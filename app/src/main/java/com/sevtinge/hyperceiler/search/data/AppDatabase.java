@@ -7,8 +7,8 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 
 @Database(
-    entities = {ModEntity.class, ModFtsEntity.class},
-    version = 2,
+    entities = {ModEntity.class, ModFtsEntity.class, SearchMetaEntity.class},
+    version = 3,
     exportSchema = false
 )
 public abstract class AppDatabase extends RoomDatabase {
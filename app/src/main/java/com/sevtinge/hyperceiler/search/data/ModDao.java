@@ -2,6 +2,7 @@ package com.sevtinge.hyperceiler.search.data;
 
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.RawQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
@@ -25,12 +26,13 @@ public interface ModDao {
         "ORDER BY mods.groupName ASC, mods.item_order ASC")
     List<ModEntity> search(String query);
 
-    // 临时测试用：
-    @Query("SELECT * FROM mods WHERE title LIKE '%' || :query || '%'")
-    List<ModEntity> testSearch(String query);
-
-
     @Query("SELECT COUNT(*) FROM mods")
     int getCount();
 
+    @Query("SELECT value FROM search_meta WHERE `key` = :key")
+    String getMeta(String key);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void putMeta(SearchMetaEntity meta);
+
 }
@@ -23,5 +23,8 @@ public class ModEntity {
 
     // 一级分组名（如 "系统界面"、"浏览器"），用于搜索结果按应用分组
     public String groupName;
+
+    // 预分词后的检索词（小写单词、汉字 bigram、拼音及首字母），供 mods_fts 建立索引
+    public String searchTokens;
 }
 
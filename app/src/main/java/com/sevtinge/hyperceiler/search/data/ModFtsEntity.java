@@ -6,8 +6,8 @@ import androidx.room.Fts4;
 @Fts4(contentEntity = ModEntity.class)
 @Entity(tableName = "mods_fts")
 public class ModFtsEntity {
-    // 标题：搜索的核心
-    public String title;
+    // 标题的预分词结果，见 SearchTokenizer
+    public String searchTokens;
 
     // 路径：让用户可以通过分类名搜到下面的功能
     //public String breadcrumbs;
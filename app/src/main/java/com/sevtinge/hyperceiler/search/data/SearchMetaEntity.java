@@ -0,0 +1,25 @@
+package com.sevtinge.hyperceiler.search.data;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+// 搜索索引的元数据，例如构建索引时的指纹
+@Entity(tableName = "search_meta")
+public class SearchMetaEntity {
+    @PrimaryKey
+    @NonNull
+    public String key = "";
+
+    public String value;
+
+    public SearchMetaEntity() {
+    }
+
+    @Ignore
+    public SearchMetaEntity(@NonNull String key, String value) {
+        this.key = key;
+        this.value = value;
+    }
+}
@@ -178,7 +178,7 @@ public class SettingsFragment extends BasePreferenceFragment
         mLanguage.setOnPreferenceChangeListener((preference, o) -> {
             int index = Integer.parseInt((String) o);
             LanguageHelper.setIndexLanguage(getActivity(), index, true);
-            SearchHelper.initIndex(requireContext(), true);
+            SearchHelper.initIndex(requireContext(), false);
             return true;
         });
 
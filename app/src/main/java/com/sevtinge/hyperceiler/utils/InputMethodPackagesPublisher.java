@@ -0,0 +1,84 @@
+package com.sevtinge.hyperceiler.utils;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.provider.Settings;
+import android.view.inputmethod.InputMethodInfo;
+import android.view.inputmethod.InputMethodManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.common.log.AndroidLog;
+import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
+import com.sevtinge.hyperceiler.libhook.appbase.input.InputMethodConfig;
+import com.sevtinge.hyperceiler.libhook.utils.api.ThreadPoolManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 将已启用输入法的包名发布到配置中。
+ * <p>
+ * 第三方应用进程据此在本地判断自身是否为输入法，不必在启动时跨进程查询 InputMethodManager。
+ * 服务绑定时发布一次，之后在应用进程存活期间跟随系统的已启用输入法设置更新；内容未变化时不写入。
+ * 查询 InputMethodManager 与写入配置都在后台线程执行，不阻塞调用方。
+ */
+public final class InputMethodPackagesPublisher {
+
+    private static final String TAG = "InputMethodPackagesPublisher";
+
+    private static ContentObserver sObserver;
+
+    private InputMethodPackagesPublisher() {
+    }
+
+    public static void start(@NonNull Context context) {
+        Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        ThreadPoolManager.execute(() -> startInternal(appContext));
+    }
+
+    private static synchronized void startInternal(@NonNull Context appContext) {
+        publish(appContext);
+        if (sObserver != null) return;
+        // 不指定 Handler，变化在 binder 线程上回调，查询与写入不占用主线程
+        sObserver = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                publish(appContext);
+            }
+        };
+        try {
+            appContext.getContentResolver().registerContentObserver(
+                Settings.Secure.getUriFor(Settings.Secure.ENABLED_INPUT_METHODS), false, sObserver);
+        } catch (Throwable t) {
+            sObserver = null;
+            AndroidLog.w(TAG, "Failed to observe enabled input methods", t);
+        }
+    }
+
+    private static synchronized void publish(@NonNull Context context) {
+        Set<String> packages = queryEnabledInputMethodPackages(context);
+        if (packages == null) return;
+        if (packages.equals(PrefsBridge.getStringSet(InputMethodConfig.PREF_ENABLED_IME_PACKAGES, null))) return;
+        PrefsBridge.putStringSet(InputMethodConfig.PREF_ENABLED_IME_PACKAGES, packages);
+    }
+
+    @Nullable
+    private static Set<String> queryEnabledInputMethodPackages(@NonNull Context context) {
+        try {
+            InputMethodManager inputMethodManager = context.getSystemService(InputMethodManager.class);
+            if (inputMethodManager == null) return null;
+            Set<String> packages = new LinkedHashSet<>();
+            for (InputMethodInfo inputMethodInfo : inputMethodManager.getEnabledInputMethodList()) {
+                if (inputMethodInfo.getServiceInfo() != null) {
+                    packages.add(inputMethodInfo.getServiceInfo().packageName);
+                }
+            }
+            return packages;
+        } catch (Throwable t) {
+            AndroidLog.w(TAG, "Failed to query enabled input methods", t);
+            return null;
+        }
+    }
+}
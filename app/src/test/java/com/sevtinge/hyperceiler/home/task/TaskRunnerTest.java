@@ -0,0 +1,212 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.home.task;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TaskRunnerTest {
+
+    // 只收集被分发的任务，不执行
+    private final List<Runnable> mDispatched = new ArrayList<>();
+    private TaskRunner mRunner;
+
+    @Before
+    public void setUp() {
+        mRunner = new TaskRunner(mDispatched::add, mDispatched::add);
+    }
+
+    @Test
+    public void selfDependencyIsRejected() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> mRunner.addTask(task("a", "a")));
+        assertTrue(e.getMessage(), e.getMessage().endsWith("a -> a"));
+    }
+
+    @Test
+    public void cycleThroughLaterRegisteredTaskIsRejected() {
+        // a 依赖的 b 注册时才闭合成环
+        mRunner.addTask(task("a", "b"));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> mRunner.addTask(task("b", "a")));
+        assertTrue(e.getMessage(), e.getMessage().endsWith("b -> a -> b"));
+    }
+
+    @Test
+    public void indirectCycleIsRejected() {
+        mRunner.addTask(task("a", "b"));
+        mRunner.addTask(task("b", "c"));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> mRunner.addTask(task("c", "a")));
+        assertTrue(e.getMessage(), e.getMessage().endsWith("c -> a -> b -> c"));
+    }
+
+    @Test
+    public void sharedDependenciesAreNotCycles() {
+        mRunner.addTask(task("root"));
+        mRunner.addTask(task("left", "root"));
+        mRunner.addTask(task("right", "root"));
+        mRunner.addTask(task("join", "left", "right", "root"));
+
+        mRunner.start();
+        assertEquals(1, mDispatched.size());
+        String trace = mRunner.dumpTrace();
+        assertTrue(trace, trace.contains("join                 pending, waiting for 3 dependencies"));
+    }
+
+    @Test
+    public void rejectedTaskIsNotRegistered() {
+        mRunner.addTask(task("a", "b"));
+        assertThrows(IllegalStateException.class, () -> mRunner.addTask(task("b", "a")));
+
+        // 被拒绝的 b 不在图中，可以重新以无环的依赖注册
+        mRunner.addTask(task("b"));
+        mRunner.start();
+        assertEquals(1, mDispatched.size());
+        String trace = mRunner.dumpTrace();
+        assertTrue(trace, trace.contains("a                    pending, waiting for 1 dependencies"));
+        assertTrue(trace, trace.contains("b                    pending, waiting for 0 dependencies"));
+    }
+
+    @Test
+    public void dependentsAreDispatchedOnlyAfterTheirDependencies() {
+        List<Runnable> main = new ArrayList<>();
+        List<Runnable> pool = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+        TaskRunner runner = new TaskRunner(main::add, pool::add);
+        // 注册顺序与依赖顺序相反
+        runner.addTask(recording("join", true, order, "left", "right"));
+        runner.addTask(recording("left", false, order, "root"));
+        runner.addTask(recording("right", true, order, "root"));
+        runner.addTask(recording("root", true, order));
+
+        runner.start();
+        assertEquals(0, main.size());
+        assertEquals(1, pool.size());
+
+        runAll(pool);
+        assertEquals(List.of("root"), order);
+        // 同步任务走主线程，异步任务走线程池，join 仍在等待
+        assertEquals(1, main.size());
+        assertEquals(1, pool.size());
+
+        runAll(main);
+        assertEquals(List.of("root", "left"), order);
+        assertEquals(1, pool.size());
+        runAll(pool);
+        assertEquals(List.of("root", "left", "right"), order);
+        assertEquals(1, pool.size());
+
+        runAll(pool);
+        assertEquals(List.of("root", "left", "right", "join"), order);
+        assertTrue(main.isEmpty());
+        assertTrue(pool.isEmpty());
+        assertEquals(4, runner.getTrace().size());
+    }
+
+    @Test
+    public void finishedDependencyDoesNotHoldBackLaterTasks() {
+        List<Runnable> pool = new ArrayList<>();
+        List<String> order = new ArrayList<>();
+        TaskRunner runner = new TaskRunner(Runnable::run, pool::add);
+        runner.addTask(recording("a", true, order));
+        runner.start();
+        runAll(pool);
+
+        // a 已完成，后注册的依赖方无需等待
+        runner.addTask(recording("b", true, order, "a"));
+        runner.start();
+        assertEquals(1, pool.size());
+        runAll(pool);
+        assertEquals(List.of("a", "b"), order);
+    }
+
+    @Test(timeout = 10_000)
+    public void noPoolThreadWaitsForDependencies() throws Exception {
+        // 只有一个线程：任何在线程内阻塞等待依赖的实现都会死锁
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            int chain = 50;
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(1);
+            TaskRunner runner = new TaskRunner(Runnable::run, single);
+            runner.addTask(new Task("t" + chain, true, "t" + (chain - 1)) {
+                @Override
+                public void execute() {
+                    order.add(id);
+                    done.countDown();
+                }
+            });
+            for (int i = chain - 1; i > 0; i--) {
+                runner.addTask(recording("t" + i, true, order, "t" + (i - 1)));
+            }
+            runner.addTask(recording("t0", true, order));
+            runner.start();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(chain + 1, order.size());
+            for (int i = 0; i <= chain; i++) {
+                assertEquals("t" + i, order.get(i));
+            }
+            // 每个任务都是在依赖完成后才进入队列，排队前没有线程被占用
+            for (TaskRunner.TraceEntry entry : runner.getTrace()) {
+                assertTrue(entry.toString(), entry.readyAt() <= entry.startAt());
+            }
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    private static void runAll(List<Runnable> queue) {
+        List<Runnable> batch = new ArrayList<>(queue);
+        queue.clear();
+        for (Runnable runnable : batch) {
+            runnable.run();
+        }
+    }
+
+    private static Task recording(String id, boolean async, List<String> order, String... dependsOn) {
+        return new Task(id, async, dependsOn) {
+            @Override
+            public void execute() {
+                order.add(id);
+            }
+        };
+    }
+
+    private static Task task(String id, String... dependsOn) {
+        return new Task(id, false, dependsOn) {
+            @Override
+            public void execute() {
+            }
+        };
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+
+import androidx.room.Room;
+
+import com.sevtinge.hyperceiler.log.db.LogDao;
+import com.sevtinge.hyperceiler.log.db.LogDatabase;
+import com.sevtinge.hyperceiler.log.db.LogEntry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 以临时目录模拟 /data/adb/lspd，覆盖源文件未变、变化和被删除时的增量导入
+ */
+@RunWith(RobolectricTestRunner.class)
+// 使用空的 Application，避免启动模块自身的初始化
+@Config(sdk = 35, application = Application.class)
+public class XposedLogLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LogDatabase mDatabase;
+    private LogDao mDao;
+    private File mSourceDir;
+    private XposedLogLoader mLoader;
+    private int mCommands;
+
+    @Before
+    public void setUp() throws IOException {
+        Application app = RuntimeEnvironment.getApplication();
+        mDatabase = Room.inMemoryDatabaseBuilder(app, LogDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+        mDao = mDatabase.logDao();
+        File lspd = folder.newFolder("lspd");
+        mSourceDir = new File(lspd, "log");
+        File oldDir = new File(lspd, "log.old");
+        assertTrue(mSourceDir.mkdir() && oldDir.mkdir());
+        mLoader = new XposedLogLoader(app, mSourceDir.getPath(), oldDir.getPath(), new LocalShell(), () -> mDao);
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void unchangedSourceKeepsRows() throws IOException {
+        write("modules_1.log", entry(0, "first"), noise(1), entry(2, "second"), entry(3, "tail"));
+        mLoader.syncToDatabase();
+        List<LogEntry> before = rows();
+        assertEquals(3, before.size());
+
+        int commands = mCommands;
+        mLoader.syncToDatabase();
+        // 只有 stat，没有再复制源文件；已有行既未删除也未重新插入
+        assertEquals(commands + 1, mCommands);
+        assertArrayEquals(ids(before), ids(rows()));
+        assertMirrored("modules_1.log");
+    }
+
+    @Test
+    public void appendedSourceOnlyImportsNewBytes() throws IOException {
+        write("modules_1.log", entry(0, "first"), noise(1), entry(2, "tail"));
+        mLoader.syncToDatabase();
+        List<LogEntry> before = rows();
+        assertEquals(2, before.size());
+
+        // 末尾那条日志收到续行，随后又有新日志
+        append("modules_1.log", "    at com.example.Hook.run", entry(3, "third"), noise(4));
+        mLoader.syncToDatabase();
+        List<LogEntry> after = rows();
+        assertEquals(3, after.size());
+        assertEquals(before.get(0).getId(), after.get(0).getId());
+        assertTrue(after.get(0).getMessage(), after.get(0).getMessage().contains("first"));
+        assertTrue(after.get(1).getMessage(), after.get(1).getMessage().endsWith("tail\n    at com.example.Hook.run"));
+        assertNotEquals(before.get(1).getId(), after.get(1).getId());
+        assertTrue(after.get(2).getMessage(), after.get(2).getMessage().contains("third"));
+        assertMirrored("modules_1.log");
+    }
+
+    @Test
+    public void rewrittenSourceIsFullyReimported() throws IOException {
+        write("modules_1.log", entry(0, "first"), entry(1, "second"), entry(2, "third"));
+        mLoader.syncToDatabase();
+        assertEquals(3, rows().size());
+
+        // 原地截断后写入更短的内容，已复制的长度不再可信
+        write("modules_1.log", entry(5, "replaced"));
+        mLoader.syncToDatabase();
+        List<LogEntry> after = rows();
+        assertEquals(1, after.size());
+        assertTrue(after.get(0).getMessage(), after.get(0).getMessage().contains("replaced"));
+        assertMirrored("modules_1.log");
+    }
+
+    @Test
+    public void deletedSourceDropsItsRows() throws IOException {
+        write("modules_1.log", entry(0, "kept"));
+        write("modules_2.log", entry(1, "deleted"));
+        mLoader.syncToDatabase();
+        assertEquals(2, rows().size());
+
+        assertTrue(new File(mSourceDir, "modules_2.log").delete());
+        mLoader.syncToDatabase();
+        List<LogEntry> after = rows();
+        assertEquals(1, after.size());
+        assertTrue(after.get(0).getMessage(), after.get(0).getMessage().contains("kept"));
+        assertTrue(!copyOf("modules_2.log").exists());
+        assertMirrored("modules_1.log");
+    }
+
+    private List<LogEntry> rows() {
+        return mDao.getLogsByModuleForExport(XposedLogParser.FILTERED_MODULE);
+    }
+
+    private static long[] ids(List<LogEntry> entries) {
+        long[] ids = new long[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = entries.get(i).getId();
+        }
+        return ids;
+    }
+
+    private static String entry(int second, String message) {
+        return String.format("[ 2024-01-01T12:00:%02d.000  1000:  1234:  1234 I/LSPosed-Bridge ] "
+            + "[HyperCeiler][I][com.android.systemui] %s", second, message);
+    }
+
+    private static String noise(int second) {
+        return String.format("[ 2024-01-01T12:00:%02d.000  1000:  1234:  1234 I/LSPosed-Bridge ] "
+            + "[OtherModule] ignored", second);
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Files.write(new File(mSourceDir, name).toPath(), lines(lines));
+    }
+
+    private void append(String name, String... lines) throws IOException {
+        Files.write(new File(mSourceDir, name).toPath(), lines(lines), StandardOpenOption.APPEND);
+    }
+
+    private static byte[] lines(String... lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private File copyOf(String name) {
+        File base = new File(RuntimeEnvironment.getApplication().getFilesDir(), "log/lspd/log");
+        return new File(base, name);
+    }
+
+    /**
+     * 本地副本应与源文件逐字节一致，导出的压缩包依赖它
+     */
+    private void assertMirrored(String name) throws IOException {
+        assertArrayEquals(Files.readAllBytes(new File(mSourceDir, name).toPath()),
+            Files.readAllBytes(copyOf(name).toPath()));
+    }
+
+    /**
+     * 以当前用户身份执行命令，并统计调用次数
+     */
+    private final class LocalShell implements XposedLogLoader.RootShell {
+        @Override
+        public boolean hasRoot() {
+            return true;
+        }
+
+        @Override
+        public String exec(String command) {
+            mCommands++;
+            try {
+                Process process = new ProcessBuilder("/bin/sh", "-c", command).start();
+                byte[] out;
+                try (InputStream in = process.getInputStream()) {
+                    out = in.readAllBytes();
+                }
+                process.waitFor();
+                return new String(out, StandardCharsets.UTF_8).trim();
+            } catch (IOException | InterruptedException e) {
+                throw new AssertionError(command, e);
+            }
+        }
+    }
+}
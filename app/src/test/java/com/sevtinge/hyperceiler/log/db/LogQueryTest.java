@@ -0,0 +1,80 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.log.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import org.junit.Test;
+
+public class LogQueryTest {
+
+    @Test
+    public void singleTokenBecomesPrefixMatch() {
+        assertEquals("\"exception*\"", LogQuery.toMatchQuery("Exception"));
+        assertEquals("\"home\"", LogQuery.toMatchQuery("home."));
+    }
+
+    @Test
+    public void separatorsOnlyFallBackToLike() {
+        assertNull(LogQuery.toMatchQuery("..."));
+        assertNull(LogQuery.toMatchQuery("%_"));
+    }
+
+    @Test
+    public void allTokensFormOnePhrase() {
+        assertEquals("\"com miui home*\"", LogQuery.toMatchQuery("com.miui.home"));
+        assertEquals("\"com miui home*\"", LogQuery.toMatchQuery(".com.miui.home"));
+        assertEquals("\"home*\"", LogQuery.toMatchQuery(".home"));
+    }
+
+    @Test
+    public void trailingSeparatorMakesLastTokenExact() {
+        assertEquals("\"com miui\"", LogQuery.toMatchQuery("com.miui."));
+        assertEquals("\"home\"", LogQuery.toMatchQuery(" home "));
+    }
+
+    @Test
+    public void tokensAreLowerCased() {
+        assertEquals("\"null pointerexception*\"", LogQuery.toMatchQuery("Null PointerException"));
+    }
+
+    @Test
+    public void unclassifiableCharactersFallBackToLike() {
+        // 符号在 unicode61 中的归类不确定
+        assertNull(LogQuery.toMatchQuery("a ✓ b"));
+    }
+
+    @Test
+    public void keywordUsesEitherFtsOrLike() {
+        SupportSQLiteQuery fts = LogQuery.forModule("app").keyword("Exception").build();
+        assertTrue(fts.getSql().contains("logs_fts MATCH ?"));
+        assertFalse(fts.getSql().contains("LIKE"));
+        assertEquals(2, fts.getArgCount());
+
+        SupportSQLiteQuery like = LogQuery.forModule("app").keyword("a ✓ b").build();
+        assertTrue(like.getSql().contains("message LIKE ?"));
+        assertFalse(like.getSql().contains("MATCH"));
+        assertEquals(3, like.getArgCount());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.log.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+
+import androidx.room.Room;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 autoTrim 上限的 50000 行验证常用过滤组合的查询耗时
+ */
+@RunWith(RobolectricTestRunner.class)
+// 使用空的 Application，避免启动模块自身的初始化
+@Config(sdk = 35, application = Application.class)
+public class LogSearchLatencyTest {
+
+    private static final int ROWS = 50_000;
+    private static final long BASE_TIME = 1_700_000_000_000L;
+    private static final String[] LEVELS = {"V", "D", "I", "W", "E", "C"};
+    // 单次查询的上限，远高于设备上的实际耗时，只用于发现退化为全表扫描或逐页 OFFSET 的改动
+    private static final long MAX_QUERY_MS = 250;
+
+    private LogDatabase mDatabase;
+    private LogDao mDao;
+
+    @Before
+    public void setUp() {
+        mDatabase = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.getApplication(), LogDatabase.class)
+            .allowMainThreadQueries()
+            .build();
+        mDao = mDatabase.logDao();
+
+        List<LogEntry> batch = new ArrayList<>(1000);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new LogEntry(moduleOf(i), LEVELS[i % LEVELS.length], "Tag" + (i % 40), messageOf(i), BASE_TIME + i));
+            if (batch.size() == 1000) {
+                mDao.insertAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void keywordSearchUsesTokenPrefix() {
+        List<LogEntry> result = mDao.query(LogQuery.forModule("App").keyword("Exception").limit(ROWS));
+        int expected = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (moduleOf(i).equals("App") && i % 250 == 0) expected++;
+        }
+        assertEquals(expected, result.size());
+        for (LogEntry entry : result) {
+            assertTrue(entry.getMessage(), entry.getMessage().startsWith("Exception: "));
+        }
+    }
+
+    @Test
+    public void commonFilterCombinationsStayWithinBound() {
+        assertFast("first page", LogQuery.forModule("App"));
+        assertFast("level", LogQuery.forModule("App").level("E"));
+        assertFast("tag", LogQuery.forModule("Xposed").tag("Tag7"));
+        assertFast("time range", LogQuery.forModule("App").timeRange(BASE_TIME + 10_000, BASE_TIME + 20_000));
+        assertFast("single token", LogQuery.forModule("App").keyword("Exception"));
+        assertFast("dotted name", LogQuery.forModule("App").keyword("com.miui.home"));
+        assertFast("keyword and level", LogQuery.forModule("App").keyword("hook").level("W"));
+        assertFast("like fallback", LogQuery.forModule("App").keyword("%_"));
+
+        // 翻到第 50 页的代价应与第一页相同
+        LogEntry last = null;
+        for (int page = 0; page < 50; page++) {
+            List<LogEntry> entries = mDao.query(LogQuery.forModule("App").after(last).limit(100));
+            last = entries.get(entries.size() - 1);
+        }
+        assertFast("page 50", LogQuery.forModule("App").after(last).limit(100));
+    }
+
+    private void assertFast(String name, LogQuery query) {
+        // 首次执行包含语句编译，取三次中最快的一次
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            mDao.query(query);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long ms = best / 1_000_000;
+        assertTrue(name + " took " + ms + " ms", ms <= MAX_QUERY_MS);
+    }
+
+    private static String moduleOf(int i) {
+        return i % 7 == 0 ? "Xposed" : "App";
+    }
+
+    private static String messageOf(int i) {
+        if (i % 250 == 0) return "Exception: boom " + i;
+        if (i % 100 == 0) return "java.lang.NullPointerException at com.miui.home.Launcher " + i;
+        return "hook ok for com.example.pkg" + (i % 500) + " step " + i;
+    }
+}
@@ -35,4 +35,6 @@ dependencies {
     api(libs.bundles.miuix)
     // libxposed API 102
     compileOnlyApi(libs.libxposed.api)
+
+    testImplementation(libs.junit)
 }
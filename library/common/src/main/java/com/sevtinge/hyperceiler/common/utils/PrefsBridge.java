@@ -8,8 +8,10 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
+import com.sevtinge.hyperceiler.common.utils.prefs.PrefKey;
 import com.sevtinge.hyperceiler.common.utils.prefs.PrefType;
 import com.sevtinge.hyperceiler.common.utils.prefs.PrefsChangeObserver;
+import com.sevtinge.hyperceiler.common.utils.prefs.PrefsSnapshot;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -27,6 +29,11 @@ public class PrefsBridge {
     public static final String REMOTE_PREFS_GROUP = PREFS_NAME + "_remote";
     private static final Set<String> sWarnedHookWrites = Collections.synchronizedSet(new HashSet<>());
     private static final Map<String, Object> sHookCache = new ConcurrentHashMap<>();
+    // 原始键名 -> 句柄，避免每次读取都拼接 prefs_key_ 前缀
+    private static final Map<String, PrefKey> sKeyHandles = new ConcurrentHashMap<>();
+    // Hook 进程中远程配置变化时重建快照；远程实现可能弱引用监听器，这里需要强引用
+    private static final SharedPreferences.OnSharedPreferenceChangeListener sRemoteListener =
+        (prefs, key) -> rebuildHookSnapshot();
 
     // App 进程本地存储句柄
     private static SharedPreferences mPhysicalPrefs;
@@ -58,9 +65,50 @@ public class PrefsBridge {
      * @param remote 传入 LSPosed 提供的远程 SharedPreferences 对象
      */
     public static void initForHook(@NonNull SharedPreferences remote) {
+        SharedPreferences old = mRemotePrefs;
+        if (old != null && old != remote) {
+            try {
+                old.unregisterOnSharedPreferenceChangeListener(sRemoteListener);
+            } catch (Throwable ignored) {
+            }
+        }
         isHookProcess = true;
-        clearHookCache();
+        sHookCache.clear();
         mRemotePrefs = remote;
+        try {
+            remote.registerOnSharedPreferenceChangeListener(sRemoteListener);
+        } catch (Throwable t) {
+            AndroidLog.w(TAG, "Failed to observe remote prefs, snapshot will not follow changes.", t);
+        }
+        rebuildHookSnapshot();
+    }
+
+    /**
+     * 获取配置键句柄。高频读取的调用点可以持有该句柄，读取时跳过键名处理。
+     */
+    @NonNull
+    public static PrefKey key(@NonNull String key) {
+        PrefKey handle = sKeyHandles.get(key);
+        if (handle == null) {
+            handle = PrefsSnapshot.key(wrap(key));
+            sKeyHandles.put(key, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * 以远程配置与临时缓存重建 Hook 进程快照
+     */
+    private static void rebuildHookSnapshot() {
+        SharedPreferences remote = mRemotePrefs;
+        if (!isHookProcess || remote == null) return;
+        try {
+            PrefsSnapshot.rebuild(remote.getAll(), sHookCache);
+        } catch (Throwable t) {
+            // 快照不可用时回落到直接读取远程配置
+            PrefsSnapshot.reset();
+            AndroidLog.w(TAG, "Failed to build prefs snapshot.", t);
+        }
     }
 
     /**
@@ -100,9 +148,7 @@ public class PrefsBridge {
         String rKey = wrap(key);
         if (value == null) {
             sHookCache.remove(rKey);
-            return;
-        }
-        if (value instanceof Set<?> setValue) {
+        } else if (value instanceof Set<?> setValue) {
             LinkedHashSet<String> stringSet = new LinkedHashSet<>();
             for (Object item : setValue) {
                 if (item instanceof String str) {
@@ -110,17 +156,22 @@ public class PrefsBridge {
                 }
             }
             sHookCache.put(rKey, stringSet);
-            return;
+        } else {
+            sHookCache.put(rKey, value);
         }
-        sHookCache.put(rKey, value);
+        // 只更新快照中这一个键，不重新读取全部远程配置
+        if (isHookProcess) PrefsSnapshot.override(rKey, sHookCache.get(rKey));
     }
 
     public static void removeHookCache(String key) {
-        sHookCache.remove(wrap(key));
+        String rKey = wrap(key);
+        sHookCache.remove(rKey);
+        if (isHookProcess) PrefsSnapshot.override(rKey, null);
     }
 
     public static void clearHookCache() {
         sHookCache.clear();
+        if (isHookProcess) PrefsSnapshot.clearOverrides();
     }
 
     private static String wrap(String key) {
@@ -231,6 +282,8 @@ public class PrefsBridge {
      * 读取布尔值
      */
     public static boolean getBoolean(String key, boolean def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        if (snapshot != null && key != null) return snapshot.getBoolean(key(key), def);
         String rKey = wrap(key);
         Object cached = sHookCache.get(rKey);
         return cached instanceof Boolean ? (Boolean) cached : requireImpl().getBoolean(rKey, def);
@@ -240,6 +293,8 @@ public class PrefsBridge {
      * 读取字符串
      */
     public static String getString(String key, String def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        if (snapshot != null && key != null) return snapshot.getString(key(key), def);
         String rKey = wrap(key);
         Object cached = sHookCache.get(rKey);
         return cached instanceof String ? (String) cached : requireImpl().getString(rKey, def);
@@ -257,6 +312,8 @@ public class PrefsBridge {
      * 读取整型，包含 String 转 Int 的鲁棒性处理
      */
     public static int getInt(String key, int def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        if (snapshot != null && key != null) return snapshot.getInt(key(key), def);
         String rKey = wrap(key);
         Object cached = sHookCache.get(rKey);
         if (cached instanceof Integer intValue) {
@@ -285,6 +342,8 @@ public class PrefsBridge {
      * 读取长整型
      */
     public static long getLong(String key, long def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        if (snapshot != null && key != null) return snapshot.getLong(key(key), def);
         String rKey = wrap(key);
         Object cached = sHookCache.get(rKey);
         return cached instanceof Long ? (Long) cached : requireImpl().getLong(rKey, def);
@@ -294,6 +353,8 @@ public class PrefsBridge {
      * 读取浮点型
      */
     public static float getFloat(String key, float def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        if (snapshot != null && key != null) return snapshot.getFloat(key(key), def);
         String rKey = wrap(key);
         Object cached = sHookCache.get(rKey);
         return cached instanceof Float ? (Float) cached : requireImpl().getFloat(rKey, def);
@@ -312,7 +373,11 @@ public class PrefsBridge {
     @Nullable
     public static Set<String> getStringSet(String key, @Nullable Set<String> def) {
         String rKey = wrap(key);
-        Object cached = sHookCache.get(rKey);
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        Object cached = snapshot != null && key != null ? snapshot.get(key(key)) : sHookCache.get(rKey);
+        if (snapshot != null && !(cached instanceof Set<?>)) {
+            return def == null ? null : new LinkedHashSet<>(def);
+        }
         if (cached instanceof Set<?> setValue) {
             LinkedHashSet<String> result = new LinkedHashSet<>();
             for (Object item : setValue) {
@@ -326,6 +391,23 @@ public class PrefsBridge {
         return value == null ? null : new LinkedHashSet<>(value);
     }
 
+    // --- 句柄读取方法 (Hook 进程内为一次数组访问) ---
+
+    public static boolean getBoolean(@NonNull PrefKey key, boolean def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        return snapshot != null ? snapshot.getBoolean(key, def) : getBoolean(key.name, def);
+    }
+
+    public static int getInt(@NonNull PrefKey key, int def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        return snapshot != null ? snapshot.getInt(key, def) : getInt(key.name, def);
+    }
+
+    public static String getString(@NonNull PrefKey key, String def) {
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        return snapshot != null ? snapshot.getString(key, def) : getString(key.name, def);
+    }
+
     /**
      * 获取全量配置 (注意：Hook 进程中大数据量调用可能导致启动变慢)
      */
@@ -21,12 +21,12 @@ package com.sevtinge.hyperceiler.common.utils;
 import androidx.annotation.NonNull;
 
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
+import com.sevtinge.hyperceiler.common.utils.shell.RootShell;
 
 import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class ShellUtils {
@@ -36,19 +36,12 @@ public class ShellUtils {
      * @return if int = 0, then have root, else don't have.
      */
     public static int checkRootPermission() {
-        Process process = null;
-        int exitCode = -1;
-        try {
-            process = Runtime.getRuntime().exec("su -c true");
-            return process.waitFor();
-        } catch (IOException | InterruptedException e) {
-            AndroidLog.e("checkRootPermission", "check whether has root permission error: ", e);
-            return exitCode;
-        } finally {
-            if (process != null) {
-                process.destroy();
-            }
+        RootShell.Result result = rootExec("true", false);
+        if (result.exitCode < 0) {
+            AndroidLog.e("checkRootPermission", "check whether has root permission error: " + result.exitCode);
+            return -1;
         }
+        return result.exitCode;
     }
 
     /**
@@ -151,6 +144,10 @@ public class ShellUtils {
             return new CommandResult(result, null, null);
         }
 
+        if (isRoot) {
+            return execRootCommand(commands, isNeedResultMsg);
+        }
+
         Process process = null;
         BufferedReader successResult = null;
         BufferedReader errorResult = null;
@@ -159,7 +156,7 @@ public class ShellUtils {
 
         DataOutputStream os = null;
         try {
-            process = Runtime.getRuntime().exec(isRoot ? "su" : "sh");
+            process = Runtime.getRuntime().exec("sh");
             os = new DataOutputStream(process.getOutputStream());
             for (String command : commands) {
                 if (command == null) {
@@ -214,6 +211,35 @@ public class ShellUtils {
                 : errorMsg.toString());
     }
 
+    /**
+     * 模块应用进程使用常驻 root 会话；被 Hook 的进程调用稀少且不应长期持有 su 进程，每次单独启动 su
+     */
+    private static RootShell.Result rootExec(String command, boolean mergeStderr) {
+        if (PrefsBridge.isHookProcess()) {
+            return RootShell.execOnce(command, 0, mergeStderr);
+        }
+        return RootShell.getInstance().exec(command, 0, mergeStderr);
+    }
+
+    /**
+     * 执行 root 命令，输出格式与逐次启动 su 时保持一致
+     */
+    private static CommandResult execRootCommand(String[] commands, boolean isNeedResultMsg) {
+        StringBuilder script = new StringBuilder();
+        for (String command : commands) {
+            if (command == null) {
+                continue;
+            }
+            script.append(command).append('\n');
+        }
+
+        RootShell.Result result = rootExec(script.toString(), false);
+        if (!isNeedResultMsg) {
+            return new CommandResult(result.exitCode, null, null);
+        }
+        return new CommandResult(result.exitCode, String.join("", result.stdout), String.join("", result.stderr));
+    }
+
     /**
      * result of command
      * <ul>
@@ -287,41 +313,8 @@ public class ShellUtils {
     public static String rootExecCmd(String cmd) {
         if (!isSafeCommand(cmd)) return "Cannot exec this command: Dangerous operation";
         final String fullCmd = "nsenter --mount=/proc/1/ns/mnt -- " + cmd;
-        ProcessBuilder pb = new ProcessBuilder("su", "-c", fullCmd);
-        pb.redirectErrorStream(true);
-
-        StringBuilder result = new StringBuilder();
-
-        try {
-            Process p = pb.start();
-            try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    result.append(line).append('\n');
-                }
-            }
-
-            p.waitFor();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            String msg = e.toString();
-            if (!cmd.contains("nsenter") && msg.contains("nsenter: exec ")) {
-                return msg.replace("nsenter: exec ", "");
-            }
-            return msg;
-        } catch (IOException e) {
-            String msg = e.toString();
-            if (!cmd.contains("nsenter") && msg.contains("nsenter: exec ")) {
-                return msg.replace("nsenter: exec ", "");
-            }
-            return msg;
-        }
-
-        String out = result.toString();
-        if (!out.isEmpty() && out.charAt(out.length() - 1) == '\n') {
-            out = out.substring(0, out.length() - 1);
-        }
+        RootShell.Result result = rootExec(fullCmd, true);
+        String out = String.join("\n", result.stdout);
 
         if (!cmd.contains("nsenter") && out.contains("nsenter: exec ")) {
             return out.replace("nsenter: exec ", "");
@@ -0,0 +1,41 @@
+package com.sevtinge.hyperceiler.common.utils.prefs;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
+
+/**
+ * 预先解析的配置键句柄，由 {@link PrefsBridge#key(String)} 获取。
+ * <p>
+ * 句柄持有补全前缀后的键名以及在 {@link PrefsSnapshot} 中的槽位，
+ * Hook 进程内读取时只需一次数组访问，不再拼接字符串或查询哈希表。
+ * 适合在绘制、测量、触摸等高频回调中以 static final 字段持有。
+ */
+public final class PrefKey {
+    @NonNull
+    public final String name;
+    final int slot;
+
+    PrefKey(@NonNull String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    public boolean getBoolean(boolean def) {
+        return PrefsBridge.getBoolean(this, def);
+    }
+
+    public int getInt(int def) {
+        return PrefsBridge.getInt(this, def);
+    }
+
+    public String getString(String def) {
+        return PrefsBridge.getString(this, def);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return name;
+    }
+}
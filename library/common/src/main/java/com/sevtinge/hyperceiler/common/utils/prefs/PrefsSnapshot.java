@@ -0,0 +1,236 @@
+package com.sevtinge.hyperceiler.common.utils.prefs;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hook 进程远程配置的不可变快照。
+ * <p>
+ * 每个 {@link PrefKey} 在注册时分配一个槽位，快照按槽位把值展开为数组，
+ * 整型值（包括以字符串保存的整型）在构建时预先解析，慢路径使用同样的规则。快照发布后不再修改：
+ * 远程配置变化时整体重建，注册新句柄或修改临时覆盖值时复制数组、只重新填充受影响的槽位，再原子替换。
+ * 读取方只需读取一次 volatile 引用和一次数组下标，不拼接字符串、不装箱。
+ */
+public final class PrefsSnapshot {
+    private static final int MIN_CAPACITY = 256;
+
+    private static final Object sLock = new Object();
+    private static final ConcurrentHashMap<String, PrefKey> sKeys = new ConcurrentHashMap<>();
+    // 以下字段仅在 sLock 下访问；sBase 为 null 表示没有可用快照
+    private static PrefKey[] sKeyTable = new PrefKey[MIN_CAPACITY];
+    private static int sKeyCount = 0;
+    private static Map<String, ?> sBase = null;
+    private static final HashMap<String, Object> sOverrides = new HashMap<>();
+    private static volatile PrefsSnapshot sCurrent = null;
+
+    private final Object[] values;
+    private final int[] ints;
+    private final boolean[] hasInt;
+    // 槽位 [0, filled) 已填充
+    private final int filled;
+
+    private PrefsSnapshot(int capacity, int filled) {
+        this.values = new Object[capacity];
+        this.ints = new int[capacity];
+        this.hasInt = new boolean[capacity];
+        this.filled = filled;
+    }
+
+    private PrefsSnapshot(PrefsSnapshot source, int filled) {
+        this.values = source.values.clone();
+        this.ints = source.ints.clone();
+        this.hasInt = source.hasInt.clone();
+        this.filled = filled;
+    }
+
+    /**
+     * 获取补全前缀后的键名对应的句柄，同名键始终返回同一个句柄
+     */
+    @NonNull
+    public static PrefKey key(@NonNull String name) {
+        PrefKey key = sKeys.get(name);
+        if (key != null) return key;
+
+        synchronized (sLock) {
+            key = sKeys.get(name);
+            if (key != null) return key;
+
+            key = new PrefKey(name, sKeyCount++);
+            if (key.slot >= sKeyTable.length) {
+                PrefKey[] table = new PrefKey[sKeyTable.length * 2];
+                System.arraycopy(sKeyTable, 0, table, 0, sKeyTable.length);
+                sKeyTable = table;
+            }
+            sKeyTable[key.slot] = key;
+            publishSlotsLocked(Collections.singletonList(key));
+            sKeys.put(name, key);
+            return key;
+        }
+    }
+
+    /**
+     * 当前快照，未在 Hook 进程初始化时为 null
+     */
+    @Nullable
+    public static PrefsSnapshot current() {
+        return sCurrent;
+    }
+
+    /**
+     * 以远程配置和临时覆盖值重建快照并原子替换，覆盖值优先
+     */
+    public static void rebuild(@NonNull Map<String, ?> base, @NonNull Map<String, ?> overrides) {
+        synchronized (sLock) {
+            sBase = Collections.unmodifiableMap(new HashMap<>(base));
+            sOverrides.clear();
+            sOverrides.putAll(overrides);
+            publishAllLocked();
+        }
+    }
+
+    /**
+     * 设置或移除（value 为 null）单个键的临时覆盖值，只重新填充该键的槽位
+     */
+    public static void override(@NonNull String name, @Nullable Object value) {
+        synchronized (sLock) {
+            if (value == null) {
+                if (!sOverrides.containsKey(name)) return;
+                sOverrides.remove(name);
+            } else {
+                sOverrides.put(name, value);
+            }
+            PrefKey key = sKeys.get(name);
+            if (key != null) publishSlotsLocked(Collections.singletonList(key));
+        }
+    }
+
+    /**
+     * 移除全部临时覆盖值，只重新填充原先被覆盖的槽位
+     */
+    public static void clearOverrides() {
+        synchronized (sLock) {
+            if (sOverrides.isEmpty()) return;
+            List<PrefKey> keys = new ArrayList<>(sOverrides.size());
+            for (String name : sOverrides.keySet()) {
+                PrefKey key = sKeys.get(name);
+                if (key != null) keys.add(key);
+            }
+            sOverrides.clear();
+            publishSlotsLocked(keys);
+        }
+    }
+
+    /**
+     * 丢弃快照，之后的读取回落到 SharedPreferences
+     */
+    public static void reset() {
+        synchronized (sLock) {
+            sBase = null;
+            sOverrides.clear();
+            sCurrent = null;
+        }
+    }
+
+    private static Object lookupLocked(String name) {
+        if (sOverrides.containsKey(name)) return sOverrides.get(name);
+        return sBase != null ? sBase.get(name) : null;
+    }
+
+    private static void publishAllLocked() {
+        if (sBase == null) return;
+        PrefsSnapshot snapshot = new PrefsSnapshot(Math.max(MIN_CAPACITY, sKeyTable.length), sKeyCount);
+        for (int i = 0; i < sKeyCount; i++) {
+            snapshot.fill(sKeyTable[i], lookupLocked(sKeyTable[i].name));
+        }
+        sCurrent = snapshot;
+    }
+
+    /**
+     * 复制当前快照并重新填充给定槽位；容量不足时整体重建
+     */
+    private static void publishSlotsLocked(List<PrefKey> keys) {
+        if (sBase == null || keys.isEmpty()) return;
+        PrefsSnapshot current = sCurrent;
+        if (current == null || sKeyCount > current.values.length) {
+            publishAllLocked();
+            return;
+        }
+        PrefsSnapshot snapshot = new PrefsSnapshot(current, sKeyCount);
+        for (PrefKey key : keys) {
+            snapshot.fill(key, lookupLocked(key.name));
+        }
+        sCurrent = snapshot;
+    }
+
+    /**
+     * 句柄比读取到的快照更新时走的慢路径
+     */
+    private static Object lookup(String name) {
+        synchronized (sLock) {
+            return lookupLocked(name);
+        }
+    }
+
+    private void fill(PrefKey key, Object value) {
+        values[key.slot] = value;
+        Integer intValue = asInt(value);
+        ints[key.slot] = intValue != null ? intValue : 0;
+        hasInt[key.slot] = intValue != null;
+    }
+
+    /**
+     * 与 SharedPreferences#getInt 加字符串兜底一致：只接受 Integer 与整数字符串，
+     * Long、Float 等其他数值类型视为类型不符，不做截断
+     */
+    @Nullable
+    private static Integer asInt(@Nullable Object value) {
+        if (value instanceof Integer intValue) return intValue;
+        if (value instanceof String stringValue && !stringValue.isEmpty()) {
+            try {
+                return Integer.parseInt(stringValue);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public Object get(@NonNull PrefKey key) {
+        return key.slot < filled ? values[key.slot] : lookup(key.name);
+    }
+
+    public boolean contains(@NonNull PrefKey key) {
+        return get(key) != null;
+    }
+
+    public boolean getBoolean(@NonNull PrefKey key, boolean def) {
+        return get(key) instanceof Boolean value ? value : def;
+    }
+
+    public int getInt(@NonNull PrefKey key, int def) {
+        if (key.slot < filled) {
+            return hasInt[key.slot] ? ints[key.slot] : def;
+        }
+        Integer value = asInt(lookup(key.name));
+        return value != null ? value : def;
+    }
+
+    public long getLong(@NonNull PrefKey key, long def) {
+        return get(key) instanceof Long value ? value : def;
+    }
+
+    public float getFloat(@NonNull PrefKey key, float def) {
+        return get(key) instanceof Float value ? value : def;
+    }
+
+    public String getString(@NonNull PrefKey key, String def) {
+        return get(key) instanceof String value ? value : def;
+    }
+}
@@ -0,0 +1,477 @@
+package com.sevtinge.hyperceiler.common.utils.shell;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.common.log.AndroidLog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的 Shell 会话池。
+ * <p>
+ * 每个会话是一个长期存活的 su（或其它 Shell）进程，命令在子 Shell 中执行，
+ * 结束后分别向 stdout 和 stderr 写入带随机标记与序号的结束帧，stdout 的结束帧携带退出码。
+ * 这样每条命令只需一次管道往返，不再为每次调用创建新的 su 进程。
+ * <p>
+ * 会话在超时、被取消（调用线程被中断）或进程意外退出时直接销毁，下一次执行时按需重建；
+ * 空闲超过 {@link #IDLE_TIMEOUT_MS} 的会话由回收线程关闭，池空闲时不保留任何 su 进程与读取线程。
+ * 池中最多同时存在 {@link #MAX_SESSIONS} 个会话，单个长时间运行的命令不会阻塞其它调用方。
+ * <p>
+ * 常驻会话只适合模块应用进程；被 Hook 的进程调用频率低且生命周期不受控，应使用 {@link #execOnce(String, long, boolean)}。
+ */
+public final class RootShell {
+    private static final String TAG = "RootShell";
+
+    /**
+     * 会话进程意外退出或无法启动
+     */
+    public static final int EXIT_SHELL_DIED = -1;
+    /**
+     * 命令执行超时，所在会话已被销毁
+     */
+    public static final int EXIT_TIMEOUT = -2;
+    /**
+     * 调用线程在等待时被中断，所在会话已被销毁
+     */
+    public static final int EXIT_CANCELLED = -3;
+
+    private static final int MAX_SESSIONS = 3;
+    private static final long IDLE_TIMEOUT_MS = 30_000L;
+
+    private static volatile RootShell sInstance;
+
+    private final String[] mShellCommand;
+    private final long mIdleTimeoutNanos;
+    private final ArrayDeque<Session> mIdle = new ArrayDeque<>();
+    private final List<Session> mBusy = new ArrayList<>();
+    private int mSessionCount = 0;
+    private boolean mReaperRunning = false;
+
+    public RootShell(@NonNull String... shellCommand) {
+        this(IDLE_TIMEOUT_MS, shellCommand);
+    }
+
+    RootShell(long idleTimeoutMs, @NonNull String... shellCommand) {
+        mShellCommand = shellCommand.clone();
+        mIdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+    }
+
+    /**
+     * 以 su 启动的全局会话池
+     */
+    @NonNull
+    public static RootShell getInstance() {
+        if (sInstance == null) {
+            synchronized (RootShell.class) {
+                if (sInstance == null) {
+                    sInstance = new RootShell("su");
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 启动一个新的 su 进程执行命令，结束后进程退出，不使用会话池
+     *
+     * @param command     命令，可以包含多行
+     * @param timeoutMs   超时时间，小于等于 0 表示不限
+     * @param mergeStderr 是否将 stderr 合并到 stdout
+     */
+    @NonNull
+    public static Result execOnce(@NonNull String command, long timeoutMs, boolean mergeStderr) {
+        return execOnce(new String[]{"su"}, command, timeoutMs, mergeStderr);
+    }
+
+    @NonNull
+    static Result execOnce(@NonNull String[] shellCommand, @NonNull String command, long timeoutMs, boolean mergeStderr) {
+        Process process;
+        try {
+            process = new ProcessBuilder(shellCommand).redirectErrorStream(mergeStderr).start();
+        } catch (IOException e) {
+            AndroidLog.e(TAG, "start shell failed: ", e);
+            return new Result(EXIT_SHELL_DIED, Collections.emptyList(), Collections.emptyList());
+        }
+        List<String> stdout = Collections.synchronizedList(new ArrayList<>());
+        List<String> stderr = Collections.synchronizedList(new ArrayList<>());
+        // 两个输出流都需持续读取，否则任一管道写满都会使进程阻塞
+        Thread errReader = null;
+        if (!mergeStderr) {
+            errReader = new Thread(() -> readLines(process.getErrorStream(), stderr), "RootShell-once-err");
+            errReader.setDaemon(true);
+            errReader.start();
+        }
+        Thread outReader = new Thread(() -> readLines(process.getInputStream(), stdout), "RootShell-once-out");
+        outReader.setDaemon(true);
+        outReader.start();
+
+        int exitCode;
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write((command + "\nexit\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignored) {
+            // 进程可能已经退出，以退出码为准
+        }
+        try {
+            if (timeoutMs > 0) {
+                exitCode = process.waitFor(timeoutMs, TimeUnit.MILLISECONDS) ? process.exitValue() : EXIT_TIMEOUT;
+            } else {
+                exitCode = process.waitFor();
+            }
+            if (exitCode != EXIT_TIMEOUT) {
+                outReader.join();
+                if (errReader != null) errReader.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exitCode = EXIT_CANCELLED;
+        } finally {
+            process.destroy();
+        }
+        // 超时后读取线程可能仍在追加输出，复制时持有列表锁
+        return new Result(exitCode, new ArrayList<>(stdout), new ArrayList<>(stderr));
+    }
+
+    private static void readLines(InputStream in, List<String> out) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                out.add(line);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 执行命令并等待结束，不设超时
+     */
+    @NonNull
+    public Result exec(@NonNull String command) {
+        return exec(command, 0, false);
+    }
+
+    /**
+     * 执行命令并等待结束
+     *
+     * @param command     命令，可以包含多行
+     * @param timeoutMs   超时时间，小于等于 0 表示不限
+     * @param mergeStderr 是否将 stderr 合并到 stdout
+     */
+    @NonNull
+    public Result exec(@NonNull String command, long timeoutMs, boolean mergeStderr) {
+        long start = System.nanoTime();
+        Session session;
+        try {
+            session = acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(EXIT_CANCELLED, Collections.emptyList(), Collections.emptyList());
+        }
+        if (session == null) {
+            return new Result(EXIT_SHELL_DIED, Collections.emptyList(), Collections.emptyList());
+        }
+
+        Result result;
+        try {
+            result = session.run(command, timeoutMs, mergeStderr);
+        } finally {
+            release(session);
+        }
+        if (result.exitCode < 0) {
+            AndroidLog.w(TAG, "exec failed with " + result.exitCode + " after "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
+        return result;
+    }
+
+    /**
+     * 是否已有可用的会话
+     */
+    public boolean isAlive() {
+        synchronized (mIdle) {
+            for (Session session : mIdle) {
+                if (session.isAlive()) return true;
+            }
+            for (Session session : mBusy) {
+                if (session.isAlive()) return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 取消所有正在执行的命令并关闭全部会话，之后的调用会重新启动会话
+     */
+    public void close() {
+        synchronized (mIdle) {
+            for (Session session : mIdle) {
+                session.kill();
+            }
+            for (Session session : mBusy) {
+                session.kill();
+            }
+            // 忙碌中的会话在归还时按已销毁处理
+            mSessionCount -= mIdle.size();
+            mIdle.clear();
+            mIdle.notifyAll();
+        }
+    }
+
+    private Session acquire() throws InterruptedException {
+        synchronized (mIdle) {
+            while (true) {
+                Session session;
+                while ((session = mIdle.pollFirst()) != null) {
+                    if (session.isAlive()) {
+                        mBusy.add(session);
+                        return session;
+                    }
+                    mSessionCount--;
+                }
+                if (mSessionCount < MAX_SESSIONS) {
+                    mSessionCount++;
+                    break;
+                }
+                mIdle.wait();
+            }
+        }
+
+        // 启动进程不占用池锁
+        try {
+            Session session = new Session(mShellCommand);
+            synchronized (mIdle) {
+                mBusy.add(session);
+            }
+            return session;
+        } catch (IOException e) {
+            AndroidLog.e(TAG, "start shell failed: ", e);
+            synchronized (mIdle) {
+                mSessionCount--;
+                mIdle.notifyAll();
+            }
+            return null;
+        }
+    }
+
+    private void release(Session session) {
+        synchronized (mIdle) {
+            mBusy.remove(session);
+            if (session.isAlive()) {
+                session.mIdleSinceNanos = System.nanoTime();
+                mIdle.addFirst(session);
+                startReaperLocked();
+            } else {
+                mSessionCount--;
+            }
+            mIdle.notifyAll();
+        }
+    }
+
+    /**
+     * 有空闲会话时保持一个回收线程，池中没有空闲会话后线程退出
+     */
+    private void startReaperLocked() {
+        if (mReaperRunning) return;
+        mReaperRunning = true;
+        Thread thread = new Thread(this::reapLoop, "RootShell-reaper");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void reapLoop() {
+        synchronized (mIdle) {
+            try {
+                while (!mIdle.isEmpty()) {
+                    // 归还时插入队首，队尾是空闲最久的会话
+                    Session oldest = mIdle.peekLast();
+                    long remaining = oldest.mIdleSinceNanos + mIdleTimeoutNanos - System.nanoTime();
+                    if (remaining > 0) {
+                        mIdle.wait(TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                        continue;
+                    }
+                    mIdle.pollLast();
+                    oldest.kill();
+                    mSessionCount--;
+                    mIdle.notifyAll();
+                }
+            } catch (InterruptedException ignored) {
+            } finally {
+                mReaperRunning = false;
+            }
+        }
+    }
+
+    /**
+     * 命令执行结果
+     */
+    public static final class Result {
+        /**
+         * 命令的退出码，负数表示会话层面的失败，见 {@link #EXIT_SHELL_DIED} 等常量
+         */
+        public final int exitCode;
+        @NonNull
+        public final List<String> stdout;
+        @NonNull
+        public final List<String> stderr;
+
+        Result(int exitCode, @NonNull List<String> stdout, @NonNull List<String> stderr) {
+            this.exitCode = exitCode;
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Result{exitCode=" + exitCode + ", stdout=" + stdout + ", stderr=" + stderr + '}';
+        }
+    }
+
+    private static final class Pending {
+        final long id;
+        final List<String> stdout = new ArrayList<>();
+        final List<String> stderr = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        // 由 stdout 读取线程写入，经 latch 对调用线程可见
+        int exitCode = EXIT_SHELL_DIED;
+
+        Pending(long id) {
+            this.id = id;
+        }
+
+        void finish() {
+            while (latch.getCount() > 0) {
+                latch.countDown();
+            }
+        }
+    }
+
+    private static final class Session {
+        private final Process mProcess;
+        private final OutputStream mStdin;
+        private final String mMarker = "__HC_" + UUID.randomUUID().toString().replace("-", "") + "__";
+        private volatile Pending mPending;
+        private volatile boolean mDead = false;
+        private long mNextId = 0;
+        // 仅在池锁下访问
+        long mIdleSinceNanos;
+
+        Session(String[] shellCommand) throws IOException {
+            mProcess = new ProcessBuilder(shellCommand).start();
+            mStdin = mProcess.getOutputStream();
+            startReader(mProcess.getInputStream(), true);
+            startReader(mProcess.getErrorStream(), false);
+        }
+
+        boolean isAlive() {
+            return !mDead && mProcess.isAlive();
+        }
+
+        Result run(String command, long timeoutMs, boolean mergeStderr) {
+            Pending pending = new Pending(++mNextId);
+            mPending = pending;
+
+            // 子 Shell 隔离 exit、cd 等对会话的影响，并断开 stdin 避免命令读走后续输入
+            String frame = "(\n" + command + "\n) </dev/null" + (mergeStderr ? " 2>&1" : "") + "\n"
+                + "echo \"" + mMarker + " " + pending.id + " $?\"\n"
+                + "echo \"" + mMarker + " " + pending.id + "\" >&2\n";
+            try {
+                mStdin.write(frame.getBytes(StandardCharsets.UTF_8));
+                mStdin.flush();
+            } catch (IOException e) {
+                kill();
+                return toResult(pending, EXIT_SHELL_DIED);
+            }
+
+            try {
+                if (timeoutMs > 0) {
+                    if (!pending.latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                        kill();
+                        return toResult(pending, EXIT_TIMEOUT);
+                    }
+                } else {
+                    pending.latch.await();
+                }
+            } catch (InterruptedException e) {
+                kill();
+                Thread.currentThread().interrupt();
+                return toResult(pending, EXIT_CANCELLED);
+            }
+            mPending = null;
+            return toResult(pending, pending.exitCode);
+        }
+
+        void kill() {
+            mDead = true;
+            mProcess.destroy();
+            Pending pending = mPending;
+            if (pending != null) pending.finish();
+        }
+
+        private Result toResult(Pending pending, int exitCode) {
+            mPending = null;
+            // 被销毁的会话可能仍有读取线程在追加输出
+            synchronized (pending) {
+                return new Result(exitCode, new ArrayList<>(pending.stdout), new ArrayList<>(pending.stderr));
+            }
+        }
+
+        private void startReader(InputStream in, boolean isStdout) {
+            Thread thread = new Thread(() -> readLoop(in, isStdout), isStdout ? "RootShell-out" : "RootShell-err");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void readLoop(InputStream in, boolean isStdout) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Pending pending = mPending;
+                    int index = line.indexOf(mMarker);
+                    if (index < 0) {
+                        if (pending != null) append(pending, isStdout, line);
+                        continue;
+                    }
+                    // 命令输出末尾没有换行时，结束帧会接在最后一行后面
+                    if (index > 0 && pending != null) append(pending, isStdout, line.substring(0, index));
+                    String[] parts = line.substring(index + mMarker.length()).trim().split(" ");
+                    if (pending == null || parts.length == 0 || !parts[0].equals(String.valueOf(pending.id))) {
+                        continue;
+                    }
+                    if (isStdout && parts.length > 1) {
+                        try {
+                            pending.exitCode = Integer.parseInt(parts[1]);
+                        } catch (NumberFormatException ignored) {
+                        }
+                    }
+                    pending.latch.countDown();
+                }
+            } catch (IOException ignored) {
+            }
+            mDead = true;
+            Pending pending = mPending;
+            if (pending != null) pending.finish();
+        }
+
+        private static void append(Pending pending, boolean isStdout, String line) {
+            synchronized (pending) {
+                (isStdout ? pending.stdout : pending.stderr).add(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.common.utils.prefs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PrefsSnapshotTest {
+
+    @After
+    public void tearDown() {
+        PrefsSnapshot.reset();
+    }
+
+    @Test
+    public void readsTypedValuesFromRebuiltSnapshot() {
+        PrefKey bool = PrefsSnapshot.key("prefs_key_test_read_bool");
+        PrefKey number = PrefsSnapshot.key("prefs_key_test_read_int");
+        PrefKey text = PrefsSnapshot.key("prefs_key_test_read_string_int");
+        PrefKey missing = PrefsSnapshot.key("prefs_key_test_read_missing");
+
+        Map<String, Object> base = new HashMap<>();
+        base.put(bool.name, true);
+        base.put(number.name, 42);
+        base.put(text.name, "7");
+        PrefsSnapshot.rebuild(base, Collections.emptyMap());
+
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        assertNotNull(snapshot);
+        assertTrue(snapshot.getBoolean(bool, false));
+        assertEquals(42, snapshot.getInt(number, 0));
+        assertEquals(7, snapshot.getInt(text, 0));
+        assertEquals("7", snapshot.getString(text, null));
+        assertEquals(-1, snapshot.getInt(missing, -1));
+        assertFalse(snapshot.contains(missing));
+    }
+
+    @Test
+    public void nonIntegerNumbersAreNotTruncated() {
+        PrefKey longValue = PrefsSnapshot.key("prefs_key_test_number_long");
+        PrefKey floatValue = PrefsSnapshot.key("prefs_key_test_number_float");
+        PrefKey decimal = PrefsSnapshot.key("prefs_key_test_number_decimal");
+        PrefKey overflow = PrefsSnapshot.key("prefs_key_test_number_overflow");
+        PrefKey empty = PrefsSnapshot.key("prefs_key_test_number_empty");
+
+        Map<String, Object> base = new HashMap<>();
+        base.put(longValue.name, 5_000_000_000L);
+        base.put(floatValue.name, 2.9F);
+        base.put(decimal.name, "2.5");
+        base.put(overflow.name, "2147483648");
+        base.put(empty.name, "");
+        PrefsSnapshot.rebuild(base, Collections.emptyMap());
+
+        PrefsSnapshot snapshot = PrefsSnapshot.current();
+        assertEquals(-1, snapshot.getInt(longValue, -1));
+        assertEquals(-1, snapshot.getInt(floatValue, -1));
+        assertEquals(-1, snapshot.getInt(decimal, -1));
+        assertEquals(-1, snapshot.getInt(overflow, -1));
+        assertEquals(-1, snapshot.getInt(empty, -1));
+        // 原值仍可按自身类型读取
+        assertEquals(5_000_000_000L, snapshot.getLong(longValue, 0L));
+        assertEquals(2.9F, snapshot.getFloat(floatValue, 0F), 0F);
+    }
+
+    @Test
+    public void slowPathParsesLikeFastPath() {
+        Map<String, Object> base = new HashMap<>();
+        base.put("prefs_key_test_slow_string", "7");
+        base.put("prefs_key_test_slow_negative", "-12");
+        base.put("prefs_key_test_slow_long", 9L);
+        base.put("prefs_key_test_slow_float", 1.5F);
+        base.put("prefs_key_test_slow_text", "abc");
+        PrefsSnapshot.rebuild(base, Collections.emptyMap());
+        // 在注册新句柄之前取得的快照没有这些槽位，读取走慢路径
+        PrefsSnapshot old = PrefsSnapshot.current();
+
+        for (String name : base.keySet()) {
+            PrefKey key = PrefsSnapshot.key(name);
+            assertEquals(name, PrefsSnapshot.current().getInt(key, -1), old.getInt(key, -1));
+        }
+        assertEquals(7, old.getInt(PrefsSnapshot.key("prefs_key_test_slow_string"), -1));
+        assertEquals(-12, old.getInt(PrefsSnapshot.key("prefs_key_test_slow_negative"), -1));
+        assertEquals(-1, old.getInt(PrefsSnapshot.key("prefs_key_test_slow_long"), -1));
+        assertEquals(-1, old.getInt(PrefsSnapshot.key("prefs_key_test_slow_float"), -1));
+        assertEquals(-1, old.getInt(PrefsSnapshot.key("prefs_key_test_slow_text"), -1));
+    }
+
+    /**
+     * 每次读取的开销：快照按槽位读取，对比按字符串键补全前缀后查 HashMap 的旧路径
+     */
+    @Test
+    public void perReadCost() {
+        int keyCount = 500;
+        PrefKey[] keys = new PrefKey[keyCount];
+        String[] names = new String[keyCount];
+        Map<String, Object> base = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            names[i] = "test_bench_" + i;
+            keys[i] = PrefsSnapshot.key("prefs_key_" + names[i]);
+            base.put(keys[i].name, i % 2 == 0 ? (Object) i : String.valueOf(i));
+        }
+        PrefsSnapshot.rebuild(base, Collections.emptyMap());
+        Map<String, Object> cache = new HashMap<>(base);
+
+        int rounds = 2000;
+        long snapshotNs = Long.MAX_VALUE;
+        long mapNs = Long.MAX_VALUE;
+        long checksum = 0;
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                PrefsSnapshot snapshot = PrefsSnapshot.current();
+                for (PrefKey key : keys) checksum += snapshot.getInt(key, 0);
+            }
+            snapshotNs = Math.min(snapshotNs, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (String name : names) checksum -= legacyGetInt(cache, name, 0);
+            }
+            mapNs = Math.min(mapNs, System.nanoTime() - start);
+        }
+        assertEquals(0, checksum);
+
+        double reads = (double) rounds * keyCount;
+        System.out.printf("PrefsSnapshot getInt: snapshot %.1f ns/read, wrap+HashMap %.1f ns/read%n",
+            snapshotNs / reads, mapNs / reads);
+        assertTrue(snapshotNs < mapNs);
+    }
+
+    /**
+     * 快照之前 PrefsBridge#getInt 在 Hook 进程中的读取方式
+     */
+    private static int legacyGetInt(Map<String, Object> cache, String key, int def) {
+        String rKey = key.startsWith("prefs_key_") ? key : "prefs_key_" + key;
+        Object value = cache.get(rKey);
+        if (value instanceof Integer intValue) return intValue;
+        if (value instanceof String stringValue && !stringValue.isEmpty()) {
+            try {
+                return Integer.parseInt(stringValue);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return def;
+    }
+
+    @Test
+    public void registeringKeyPublishesNewSnapshotWithoutTouchingOldOne() {
+        PrefsSnapshot.rebuild(Collections.singletonMap("prefs_key_test_late", 5), Collections.emptyMap());
+        PrefsSnapshot before = PrefsSnapshot.current();
+
+        PrefKey late = PrefsSnapshot.key("prefs_key_test_late");
+        PrefsSnapshot after = PrefsSnapshot.current();
+
+        assertNotSame(before, after);
+        assertEquals(5, after.getInt(late, 0));
+        // 旧快照没有该槽位，读取走慢路径而不是被原地填充
+        assertEquals(5, before.getInt(late, 0));
+        assertSame(late, PrefsSnapshot.key("prefs_key_test_late"));
+    }
+
+    @Test
+    public void overrideUpdatesOnlyTheNewSnapshot() {
+        PrefKey key = PrefsSnapshot.key("prefs_key_test_override");
+        PrefKey other = PrefsSnapshot.key("prefs_key_test_override_other");
+        Map<String, Object> base = new HashMap<>();
+        base.put(key.name, 1);
+        base.put(other.name, 2);
+        PrefsSnapshot.rebuild(base, Collections.emptyMap());
+        PrefsSnapshot original = PrefsSnapshot.current();
+
+        PrefsSnapshot.override(key.name, 10);
+        PrefsSnapshot overridden = PrefsSnapshot.current();
+        assertNotSame(original, overridden);
+        assertEquals(1, original.getInt(key, 0));
+        assertEquals(10, overridden.getInt(key, 0));
+        assertEquals(2, overridden.getInt(other, 0));
+
+        PrefsSnapshot.override(key.name, null);
+        assertEquals(1, PrefsSnapshot.current().getInt(key, 0));
+        assertEquals(10, overridden.getInt(key, 0));
+    }
+
+    @Test
+    public void clearOverridesRestoresBaseValues() {
+        PrefKey key = PrefsSnapshot.key("prefs_key_test_clear");
+        PrefsSnapshot.rebuild(Collections.singletonMap(key.name, false),
+            Collections.singletonMap(key.name, true));
+        assertTrue(PrefsSnapshot.current().getBoolean(key, false));
+
+        PrefsSnapshot.clearOverrides();
+        assertFalse(PrefsSnapshot.current().getBoolean(key, true));
+    }
+
+    @Test
+    public void overrideBeforeRegistrationIsSeenByNewKey() {
+        PrefsSnapshot.rebuild(Collections.emptyMap(), Collections.emptyMap());
+        PrefsSnapshot.override("prefs_key_test_unregistered", "abc");
+
+        PrefKey key = PrefsSnapshot.key("prefs_key_test_unregistered");
+        assertEquals("abc", PrefsSnapshot.current().getString(key, null));
+    }
+
+    @Test
+    public void resetDropsSnapshot() {
+        PrefsSnapshot.rebuild(Collections.emptyMap(), Collections.emptyMap());
+        assertNotNull(PrefsSnapshot.current());
+        PrefsSnapshot.reset();
+        assertNull(PrefsSnapshot.current());
+        PrefsSnapshot.override("prefs_key_test_after_reset", 1);
+        assertNull(PrefsSnapshot.current());
+    }
+}
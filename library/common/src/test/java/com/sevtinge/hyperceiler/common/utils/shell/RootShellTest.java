@@ -0,0 +1,85 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.common.utils.shell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class RootShellTest {
+
+    @Test
+    public void execReturnsFramedOutputAndExitCode() {
+        RootShell shell = new RootShell("sh");
+        try {
+            RootShell.Result result = shell.exec("echo out; printf tail; echo err >&2; exit 3", 0, false);
+            assertEquals(3, result.exitCode);
+            assertEquals(Arrays.asList("out", "tail"), result.stdout);
+            assertEquals(Collections.singletonList("err"), result.stderr);
+
+            // 子 Shell 中的 exit 不影响会话
+            assertTrue(shell.exec("true").isSuccess());
+        } finally {
+            shell.close();
+        }
+    }
+
+    @Test
+    public void idleSessionIsReaped() throws InterruptedException {
+        RootShell shell = new RootShell(100, "sh");
+        try {
+            assertTrue(shell.exec("true").isSuccess());
+            assertTrue(shell.isAlive());
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (shell.isAlive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertFalse(shell.isAlive());
+
+            // 回收后按需重建
+            assertEquals(Collections.singletonList("again"), shell.exec("echo again").stdout);
+        } finally {
+            shell.close();
+        }
+    }
+
+    @Test
+    public void execOnceRunsInSeparateProcess() {
+        RootShell.Result result = RootShell.execOnce(new String[]{"sh"}, "echo out; echo err >&2; exit 5", 0, false);
+        assertEquals(5, result.exitCode);
+        assertEquals(Collections.singletonList("out"), result.stdout);
+        assertEquals(Collections.singletonList("err"), result.stderr);
+
+        RootShell.Result merged = RootShell.execOnce(new String[]{"sh"}, "echo out; echo err >&2", 0, true);
+        assertEquals(0, merged.exitCode);
+        assertEquals(Arrays.asList("out", "err"), merged.stdout);
+    }
+
+    @Test
+    public void execOnceTimesOut() {
+        RootShell.Result result = RootShell.execOnce(new String[]{"sh"}, "sleep 5", 100, false);
+        assertEquals(RootShell.EXIT_TIMEOUT, result.exitCode);
+    }
+}
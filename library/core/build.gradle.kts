@@ -21,6 +21,11 @@ android {
         create("beta") {}
         create("canary") {}
     }
+
+    testOptions {
+        // Robolectric 原生图形模式下 BitmapFactory.decodeFile 需要反射 FileDescriptor
+        unitTests.all { it.jvmArgs("--add-opens=java.base/java.io=ALL-UNNAMED") }
+    }
 }
 
 java {
@@ -36,4 +41,7 @@ dependencies {
     api(projects.library.common)
     api(projects.library.provision)
     api(libs.appiconloader)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
 }
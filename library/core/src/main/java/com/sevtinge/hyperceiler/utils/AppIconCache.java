@@ -18,39 +18,85 @@
  */
 package com.sevtinge.hyperceiler.utils;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.drawable.AdaptiveIconDrawable;
 import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.provider.Settings;
 import android.util.TypedValue;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.collection.LruCache;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 import me.zhanghai.android.appiconloader.AppIconLoader;
 
 /**
  * 按目标尺寸标准化加载应用图标，并基于 Bitmap 做 LRU 缓存。
+ * <p>
+ * 内存未命中时先读取磁盘缓存，磁盘缓存按包名、版本、尺寸和深色模式区分，
+ * 应用更新后旧文件在下一次写入时清理。同一图标的并发请求共享一次加载。
+ * <p>
+ * 磁盘缓存整体带有主题指纹（系统版本、屏幕密度、MIUI 主题图标、系统图标样式叠加层），
+ * 指纹变化时整体清空；加载失败时的兜底图标不写入磁盘。每个进程首次使用及超出
+ * {@link #MAX_DISK_CACHE_BYTES} 时，在类锁之外对照一次已安装应用列表，按文件名中的版本前缀
+ * 清理已卸载或已更新应用留下的文件，并按最近使用时间淘汰旧文件。
  */
 public final class AppIconCache {
 
     private static final int DEFAULT_ICON_SIZE_DP = 40;
     private static final float RELOADED_ICON_CONTENT_SCALE = 1.16f;
+    private static final String DISK_CACHE_DIR = "app_icons";
+    private static final String FINGERPRINT_FILE = ".fingerprint";
+    private static final long MAX_DISK_CACHE_BYTES = 16L * 1024 * 1024;
+    // MIUI 主题的图标包，应用主题时整体替换
+    private static final String MIUI_THEME_ICONS = "/data/system/theme/icons";
+    // 系统主题选择器写入的图标样式等叠加层配置
+    private static final String THEME_CUSTOMIZATION_OVERLAY_PACKAGES = "theme_customization_overlay_packages";
 
     private static final LruCache<CacheKey, Bitmap> sCache;
     private static final Map<Integer, AppIconLoader> sLoaders = new ConcurrentHashMap<>();
+    private static final Map<CacheKey, CompletableFuture<Bitmap>> sInFlight = new ConcurrentHashMap<>();
 
     private static volatile Boolean sShouldShrink;
 
+    // 以下字段仅在 AppIconCache.class 锁下访问
+    private static boolean sDiskCacheChecked = false;
+    private static long sDiskCacheBytes = 0;
+    private static boolean sPruning = false;
+
+    /**
+     * 实际生成图标位图的实现，测试中替换以统计加载次数
+     */
+    @VisibleForTesting
+    static final IconLoader DEFAULT_ICON_LOADER = AppIconCache::loadBitmapInternal;
+    @VisibleForTesting
+    static volatile IconLoader sIconLoader = DEFAULT_ICON_LOADER;
+
     static {
         int maxMemoryKB = (int) (Runtime.getRuntime().maxMemory() / 1024);
         // 使用最大内存的 1/8 作为位图缓存上限，sizeOf 以 KB 计。
@@ -68,7 +114,7 @@ public final class AppIconCache {
     public static Drawable getCached(@NonNull Context context, @NonNull String packageName, int sizePx) {
         Context appContext = context.getApplicationContext();
         int resolvedSize = resolveSizePx(appContext, sizePx);
-        Bitmap bitmap = sCache.get(new CacheKey(packageName, resolvedSize));
+        Bitmap bitmap = sCache.get(new CacheKey(packageName, resolvedSize, isNightMode(appContext)));
         return bitmap != null ? new BitmapDrawable(appContext.getResources(), bitmap) : null;
     }
 
@@ -77,7 +123,7 @@ public final class AppIconCache {
         Context appContext = context.getApplicationContext();
         try {
             PackageManager pm = appContext.getPackageManager();
-            ApplicationInfo info = pm.getApplicationInfo(packageName, 0);
+            PackageInfo info = pm.getPackageInfo(packageName, 0);
             Bitmap bitmap = getOrLoadBitmap(appContext, info, resolveSizePx(appContext, sizePx));
             return bitmap != null ? new BitmapDrawable(appContext.getResources(), bitmap) : null;
         } catch (Exception ignored) {
@@ -100,22 +146,293 @@ public final class AppIconCache {
         });
     }
 
+    /**
+     * 配置变化（主题、图标样式、密度等）后重新核对磁盘缓存指纹，由 Application#onConfigurationChanged 转发
+     */
+    public static void onConfigurationChanged() {
+        synchronized (AppIconCache.class) {
+            sDiskCacheChecked = false;
+        }
+    }
+
+    /**
+     * 响应系统内存回收，由 Application#onTrimMemory 转发
+     */
+    public static void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // 进入后台后图标可以从磁盘缓存快速恢复
+            sCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            sCache.trimToSize(sCache.maxSize() / 2);
+        }
+    }
+
     @Nullable
-    private static Bitmap getOrLoadBitmap(@NonNull Context context, @NonNull ApplicationInfo info, int sizePx) {
-        CacheKey key = new CacheKey(info.packageName, sizePx);
+    private static Bitmap getOrLoadBitmap(@NonNull Context context, @NonNull PackageInfo info, int sizePx) {
+        // 同一个包在不同列表里会以不同目标尺寸出现，因此缓存键必须带 size。
+        CacheKey key = new CacheKey(info.packageName, sizePx, isNightMode(context));
         Bitmap cached = sCache.get(key);
         if (cached != null) {
             return cached;
         }
 
-        // 同一个包在不同列表里会以不同目标尺寸出现，因此缓存键必须带 size。
-        Bitmap bitmap = loadBitmapInternal(context, info, sizePx);
-        if (bitmap != null) {
-            sCache.put(key, bitmap);
+        CompletableFuture<Bitmap> future = new CompletableFuture<>();
+        CompletableFuture<Bitmap> inFlight = sInFlight.putIfAbsent(key, future);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException ignored) {
+                return null;
+            }
+        }
+
+        Bitmap bitmap = null;
+        try {
+            // 其它线程可能在本次查询内存缓存后刚完成同一图标的加载
+            bitmap = sCache.get(key);
+            if (bitmap == null) {
+                ensureDiskCacheValid(context);
+                File file = getDiskCacheFile(context, info, key);
+                bitmap = readDiskCache(file, sizePx);
+                if (bitmap == null && info.applicationInfo != null) {
+                    bitmap = sIconLoader.load(context, info.applicationInfo, sizePx);
+                    if (bitmap != null) {
+                        writeDiskCache(context, file, getVersionPrefix(info), bitmap);
+                    } else {
+                        // 兜底图标可能只是暂时失败的结果，只放内存，不写入磁盘
+                        bitmap = loadFallbackBitmap(context, info.applicationInfo, sizePx);
+                    }
+                }
+                if (bitmap != null) {
+                    sCache.put(key, bitmap);
+                }
+            }
+        } finally {
+            future.complete(bitmap);
+            sInFlight.remove(key, future);
         }
         return bitmap;
     }
 
+    @NonNull
+    private static File getDiskCacheRoot(@NonNull Context context) {
+        return new File(context.getCacheDir(), DISK_CACHE_DIR);
+    }
+
+    @NonNull
+    private static File getDiskCacheFile(@NonNull Context context, @NonNull PackageInfo info, @NonNull CacheKey key) {
+        File dir = new File(getDiskCacheRoot(context), info.packageName);
+        return new File(dir, getVersionPrefix(info) + key.sizePx() + (key.night() ? "_night" : "_day") + ".png");
+    }
+
+    @NonNull
+    private static String getVersionPrefix(@NonNull PackageInfo info) {
+        // 同一版本号重新安装时图标也可能变化，因此同时带上更新时间
+        return info.getLongVersionCode() + "_" + info.lastUpdateTime + "_";
+    }
+
+    @Nullable
+    private static Bitmap readDiskCache(@NonNull File file, int sizePx) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+            if (bitmap != null && bitmap.getWidth() == sizePx && bitmap.getHeight() == sizePx) {
+                // 修改时间作为淘汰依据
+                file.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+        } catch (Throwable ignored) {
+        }
+        file.delete();
+        return null;
+    }
+
+    private static void writeDiskCache(@NonNull Context context, @NonNull File file,
+                                       @NonNull String versionPrefix, @NonNull Bitmap bitmap) {
+        File dir = file.getParentFile();
+        if (dir == null || (!dir.isDirectory() && !dir.mkdirs())) {
+            return;
+        }
+
+        // 清理该应用旧版本的缓存
+        File[] stale = dir.listFiles((d, name) -> !name.startsWith(versionPrefix));
+        if (stale != null) {
+            for (File f : stale) {
+                f.delete();
+            }
+        }
+
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IllegalStateException("compress failed");
+            }
+        } catch (Throwable ignored) {
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return;
+        }
+
+        boolean overLimit;
+        synchronized (AppIconCache.class) {
+            sDiskCacheBytes += file.length();
+            overLimit = sDiskCacheBytes > MAX_DISK_CACHE_BYTES;
+        }
+        if (overLimit) {
+            pruneDiskCache(context, getDiskCacheRoot(context));
+        }
+    }
+
+    /**
+     * 每个进程首次访问磁盘缓存及配置变化后核对主题指纹，指纹不同时清空整个磁盘缓存，随后清理过期目录
+     */
+    private static void ensureDiskCacheValid(@NonNull Context context) {
+        File root = getDiskCacheRoot(context);
+        synchronized (AppIconCache.class) {
+            if (sDiskCacheChecked) return;
+            sDiskCacheChecked = true;
+
+            File fingerprintFile = new File(root, FINGERPRINT_FILE);
+            String fingerprint = computeThemeFingerprint(context);
+            String stored = null;
+            try {
+                if (fingerprintFile.isFile()) {
+                    stored = new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8);
+                }
+            } catch (Throwable ignored) {
+            }
+
+            if (!fingerprint.equals(stored)) {
+                deleteRecursively(root);
+                sCache.evictAll();
+                try {
+                    if (root.isDirectory() || root.mkdirs()) {
+                        Files.write(fingerprintFile.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+                    }
+                } catch (Throwable ignored) {
+                }
+                sDiskCacheBytes = 0;
+                return;
+            }
+        }
+        pruneDiskCache(context, root);
+    }
+
+    @NonNull
+    private static String computeThemeFingerprint(@NonNull Context context) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Build.FINGERPRINT).append('|');
+        sb.append(context.getResources().getConfiguration().densityDpi).append('|');
+        File themeIcons = new File(MIUI_THEME_ICONS);
+        sb.append(themeIcons.lastModified()).append(':').append(themeIcons.length()).append('|');
+        try {
+            sb.append(Settings.Secure.getString(context.getContentResolver(), THEME_CUSTOMIZATION_OVERLAY_PACKAGES));
+        } catch (Throwable ignored) {
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 删除已卸载应用的目录和已更新应用的旧版本文件，总大小超出上限时按最近使用时间淘汰，淘汰到上限的 3/4。
+     * <p>
+     * 不持有类锁：图标加载线程不会被目录遍历和包列表查询阻塞，同一时间只有一个线程在清理。
+     */
+    private static void pruneDiskCache(@NonNull Context context, @NonNull File root) {
+        synchronized (AppIconCache.class) {
+            if (sPruning) return;
+            sPruning = true;
+        }
+        long total = -1;
+        try {
+            total = pruneDiskCacheFiles(root, getInstalledVersionPrefixes(context));
+        } finally {
+            synchronized (AppIconCache.class) {
+                if (total >= 0) sDiskCacheBytes = total;
+                sPruning = false;
+            }
+        }
+    }
+
+    /**
+     * @param installed 包名到当前版本前缀的映射，为 null 时不做卸载和版本判断，只按大小淘汰
+     * @return 清理后剩余的总字节数
+     */
+    private static long pruneDiskCacheFiles(@NonNull File root, @Nullable Map<String, String> installed) {
+        File[] packageDirs = root.listFiles(File::isDirectory);
+        List<DiskEntry> entries = new ArrayList<>();
+        long total = 0;
+        if (packageDirs != null) {
+            for (File dir : packageDirs) {
+                String prefix = installed != null ? installed.get(dir.getName()) : "";
+                if (prefix == null) {
+                    deleteRecursively(dir);
+                    continue;
+                }
+                File[] icons = dir.listFiles();
+                if (icons == null) continue;
+                for (File icon : icons) {
+                    // 文件名以写入时的版本前缀开头，与当前安装版本不一致的不会再被读取
+                    if (!icon.getName().startsWith(prefix)) {
+                        icon.delete();
+                        continue;
+                    }
+                    DiskEntry entry = new DiskEntry(icon, icon.lastModified(), icon.length());
+                    entries.add(entry);
+                    total += entry.length();
+                }
+            }
+        }
+
+        if (total > MAX_DISK_CACHE_BYTES) {
+            long target = MAX_DISK_CACHE_BYTES / 4 * 3;
+            entries.sort(Comparator.comparingLong(DiskEntry::lastModified));
+            for (DiskEntry entry : entries) {
+                if (total <= target) break;
+                if (entry.file().delete()) total -= entry.length();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 一次查询所有已安装应用的版本前缀，代替逐个目录调用 getPackageInfo
+     */
+    @Nullable
+    private static Map<String, String> getInstalledVersionPrefixes(@NonNull Context context) {
+        try {
+            List<PackageInfo> packages = context.getPackageManager().getInstalledPackages(0);
+            // 空列表多半是查询失败，不能据此删除全部目录
+            if (packages.isEmpty()) return null;
+            Map<String, String> prefixes = new HashMap<>(packages.size() * 2);
+            for (PackageInfo info : packages) {
+                prefixes.put(info.packageName, getVersionPrefix(info));
+            }
+            return prefixes;
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    private static void deleteRecursively(@NonNull File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static boolean isNightMode(@NonNull Context context) {
+        return (context.getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK)
+            == Configuration.UI_MODE_NIGHT_YES;
+    }
+
     @Nullable
     private static Bitmap loadBitmapInternal(@NonNull Context context, @NonNull ApplicationInfo info, int sizePx) {
         try {
@@ -128,12 +445,17 @@ public final class AppIconCache {
             Bitmap bitmap = loader.loadIcon(info, false);
             return bitmap != null ? centerCropToTargetSize(bitmap, sizePx) : null;
         } catch (Throwable ignored) {
-            try {
-                Drawable fallback = info.loadIcon(context.getPackageManager());
-                return drawableToBitmap(fallback, sizePx);
-            } catch (Throwable ignoredFallback) {
-                return null;
-            }
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Bitmap loadFallbackBitmap(@NonNull Context context, @NonNull ApplicationInfo info, int sizePx) {
+        try {
+            Drawable fallback = info.loadIcon(context.getPackageManager());
+            return drawableToBitmap(fallback, sizePx);
+        } catch (Throwable ignored) {
+            return null;
         }
     }
 
@@ -197,6 +519,14 @@ public final class AppIconCache {
         void onIconLoaded(@Nullable Drawable icon);
     }
 
-    private record CacheKey(@NonNull String packageName, int sizePx) {
+    interface IconLoader {
+        @Nullable
+        Bitmap load(@NonNull Context context, @NonNull ApplicationInfo info, int sizePx);
+    }
+
+    private record CacheKey(@NonNull String packageName, int sizePx, boolean night) {
+    }
+
+    private record DiskEntry(@NonNull File file, long lastModified, long length) {
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 磁盘缓存需要真实的 PNG 编解码
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class AppIconCacheTest {
+
+    private static final int SIZE_PX = 48;
+    private static final int APP_COUNT = 300;
+
+    private final AtomicInteger mLoads = new AtomicInteger();
+    private Application mApp;
+    private ShadowPackageManager mPackageManager;
+
+    @Before
+    public void setUp() {
+        mApp = RuntimeEnvironment.getApplication();
+        mPackageManager = shadowOf(mApp.getPackageManager());
+        AppIconCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        AppIconCache.onConfigurationChanged();
+        AppIconCache.sIconLoader = (context, info, sizePx) -> {
+            mLoads.incrementAndGet();
+            return Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        };
+    }
+
+    @After
+    public void tearDown() {
+        AppIconCache.sIconLoader = AppIconCache.DEFAULT_ICON_LOADER;
+    }
+
+    private void install(String packageName, long lastUpdateTime) {
+        PackageInfo info = new PackageInfo();
+        info.packageName = packageName;
+        info.setLongVersionCode(1);
+        info.lastUpdateTime = lastUpdateTime;
+        info.applicationInfo = new ApplicationInfo();
+        info.applicationInfo.packageName = packageName;
+        mPackageManager.installPackage(info);
+    }
+
+    private static String app(int i) {
+        return "com.example.app" + i;
+    }
+
+    private File packageDir(String packageName) {
+        return new File(new File(mApp.getCacheDir(), "app_icons"), packageName);
+    }
+
+    @Test
+    public void concurrentLoadsShareOneLoad() throws Exception {
+        install("com.example.shared", 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppIconCache.sIconLoader = (context, info, sizePx) -> {
+            mLoads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+        };
+
+        int threads = 8;
+        List<Thread> workers = new ArrayList<>();
+        List<Future<Drawable>> results = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r);
+            workers.add(thread);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> AppIconCache.loadIcon(mApp, "com.example.shared", SIZE_PX)));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // 等其余线程都挂在同一个加载任务上再放行
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (countWaiting(workers) < threads && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Bitmap first = null;
+            for (Future<Drawable> result : results) {
+                Drawable icon = result.get(10, TimeUnit.SECONDS);
+                assertNotNull(icon);
+                Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+                if (first == null) first = bitmap;
+                assertSame(first, bitmap);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, mLoads.get());
+    }
+
+    private static int countWaiting(List<Thread> threads) {
+        int waiting = 0;
+        for (Thread thread : threads) {
+            Thread.State state = thread.getState();
+            if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) waiting++;
+        }
+        return waiting;
+    }
+
+    @Test
+    public void diskCacheServesManyAppsAndPrunesByFileName() {
+        for (int i = 0; i < APP_COUNT; i++) {
+            install(app(i), 1);
+        }
+
+        long cold = System.nanoTime();
+        for (int i = 0; i < APP_COUNT; i++) {
+            assertNotNull(AppIconCache.loadIcon(mApp, app(i), SIZE_PX));
+        }
+        cold = System.nanoTime() - cold;
+        assertEquals(APP_COUNT, mLoads.get());
+
+        // 内存缓存清空后全部由磁盘缓存恢复
+        AppIconCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        long disk = System.nanoTime();
+        for (int i = 0; i < APP_COUNT; i++) {
+            assertNotNull(AppIconCache.loadIcon(mApp, app(i), SIZE_PX));
+        }
+        disk = System.nanoTime() - disk;
+        assertEquals(APP_COUNT, mLoads.get());
+
+        // 卸载 10 个、更新 10 个，下一次核对时按文件名前缀清理
+        for (int i = 0; i < 10; i++) {
+            mPackageManager.deletePackage(app(i));
+            install(app(10 + i), 2);
+        }
+        AppIconCache.onConfigurationChanged();
+        AppIconCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        long prune = System.nanoTime();
+        assertNotNull(AppIconCache.loadIcon(mApp, app(APP_COUNT - 1), SIZE_PX));
+        prune = System.nanoTime() - prune;
+
+        for (int i = 0; i < 10; i++) {
+            assertFalse(packageDir(app(i)).exists());
+            String[] updated = packageDir(app(10 + i)).list();
+            assertNotNull(updated);
+            assertEquals(0, updated.length);
+        }
+        String[] kept = packageDir(app(20)).list();
+        assertNotNull(kept);
+        assertEquals(1, kept.length);
+        assertEquals(APP_COUNT, mLoads.get());
+
+        System.out.printf("AppIconCache %d apps: cold %d ms, disk %d ms, prune+1 load %d ms%n",
+            APP_COUNT, TimeUnit.NANOSECONDS.toMillis(cold), TimeUnit.NANOSECONDS.toMillis(disk),
+            TimeUnit.NANOSECONDS.toMillis(prune));
+        assertTrue("prune took " + TimeUnit.NANOSECONDS.toMillis(prune) + " ms",
+            prune < TimeUnit.SECONDS.toNanos(2));
+    }
+}
@@ -32,6 +32,11 @@ android {
         create("beta") {}
         create("canary") {}
     }
+
+    testOptions {
+        // 单元测试以纯 JVM 逻辑为主，日志等 framework 调用返回默认值即可；依赖 framework 实现的用例在 Robolectric 下运行
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 java {
@@ -79,4 +84,9 @@ dependencies {
     api(projects.library.processor)
     api(projects.library.common)
     annotationProcessor(projects.library.processor)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    // libxposed API 在主源码中为 compileOnly，测试运行时需要 HookHandle 等类型
+    testImplementation(libs.libxposed.api)
 }
@@ -22,8 +22,7 @@ import static com.sevtinge.hyperceiler.libhook.base.BaseHook.findClass;
 import static com.sevtinge.hyperceiler.libhook.base.BaseHook.setStaticObjectField;
 
 import android.content.Context;
-import android.view.inputmethod.InputMethodInfo;
-import android.view.inputmethod.InputMethodManager;
+import android.provider.Settings;
 
 import com.hchen.database.HookBase;
 import com.sevtinge.hyperceiler.common.log.XposedLog;
@@ -38,9 +37,6 @@ import com.sevtinge.hyperceiler.libhook.rules.various.clipboard.UnlockIme;
 import com.sevtinge.hyperceiler.libhook.rules.various.input.MiAospIme;
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.AppsTool;
 
-import java.util.Collections;
-import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Set;
 
 @HookBase(targetPackage = "VariousThirdApps")
@@ -50,15 +46,13 @@ public class VariousThirdApps extends BaseLoad {
     private static final String XIAOMI_BAIDU_PACKAGE = "com.baidu.input_mi";
     private static final String BAIDU_PACKAGE = "com.baidu.input";
 
-    private static Set<String> sEnabledInputMethodPackages = Collections.emptySet();
-
     private String mPackageName;
 
 
     @Override
     public void onPackageLoaded() {
         mPackageName = getPackageName();
-        boolean isInputMethod = isEnabledInputMethodPackage(mPackageName);
+        boolean isInputMethod = isInputMethodPackage(mPackageName);
 
         if (isInputMethod) {
             initInputMethodHooks();
@@ -103,39 +97,34 @@ public class VariousThirdApps extends BaseLoad {
     private void initMusicHooks() {
         initHook(MusicHooks.INSTANCE, PrefsBridge.getBoolean("system_ui_statusbar_music_switch") && PrefsBridge.getBoolean("system_ui_statusbar_music_show_app"));
     }
-    private Set<String> getEnabledInputMethodPackages(Context context) {
-        try {
-            if (context == null) {
-                XposedLog.e("getEnabledInputMethodPackages", "context is null");
-                return Collections.emptySet();
-            }
-
-            InputMethodManager inputMethodManager = (InputMethodManager) context.getSystemService(Context.INPUT_METHOD_SERVICE);
-            if (inputMethodManager == null) {
-                XposedLog.e("getEnabledInputMethodPackages", "inputMethodManager is null");
-                return Collections.emptySet();
-            }
 
-            List<InputMethodInfo> enabledInputMethods = inputMethodManager.getEnabledInputMethodList();
-            LinkedHashSet<String> packages = new LinkedHashSet<>();
-            for (InputMethodInfo inputMethodInfo : enabledInputMethods) {
-                if (inputMethodInfo.getServiceInfo() != null) {
-                    packages.add(inputMethodInfo.getServiceInfo().packageName);
-                }
-            }
-            return packages;
-        } catch (Throwable e) {
-            XposedLog.e("getEnabledInputMethodPackages", "have e: " + e + ", message: " + e.getMessage());
-            return Collections.emptySet();
+    /**
+     * 判断当前包是否为已启用的输入法
+     * <p>
+     * 模块应用发布过已启用输入法列表时直接以列表为准，不再产生跨进程调用；
+     * 尚未发布时读取 Settings.Secure.ENABLED_INPUT_METHODS 作为后备。
+     */
+    private boolean isInputMethodPackage(String packageName) {
+        Set<String> published = InputMethodConfig.getEnabledInputMethodPackages();
+        if (published != null) {
+            return published.contains(packageName);
         }
+        return isEnabledInputMethodInSettings(packageName);
     }
 
-    private boolean isEnabledInputMethodPackage(String packageName) {
-        if (sEnabledInputMethodPackages.isEmpty()) {
-            sEnabledInputMethodPackages = getEnabledInputMethodPackages(
-                AppsTool.findContext(AppsTool.FlAG_ONLY_ANDROID));
+    private boolean isEnabledInputMethodInSettings(String packageName) {
+        try {
+            Context context = AppsTool.findContext(AppsTool.FlAG_ONLY_ANDROID);
+            if (context == null) {
+                XposedLog.e("isEnabledInputMethodInSettings", "context is null");
+                return false;
+            }
+            String enabled = Settings.Secure.getString(context.getContentResolver(), Settings.Secure.ENABLED_INPUT_METHODS);
+            return InputMethodConfig.parseEnabledInputMethodPackages(enabled).contains(packageName);
+        } catch (Throwable e) {
+            XposedLog.e("isEnabledInputMethodInSettings", "have e: " + e + ", message: " + e.getMessage());
+            return false;
         }
-        return sEnabledInputMethodPackages.contains(packageName);
     }
 
     private boolean isSogouPackage(String packageName) {
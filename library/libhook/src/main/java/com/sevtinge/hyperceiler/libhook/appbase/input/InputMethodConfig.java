@@ -25,6 +25,7 @@ import androidx.annotation.Nullable;
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
 
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public final class InputMethodConfig {
@@ -34,6 +35,8 @@ public final class InputMethodConfig {
     public static final String PREF_AOSP_IME_NAV_BAR_LAYOUT_START = "various_aosp_ime_nav_bar_layout_start";
     public static final String PREF_AOSP_IME_NAV_BAR_LAYOUT_END = "various_aosp_ime_nav_bar_layout_end";
     public static final String PREF_AOSP_IME_NAV_BAR_LAYOUT_HANDLE = "various_aosp_ime_nav_bar_layout_handle";
+    // 由模块应用发布的已启用输入法包名集合
+    public static final String PREF_ENABLED_IME_PACKAGES = "various_enabled_ime_packages";
     private static final String PREF_LEGACY_MIUI_IME_UNLOCK = "various_unlock_ime";
     private static final String PREF_LEGACY_AOSP_IME = "various_aosp_ime";
     private static final String PREF_LEGACY_AOSP_IME_APPS = "various_aosp_ime_apps";
@@ -157,6 +160,28 @@ public final class InputMethodConfig {
         return DEFAULT_AOSP_IME_NAV_BAR_LAYOUT_HANDLE;
     }
 
+    /**
+     * 获取模块应用发布的已启用输入法包名，尚未发布时返回 null
+     */
+    @Nullable
+    public static Set<String> getEnabledInputMethodPackages() {
+        return PrefsBridge.getStringSet(PREF_ENABLED_IME_PACKAGES, null);
+    }
+
+    /**
+     * 解析 Settings.Secure.ENABLED_INPUT_METHODS 的值（{@code 包名/服务[;子类型]:...}）为包名集合
+     */
+    @NonNull
+    public static Set<String> parseEnabledInputMethodPackages(@Nullable String enabledInputMethods) {
+        if (enabledInputMethods == null || enabledInputMethods.isEmpty()) return Collections.emptySet();
+        Set<String> packages = new LinkedHashSet<>();
+        for (String entry : enabledInputMethods.split(":")) {
+            int end = entry.indexOf('/');
+            if (end > 0) packages.add(entry.substring(0, end));
+        }
+        return packages;
+    }
+
     public static boolean isSelectedInputMethodPackage(@Nullable String packageName) {
         return isSelectedPackage(PREF_IME_TARGET_APPS, packageName);
     }
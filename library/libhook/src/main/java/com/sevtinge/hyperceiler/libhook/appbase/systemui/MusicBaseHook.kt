@@ -54,6 +54,9 @@ import com.sevtinge.hyperceiler.libhook.base.BaseHook
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.AppsTool
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.getIdByName
 import io.github.lingqiqi5211.ezhooktool.xposed.EzXposed
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
 import org.json.JSONObject
 import kotlin.math.min
 
@@ -72,7 +75,11 @@ abstract class MusicBaseHook : BaseHook() {
         private const val NOTIFICATION_TIMEOUT = 999999
         private const val DEFAULT_FONT_SIZE = 15
         private const val PENDING_INTENT_REQUEST_CODE = 0
-        private const val SALT_MUSIC_PACKAGE = "com.salt.music"}
+        private const val SALT_MUSIC_PACKAGE = "com.salt.music"
+        private const val ICON_CACHE_SIZE = 4
+        // 图标按此尺寸降采样解码，足以覆盖岛、焦点通知与息屏的显示尺寸
+        private const val ICON_DECODE_SIZE_DP = 96
+    }
 
     val context: Context by lazy { EzXposed.appContext }
     var songPackageName: String = "unknown"
@@ -122,6 +129,19 @@ abstract class MusicBaseHook : BaseHook() {
         true
     }
 
+    private val iconDecodeSize: Int by lazy {
+        (ICON_DECODE_SIZE_DP * context.resources.displayMetrics.density).toInt()
+    }
+
+    // 以下缓存仅在主线程访问
+    private val iconCache = object : LinkedHashMap<IconKey, IconBundle>(ICON_CACHE_SIZE, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<IconKey, IconBundle>?): Boolean {
+            return size > ICON_CACHE_SIZE
+        }
+    }
+    private var appEntry: AppEntry? = null
+    private var lastPosted: PostedState? = null
+
     private val receiver = object : ISuperLyricReceiver.Stub() {
         override fun onLyric(publisher: String, data: SuperLyricData) {
             runCatching {
@@ -176,10 +196,16 @@ abstract class MusicBaseHook : BaseHook() {
         // 确保 Channel 已创建
         channelCreated
 
-        val (musicAppName, launchIntent) = resolveAppNameAndLaunchIntent()
+        val app = resolveApp()
 
-        // 准备图标
-        val iconBundle = prepareIcons(extraData, launchIntent)
+        // 准备图标，同一首歌的图标只解码一次
+        val iconBundle = prepareIcons(extraData, app)
+
+        val tf = extraData.translation?.text
+
+        // 文本、翻译与图标都未变化时无需重新发送
+        val posted = PostedState(text, tf, iconBundle, app)
+        if (posted == lastPosted) return
 
         // 拆分文字
         val (leftText, rightText) = splitSmart(text, SplitConfig(maxLength = 6))
@@ -188,19 +214,19 @@ abstract class MusicBaseHook : BaseHook() {
         val builder = NotificationCompat.Builder(context, CHANNEL_ID)
             .setContentTitle("Xiaomi Focus Lyric")
             .setContentText(text)
-            .setSmallIcon(IconCompat.createWithBitmap(iconBundle.primaryBitmap))
+            .setSmallIcon(iconBundle.smallIcon)
             .setTicker(text)
             .setPriority(NotificationCompat.PRIORITY_LOW)
             .setOngoing(true)
-            .setContentIntent(createPendingIntent(launchIntent))
+            .setContentIntent(app.contentIntent)
 
         // Island template
-        val islandTemplate = buildIslandTemplate(leftText, rightText, musicAppName, text)
-
-        val tf = extraData.translation?.text
+        val islandTemplate = buildIslandTemplate(leftText, rightText, app.label, text)
 
         // 发送通知
-        sendFocusNotification(builder, text, tf, iconBundle, islandTemplate, packageName)
+        if (sendFocusNotification(builder, text, tf, iconBundle, islandTemplate, packageName)) {
+            lastPosted = posted
+        }
     }
 
     /**
@@ -218,26 +244,37 @@ abstract class MusicBaseHook : BaseHook() {
     }
 
     /**
-     * 解析应用名称和启动 Intent
+     * 解析应用名称、启动 Intent 与点击通知的 PendingIntent，按歌词来源应用缓存
      */
-    private fun resolveAppNameAndLaunchIntent(): Pair<String, Intent?> {
-        return runCatching {
+    private fun resolveApp(): AppEntry {
+        val packageName = songPackageName
+        appEntry?.takeIf { it.packageName == packageName }?.let { return it }
+
+        val (label, launchIntent) = runCatching {
             val pm = context.packageManager
-            val appInfo = pm.getApplicationInfo(songPackageName, 0)
+            val appInfo = pm.getApplicationInfo(packageName, 0)
             val label = pm.getApplicationLabel(appInfo).toString()
-            val launchIntent = pm.getLaunchIntentForPackage(songPackageName)
+            val launchIntent = pm.getLaunchIntentForPackage(packageName)
             label to launchIntent
         }.getOrElse { e ->
             XposedLog.e(TAG, e)
             lpparam.packageName to context.packageManager.getLaunchIntentForPackage(lpparam.packageName)
         }
+        return AppEntry(packageName, label, launchIntent, createPendingIntent(launchIntent)).also { appEntry = it }
     }
 
     /**
-     * 准备图标资源
+     * 准备图标资源，按来源应用与图标内容哈希缓存处理结果
      */
-    private fun prepareIcons(extraData: SuperLyricData, launchIntent: Intent?): IconBundle {
-        val baseBitmap = base64ToBitmap(extraData.base64Icon)
+    private fun prepareIcons(extraData: SuperLyricData, app: AppEntry): IconBundle {
+        val base64 = extraData.base64Icon
+        val key = IconKey(app.packageName, base64?.hashCode() ?: 0, base64?.length ?: 0)
+        iconCache[key]?.takeIf { it.base64 == base64 }?.let { return it }
+        return createIcons(base64, app.launchIntent).also { iconCache[key] = it }
+    }
+
+    private fun createIcons(base64: String?, launchIntent: Intent?): IconBundle {
+        val baseBitmap = base64ToBitmap(base64)
         val activityIconBitmap = launchIntent?.let {
             runCatching { context.packageManager.getActivityIcon(it).toBitmap() }.getOrNull()
         }
@@ -250,14 +287,16 @@ abstract class MusicBaseHook : BaseHook() {
 
         val hasTint = baseBitmap != null
         val circularBitmap = if (hasTint) primaryBitmap else circleCropBitmap(primaryBitmap)
+        val icon = primaryBitmap.toIcon(if (hasTint) Color.WHITE else null)
+        val circularIcon = circularBitmap.toIcon(if (hasTint) Color.WHITE else null)
 
         return IconBundle(
-            primaryBitmap = primaryBitmap,
-            icon = primaryBitmap.toIcon(if (hasTint) Color.WHITE else null),
+            base64 = base64,
+            smallIcon = IconCompat.createWithBitmap(primaryBitmap),
+            icon = icon,
             darkIcon = primaryBitmap.toIcon(if (hasTint) Color.BLACK else null),
-            circularIcon = circularBitmap.toIcon(if (hasTint) Color.WHITE else null),
-            activityIcon = activityIconBitmap,
-            hasTint = hasTint
+            aodBitmap = if (!hideAodShow && isAodMode) icon.loadDrawable(context)?.toBitmap() else null,
+            iconsAdd = createIconsBundle(primaryBitmap, circularIcon, activityIconBitmap)
         )
     }
 
@@ -271,17 +310,20 @@ abstract class MusicBaseHook : BaseHook() {
     }
 
     /**
-     * 创建图标 Bundle
+     * 创建图标 Bundle，随图标一同缓存，发送时不再修改
      */
-    private fun createIconsBundle(iconBundle: IconBundle): Bundle = Bundle().apply {
-        putParcelable("miui.focus.icon", iconBundle.circularIcon)
-        val shareIconBitmap = iconBundle.activityIcon ?: iconBundle.primaryBitmap
-        putParcelable("miui.focus.share_icon", Icon.createWithBitmap(shareIconBitmap))
-        if (!isShowApp) putParcelable("miui.appIcon", iconBundle.primaryBitmap)
-    }
+    private fun createIconsBundle(primaryBitmap: Bitmap, circularIcon: Icon, activityIcon: Bitmap?): Bundle =
+        Bundle().apply {
+            putParcelable("miui.focus.icon", circularIcon)
+            val shareIconBitmap = activityIcon ?: primaryBitmap
+            putParcelable("miui.focus.share_icon", Icon.createWithBitmap(shareIconBitmap))
+            if (!isShowApp) putParcelable("miui.appIcon", primaryBitmap)
+        }
 
     /**
      * 发送 Focus 通知
+     *
+     * @return 是否已发送
      */
     private fun sendFocusNotification(
         builder: NotificationCompat.Builder,
@@ -290,10 +332,10 @@ abstract class MusicBaseHook : BaseHook() {
         iconBundle: IconBundle,
         islandTemplate: JSONObject,
         packageName: String?
-    ) {
-        val iconsAdd = createIconsBundle(iconBundle)
+    ): Boolean {
+        val iconsAdd = iconBundle.iconsAdd
 
-        runCatching {
+        return runCatching {
             val remoteDay = buildRemoteViews(tf, text, RemoteViewType.DAY)
             val remoteIsland = buildRemoteViews(tf, text, RemoteViewType.ISLAND)
 
@@ -302,7 +344,8 @@ abstract class MusicBaseHook : BaseHook() {
             )
 
             postNotification(builder, focusExtras, packageName)
-        }.onFailure { e ->
+            true
+        }.getOrElse { e ->
             XposedLog.w(TAG, lpparam.packageName, "send diy focus failed: ${e.message}")
             sendFallbackNotification(builder, text, tf, iconBundle, islandTemplate, packageName, iconsAdd)
         }
@@ -322,7 +365,7 @@ abstract class MusicBaseHook : BaseHook() {
     ): Bundle {
         return when {
             !hideAodShow && isAodMode -> {
-                val remoteAod = buildRemoteViews(tf, text, RemoteViewType.AOD, iconBundle.icon)
+                val remoteAod = buildRemoteViews(tf, text, RemoteViewType.AOD, iconBundle.aodBitmap)
                 FocusApi.sendDiyFocus(
                     addpics = iconsAdd,
                     islandFirstFloat = false,
@@ -373,6 +416,8 @@ abstract class MusicBaseHook : BaseHook() {
 
     /**
      * 发送焦点通知
+     *
+     * @return 是否已发送
      */
     private fun sendFallbackNotification(
         builder: NotificationCompat.Builder,
@@ -382,8 +427,8 @@ abstract class MusicBaseHook : BaseHook() {
         islandTemplate: JSONObject,
         packageName: String?,
         iconsAdd: Bundle
-    ) {
-        runCatching {
+    ): Boolean {
+        return runCatching {
             val baseinfo = FocusApi.baseinfo(
                 basetype = if (tf == null) 1 else 2,
                 title = text,
@@ -417,8 +462,10 @@ abstract class MusicBaseHook : BaseHook() {
                 )
             }
             postNotification(builder, apiFallback, packageName)
-        }.onFailure {
+            true
+        }.getOrElse {
             XposedLog.e(TAG, lpparam.packageName, "fallback send focus failed: ${it.message}")
+            false
         }
     }
 
@@ -480,7 +527,7 @@ abstract class MusicBaseHook : BaseHook() {
         tf: String?,
         text: String,
         type: RemoteViewType,
-        icon: Icon? = null
+        iconBitmap: Bitmap? = null
     ): RemoteViews {
         val layoutId = when (type) {
             RemoteViewType.DAY -> resourceIds.focuslyricLayout
@@ -510,8 +557,8 @@ abstract class MusicBaseHook : BaseHook() {
             }
 
             // AOD 模式设置图标
-            if (isAod && icon != null) {
-                setImageViewBitmap(resourceIds.focusiconId, icon.loadDrawable(context)?.toBitmap())
+            if (isAod && iconBitmap != null) {
+                setImageViewBitmap(resourceIds.focusiconId, iconBitmap)
             }
         }
     }
@@ -537,23 +584,47 @@ abstract class MusicBaseHook : BaseHook() {
 
     /**
      * 取消通知
+     *
+     * onStop 在 binder 线程回调，这里与 sendNotification 一样切到主线程执行，
+     * lastPosted 只在主线程读写，且取消排在此前已投递的发送之后
      */
     @SuppressLint("NotificationPermission")
     fun cancelNotification() {
-        notificationManager.cancel(CHANNEL_ID.hashCode())
+        CoroutineScope(Dispatchers.Main).launch {
+            lastPosted = null
+            notificationManager.cancel(CHANNEL_ID.hashCode())
+        }
     }
 
     /**
-     * 将 Base64 字符串转换为 Bitmap
+     * 将 Base64 字符串转换为 Bitmap，按显示尺寸降采样解码
      */
     private fun base64ToBitmap(base64: String?): Bitmap? {
         if (base64.isNullOrEmpty()) return null
         return runCatching {
             val bytes = Base64.decode(base64, Base64.DEFAULT)
-            BitmapFactory.decodeByteArray(bytes, 0, bytes.size)
+            val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.size, bounds)
+            if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return@runCatching null
+
+            val options = BitmapFactory.Options().apply {
+                inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, iconDecodeSize)
+            }
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.size, options)
         }.getOrNull()
     }
 
+    /**
+     * 计算不小于目标尺寸的最大 2 的幂次采样率
+     */
+    private fun calculateInSampleSize(width: Int, height: Int, targetSize: Int): Int {
+        var sampleSize = 1
+        while (min(width, height) / (sampleSize * 2) >= targetSize) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+
     /**
      * 创建空白 Bitmap 作为降级方案
      */
@@ -701,15 +772,46 @@ private data class ResourceIds(
 )
 
 /**
- * 图标包
+ * 歌词来源应用信息
+ */
+private class AppEntry(
+    val packageName: String,
+    val label: String,
+    val launchIntent: Intent?,
+    val contentIntent: PendingIntent?
+)
+
+/**
+ * 图标缓存键
+ *
+ * @param iconHash 图标 Base64 内容的哈希，命中后仍会比较内容
+ */
+private data class IconKey(
+    val packageName: String,
+    val iconHash: Int,
+    val iconLength: Int
+)
+
+/**
+ * 图标包，处理结果按图标内容缓存复用
  */
-private data class IconBundle(
-    val primaryBitmap: Bitmap,
+private class IconBundle(
+    val base64: String?,
+    val smallIcon: IconCompat,
     val icon: Icon,
     val darkIcon: Icon,
-    val circularIcon: Icon,
-    val activityIcon: Bitmap?,
-    val hasTint: Boolean
+    val aodBitmap: Bitmap?,
+    val iconsAdd: Bundle
+)
+
+/**
+ * 最近一次发送的通知内容，图标与应用按引用比较
+ */
+private data class PostedState(
+    val text: String,
+    val translation: String?,
+    val iconBundle: IconBundle,
+    val app: AppEntry
 )
 
 /**
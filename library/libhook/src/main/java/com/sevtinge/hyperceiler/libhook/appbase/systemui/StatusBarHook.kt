@@ -24,6 +24,7 @@ import android.view.ViewGroup
 import com.sevtinge.hyperceiler.libhook.base.BaseHook
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.StateFlowHelper
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.findViewByIdName
+import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.getIdByName
 import java.util.Collections.synchronizedSet
 import java.util.concurrent.ConcurrentHashMap
 
@@ -100,6 +101,6 @@ abstract class StatusBarHook : BaseHook() {
 
     /** 解析 SystemUI 的资源 ID */
     protected fun resolveSystemUIId(context: Context, name: String): Int {
-        return context.resources.getIdentifier(name, "id", "com.android.systemui")
+        return context.resources.getIdByName(name, "id", "com.android.systemui")
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.appbase.systemui;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.libxposed.api.XposedInterface;
+
+/**
+ * 自定义磁贴的方法分发器。
+ * <p>
+ * 每个磁贴方法只安装一个 Hook，由所有挂在该方法上的自定义磁贴共用。磁贴实例创建时按磁贴名解析出所属的
+ * {@link TileUtils} 并绑定到实例，调用时按实例找到绑定，再在该方法的路由表中取出处理者；
+ * 原生磁贴只经过一次未命中的查找便执行原方法，不读取附加字段，也不创建 {@link TileContext}。
+ */
+final class TileDispatcher implements XposedInterface.Hooker {
+    private static final Binding[] NO_BINDINGS = new Binding[0];
+    private static final Route[] NO_ROUTES = new Route[0];
+
+    // 以下两个表仅在类锁下访问
+    private static final Map<Method, TileDispatcher> sDispatchers = new HashMap<>();
+    private static final Map<String, TileUtils> sOwners = new HashMap<>();
+    private static boolean sCleanupRegistered = false;
+    static Installer sInstaller = BaseHook::chain;
+    // 写时复制，自定义磁贴实例只有少数几个，线性查找比哈希表更快且不分配对象
+    private static volatile Binding[] sBindings = NO_BINDINGS;
+
+    private volatile Route[] mRoutes = NO_ROUTES;
+
+    private TileDispatcher() {
+    }
+
+    /**
+     * 登记自定义磁贴名的所属者，创建磁贴实例时据此绑定
+     */
+    static synchronized void registerOwner(@NonNull String tileName, @NonNull TileUtils owner) {
+        sOwners.put(tileName, owner);
+        ensureCleanupLocked();
+    }
+
+    /**
+     * 为所属者在指定方法上添加处理者，该方法尚未安装分发 Hook 时安装
+     */
+    static synchronized void register(@NonNull Method method, @NonNull TileUtils owner,
+                                      @NonNull XposedInterface.Hooker handler) {
+        TileDispatcher dispatcher = sDispatchers.get(method);
+        if (dispatcher == null) {
+            dispatcher = new TileDispatcher();
+            sInstaller.install(method, dispatcher);
+            sDispatchers.put(method, dispatcher);
+            ensureCleanupLocked();
+        }
+        Route[] routes = dispatcher.mRoutes;
+        for (Route route : routes) {
+            if (route.owner == owner) return;
+        }
+        Route[] next = Arrays.copyOf(routes, routes.length + 1);
+        next[routes.length] = new Route(owner, handler);
+        dispatcher.mRoutes = next;
+    }
+
+    /**
+     * 将磁贴实例绑定到磁贴名的所属者，未登记的磁贴名不绑定
+     *
+     * @return 是否已绑定
+     */
+    static synchronized boolean bind(@NonNull Object tile, @NonNull String tileName) {
+        TileUtils owner = sOwners.get(tileName);
+        if (owner == null) return false;
+        List<Binding> next = new ArrayList<>(sBindings.length + 1);
+        for (Binding binding : sBindings) {
+            Object bound = binding.tile.get();
+            // 顺带清理已回收或重复的绑定
+            if (bound != null && bound != tile) next.add(binding);
+        }
+        next.add(new Binding(new WeakReference<>(tile), owner));
+        sBindings = next.toArray(NO_BINDINGS);
+        return true;
+    }
+
+    /**
+     * 获取磁贴实例绑定的所属者，原生磁贴返回 null
+     */
+    @Nullable
+    static TileUtils ownerOf(@Nullable Object tile) {
+        if (tile == null) return null;
+        for (Binding binding : sBindings) {
+            if (binding.tile.get() == tile) return binding.owner;
+        }
+        return null;
+    }
+
+    @Override
+    public Object intercept(@NonNull XposedInterface.Chain chain) throws Throwable {
+        TileUtils owner = ownerOf(chain.getThisObject());
+        if (owner != null) {
+            for (Route route : mRoutes) {
+                if (route.owner == owner) return route.handler.intercept(chain);
+            }
+        }
+        return chain.proceed();
+    }
+
+    private static void ensureCleanupLocked() {
+        if (sCleanupRegistered) return;
+        sCleanupRegistered = true;
+        BaseHook.registerHotReloadCleanup(TileDispatcher::clear);
+    }
+
+    /**
+     * 清空分发表与绑定，已安装的 Hook 由热重载统一移除
+     */
+    static synchronized void clear() {
+        sDispatchers.clear();
+        sOwners.clear();
+        sBindings = NO_BINDINGS;
+        sCleanupRegistered = false;
+    }
+
+    /**
+     * 在方法上安装分发 Hook，测试中替换为记录调用的实现
+     */
+    interface Installer {
+        void install(@NonNull Method method, @NonNull XposedInterface.Hooker hooker);
+    }
+
+    private record Binding(WeakReference<Object> tile, TileUtils owner) {
+    }
+
+    private record Route(TileUtils owner, XposedInterface.Hooker handler) {
+    }
+}
@@ -38,6 +38,10 @@ import com.sevtinge.hyperceiler.libhook.base.BaseHook;
 import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.AppsTool;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
 import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
 import io.github.libxposed.api.XposedInterface;
 
@@ -90,7 +94,6 @@ public abstract class TileUtils extends BaseHook {
     private static final String CLASS_CONTROL_CENTER_UTILS = "com.android.systemui.controlcenter.utils.ControlCenterUtils";
     private static final String CLASS_SYSTEMUI_APP = "com.android.systemui.SystemUIApplication";
 
-    private static final String FIELD_CUSTOM_NAME = "hc_customTileName";
     private static final String METHOD_CREATE_TILE = "createTile";
     private static final String HOT_RELOAD_STATE_PREFIX = "TileUtils.listening.";
 
@@ -100,6 +103,7 @@ public abstract class TileUtils extends BaseHook {
     private Class<?> mResourceIconClass;
     private Class<?> mExpandableClass;
     private volatile boolean mIsRegistered = false;
+    private boolean mHasCustomClick = false;
 
     // ==================== 抽象方法 ====================
 
@@ -340,8 +344,8 @@ public abstract class TileUtils extends BaseHook {
             return null;
         }
 
-        // 标记为自定义磁贴
-        com.sevtinge.hyperceiler.libhook.base.BaseHook.setAdditionalInstanceField(tile, FIELD_CUSTOM_NAME, mConfig.getTileName());
+        // 绑定到本磁贴的处理者，之后的调用不再按磁贴名比对
+        TileDispatcher.bind(tile, mConfig.getTileName());
 
         // 初始化磁贴
         initializeTile(tile);
@@ -365,6 +369,10 @@ public abstract class TileUtils extends BaseHook {
 
     private void hookTileMethods() {
         Class<?> tileClass = mConfig.getTileClass();
+        mHasCustomClick = isMethodOverridden("onTileClick", TileContext.class);
+        if (mConfig.isCustomTile()) {
+            TileDispatcher.registerOwner(mConfig.getTileName(), this);
+        }
 
         hookIsAvailable(tileClass);
         hookGetTileLabel(tileClass);
@@ -394,16 +402,7 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeHookMethod(tileClass, "isAvailable", new IMethodHook() {
-            @Override
-            public void before(HookParam param) {
-                if (!shouldHandle(param)) return;
-
-                TileContext ctx = new TileContext(param);
-                boolean available = onCheckAvailable(ctx);
-                param.setResult(available);
-            }
-        });
+        installHandler(tileClass, "isAvailable", chain -> onCheckAvailable(createTileContext(chain)));
     }
 
     private void hookGetTileLabel(Class<?> tileClass) {
@@ -411,15 +410,10 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeHookMethod(tileClass, "getTileLabel", new IMethodHook() {
-            @Override
-            public void before(HookParam param) {
-                if (!shouldHandle(param)) return;
-
-                TileContext ctx = new TileContext(param);
-                Resources modRes = AppsTool.getModuleRes(ctx.getContext());
-                param.setResult(modRes.getString(mConfig.getLabelResId()));
-            }
+        installHandler(tileClass, "getTileLabel", chain -> {
+            TileContext ctx = createTileContext(chain);
+            Resources modRes = AppsTool.getModuleRes(ctx.getContext());
+            return modRes.getString(mConfig.getLabelResId());
         });
     }
 
@@ -428,18 +422,14 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeHookMethod(tileClass, "handleSetListening", boolean.class, new IMethodHook() {
-            @Override
-            public void before(HookParam param) {
-                if (!shouldHandle(param)) return;
-
-                TileContext ctx = new TileContext(param);
-                boolean listening = (boolean) param.getArgs()[0];
-                rememberListeningState(param.getThisObject(), listening);
-                onListeningChanged(ctx, listening);
-                // 不设置 result，让原方法继续执行
-            }
-        });
+        installHandler(tileClass, "handleSetListening", chain -> {
+            TileContext ctx = createTileContext(chain);
+            boolean listening = (boolean) chain.getArg(0);
+            rememberListeningState(chain.getThisObject(), listening);
+            onListeningChanged(ctx, listening);
+            // 让原方法继续执行
+            return chain.proceed();
+        }, boolean.class);
     }
 
     private void hookGetLongClickIntent(Class<?> tileClass) {
@@ -447,17 +437,9 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeHookMethod(tileClass, "getLongClickIntent", new IMethodHook() {
-            @Override
-            public void before(HookParam param) {
-                if (!shouldHandle(param)) return;
-
-                TileContext ctx = new TileContext(param);
-                Intent intent = onGetLongClickIntent(ctx);
-                if (intent != null) {
-                    param.setResult(intent);
-                }
-            }
+        installHandler(tileClass, "getLongClickIntent", chain -> {
+            Intent intent = onGetLongClickIntent(createTileContext(chain));
+            return intent != null ? intent : chain.proceed();
         });
     }
 
@@ -468,91 +450,75 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeChainMethod(tileClass, "handleLongClick", new XposedInterface.Hooker() {
-            @Override
-            public Object intercept(XposedInterface.Chain chain) throws Throwable {
-                if (!shouldHandle(chain.getThisObject())) {
-                    return chain.proceed();
-                }
-
-                TileContext ctx = createTileContext(chain);
-                Intent intent = onHandleLongClick(ctx);
-                if (intent != null) {
-                    launchIntent(ctx, intent);
-                    return null;
-                }
-                return chain.proceed();
+        installHandler(tileClass, "handleLongClick", chain -> {
+            TileContext ctx = createTileContext(chain);
+            Intent intent = onHandleLongClick(ctx);
+            if (intent != null) {
+                launchIntent(ctx, intent);
+                return null;
             }
+            return chain.proceed();
         }, mExpandableClass);
     }
 
     private void hookHandleClick(Class<?> tileClass) {
         if (mExpandableClass == null) return;
 
-        boolean needHook = mConfig.isCustomTile() ||
-            isMethodOverridden("onTileClick", TileContext.class) ||
-            mConfig.hasIcons();
+        boolean needHook = mConfig.isCustomTile() || mHasCustomClick || mConfig.hasIcons();
 
         if (!needHook) return;
 
-        safeChainMethod(tileClass, "handleClick", new XposedInterface.Hooker() {
-            @Override
-            public Object intercept(XposedInterface.Chain chain) throws Throwable {
-                boolean hasCustomClick = isMethodOverridden("onTileClick", TileContext.class);
-                boolean shouldHandle = shouldHandle(chain.getThisObject());
-                boolean skippedOriginal = false;
-                Object result = null;
-                Throwable pendingThrowable = null;
-
-                if (hasCustomClick && shouldHandle) {
-                    TileContext ctx = createTileContext(chain);
-                    try {
-                        onTileClick(ctx);
-                    } catch (Throwable t) {
-                        XposedLog.e(TAG, "Error in onTileClick", t);
-                    }
-                    skippedOriginal = true;
-                } else {
-                    try {
-                        result = chain.proceed();
-                    } catch (Throwable t) {
-                        pendingThrowable = t;
-                    }
+        installHandler(tileClass, "handleClick", chain -> {
+            boolean skippedOriginal = false;
+            Object result = null;
+            Throwable pendingThrowable = null;
+
+            if (mHasCustomClick) {
+                TileContext ctx = createTileContext(chain);
+                try {
+                    onTileClick(ctx);
+                } catch (Throwable t) {
+                    XposedLog.e(TAG, "Error in onTileClick", t);
                 }
+                skippedOriginal = true;
+            } else {
+                try {
+                    result = chain.proceed();
+                } catch (Throwable t) {
+                    pendingThrowable = t;
+                }
+            }
 
-                if (shouldHandle) {
-                    // 如果配置了图标，延迟刷新状态确保系统状态已更新
-                    if (mConfig.hasIcons() && !hasCustomClick) {
-                        Object tile = chain.getThisObject();
-                        Handler mainHandler = new Handler(Looper.getMainLooper());
-                        Runnable delayedRefresh = () -> {
-                            try {
-                                com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(tile, "refreshState");
-                            } catch (Throwable t) {
-                                XposedLog.e(TAG, "Failed to delayed refresh state", t);
-                            }
-                        };
-                        mainHandler.postDelayed(delayedRefresh, 50);
-                        BaseHook.registerHotReloadCleanup(
-                            () -> mainHandler.removeCallbacks(delayedRefresh)
-                        );
+            // 如果配置了图标，延迟刷新状态确保系统状态已更新
+            if (mConfig.hasIcons() && !mHasCustomClick) {
+                Object tile = chain.getThisObject();
+                Handler mainHandler = new Handler(Looper.getMainLooper());
+                Runnable delayedRefresh = () -> {
+                    try {
+                        com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(tile, "refreshState");
+                    } catch (Throwable t) {
+                        XposedLog.e(TAG, "Failed to delayed refresh state", t);
                     }
+                };
+                mainHandler.postDelayed(delayedRefresh, 50);
+                BaseHook.registerHotReloadCleanup(
+                    () -> mainHandler.removeCallbacks(delayedRefresh)
+                );
+            }
 
-                    if (needClickAfter()) {
-                        TileContext ctx = createTileContext(chain);
-                        try {
-                            onTileClickAfter(ctx);
-                        } catch (Throwable t) {
-                            XposedLog.e(TAG, "Error in onTileClickAfter", t);
-                        }
-                    }
+            if (needClickAfter()) {
+                TileContext ctx = createTileContext(chain);
+                try {
+                    onTileClickAfter(ctx);
+                } catch (Throwable t) {
+                    XposedLog.e(TAG, "Error in onTileClickAfter", t);
                 }
+            }
 
-                if (pendingThrowable != null) {
-                    throw pendingThrowable;
-                }
-                return skippedOriginal ? null : result;
+            if (pendingThrowable != null) {
+                throw pendingThrowable;
             }
+            return skippedOriginal ? null : result;
         }, mExpandableClass);
     }
 
@@ -563,41 +529,44 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        chainAllMethods(tileClass, "handleUpdateState", new XposedInterface.Hooker() {
-            @Override
-            public Object intercept(XposedInterface.Chain chain) throws Throwable {
-                Object result = null;
-                Throwable pendingThrowable = null;
-                try {
-                    result = chain.proceed();
-                } catch (Throwable t) {
-                    pendingThrowable = t;
-                }
+        XposedInterface.Hooker handler = chain -> {
+            Object result = null;
+            Throwable pendingThrowable = null;
+            try {
+                result = chain.proceed();
+            } catch (Throwable t) {
+                pendingThrowable = t;
+            }
 
-                if (shouldHandle(chain.getThisObject())) {
-                    TileContext ctx = createTileContext(chain);
-                    TileState state = onUpdateState(ctx);
-
-                    if (state != null) {
-                        // 自定义磁贴：完全设置状态
-                        // 覆写模式：覆盖部分状态
-                        if (mConfig.isCustomTile()) {
-                            applyTileState(ctx, state);
-                        } else {
-                            applyTileStateOverlay(ctx, state);
-                        }
-                    } else if (mConfig.hasIcons()) {
-                        // 没有自定义状态，但有配置图标，只替换图标
-                        applyConfigIcons(ctx);
-                    }
-                }
+            TileContext ctx = createTileContext(chain);
+            TileState state = onUpdateState(ctx);
 
-                if (pendingThrowable != null) {
-                    throw pendingThrowable;
+            if (state != null) {
+                // 自定义磁贴：完全设置状态
+                // 覆写模式：覆盖部分状态
+                if (mConfig.isCustomTile()) {
+                    applyTileState(ctx, state);
+                } else {
+                    applyTileStateOverlay(ctx, state);
                 }
-                return result;
+            } else if (mConfig.hasIcons()) {
+                // 没有自定义状态，但有配置图标，只替换图标
+                applyConfigIcons(ctx);
             }
-        });
+
+            if (pendingThrowable != null) {
+                throw pendingThrowable;
+            }
+            return result;
+        };
+
+        List<Method> methods = findUpdateStateMethods(tileClass, mConfig.isCustomTile());
+        if (methods.isEmpty()) {
+            XposedLog.d(TAG, "Method not found (skipping): " + tileClass.getSimpleName() + ".handleUpdateState");
+        }
+        for (Method method : methods) {
+            installHandler(method, handler);
+        }
     }
 
     private void hookHandleShowStateMessage(Class<?> tileClass) {
@@ -605,15 +574,9 @@ public abstract class TileUtils extends BaseHook {
             return;
         }
 
-        safeHookMethod(tileClass, "handleShowStateMessage", new IMethodHook() {
-            @Override
-            public void before(HookParam param) {
-                if (!shouldHandle(param)) return;
-
-                TileContext ctx = new TileContext(param);
-                showStateMessage(ctx);
-                param.setResult(null);
-            }
+        installHandler(tileClass, "handleShowStateMessage", chain -> {
+            showStateMessage(createTileContext(chain));
+            return null;
         });
     }
 
@@ -670,27 +633,6 @@ public abstract class TileUtils extends BaseHook {
 
     // ==================== 辅助方法 ====================
 
-    /**
-     * 判断是否应该处理该磁贴 (HookParam 版本)
-     */
-    private boolean shouldHandle(HookParam param) {
-        return shouldHandle(param.getThisObject());
-    }
-
-    private boolean shouldHandle(@Nullable Object tileInstance) {
-        if (!mConfig.isCustomTile()) {
-            return true; // 覆写模式，始终处理
-        }
-
-        if (tileInstance == null) {
-            return false;
-        }
-
-        String tileName = (String) com.sevtinge.hyperceiler.libhook.base.BaseHook.getAdditionalInstanceField(
-            tileInstance, FIELD_CUSTOM_NAME);
-        return mConfig.getTileName().equals(tileName);
-    }
-
     private String hotReloadStateKey(String suffix) {
         return HOT_RELOAD_STATE_PREFIX + getClass().getName() + '.' + suffix;
     }
@@ -718,11 +660,17 @@ public abstract class TileUtils extends BaseHook {
             hotReloadStateKey("active"), Boolean.class
         );
         Object tile = BaseHook.getHotReloadRuntimeState(hotReloadStateKey("tile"), Object.class);
-        if (!Boolean.TRUE.equals(active) || tile == null || !shouldHandle(tile)) {
+        if (!Boolean.TRUE.equals(active) || tile == null) {
             return;
         }
         try {
             TileContext ctx = new TileContext(tile, new Object[]{true}, null);
+            // 上一 generation 的绑定已随类加载器丢弃，按磁贴名重新绑定
+            if (mConfig.isCustomTile()
+                && (!mConfig.getTileName().equals(ctx.getTileSpec())
+                || !TileDispatcher.bind(tile, mConfig.getTileName()))) {
+                return;
+            }
             onListeningChanged(ctx, true);
             ctx.refreshState();
         } catch (Throwable t) {
@@ -832,48 +780,66 @@ public abstract class TileUtils extends BaseHook {
     }
 
     /**
-     * 安全 Hook 方法（忽略方法不存在的情况）
+     * 安装方法处理者（忽略方法不存在的情况）
      */
-    private void safeHookMethod(Class<?> clazz, String methodName, Object... paramsAndCallback) {
-        try {
-            // 提取参数类型（排除最后一个回调）
-            int paramCount = paramsAndCallback.length - 1;
-            Class<?>[] paramTypes = new Class<?>[paramCount];
-
-            for (int i = 0; i < paramCount; i++) {
-                Object param = paramsAndCallback[i];
-                if (param instanceof Class) {
-                    paramTypes[i] = (Class<?>) param;
-                } else {
-                    paramTypes[i] = param.getClass();
-                }
-            }
-
-            // 检查方法是否存在
-            clazz.getDeclaredMethod(methodName, paramTypes);
-
-            // 存在则 Hook
-            findAndHookMethod(clazz, methodName, paramsAndCallback);
-        } catch (NoSuchMethodException e) {
+    private void installHandler(Class<?> clazz, String methodName, XposedInterface.Hooker handler,
+                                Class<?>... parameterTypes) {
+        Method method = findTileMethod(clazz, methodName, mConfig.isCustomTile(), parameterTypes);
+        if (method == null) {
             XposedLog.d(TAG, "Method not found (skipping): " + clazz.getSimpleName() + "." + methodName);
-        } catch (Throwable t) {
-            XposedLog.e(TAG, "Failed to hook method: " + methodName, t);
+            return;
         }
+        installHandler(method, handler);
     }
 
-    private void safeChainMethod(
-        Class<?> clazz,
-        String methodName,
-        XposedInterface.Hooker hooker,
-        Object... parameterTypes
-    ) {
+    /**
+     * 自定义磁贴经由 {@link TileDispatcher} 共用同一个 Hook，覆写模式处理该类的所有实例，直接 Hook
+     */
+    private void installHandler(Method method, XposedInterface.Hooker handler) {
         try {
-            findAndChainMethod(clazz, methodName, hooker, parameterTypes);
-        } catch (NoSuchMethodError e) {
-            XposedLog.d(TAG, "Method not found (skipping): " + clazz.getSimpleName() + "." + methodName);
+            if (mConfig.isCustomTile()) {
+                TileDispatcher.register(method, this, handler);
+            } else {
+                chain(method, handler);
+            }
         } catch (Throwable t) {
-            XposedLog.e(TAG, "Failed to chain method: " + methodName, t);
+            XposedLog.e(TAG, "Failed to hook method: " + method.getName(), t);
+        }
+    }
+
+    /**
+     * 查找磁贴类中声明的方法
+     *
+     * @param searchSuper 是否继续查找父类；继承的方法会被所有磁贴调用，只有经分发器路由时才可以 Hook
+     */
+    @Nullable
+    private static Method findTileMethod(Class<?> clazz, String methodName, boolean searchSuper,
+                                         Class<?>... parameterTypes) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = searchSuper ? c.getSuperclass() : null) {
+            try {
+                return c.getDeclaredMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查找离磁贴类最近的 handleUpdateState 声明；桥接方法只会转调实际实现，同时 Hook 会重复处理
+     */
+    @NonNull
+    private static List<Method> findUpdateStateMethods(Class<?> clazz, boolean searchSuper) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = searchSuper ? c.getSuperclass() : null) {
+            List<Method> methods = new ArrayList<>();
+            List<Method> bridges = new ArrayList<>();
+            for (Method method : c.getDeclaredMethods()) {
+                if (!"handleUpdateState".equals(method.getName())) continue;
+                (method.isBridge() ? bridges : methods).add(method);
+            }
+            if (!methods.isEmpty()) return methods;
+            if (!bridges.isEmpty()) return bridges;
         }
+        return List.of();
     }
 
     // ==================== Getter ====================
@@ -234,6 +234,7 @@ public abstract class BaseHook {
         }
         APPLICATION_HOOKS.clear();
         sApplicationHookInstalled = false;
+        NestedHookGuard.clear();
         HOT_RELOAD_RUNTIME_STATE.clear();
         if (firstFailure != null) {
             throw new IllegalStateException(
@@ -749,15 +750,62 @@ public abstract class BaseHook {
      * @return HookHandle 对象
      */
     public static XposedInterface.HookHandle hookMethod(Method method, IMethodHook callback) {
-        return Hooks.createHook(method, callback);
+        return createHookGuarded(method, callback);
     }
 
     public static XposedInterface.HookHandle hookMethod(Method method, IReplaceHook callback) {
-        return Hooks.createHook(method, callback);
+        return createHookGuarded(method, callback);
+    }
+
+    /**
+     * 当前线程是否正在执行经 {@link #guardNested} 包装的 Hook 回调
+     */
+    public static boolean isInHookCallback() {
+        return NestedHookGuard.isInHookCallback();
+    }
+
+    /**
+     * 包装会在执行期间注册 Hook 的回调（例如 inflate、onCreate 等会重复触发的回调）
+     * <p>
+     * 包装后的回调执行期间，同一目标以同一回调类的重复注册只有第一次生效并记录一次警告，unhook 后可重新注册；
+     * 未经包装的回调不记录嵌套深度，没有额外开销
+     */
+    public static IMethodHook guardNested(IMethodHook callback) {
+        return NestedHookGuard.guard(callback);
+    }
+
+    private static XposedInterface.HookHandle createHookGuarded(Method method, IMethodHook callback) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(method, null, callback),
+            () -> Hooks.createHook(method, callback));
+    }
+
+    private static XposedInterface.HookHandle createHookGuarded(Method method, IReplaceHook callback) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(method, null, callback),
+            () -> Hooks.createHook(method, callback));
+    }
+
+    private static XposedInterface.HookHandle interceptGuarded(Method method, XposedInterface.Hooker hooker) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(method, null, hooker),
+            () -> Hooks.intercept(method, hooker));
+    }
+
+    private static XposedInterface.HookHandle interceptGuarded(Constructor<?> constructor, XposedInterface.Hooker hooker) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(constructor, null, hooker),
+            () -> Hooks.intercept(constructor, hooker));
+    }
+
+    private static XposedInterface.HookHandle hookMethodGuarded(Class<?> clazz, String methodName, Object[] args) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(new Object[]{clazz, methodName}, args),
+            () -> Hooks.findAndHookMethod(clazz, methodName, args));
+    }
+
+    private static XposedInterface.HookHandle hookConstructorGuarded(Class<?> clazz, Object[] args) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(new Object[]{clazz, "<init>"}, args),
+            () -> Hooks.findAndHookConstructor(clazz, args));
     }
 
     public static XposedInterface.HookHandle chain(Method method, XposedInterface.Hooker hooker) {
-        return Hooks.intercept(method, hooker);
+        return interceptGuarded(method, hooker);
     }
 
     public static XposedInterface.HookHandle chain(
@@ -766,11 +814,11 @@ public abstract class BaseHook {
         XposedInterface.ExceptionMode exceptionMode,
         XposedInterface.Hooker hooker
     ) {
-        return Hooks.intercept(method, hooker);
+        return interceptGuarded(method, hooker);
     }
 
     public static XposedInterface.HookHandle chain(Constructor<?> constructor, XposedInterface.Hooker hooker) {
-        return Hooks.intercept(constructor, hooker);
+        return interceptGuarded(constructor, hooker);
     }
 
     public static XposedInterface.HookHandle chain(
@@ -779,7 +827,7 @@ public abstract class BaseHook {
         XposedInterface.ExceptionMode exceptionMode,
         XposedInterface.Hooker hooker
     ) {
-        return Hooks.intercept(constructor, hooker);
+        return interceptGuarded(constructor, hooker);
     }
 
     /**
@@ -788,7 +836,7 @@ public abstract class BaseHook {
      * 最后一个参数必须是 {@link XposedInterface.Hooker}，前面的参数是参数类型
      */
     public static XposedInterface.HookHandle findAndChainMethod(Class<?> clazz, String methodName, Object... args) {
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -798,7 +846,7 @@ public abstract class BaseHook {
         XposedInterface.ExceptionMode exceptionMode,
         Object... args
     ) {
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -809,7 +857,7 @@ public abstract class BaseHook {
     ) {
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookMethod(clazz, methodName, argsAndHook);
+        return hookMethodGuarded(clazz, methodName, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -822,7 +870,7 @@ public abstract class BaseHook {
     ) {
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookMethod(clazz, methodName, argsAndHook);
+        return hookMethodGuarded(clazz, methodName, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(String className, String methodName, Object... args) {
@@ -831,7 +879,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndChainMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -846,7 +894,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndChainMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -862,7 +910,7 @@ public abstract class BaseHook {
         }
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookMethod(clazz, methodName, argsAndHook);
+        return hookMethodGuarded(clazz, methodName, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainMethod(
@@ -880,7 +928,7 @@ public abstract class BaseHook {
         }
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookMethod(clazz, methodName, argsAndHook);
+        return hookMethodGuarded(clazz, methodName, argsAndHook);
     }
 
     /**
@@ -889,7 +937,7 @@ public abstract class BaseHook {
      * 最后一个参数必须是 {@link XposedInterface.Hooker}，前面的参数是参数类型
      */
     public static XposedInterface.HookHandle findAndChainConstructor(Class<?> clazz, Object... args) {
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -898,7 +946,7 @@ public abstract class BaseHook {
         XposedInterface.ExceptionMode exceptionMode,
         Object... args
     ) {
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -908,7 +956,7 @@ public abstract class BaseHook {
     ) {
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookConstructor(clazz, argsAndHook);
+        return hookConstructorGuarded(clazz, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -920,7 +968,7 @@ public abstract class BaseHook {
     ) {
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookConstructor(clazz, argsAndHook);
+        return hookConstructorGuarded(clazz, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(String className, Object... args) {
@@ -929,7 +977,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndChainConstructor: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -943,7 +991,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndChainConstructor: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -958,7 +1006,7 @@ public abstract class BaseHook {
         }
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookConstructor(clazz, argsAndHook);
+        return hookConstructorGuarded(clazz, argsAndHook);
     }
 
     public static XposedInterface.HookHandle findAndChainConstructor(
@@ -975,13 +1023,13 @@ public abstract class BaseHook {
         }
         Object[] argsAndHook = Arrays.copyOf(args, args.length + 1);
         argsAndHook[args.length] = hooker;
-        return Hooks.findAndHookConstructor(clazz, argsAndHook);
+        return hookConstructorGuarded(clazz, argsAndHook);
     }
 
     public static Set<XposedInterface.HookHandle> chainAllMethods(Class<?> clazz, String methodName, XposedInterface.Hooker hooker) {
         Set<XposedInterface.HookHandle> handles = new LinkedHashSet<>();
         for (Method method : Methods.find(clazz).filterByName(methodName).toList()) {
-            handles.add(Hooks.intercept(method, hooker));
+            handles.add(interceptGuarded(method, hooker));
         }
         return handles;
     }
@@ -998,7 +1046,7 @@ public abstract class BaseHook {
     public static Set<XposedInterface.HookHandle> chainAllConstructors(Class<?> clazz, XposedInterface.Hooker hooker) {
         Set<XposedInterface.HookHandle> handles = new LinkedHashSet<>();
         for (Constructor<?> constructor : Constructors.find(clazz).toList()) {
-            handles.add(Hooks.intercept(constructor, hooker));
+            handles.add(interceptGuarded(constructor, hooker));
         }
         return handles;
     }
@@ -1023,7 +1071,7 @@ public abstract class BaseHook {
      * @return HookHandle 对象
      */
     public static XposedInterface.HookHandle findAndHookMethod(Class<?> clazz, String methodName, Object... args) {
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     /**
@@ -1042,7 +1090,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndHookMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndHookMethod(
@@ -1056,11 +1104,11 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndHookMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndHookConstructor(Class<?> clazz, Object... args) {
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndHookConstructor(String className, Object... args) {
@@ -1069,7 +1117,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndHookConstructor: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     public static XposedInterface.HookHandle findAndHookConstructor(
@@ -1082,7 +1130,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndHookConstructor: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookConstructor(clazz, args);
+        return hookConstructorGuarded(clazz, args);
     }
 
     /**
@@ -1096,7 +1144,7 @@ public abstract class BaseHook {
      * @return HookHandle 对象
      */
     public static XposedInterface.HookHandle findAndReplaceMethod(Class<?> clazz, String methodName, Object... args) {
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndHookMethodReplace(Class<?> clazz, String methodName, Object... args) {
@@ -1119,7 +1167,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndReplaceMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     public static XposedInterface.HookHandle findAndHookMethodReplace(String className, String methodName, Object... args) {
@@ -1137,7 +1185,7 @@ public abstract class BaseHook {
             XposedLog.w(BaseLoad.getTag(), "findAndReplaceMethod: class not found: " + className);
             return null;
         }
-        return Hooks.findAndHookMethod(clazz, methodName, args);
+        return hookMethodGuarded(clazz, methodName, args);
     }
 
     /**
@@ -1149,7 +1197,8 @@ public abstract class BaseHook {
      * @return HookHandle 对象列表
      */
     public static List<XposedInterface.HookHandle> hookAllMethods(Class<?> clazz, String methodName, IMethodHook callback) {
-        return Hooks.createHooks(Methods.find(clazz).filterByName(methodName).toList(), callback);
+        return NestedHookGuard.registerHandles(NestedHookGuard.keyOf(clazz, methodName, callback),
+            () -> Hooks.createHooks(Methods.find(clazz).filterByName(methodName).toList(), callback));
     }
 
     /**
@@ -1191,7 +1240,8 @@ public abstract class BaseHook {
      * @return HookHandle 对象列表
      */
     public static List<XposedInterface.HookHandle> hookAllConstructors(Class<?> clazz, IMethodHook callback) {
-        return Hooks.createConstructorHooks(Constructors.find(clazz).toList(), callback);
+        return NestedHookGuard.registerHandles(NestedHookGuard.keyOf(clazz, "<init>", callback),
+            () -> Hooks.createConstructorHooks(Constructors.find(clazz).toList(), callback));
     }
 
     /**
@@ -21,6 +21,7 @@ package com.sevtinge.hyperceiler.libhook.base;
 import android.content.Context;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
 import com.sevtinge.hyperceiler.common.utils.api.ProjectApi;
 import com.sevtinge.hyperceiler.libhook.utils.api.ContextUtils;
 import com.sevtinge.hyperceiler.libhook.utils.api.ThreadPoolManager;
@@ -244,7 +245,7 @@ public abstract class BaseLoad {
         try {
             String pkgName = getPackageName();
             if (!Objects.equals(ProjectApi.mAppModulePkg, pkgName)) {
-                // 热重载已携带 application context 时直接重挂新 APK 的 loader，避免等后台轮询；
+                // 热重载已携带 application context 时直接重挂新 APK 的 loader，不必等待 Application.attach；
                 // 这对 SystemUI 这类长生命周期进程尤为重要。
                 Context activeContext = EzXposed.getAppContextOrNull();
                 if (activeContext != null) {
@@ -336,23 +337,30 @@ public abstract class BaseLoad {
         List<BaseHook> pendingHooks = new ArrayList<>(mPendingDexKitHooks);
         mPendingDexKitHooks.clear();
 
-        List<Future<DexKitInitResult>> futures = new ArrayList<>(pendingHooks.size());
-        for (BaseHook hook : pendingHooks) {
-            futures.add(ThreadPoolManager.getInstance().submit(() -> runDexKitInit(hook)));
+        List<DexKitInitResult> results = new ArrayList<>(pendingHooks.size());
+        if (mDexKitSessionPrepared) {
+            DexKit.beginBatch(pendingHooks.size(), !PrefsBridge.getBoolean("development_dexkit_disable_batch"));
         }
+        try {
+            List<Future<DexKitInitResult>> futures = new ArrayList<>(pendingHooks.size());
+            for (BaseHook hook : pendingHooks) {
+                futures.add(ThreadPoolManager.getInstance().submit(() -> runDexKitInit(hook)));
+            }
 
-        List<DexKitInitResult> results = new ArrayList<>(pendingHooks.size());
-        for (int i = 0; i < futures.size(); i++) {
-            BaseHook hook = pendingHooks.get(i);
-            try {
-                results.add(futures.get(i).get());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                results.add(new DexKitInitResult(hook, false, e));
-            } catch (ExecutionException e) {
-                Throwable cause = e.getCause() != null ? e.getCause() : e;
-                results.add(new DexKitInitResult(hook, false, cause));
+            for (int i = 0; i < futures.size(); i++) {
+                BaseHook hook = pendingHooks.get(i);
+                try {
+                    results.add(futures.get(i).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(new DexKitInitResult(hook, false, e));
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results.add(new DexKitInitResult(hook, false, cause));
+                }
             }
+        } finally {
+            if (mDexKitSessionPrepared) DexKit.endBatch();
         }
 
         for (DexKitInitResult result : results) {
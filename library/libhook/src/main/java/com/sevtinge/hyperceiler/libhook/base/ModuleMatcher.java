@@ -60,19 +60,22 @@ public class ModuleMatcher {
     }
 
     /**
-     * 判断模块是否应该加载
+     * 判断当前包是否允许加载任何模块，与具体模块无关，每个进程只需判断一次
      */
-    public boolean shouldLoad(DataBase data, String packageName) {
+    public boolean shouldLoadPackage(String packageName) {
         // 安全模式检查（最高优先级）
         if (isInSafeMode(packageName)) {
             return false;
         }
 
         // 安全检查（修改检测）
-        if (!passSecurityCheck(packageName)) {
-            return false;
-        }
+        return passSecurityCheck(packageName);
+    }
 
+    /**
+     * 判断模块分组的作用域与加载条件是否匹配
+     */
+    public boolean matchEntry(DataBase data, String packageName) {
         // 包名匹配
         if (!matchPackage(data, packageName)) {
             return false;
@@ -0,0 +1,219 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.base;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.common.log.XposedLog;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.github.libxposed.api.XposedInterface;
+import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
+import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
+
+/**
+ * 回调内 Hook 注册的检测与去重。
+ * <p>
+ * 只有经 {@link BaseHook#guardNested} 包装的回调（会在执行期间注册 Hook 的回调）才记录嵌套深度，其余回调不受影响。
+ * 深度大于 0 时，同一目标以同一回调类的重复注册只安装一次，之后返回第一次的句柄并记录一次警告；
+ * 每次执行都新建的匿名回调属于同一个类，同样会被合并。这类规则应在 init 中注册一次，再自行按实例分发。
+ * <p>
+ * 回调内注册返回的句柄经过包装，unhook 时同时移除记录，之后再次注册会重新安装。
+ */
+final class NestedHookGuard {
+    private static final String TAG = "NestedHookGuard";
+
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    // 以下两个表仅在类锁下访问
+    private static final Map<List<Object>, Object> NESTED_HOOKS = new HashMap<>();
+    private static final Map<List<Object>, Boolean> WARNED = new HashMap<>();
+
+    private static final boolean CAN_WRAP_HANDLE = XposedInterface.HookHandle.class.isInterface();
+
+    private NestedHookGuard() {
+    }
+
+    static boolean isInHookCallback() {
+        return DEPTH.get()[0] > 0;
+    }
+
+    /**
+     * 在回调内注册时按 key 去重，回调外直接注册
+     *
+     * @param key      目标描述，最后一项为回调类
+     * @param register 实际注册操作
+     */
+    static XposedInterface.HookHandle registerHandle(@NonNull List<Object> key,
+                                                     @NonNull Supplier<XposedInterface.HookHandle> register) {
+        if (!isInHookCallback() || !CAN_WRAP_HANDLE) return register.get();
+        XposedInterface.HookHandle existing = findRegistered(key);
+        if (existing != null) return existing;
+        XposedInterface.HookHandle handle = register.get();
+        if (handle == null) return null;
+        return record(key, wrap(key, handle));
+    }
+
+    /**
+     * {@link #registerHandle} 的批量版本，任一句柄 unhook 后整组记录失效
+     */
+    static List<XposedInterface.HookHandle> registerHandles(@NonNull List<Object> key,
+                                                           @NonNull Supplier<List<XposedInterface.HookHandle>> register) {
+        if (!isInHookCallback() || !CAN_WRAP_HANDLE) return register.get();
+        List<XposedInterface.HookHandle> existing = findRegistered(key);
+        if (existing != null) return existing;
+        List<XposedInterface.HookHandle> handles = register.get();
+        if (handles == null) return null;
+        List<XposedInterface.HookHandle> wrapped = new ArrayList<>(handles.size());
+        for (XposedInterface.HookHandle handle : handles) {
+            wrapped.add(handle == null ? null : wrap(key, handle));
+        }
+        return record(key, wrapped);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T findRegistered(List<Object> key) {
+        synchronized (NestedHookGuard.class) {
+            Object existing = NESTED_HOOKS.get(key);
+            if (existing != null && WARNED.put(key, Boolean.TRUE) == null) {
+                XposedLog.w(TAG, BaseLoad.getPackageName(),
+                    "Skip duplicate hook registered inside a hook callback: " + key);
+            }
+            return (T) existing;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T record(List<Object> key, T result) {
+        synchronized (NestedHookGuard.class) {
+            Object previous = NESTED_HOOKS.putIfAbsent(key, result);
+            // 并发注册时以先完成者为准
+            return previous != null ? (T) previous : result;
+        }
+    }
+
+    /**
+     * 包装句柄，unhook 时移除对应记录；其余方法原样转发
+     */
+    private static XposedInterface.HookHandle wrap(List<Object> key, XposedInterface.HookHandle handle) {
+        return (XposedInterface.HookHandle) Proxy.newProxyInstance(
+            XposedInterface.HookHandle.class.getClassLoader(),
+            new Class<?>[]{XposedInterface.HookHandle.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("unhook") && method.getParameterCount() == 0) {
+                    synchronized (NestedHookGuard.class) {
+                        NESTED_HOOKS.remove(key);
+                        WARNED.remove(key);
+                    }
+                }
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return handle.toString();
+                    }
+                }
+                try {
+                    return method.invoke(handle, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    /**
+     * 由目标描述和 findAndHook 形式的参数（参数类型 + 回调）生成 key
+     */
+    @NonNull
+    static List<Object> keyOf(@NonNull Object[] target, @NonNull Object[] argsAndCallback) {
+        List<Object> key = new ArrayList<>(target.length + argsAndCallback.length);
+        key.addAll(Arrays.asList(target));
+        int last = argsAndCallback.length - 1;
+        for (int i = 0; i < last; i++) key.add(argsAndCallback[i]);
+        key.add(last >= 0 ? classOf(argsAndCallback[last]) : null);
+        return key;
+    }
+
+    @NonNull
+    static List<Object> keyOf(Object target, Object name, @NonNull Object callback) {
+        return Arrays.asList(target, name, classOf(callback));
+    }
+
+    private static Class<?> classOf(Object callback) {
+        return callback == null ? null : callback.getClass();
+    }
+
+    @NonNull
+    static IMethodHook guard(@NonNull IMethodHook hook) {
+        if (hook instanceof GuardedMethodHook) return hook;
+        return new GuardedMethodHook(hook);
+    }
+
+    static void clear() {
+        synchronized (NestedHookGuard.class) {
+            NESTED_HOOKS.clear();
+            WARNED.clear();
+        }
+    }
+
+    private static int[] enter() {
+        int[] depth = DEPTH.get();
+        depth[0]++;
+        return depth;
+    }
+
+    private static final class GuardedMethodHook implements IMethodHook {
+        private final IMethodHook mHook;
+
+        GuardedMethodHook(IMethodHook hook) {
+            mHook = hook;
+        }
+
+        @Override
+        public void before(HookParam param) throws Throwable {
+            int[] depth = enter();
+            try {
+                mHook.before(param);
+            } finally {
+                depth[0]--;
+            }
+        }
+
+        @Override
+        public void after(HookParam param) throws Throwable {
+            int[] depth = enter();
+            try {
+                mHook.after(param);
+            } finally {
+                depth[0]--;
+            }
+        }
+    }
+}
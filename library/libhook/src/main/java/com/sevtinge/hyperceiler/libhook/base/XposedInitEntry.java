@@ -36,7 +36,6 @@ import com.sevtinge.hyperceiler.libhook.utils.api.ContextUtils;
 import com.sevtinge.hyperceiler.libhook.utils.api.ThreadPoolManager;
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.ResourcesTool;
 
-import java.util.HashMap;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -434,35 +433,45 @@ public class XposedInitEntry extends XposedModule {
     }
 
     private void invokeInitInternal(String packageName, ModuleLoader loader) {
-        HashMap<String, DataBase> dataMap = DataBase.get();
-
         ClassLoader classLoader = getClass().getClassLoader();
         if (classLoader == null) {
             XposedLog.e(TAG, "ClassLoader is null, skip loading modules for: " + packageName);
             return;
         }
 
-        ModuleMatcher.MatchContext context = buildMatchContext(packageName, dataMap);
+        DataBase[] exactEntries = DataBase.forPackage(packageName);
+        ModuleMatcher.MatchContext context = buildMatchContext(packageName, exactEntries);
         ModuleMatcher matcher = new ModuleMatcher(context);
+        if (!matcher.shouldLoadPackage(packageName)) return;
+
+        loadEntries(exactEntries, packageName, matcher, classLoader, loader);
+        if (context.isSystemServer) return;
+        loadEntries(DataBase.variousSystemApps(), packageName, matcher, classLoader, loader);
+        if (context.hasExactMatch) return;
+        loadEntries(DataBase.variousThirdApps(), packageName, matcher, classLoader, loader);
+    }
 
-        dataMap.forEach((className, data) -> {
-            if (!matcher.shouldLoad(data, packageName)) return;
-            try {
-                Class<?> clazz = classLoader.loadClass(className);
-                BaseLoad module = (BaseLoad) clazz.getDeclaredConstructor().newInstance();
-                loader.load(module);
-            } catch (ReflectiveOperationException e) {
-                XposedLog.e(TAG, "Failed to load module: " + className, e);
-                BaseLoad.recordHookInitializationFailure(className, e);
-                BaseLoad.recordHotReloadInitializationFailure(className, e);
+    private void loadEntries(DataBase[] entries, String packageName, ModuleMatcher matcher,
+                             ClassLoader classLoader, ModuleLoader loader) {
+        for (DataBase data : entries) {
+            if (!matcher.matchEntry(data, packageName)) continue;
+            for (String className : data.classNames) {
+                try {
+                    Class<?> clazz = classLoader.loadClass(className);
+                    BaseLoad module = (BaseLoad) clazz.getDeclaredConstructor().newInstance();
+                    loader.load(module);
+                } catch (ReflectiveOperationException e) {
+                    XposedLog.e(TAG, "Failed to load module: " + className, e);
+                    BaseLoad.recordHookInitializationFailure(className, e);
+                    BaseLoad.recordHotReloadInitializationFailure(className, e);
+                }
             }
-        });
+        }
     }
 
-    private ModuleMatcher.MatchContext buildMatchContext(String packageName, HashMap<String, DataBase> dataMap) {
+    private ModuleMatcher.MatchContext buildMatchContext(String packageName, DataBase[] exactEntries) {
         boolean isSystemServer = BaseLoad.SYSTEM_SERVER.equals(packageName);
-        boolean hasExactMatch = dataMap.values().stream()
-            .anyMatch(data -> packageName.equals(data.targetPackage));
+        boolean hasExactMatch = exactEntries.length > 0;
 
         return ModuleMatcher.MatchContext.builder()
             .systemServer(isSystemServer)
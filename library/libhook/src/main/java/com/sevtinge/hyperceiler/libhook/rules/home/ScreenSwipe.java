@@ -30,6 +30,7 @@ import android.view.ViewGroup;
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
 import com.sevtinge.hyperceiler.common.log.XposedLog;
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
+import com.sevtinge.hyperceiler.common.utils.prefs.PrefKey;
 import com.sevtinge.hyperceiler.common.utils.prefs.PrefType;
 import com.sevtinge.hyperceiler.common.utils.prefs.PrefsChangeObserver;
 import com.sevtinge.hyperceiler.libhook.appbase.systemframework.GlobalActionBridge;
@@ -46,6 +47,9 @@ public class ScreenSwipe extends BaseHook {
     private static final String PREF_UP_SWIPE_2 = "home_gesture_up_swipe2";
     private static final String PREF_DOWN_SWIPE_ACTION = "home_gesture_down_swipe_action";
     private static final String PREF_UP_SWIPE_ACTION = "home_gesture_up_swipe_action";
+    // 触摸拦截等高频回调中读取，持有句柄
+    private static final PrefKey DOWN_SWIPE_ACTION = PrefsBridge.key(PREF_DOWN_SWIPE_ACTION);
+    private static final PrefKey UP_SWIPE_ACTION = PrefsBridge.key(PREF_UP_SWIPE_ACTION);
 
     private static final int GESTURE_UP = 10;
     private static final int GESTURE_DOWN = 11;
@@ -134,7 +138,7 @@ public class ScreenSwipe extends BaseHook {
             new IMethodHook() {
                 @Override
                 public void before(HookParam param) {
-                    if (PrefsBridge.getInt("home_gesture_down_swipe_action", 0) > 0) {
+                    if (DOWN_SWIPE_ACTION.getInt(0) > 0) {
                         param.setResult(false);
                     }
                 }
@@ -148,7 +152,7 @@ public class ScreenSwipe extends BaseHook {
                 @Override
                 public void after(HookParam param) {
                     Context context = (Context) param.getArgs()[0];
-                    if (PrefsBridge.getInt(PREF_DOWN_SWIPE_ACTION, 1) > 1) {
+                    if (DOWN_SWIPE_ACTION.getInt(1) > 1) {
                         param.setResult("no_action");
                     }
                 }
@@ -162,7 +166,7 @@ public class ScreenSwipe extends BaseHook {
                 @Override
                 public void before(HookParam param) {
                     Context context = (Context) param.getArgs()[0];
-                    if (PrefsBridge.getInt(PREF_UP_SWIPE_ACTION, 0) > 0) {
+                    if (UP_SWIPE_ACTION.getInt(0) > 0) {
                         param.setResult("no_action");
                     }
                 }
@@ -191,7 +195,7 @@ public class ScreenSwipe extends BaseHook {
                     @Override
                     public void before(HookParam param) {
                         Context context = (Context) param.getArgs()[0];
-                        if (PrefsBridge.getInt(PREF_UP_SWIPE_ACTION, 0) > 0) {
+                        if (UP_SWIPE_ACTION.getInt(0) > 0) {
                             param.setResult(false);
                         }
                     }
@@ -209,7 +213,7 @@ public class ScreenSwipe extends BaseHook {
                 @Override
                 public void before(HookParam param) {
                     View view = (View) param.getThisObject();
-                    if (PrefsBridge.getInt(PREF_DOWN_SWIPE_ACTION, 0) > 0) {
+                    if (DOWN_SWIPE_ACTION.getInt(0) > 0) {
                         param.setResult(false);
                     }
                 }
@@ -221,7 +225,7 @@ public class ScreenSwipe extends BaseHook {
                 @Override
                 public void before(HookParam param) {
                     View view = (View) param.getThisObject();
-                    if (PrefsBridge.getInt(PREF_UP_SWIPE_ACTION, 0) > 0) {
+                    if (UP_SWIPE_ACTION.getInt(0) > 0) {
                         param.setResult(false);
                     }
                 }
@@ -235,7 +239,7 @@ public class ScreenSwipe extends BaseHook {
                 @Override
                 public void before(HookParam param) {
                     Context context = (Context) param.getArgs()[0];
-                    if (PrefsBridge.getInt(PREF_UP_SWIPE_ACTION, 0) > 0) {
+                    if (UP_SWIPE_ACTION.getInt(0) > 0) {
                         param.setResult(false);
                     }
                 }
@@ -250,7 +254,7 @@ public class ScreenSwipe extends BaseHook {
                     @Override
                     public void before(HookParam param) {
                         Context context = (Context) param.getArgs()[0];
-                        if (PrefsBridge.getInt(PREF_UP_SWIPE_ACTION, 0) > 0) {
+                        if (UP_SWIPE_ACTION.getInt(0) > 0) {
                             param.setResult(false);
                         }
                     }
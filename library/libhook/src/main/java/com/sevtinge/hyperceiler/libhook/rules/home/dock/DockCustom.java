@@ -59,7 +59,7 @@ public class DockCustom extends BaseHook {
         mBlurUtils = findClassIfExists("com.miui.home.launcher.common.BlurUtils");
 
 
-        findAndHookMethod(mLauncherCls, "onCreate", Bundle.class, new IMethodHook() {
+        findAndHookMethod(mLauncherCls, "onCreate", Bundle.class, guardNested(new IMethodHook() {
             @Override
             public void after(HookParam param) {
                 Activity mActivity = (Activity) param.getThisObject();
@@ -79,49 +79,49 @@ public class DockCustom extends BaseHook {
                 mSearchEdgeLayout.addView(mDockView, 0);
 
                 new BlurUtils(mDockView, "home_dock_bg_custom");
+            }
+        }));
+
+        findAndHookMethod(mLauncherCls, "isFolderShowing", new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                isFolderShowing = (boolean) param.getResult();
+            }
+        });
+
+        findAndHookMethod(mLauncherCls, "showEditPanel", boolean.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                isShowEditPanel = (boolean) param.getArgs()[0];
+                if (mDockView != null) mDockView.setVisibility(isShowEditPanel ? View.GONE : View.VISIBLE);
+            }
+        });
 
+        findAndHookMethod(mLauncherCls, "openFolder", mFolderInfo, View.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                if (mDockView != null) mDockView.setVisibility(View.GONE);
+            }
+        });
 
-                findAndHookMethod(mLauncherCls, "isFolderShowing", new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        isFolderShowing = (boolean) param.getResult();
-                    }
-                });
-
-                findAndHookMethod(mLauncherCls, "showEditPanel", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        isShowEditPanel = (boolean) param.getArgs()[0];
-                        mDockView.setVisibility(isShowEditPanel ? View.GONE : View.VISIBLE);
-                    }
-                });
-
-                findAndHookMethod(mLauncherCls, "openFolder", mFolderInfo, View.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        mDockView.setVisibility(View.GONE);
-                    }
-                });
-
-                findAndHookMethod(mLauncherCls, "closeFolder", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        if (!isShowEditPanel) mDockView.setVisibility(View.VISIBLE);
-                    }
-                });
-
-                findAndHookMethod(mBlurUtils, "fastBlurWhenEnterRecents", mLauncherCls, mLauncherStateCls, boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        mDockView.setVisibility(View.GONE);
-                    }
-                });
+        findAndHookMethod(mLauncherCls, "closeFolder", boolean.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                if (!isShowEditPanel && mDockView != null) mDockView.setVisibility(View.VISIBLE);
+            }
+        });
+
+        findAndHookMethod(mBlurUtils, "fastBlurWhenEnterRecents", mLauncherCls, mLauncherStateCls, boolean.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                if (mDockView != null) mDockView.setVisibility(View.GONE);
             }
         });
 
         findAndHookMethod(mLauncherCls, "onStateSetStart", mLauncherStateCls, new IMethodHook() {
             @Override
             public void after(HookParam param) {
+                if (mDockView == null) return;
                 Boolean mLauncherState = param.getArgs()[0].getClass().getSimpleName().equals("LauncherState");
                 Boolean mNormalState = param.getArgs()[0].getClass().getSimpleName().equals("NormalState");
 
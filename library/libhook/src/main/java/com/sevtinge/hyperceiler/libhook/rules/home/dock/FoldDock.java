@@ -33,6 +33,10 @@ public class FoldDock extends BaseHook {
     Class<?> mDeviceConfig;
     Class<?> mApplication;
 
+    // 各线程当前所处的 initContent / updateContentView 嵌套层数
+    private final ThreadLocal<int[]> mInitContent = ThreadLocal.withInitial(() -> new int[1]);
+    private final ThreadLocal<int[]> mUpdateContentView = ThreadLocal.withInitial(() -> new int[1]);
+
     @Override
     public void init() {
         mHotSeatsList = findClassIfExists("com.miui.home.launcher.hotseats.HotSeatsList");
@@ -45,34 +49,35 @@ public class FoldDock extends BaseHook {
         findAndHookMethod(mDeviceConfig, "getHotseatMaxCount", returnConstant(5));
 
 
-        findAndHookMethod("com.miui.home.launcher.hotseats.HotSeats", "initContent", new IMethodHook() {
-                @Override
-                public void before(HookParam param) {
-                findAndHookMethod(mDeviceConfig, "isFoldDevice",
-                    returnConstant(true));
-            }
+        // 仅在 HotSeats 布局期间视为折叠屏，其余调用保持原样
+        findAndHookMethod(mDeviceConfig, "isFoldDevice", returnTrueWithin(mInitContent));
+        findAndHookMethod(mApplication, "isInFoldLargeScreen", returnTrueWithin(mUpdateContentView));
+        findAndHookMethod("com.miui.home.launcher.hotseats.HotSeats", "initContent", enterScope(mInitContent));
+        findAndHookMethod("com.miui.home.launcher.hotseats.HotSeats", "updateContentView", enterScope(mUpdateContentView));
 
-            @Override
-            public void after(HookParam param) {
+        findAndHookMethod("com.miui.home.launcher.allapps.LauncherMode", "isHomeSupportSearchBar", Context.class, returnConstant(false));
+    }
 
-                findAndHookMethod(mDeviceConfig, "isFoldDevice",
-                    returnConstant(false));
-            }
-        });
-        findAndHookMethod("com.miui.home.launcher.hotseats.HotSeats", "updateContentView", new IMethodHook() {
-                @Override
-                public void before(HookParam param) {
-                findAndHookMethod(mApplication, "isInFoldLargeScreen",
-                    returnConstant(true));
+    private static IMethodHook enterScope(ThreadLocal<int[]> depth) {
+        return guardNested(new IMethodHook() {
+            @Override
+            public void before(HookParam param) {
+                depth.get()[0]++;
             }
 
             @Override
             public void after(HookParam param) {
-                findAndHookMethod(mApplication, "isInFoldLargeScreen",
-                    returnConstant(false));
+                depth.get()[0]--;
             }
         });
+    }
 
-        findAndHookMethod("com.miui.home.launcher.allapps.LauncherMode", "isHomeSupportSearchBar", Context.class, returnConstant(false));
+    private static IMethodHook returnTrueWithin(ThreadLocal<int[]> depth) {
+        return new IMethodHook() {
+            @Override
+            public void before(HookParam param) {
+                if (depth.get()[0] > 0) param.setResult(true);
+            }
+        };
     }
 }
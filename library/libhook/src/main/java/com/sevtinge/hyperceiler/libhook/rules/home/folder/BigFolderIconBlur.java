@@ -38,11 +38,7 @@ import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 
 public class BigFolderIconBlur extends BaseHook {
 
-    boolean isShowEditPanel;
-    Class<?> mLauncher;
-    Class<?> mFolderInfo;
     Class<?> mFolderIcon;
-    Class<?> mLauncherState;
     Class<?> mDragView;
 
     Class<?> mFolderIcon2x2;
@@ -51,10 +47,7 @@ public class BigFolderIconBlur extends BaseHook {
 
     @Override
     public void init() {
-        mLauncher = findClassIfExists("com.miui.home.launcher.Launcher");
-        mFolderInfo = findClassIfExists("com.miui.home.launcher.FolderInfo");
         mFolderIcon = findClassIfExists("com.miui.home.launcher.FolderIcon");
-        mLauncherState = findClassIfExists("com.miui.home.launcher.LauncherState");
         mDragView = findClassIfExists("com.miui.home.launcher.DragView");
         mFolderIcon2x2 = findClassIfExists("com.miui.home.launcher.folder.FolderIcon2x2");
 
@@ -77,7 +70,9 @@ public class BigFolderIconBlur extends BaseHook {
             }
         });
 
-        IMethodHook mBigFolderIconBlur = new IMethodHook() {
+        FolderIconBlurRegistry.install();
+
+        IMethodHook mBigFolderIconBlur = guardNested(new IMethodHook() {
             @Override
             public void after(HookParam param) {
                 int mFolderWidth = DisplayUtils.dp2px(PrefsBridge.getInt("home_big_folder_icon_bg_width", 145));
@@ -104,49 +99,9 @@ public class BigFolderIconBlur extends BaseHook {
                     lp1.height = mFolderHeight;
                 }
 
-                findAndHookMethod(mLauncher, "showEditPanel", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        isShowEditPanel = (boolean) param.getArgs()[0];
-                        if (isShowEditPanel) {
-                            mDockBlur.setVisibility(View.GONE);
-                            mIconImageView.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                            mIconImageView.setVisibility(View.GONE);
-                        }
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "openFolder", mFolderInfo, View.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        mDockBlur.setVisibility(View.GONE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "closeFolder", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        if (!isShowEditPanel) mDockBlur.setVisibility(View.VISIBLE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "onStateSetStart", mLauncherState, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        Boolean mLauncherState = param.getArgs()[0].getClass().getSimpleName().equals("LauncherState");
-                        Boolean mNormalState = param.getArgs()[0].getClass().getSimpleName().equals("NormalState");
-
-                        if (mLauncherState || mNormalState) {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.GONE);
-                        }
-                    }
-                });
+                FolderIconBlurRegistry.register(mDockBlur, mIconImageView);
             }
-        };
+        });
 
 
         Method FolderIcon2x2_4_OnFinishInflate = com.sevtinge.hyperceiler.libhook.base.BaseHook.findMethodExactIfExists(mFolderIcon2x2_4, "onFinishInflate", Void.TYPE);
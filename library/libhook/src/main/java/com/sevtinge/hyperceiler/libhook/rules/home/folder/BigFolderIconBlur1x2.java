@@ -37,11 +37,7 @@ public class BigFolderIconBlur1x2 extends BaseHook {
 
     Class<?> mFolderIcon1x2;
 
-    boolean isShowEditPanel;
-    Class<?> mLauncher;
-    Class<?> mFolderInfo;
     Class<?> mFolderIcon;
-    Class<?> mLauncherState;
     Class<?> mDragView;
 
     @Override
@@ -52,13 +48,12 @@ public class BigFolderIconBlur1x2 extends BaseHook {
             mFolderIcon1x2 = findClassIfExists("com.miui.home.launcher.folder.FolderIcon1x2");
         }
 
-        mLauncher = findClassIfExists("com.miui.home.launcher.Launcher");
-        mFolderInfo = findClassIfExists("com.miui.home.launcher.FolderInfo");
         mFolderIcon = findClassIfExists("com.miui.home.launcher.FolderIcon");
-        mLauncherState = findClassIfExists("com.miui.home.launcher.LauncherState");
         mDragView = findClassIfExists("com.miui.home.launcher.DragView");
 
-        IMethodHook mBigFolderIconBlur = new IMethodHook() {
+        FolderIconBlurRegistry.install();
+
+        IMethodHook mBigFolderIconBlur = guardNested(new IMethodHook() {
             @Override
             public void after(HookParam param) {
                 int mFolderWidth = DisplayUtils.dp2px(PrefsBridge.getInt("home_big_folder_icon_bg_width_1x2", 62));
@@ -77,49 +72,9 @@ public class BigFolderIconBlur1x2 extends BaseHook {
                 lp1.gravity = Gravity.CENTER;
                 lp1.height = mFolderHeight;
                 lp1.width = mFolderWidth;
-                findAndHookMethod(mLauncher, "showEditPanel", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        isShowEditPanel = (boolean) param.getArgs()[0];
-                        if (isShowEditPanel) {
-                            mDockBlur.setVisibility(View.GONE);
-                            mIconImageView.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                            mIconImageView.setVisibility(View.GONE);
-                        }
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "openFolder", mFolderInfo, View.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        mDockBlur.setVisibility(View.GONE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "closeFolder", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        if (!isShowEditPanel) mDockBlur.setVisibility(View.VISIBLE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "onStateSetStart", mLauncherState, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        Boolean mLauncherState = param.getArgs()[0].getClass().getSimpleName().equals("LauncherState");
-                        Boolean mNormalState = param.getArgs()[0].getClass().getSimpleName().equals("NormalState");
-
-                        if (mLauncherState || mNormalState) {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.GONE);
-                        }
-                    }
-                });
+                FolderIconBlurRegistry.register(mDockBlur, mIconImageView);
             }
-        };
+        });
 
         findAndHookMethod(mFolderIcon1x2, "onFinishInflate", mBigFolderIconBlur);
     }
@@ -0,0 +1,160 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.home.folder;
+
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
+import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
+
+/**
+ * 文件夹图标模糊背景的显隐控制。
+ * <p>
+ * 桌面状态的 Hook（编辑模式、打开/关闭文件夹、状态切换）只在 init 时安装一次，由所有文件夹模糊规则共用；
+ * 图标 inflate 后把模糊背景和原图标登记到弱引用表中，Hook 触发时遍历表中仍存活的视图切换显隐。
+ */
+final class FolderIconBlurRegistry {
+
+    // 以下字段仅在类锁下访问；值只弱引用图标，图标经父容器引用着模糊背景，强引用会使键无法回收
+    private static final Map<View, WeakReference<ImageView>> sBlurViews = new WeakHashMap<>();
+    private static boolean sInstalled = false;
+    private static boolean sShowEditPanel = false;
+
+    private FolderIconBlurRegistry() {
+    }
+
+    /**
+     * 安装桌面状态 Hook，重复调用时直接返回
+     */
+    static void install() {
+        install(BaseHook::findClassIfExists, BaseHook::findAndHookMethod);
+    }
+
+    /**
+     * 以指定的类查找与 Hook 注册方式安装，JVM 测试借此统计注册次数
+     */
+    static void install(@NonNull Function<String, Class<?>> classFinder, @NonNull HookInstaller installer) {
+        synchronized (FolderIconBlurRegistry.class) {
+            if (sInstalled) return;
+            sInstalled = true;
+            BaseHook.registerHotReloadCleanup(FolderIconBlurRegistry::reset);
+        }
+
+        Class<?> launcher = classFinder.apply("com.miui.home.launcher.Launcher");
+        Class<?> folderInfo = classFinder.apply("com.miui.home.launcher.FolderInfo");
+        Class<?> launcherState = classFinder.apply("com.miui.home.launcher.LauncherState");
+
+        installer.hook(launcher, "showEditPanel", boolean.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                boolean show = (boolean) param.getArgs()[0];
+                synchronized (FolderIconBlurRegistry.class) {
+                    sShowEditPanel = show;
+                }
+                for (Entry entry : snapshot()) {
+                    entry.blurView.setVisibility(show ? View.GONE : View.VISIBLE);
+                    entry.iconView.setVisibility(show ? View.VISIBLE : View.GONE);
+                }
+            }
+        });
+
+        installer.hook(launcher, "openFolder", folderInfo, View.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                for (Entry entry : snapshot()) {
+                    entry.blurView.setVisibility(View.GONE);
+                }
+            }
+        });
+
+        installer.hook(launcher, "closeFolder", boolean.class, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                synchronized (FolderIconBlurRegistry.class) {
+                    if (sShowEditPanel) return;
+                }
+                for (Entry entry : snapshot()) {
+                    entry.blurView.setVisibility(View.VISIBLE);
+                }
+            }
+        });
+
+        installer.hook(launcher, "onStateSetStart", launcherState, new IMethodHook() {
+            @Override
+            public void after(HookParam param) {
+                String state = param.getArgs()[0].getClass().getSimpleName();
+                boolean visible = state.equals("LauncherState") || state.equals("NormalState");
+                for (Entry entry : snapshot()) {
+                    entry.blurView.setVisibility(visible ? View.VISIBLE : View.GONE);
+                }
+            }
+        });
+    }
+
+    /**
+     * 清空登记的视图，之后可重新安装
+     */
+    static void reset() {
+        synchronized (FolderIconBlurRegistry.class) {
+            sBlurViews.clear();
+            sInstalled = false;
+            sShowEditPanel = false;
+        }
+    }
+
+    /**
+     * 登记一个文件夹图标的模糊背景及其原图标
+     */
+    static void register(@NonNull View blurView, @NonNull ImageView iconView) {
+        synchronized (FolderIconBlurRegistry.class) {
+            sBlurViews.put(blurView, new WeakReference<>(iconView));
+        }
+    }
+
+    private static List<Entry> snapshot() {
+        synchronized (FolderIconBlurRegistry.class) {
+            List<Entry> entries = new ArrayList<>(sBlurViews.size());
+            for (Map.Entry<View, WeakReference<ImageView>> entry : sBlurViews.entrySet()) {
+                ImageView iconView = entry.getValue().get();
+                if (iconView != null) entries.add(new Entry(entry.getKey(), iconView));
+            }
+            return entries;
+        }
+    }
+
+    private record Entry(View blurView, ImageView iconView) {
+    }
+
+    @FunctionalInterface
+    interface HookInstaller {
+        void hook(Class<?> clazz, String methodName, Object... parameterTypesAndCallback);
+    }
+}
@@ -37,12 +37,8 @@ import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
 
 public class SmallFolderIconBlur extends BaseHook {
 
-    boolean isShowEditPanel;
-    Class<?> mLauncher;
-    Class<?> mFolderInfo;
     Class<?> mFolderIcon;
     Class<?> mFolderIcon1x1;
-    Class<?> mLauncherState;
     Class<?> mDragView;
 
     int mFolderIconSize;
@@ -51,11 +47,8 @@ public class SmallFolderIconBlur extends BaseHook {
     @Override
     public void init() {
 
-        mLauncher = findClassIfExists("com.miui.home.launcher.Launcher");
-        mFolderInfo = findClassIfExists("com.miui.home.launcher.FolderInfo");
         mFolderIcon = findClassIfExists("com.miui.home.launcher.FolderIcon");
         mFolderIcon1x1 = findClassIfExists("com.miui.home.launcher.folder.FolderIcon1x1");
-        mLauncherState = findClassIfExists("com.miui.home.launcher.LauncherState");
         mDragView = findClassIfExists("com.miui.home.launcher.DragView");
 
         hookAllConstructors(mFolderIcon, new IMethodHook() {
@@ -75,7 +68,9 @@ public class SmallFolderIconBlur extends BaseHook {
             }
         });
 
-        IMethodHook mDockBlur = new IMethodHook() {
+        FolderIconBlurRegistry.install();
+
+        IMethodHook mDockBlur = guardNested(new IMethodHook() {
             @Override
             public void after(HookParam param) {
                 try {
@@ -100,49 +95,9 @@ public class SmallFolderIconBlur extends BaseHook {
                 lp.height = mFolderIconSize;
                 lp.width = mFolderIconSize;
 
-                findAndHookMethod(mLauncher, "showEditPanel", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        isShowEditPanel = (boolean) param.getArgs()[0];
-                        if (isShowEditPanel) {
-                            mDockBlur.setVisibility(View.GONE);
-                            mIconImageView.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                            mIconImageView.setVisibility(View.GONE);
-                        }
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "openFolder", mFolderInfo, View.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        mDockBlur.setVisibility(View.GONE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "closeFolder", boolean.class, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        if (!isShowEditPanel) mDockBlur.setVisibility(View.VISIBLE);
-                    }
-                });
-
-                findAndHookMethod(mLauncher, "onStateSetStart", mLauncherState, new IMethodHook() {
-                    @Override
-                    public void after(HookParam param) {
-                        Boolean mLauncherState = param.getArgs()[0].getClass().getSimpleName().equals("LauncherState");
-                        Boolean mNormalState = param.getArgs()[0].getClass().getSimpleName().equals("NormalState");
-
-                        if (mLauncherState || mNormalState) {
-                            mDockBlur.setVisibility(View.VISIBLE);
-                        } else {
-                            mDockBlur.setVisibility(View.GONE);
-                        }
-                    }
-                });
+                FolderIconBlurRegistry.register(mDockBlur, mIconImageView);
             }
-        };
+        });
 
 
         try {
@@ -23,6 +23,7 @@ import static com.sevtinge.hyperceiler.libhook.utils.api.DeviceHelper.Miui.isPad
 import android.view.WindowManager;
 
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
+import com.sevtinge.hyperceiler.common.utils.prefs.PrefKey;
 import com.sevtinge.hyperceiler.libhook.appbase.mihome.HomeBaseHookNew;
 import com.sevtinge.hyperceiler.libhook.appbase.mihome.Version;
 
@@ -32,13 +33,15 @@ import io.github.lingqiqi5211.ezhooktool.xposed.java.IReplaceHook;
 
 public class BackGestureAreaHeight extends HomeBaseHookNew {
 
+    private static final PrefKey BACK_AREA_HEIGHT = PrefsBridge.key("home_navigation_back_area_height");
+
     @Version(isPad = true)
     private void initPadHook() {
         findAndHookMethod("com.miui.home.recents.GestureStubView", "getGestureStubWindowParam", new IMethodHook() {
             @Override
             public void after(final HookParam param) {
                 WindowManager.LayoutParams lp = (WindowManager.LayoutParams) param.getResult();
-                int pct = PrefsBridge.getInt("home_navigation_back_area_height", 60);
+                int pct = BACK_AREA_HEIGHT.getInt(60);
                 lp.height = Math.round(lp.height / 100.0f * pct);
                 lp.width = Math.round(lp.width / 100.0f * pct);
                 param.setResult(lp);
@@ -58,7 +61,7 @@ public class BackGestureAreaHeight extends HomeBaseHookNew {
                     int mScreenHeight = com.sevtinge.hyperceiler.libhook.base.BaseHook.getIntField(obj, "mScreenHeight");
                     int mScreenWidth = com.sevtinge.hyperceiler.libhook.base.BaseHook.getIntField(obj, "mScreenWidth");
 
-                    float f = (float) PrefsBridge.getInt("home_navigation_back_area_height", 60) / 100;
+                    float f = (float) BACK_AREA_HEIGHT.getInt(60) / 100;
 
                     int gestureTouchHeight;
                     if (mRotation == 0 || mRotation == 2) {
@@ -76,7 +79,7 @@ public class BackGestureAreaHeight extends HomeBaseHookNew {
                 @Override
                 public void after(final HookParam param) {
                     WindowManager.LayoutParams lp = (WindowManager.LayoutParams) param.getResult();
-                    int pct = PrefsBridge.getInt("home_navigation_back_area_height", 60);
+                    int pct = BACK_AREA_HEIGHT.getInt(60);
                     if (isPad()) {
                         lp.height = Math.round(lp.height / 100.0f * pct);
                         lp.width = Math.round(lp.width / 100.0f * pct);
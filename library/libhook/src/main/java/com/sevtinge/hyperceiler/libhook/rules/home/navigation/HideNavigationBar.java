@@ -21,16 +21,18 @@ package com.sevtinge.hyperceiler.libhook.rules.home.navigation;
 import static com.sevtinge.hyperceiler.libhook.base.BaseHook.getBooleanField;
 import static com.sevtinge.hyperceiler.libhook.base.BaseHook.setBooleanField;
 
-import android.provider.Settings;
 import android.view.MotionEvent;
 import android.view.View;
 
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.api.SettingsMirror;
 import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 
 import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
 
 public class HideNavigationBar extends BaseHook {
+    private static final SettingsMirror.Key SHOW_MISTAKE_TOUCH_TOAST = SettingsMirror.global("show_mistake_touch_toast");
+
     @Override
     public void init() {
         findAndHookMethod("com.miui.home.recents.views.RecentsContainer", "showLandscapeOverviewGestureView", boolean.class,
@@ -45,7 +47,7 @@ public class HideNavigationBar extends BaseHook {
             @Override
             public void before(HookParam param) {
                 View navView = (View) param.getThisObject();
-                boolean setting = Settings.Global.getInt(navView.getContext().getContentResolver(), "show_mistake_touch_toast", 1) == 1;
+                boolean setting = SHOW_MISTAKE_TOUCH_TOAST.getInt(navView.getContext(), 1) == 1;
                 boolean misTouch = (boolean) callMethod(param.getThisObject(), "isLandScapeActually");
                 param.setResult(misTouch && setting);
             }
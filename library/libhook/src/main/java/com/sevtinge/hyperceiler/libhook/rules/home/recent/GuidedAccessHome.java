@@ -19,7 +19,6 @@
 package com.sevtinge.hyperceiler.libhook.rules.home.recent;
 
 import android.content.Context;
-import android.provider.Settings;
 import android.view.MotionEvent;
 import android.view.View;
 
@@ -28,11 +27,13 @@ import androidx.annotation.NonNull;
 import com.sevtinge.hyperceiler.common.log.XposedLog;
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.api.SettingsMirror;
 
 import io.github.libxposed.api.XposedInterface;
 
 public class GuidedAccessHome extends BaseHook {
-    private static final String SETTING_KEY_LOCK_APP = "key_lock_app";
+    // onPointerEvent 中逐事件读取，走进程内镜像
+    private static final SettingsMirror.Key LOCK_APP = SettingsMirror.global("key_lock_app");
 
     @Override
     public void init() {
@@ -176,10 +177,6 @@ public class GuidedAccessHome extends BaseHook {
 
     private int getLockApp(Context context) {
         if (context == null) return -1;
-        try {
-            return Settings.Global.getInt(context.getContentResolver(), SETTING_KEY_LOCK_APP);
-        } catch (Throwable ignored) {
-            return -1;
-        }
+        return LOCK_APP.getInt(context, -1);
     }
 }
@@ -19,13 +19,11 @@
 package com.sevtinge.hyperceiler.libhook.rules.securitycenter;
 
 import android.content.Context;
-import android.database.ContentObserver;
-import android.os.Handler;
-import android.provider.Settings;
 import android.view.View;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.api.SettingsMirror;
 import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit.IDexKit;
 
@@ -50,6 +48,8 @@ import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
  */
 public class ScLockApp extends BaseHook {
     private static final String STATE_CONTEXT = "ScLockApp.context";
+    // dispatchTouchEvent 中逐事件读取，走进程内镜像
+    private static final SettingsMirror.Key LOCK_APP = SettingsMirror.global("key_lock_app");
     private Method mTouchMethod;
     private Class<?> mTouchClazz;
 
@@ -57,8 +57,7 @@ public class ScLockApp extends BaseHook {
     protected boolean useDexKit() {
         return true;
     }
-    boolean isListen = false;
-    boolean isLock = false;
+    private volatile Context mContext;
 
     int value = 0;
 
@@ -180,7 +179,8 @@ public class ScLockApp extends BaseHook {
                 new IMethodHook() {
                     @Override
                     public void before(HookParam param) {
-                        if (isLock) {
+                        Context context = mContext;
+                        if (context != null && getLockApp(context) != -1) {
                             param.setResult(false);
                         }
                     }
@@ -189,28 +189,14 @@ public class ScLockApp extends BaseHook {
     }
 
     private void registerObserverIfNeeded(Context context) {
-        if (context == null || isListen) return;
-        ContentObserver contentObserver = new ContentObserver(new Handler(context.getMainLooper())) {
-            @Override
-            public void onChange(boolean selfChange) {
-                isLock = getLockApp(context) != -1;
-            }
-        };
-        context.getContentResolver().registerContentObserver(
-            Settings.Global.getUriFor("key_lock_app"), false, contentObserver
-        );
-        isLock = getLockApp(context) != -1;
-        isListen = true;
-        registerContentObserverHotReloadCleanup(context.getContentResolver(), contentObserver);
+        if (context == null || mContext != null) return;
+        // 预先注册镜像，触摸路径上不再有首次读取的开销
+        getLockApp(context);
+        mContext = context;
         putHotReloadRuntimeState(STATE_CONTEXT, context);
     }
 
     public static int getLockApp(Context context) {
-        try {
-            return Settings.Global.getInt(context.getContentResolver(), "key_lock_app");
-        } catch (Settings.SettingNotFoundException e) {
-            XposedLog.e("LockApp", "com.miui.securitycenter",  "getInt hyceiler_lock_app will set E: " + e);
-        }
-        return -1;
+        return LOCK_APP.getInt(context, -1);
     }
 }
@@ -0,0 +1,245 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemframework.freeform;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Pair;
+
+import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.common.utils.api.ProjectApi;
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 小窗应用及其位置、缩放的持久化。
+ * <p>
+ * 记录只保存在内存中，修改后标记为脏，由后台线程在修改停止 {@link #WRITE_DELAY_MS} 后合并写入 Settings 并广播同步
+ * （持续修改时最迟 {@link #MAX_WRITE_DELAY_MS}），拖动或缩放小窗时连续的 resizeTask 只产生一次写入，
+ * 也不会在窗口管理的调用路径上访问 SettingsProvider。
+ * 写入内容带版本号，仍可读取旧格式；系统就绪、关机和热重载时立即写出未保存的修改。
+ */
+final class FloatingWindowStore {
+    private static final String TAG = "FloatingWindowStore";
+    static final String SETTINGS_KEY = ProjectApi.mAppModulePkg + ".fw.apps";
+    static final long WRITE_DELAY_MS = 500;
+    static final long MAX_WRITE_DELAY_MS = 5000;
+
+    private static final String VERSION_PREFIX = "2;";
+    private static final char ENTRY_SEPARATOR = ';';
+    private static final char FIELD_SEPARATOR = ',';
+
+    private static final Object sWriterLock = new Object();
+    private static ScheduledExecutorService sWriter;
+
+    private final Map<String, Pair<Float, Rect>> mApps;
+    private final Scheduler mScheduler;
+    private final Writer mWriter;
+    private final AtomicBoolean mDirty = new AtomicBoolean(false);
+    private final Object mFlushLock = new Object();
+    private volatile Context mContext;
+    private volatile long mFirstChange;
+    private volatile long mLastChange;
+    // 最近一次写入或读取的内容，仅在 mFlushLock 下访问
+    private String mPersisted;
+
+    FloatingWindowStore(Map<String, Pair<Float, Rect>> apps) {
+        this(apps, null, FloatingWindowStore::writeSettings);
+    }
+
+    /**
+     * @param scheduler 延迟写入的调度方式，为 null 时使用共享的后台写入线程
+     * @param writer    编码后的记录写到哪里
+     */
+    FloatingWindowStore(Map<String, Pair<Float, Rect>> apps, Scheduler scheduler, Writer writer) {
+        mApps = apps;
+        mScheduler = scheduler != null ? scheduler : this::scheduleOnWriter;
+        mWriter = writer;
+    }
+
+    /**
+     * 从 Settings 读取记录，替换内存中的内容
+     */
+    void restore(Context context) {
+        mContext = context;
+        // 先写出尚未保存的修改，读回的内容与内存一致
+        flush();
+        String data = Settings.Global.getString(context.getContentResolver(), SETTINGS_KEY);
+        synchronized (mFlushLock) {
+            decode(data, mApps);
+            mPersisted = data;
+        }
+    }
+
+    /**
+     * 标记记录已修改，由后台线程合并写入
+     */
+    void markDirty(Context context) {
+        if (context != null) mContext = context;
+        long now = SystemClock.uptimeMillis();
+        mLastChange = now;
+        if (!mDirty.compareAndSet(false, true)) return;
+        mFirstChange = now;
+        scheduleFlush(WRITE_DELAY_MS);
+    }
+
+    private void scheduleFlush(long delayMs) {
+        try {
+            mScheduler.schedule(this::flushWhenIdle, delayMs);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    private void flushWhenIdle() {
+        long now = SystemClock.uptimeMillis();
+        long idle = now - mLastChange;
+        if (idle < WRITE_DELAY_MS && now - mFirstChange < MAX_WRITE_DELAY_MS) {
+            scheduleFlush(WRITE_DELAY_MS - idle);
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * 立即写出尚未保存的修改，没有修改时直接返回
+     */
+    void flush() {
+        synchronized (mFlushLock) {
+            if (!mDirty.getAndSet(false)) return;
+            Context context = mContext;
+            if (context == null) return;
+            // 映射为 ConcurrentHashMap，可与修改并发编码，之后的修改会再次调度写入
+            String encoded = encode(mApps);
+            if (encoded.equals(mPersisted)) return;
+            try {
+                mWriter.write(context, encoded);
+                mPersisted = encoded;
+            } catch (Throwable t) {
+                XposedLog.e(TAG, "Failed to store floating windows", t);
+            }
+        }
+    }
+
+    private static void writeSettings(Context context, String encoded) {
+        StickyFloatingWindows.syncFwApps(context);
+        Settings.Global.putString(context.getContentResolver(), SETTINGS_KEY, encoded);
+    }
+
+    /**
+     * 编码为 {@code 2;包名,缩放[,左,上,右,下];...}
+     */
+    static String encode(Map<String, Pair<Float, Rect>> apps) {
+        StringBuilder sb = new StringBuilder(VERSION_PREFIX);
+        boolean first = true;
+        for (Map.Entry<String, Pair<Float, Rect>> entry : apps.entrySet()) {
+            Pair<Float, Rect> value = entry.getValue();
+            if (!first) sb.append(ENTRY_SEPARATOR);
+            first = false;
+            sb.append(entry.getKey()).append(FIELD_SEPARATOR).append(value.first == null ? 0f : value.first);
+            Rect rect = value.second;
+            if (rect != null) {
+                sb.append(FIELD_SEPARATOR).append(rect.left)
+                    .append(FIELD_SEPARATOR).append(rect.top)
+                    .append(FIELD_SEPARATOR).append(rect.right)
+                    .append(FIELD_SEPARATOR).append(rect.bottom);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解码当前或旧格式的记录，无法解析的条目会被跳过
+     */
+    static void decode(String data, Map<String, Pair<Float, Rect>> out) {
+        out.clear();
+        if (data == null || data.isEmpty()) return;
+        if (data.startsWith(VERSION_PREFIX)) {
+            for (String entry : data.substring(VERSION_PREFIX.length()).split(String.valueOf(ENTRY_SEPARATOR))) {
+                if (entry.isEmpty()) continue;
+                try {
+                    String[] fields = entry.split(String.valueOf(FIELD_SEPARATOR));
+                    Rect rect = fields.length >= 6 ? new Rect(
+                        Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                        Integer.parseInt(fields[4]), Integer.parseInt(fields[5])) : null;
+                    out.put(fields[0], new Pair<>(Float.parseFloat(fields[1]), rect));
+                } catch (RuntimeException e) {
+                    XposedLog.w(TAG, "Skip malformed entry: " + entry);
+                }
+            }
+            return;
+        }
+        // 旧格式：包名:缩放:Rect.flattenToString() 或 -，以 | 分隔
+        for (String entry : data.split("\\|")) {
+            if (entry.isEmpty()) continue;
+            try {
+                String[] fields = entry.split(":");
+                Rect rect = "-".equals(fields[2]) ? null : Rect.unflattenFromString(fields[2]);
+                out.put(fields[0], new Pair<>(Float.parseFloat(fields[1]), rect));
+            } catch (RuntimeException e) {
+                XposedLog.w(TAG, "Skip malformed entry: " + entry);
+            }
+        }
+    }
+
+    private void scheduleOnWriter(Runnable task, long delayMs) {
+        getWriter().schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private ScheduledExecutorService getWriter() {
+        synchronized (sWriterLock) {
+            if (sWriter == null) {
+                ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+                    Thread thread = new Thread(r, "FloatingWindowStore-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                sWriter = writer;
+                BaseHook.registerHotReloadCleanup(() -> {
+                    synchronized (sWriterLock) {
+                        if (sWriter == writer) sWriter = null;
+                    }
+                    writer.shutdownNow();
+                    flush();
+                });
+            }
+            return sWriter;
+        }
+    }
+
+    interface Scheduler {
+        /**
+         * @throws RejectedExecutionException 无法调度时由调用方立即写入
+         */
+        void schedule(Runnable task, long delayMs);
+    }
+
+    interface Writer {
+        void write(Context context, String encoded);
+    }
+}
@@ -28,11 +28,9 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.graphics.Rect;
-import android.provider.Settings;
 import android.util.Pair;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
-import com.sevtinge.hyperceiler.common.utils.api.ProjectApi;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
 import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 
@@ -49,7 +47,8 @@ public class StickyFloatingWindows extends BaseHook {
         "StickyFloatingWindows.systemContext";
     private static final String HOT_RELOAD_ATMS_KEY =
         "StickyFloatingWindows.activityTaskManagerService";
-    public static ConcurrentHashMap<String, Pair<Float, Rect>> fwApps = new ConcurrentHashMap<>();
+    public static final ConcurrentHashMap<String, Pair<Float, Rect>> fwApps = new ConcurrentHashMap<>();
+    private static final FloatingWindowStore sStore = new FloatingWindowStore(fwApps);
     private boolean mSystemReadyInitialized;
 
     @Override
@@ -194,11 +193,15 @@ public class StickyFloatingWindows extends BaseHook {
                         if (fwBlackList.contains(pkgName)) return;
                         Object mMiuiFreeFormManagerService = getObjectField(param.getThisObject(), "mMiuiFreeFormManagerService");
                         Object miuiFreeFormActivityStack = callMethod(mMiuiFreeFormManagerService, "getMiuiFreeFormActivityStack", param.getArgs()[0]);
-                        if (fwApps.containsKey(pkgName)) {
-                            Context mContext = (Context) getObjectField(param.getThisObject(), "mContext");
+                        Pair<Float, Rect> old = fwApps.get(pkgName);
+                        if (old != null) {
                             float sScale = (float) callMethod(miuiFreeFormActivityStack, "getFreeFormScale");
-                            fwApps.put(pkgName, new Pair<>(sScale, new Rect((Rect) param.getArgs()[1])));
-                            storeFwAppsInSetting(mContext);
+                            Pair<Float, Rect> geometry = new Pair<>(sScale, new Rect((Rect) param.getArgs()[1]));
+                            // 拖动、缩放期间持续调用，只更新内存并合并写入
+                            if (!geometry.equals(old)) {
+                                fwApps.put(pkgName, geometry);
+                                storeFwAppsInSetting((Context) getObjectField(param.getThisObject(), "mContext"));
+                            }
                         }
                     }
                 }
@@ -241,14 +244,7 @@ public class StickyFloatingWindows extends BaseHook {
     }
 
     public static void unserializeFwApps(String data) {
-        fwApps.clear();
-        if (data == null || data.isEmpty()) return;
-        String[] dataArr = data.split("\\|");
-        for (String appData : dataArr) {
-            if ("".equals(appData)) continue;
-            String[] appDataArr = appData.split(":");
-            fwApps.put(appDataArr[0], new Pair<>(Float.parseFloat(appDataArr[1]), "-".equals(appDataArr[2]) ? null : Rect.unflattenFromString(appDataArr[2])));
-        }
+        FloatingWindowStore.decode(data, fwApps);
     }
 
     public static void syncFwApps(Context context) {
@@ -258,13 +254,15 @@ public class StickyFloatingWindows extends BaseHook {
         context.sendBroadcast(intent);
     }
 
+    /**
+     * 记录已修改，稍后由后台线程写入 Settings 并广播同步
+     */
     public static void storeFwAppsInSetting(Context context) {
-        syncFwApps(context);
-        Settings.Global.putString(context.getContentResolver(), ProjectApi.mAppModulePkg + ".fw.apps", serializeFwApps());
+        sStore.markDirty(context);
     }
 
     public static void restoreFwAppsInSetting(Context context) {
-        unserializeFwApps(Settings.Global.getString(context.getContentResolver(), ProjectApi.mAppModulePkg + ".fw.apps"));
+        sStore.restore(context);
     }
 
     @SuppressWarnings("unchecked")
@@ -329,6 +327,15 @@ public class StickyFloatingWindows extends BaseHook {
         context.registerReceiver(updateReceiver, filter, Context.RECEIVER_EXPORTED);
         registerReceiverHotReloadCleanup(context, updateReceiver);
 
+        BroadcastReceiver shutdownReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context receiverContext, Intent intent) {
+                sStore.flush();
+            }
+        };
+        context.registerReceiver(shutdownReceiver, new IntentFilter(Intent.ACTION_SHUTDOWN), Context.RECEIVER_EXPORTED);
+        registerReceiverHotReloadCleanup(context, shutdownReceiver);
+
         mSystemReadyInitialized = true;
         putHotReloadRuntimeState(HOT_RELOAD_CONTEXT_KEY, context);
         putHotReloadRuntimeState(HOT_RELOAD_ATMS_KEY, activityTaskManagerService);
@@ -23,7 +23,6 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Handler;
-import android.provider.Settings;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -36,9 +35,10 @@ import com.sevtinge.hyperceiler.libhook.appbase.systemui.TileContext;
 import com.sevtinge.hyperceiler.libhook.appbase.systemui.TileState;
 import com.sevtinge.hyperceiler.libhook.appbase.systemui.TileUtils;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.api.SettingsMirror;
 
 public class GuidedAccessTile extends TileUtils {
-    private static final String SETTING_KEY_LOCK_APP = "key_lock_app";
+    private static final SettingsMirror.Key LOCK_APP = SettingsMirror.global("key_lock_app");
     private static final String TILE_NAME = "custom_guided_access";
     private static final long ENTER_DELAY_MS = 260L;
 
@@ -182,11 +182,7 @@ public class GuidedAccessTile extends TileUtils {
     }
 
     private static int getLockApp(Context context) {
-        try {
-            return Settings.Global.getInt(context.getContentResolver(), SETTING_KEY_LOCK_APP);
-        } catch (Settings.SettingNotFoundException e) {
-            return -1;
-        }
+        return LOCK_APP.getInt(context, -1);
     }
 
     private void collapsePanelsSafely(TileContext ctx) {
@@ -19,16 +19,12 @@
 package com.sevtinge.hyperceiler.libhook.rules.systemui.lockscreen
 
 import android.annotation.SuppressLint
-import android.content.BroadcastReceiver
-import android.content.Context
-import android.content.Intent
-import android.content.IntentFilter
 import android.os.Handler
-import android.os.PowerManager
 import android.util.ArrayMap
 import android.widget.TextView
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge
 import com.sevtinge.hyperceiler.libhook.base.BaseHook
+import com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry
 import io.github.lingqiqi5211.ezhooktool.core.callMethod
 import io.github.lingqiqi5211.ezhooktool.core.callStaticMethod
 import io.github.lingqiqi5211.ezhooktool.core.findMethod
@@ -38,14 +34,11 @@ import io.github.lingqiqi5211.ezhooktool.xposed.dsl.createHooks
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectFieldOrNull
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getStaticObjectFieldOrNull
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.setObjectField
-import java.io.BufferedReader
-import java.io.FileReader
-import java.math.BigDecimal
-import java.math.RoundingMode
-import kotlin.math.abs
 
 object ChargingCVP : BaseHook() {
     private const val STATE_TEXT_VIEW = "ChargingCVP.textView"
+    // 宿主自行刷新文本时，早于此时长的采样会被重新读取
+    private const val SAMPLE_MAX_AGE_MS = 1000L
     private val showSpacingValue by lazy {
         PrefsBridge.getBoolean("system_ui_lock_screen_show_spacing_value")
     }
@@ -55,6 +48,12 @@ object ChargingCVP : BaseHook() {
     private val isShowMoreC by lazy {
         PrefsBridge.getBoolean("system_ui_show_charging_c_more")
     }
+    private val refreshInterval by lazy {
+        PrefsBridge.getInt("system_ui_statusbar_lock_screen_show_spacing", 6) / 2 * 1000L
+    }
+
+    @Volatile
+    private var subscription: BatteryTelemetry.Subscription? = null
 
     @SuppressLint("SetTextI18n")
     override fun init() {
@@ -90,9 +89,7 @@ object ChargingCVP : BaseHook() {
         findClassIfExists("com.miui.charge.ChargeUtils")?: findClass("com.android.keyguard.charge.ChargeUtils").findMethod { name("getChargingHintText"); paramCount(3) }
             .createHook {
                 after { param ->
-                    param.result = param.result?.let {
-                        "${getTemp()}$it\n${getCVP()}"
-                    }
+                    param.result = param.result?.let { buildChargingHint(it) }
                 }
             }
 
@@ -103,7 +100,7 @@ object ChargingCVP : BaseHook() {
         clazzKeyguardIndicationController: Class<*>,
         textView: TextView
     ) {
-        val screenOnOffReceiver = object : BroadcastReceiver() {
+        val listener = object : BatteryTelemetry.Listener {
             val keyguardIndicationController = runCatching {
                 clazzDependency.callStaticMethod("get", clazzKeyguardIndicationController)!!
             }.getOrElse {
@@ -116,148 +113,68 @@ object ChargingCVP : BaseHook() {
                     mSysUIProvider.getObjectFieldOrNull("mKeyguardIndicationController")!!
                 mKeyguardIndicationController.callMethod("get")!!
             }
-            val handler = Handler(textView.context.mainLooper)
-            val runnable = object : Runnable {
-                val clazzMiuiDependency =
-                    findClass("com.miui.systemui.MiuiDependency")
-                val clazzMiuiChargeController =
-                    findClass("com.miui.charge.MiuiChargeController")
-                val sDependency =
-                    clazzMiuiDependency.getStaticObjectFieldOrNull("sDependency")!!
-                val mProviders =
-                    sDependency.getObjectFieldOrNull("mProviders") as ArrayMap<*, *>
-                val mMiuiChargeControllerProvider = mProviders[clazzMiuiChargeController]!!
-                val instanceMiuiChargeController = mMiuiChargeControllerProvider
-                        .getObjectFieldOrNull("f$0")!!
-                        .callMethod("get")!!
-
-                override fun run() {
-                    doUpdateForHyperOS()
-                    handler.postDelayed(
-                        this,
-                        PrefsBridge.getInt("system_ui_statusbar_lock_screen_show_spacing", 6) / 2 * 1000L
-                    )
-                }
-
-                fun doUpdateForHyperOS() {
-                    val mBatteryStatus =
-                        instanceMiuiChargeController.getObjectFieldOrNull("mBatteryStatus")!!
-                    val level = mBatteryStatus.getObjectFieldOrNull("level")
-                    val plugged = mBatteryStatus.getObjectFieldOrNull("plugged") as Int
-                    val isPluggedIn =
-                        mBatteryStatus.callMethod("isPluggedIn", plugged)
-                    val mContext =
-                        instanceMiuiChargeController.getObjectFieldOrNull("mContext")
-                    val clazzChargeUtils =
-                        findClass("com.miui.charge.ChargeUtils", lpparam.classLoader)
-                    val chargingHintText =
-                        callStaticMethod(
-                            clazzChargeUtils,
-                            "getChargingHintText",
-                            level,
-                            isPluggedIn,
-                            mContext
-                        )
-                    keyguardIndicationController.setObjectField("mComputePowerIndication", chargingHintText)
-                    keyguardIndicationController.callMethod(
-                        "updateDeviceEntryIndication",
-                        null,
-                        false
-                    )
-                }
+            val clazzMiuiDependency =
+                findClass("com.miui.systemui.MiuiDependency")
+            val clazzMiuiChargeController =
+                findClass("com.miui.charge.MiuiChargeController")
+            val sDependency =
+                clazzMiuiDependency.getStaticObjectFieldOrNull("sDependency")!!
+            val mProviders =
+                sDependency.getObjectFieldOrNull("mProviders") as ArrayMap<*, *>
+            val mMiuiChargeControllerProvider = mProviders[clazzMiuiChargeController]!!
+            val instanceMiuiChargeController = mMiuiChargeControllerProvider
+                    .getObjectFieldOrNull("f$0")!!
+                    .callMethod("get")!!
+            val clazzChargeUtils =
+                findClass("com.miui.charge.ChargeUtils", lpparam.classLoader)
+
+            override fun onBatteryTelemetry(temperatureDeciC: Int, currentMicroAmps: Long, voltageMicroVolts: Long) {
+                // 采样刚刚完成，宿主回调 getChargingHintText 时直接使用
+                doUpdateForHyperOS()
             }
 
-            init {
-                if ((textView.context.getSystemService(Context.POWER_SERVICE) as PowerManager).isInteractive) {
-                    handler.post(runnable)
-                }
-            }
-
-            override fun onReceive(context: Context, intent: Intent) {
-                when (intent.action) {
-                    Intent.ACTION_SCREEN_ON -> {
-                        handler.post(runnable)
-                    }
-
-                    Intent.ACTION_SCREEN_OFF -> {
-                        handler.removeCallbacks(runnable)
-                    }
-                }
+            fun doUpdateForHyperOS() {
+                val mBatteryStatus =
+                    instanceMiuiChargeController.getObjectFieldOrNull("mBatteryStatus")!!
+                val level = mBatteryStatus.getObjectFieldOrNull("level")
+                val plugged = mBatteryStatus.getObjectFieldOrNull("plugged") as Int
+                val isPluggedIn =
+                    mBatteryStatus.callMethod("isPluggedIn", plugged)
+                val mContext =
+                    instanceMiuiChargeController.getObjectFieldOrNull("mContext")
+                val chargingHintText =
+                    callStaticMethod(
+                        clazzChargeUtils,
+                        "getChargingHintText",
+                        level,
+                        isPluggedIn,
+                        mContext
+                    )
+                keyguardIndicationController.setObjectField("mComputePowerIndication", chargingHintText)
+                keyguardIndicationController.callMethod(
+                    "updateDeviceEntryIndication",
+                    null,
+                    false
+                )
             }
         }
 
-        val filter = IntentFilter().apply {
-            addAction(Intent.ACTION_SCREEN_ON)
-            addAction(Intent.ACTION_SCREEN_OFF)
-        }
+        // 多个指示文本视图共用一个订阅，亮灭屏由轮询器处理
         val context = textView.context
-        context.registerReceiver(
-            screenOnOffReceiver, filter, Context.RECEIVER_EXPORTED
-        )
-        BaseHook.registerReceiverHotReloadCleanup(context, screenOnOffReceiver)
-        BaseHook.registerHotReloadCleanup {
-            screenOnOffReceiver.handler.removeCallbacks(screenOnOffReceiver.runnable)
-        }
+        val newSubscription = BatteryTelemetry.getInstance()
+            .subscribe(context, Handler(context.mainLooper), refreshInterval, listener)
+        subscription?.close()
+        subscription = newSubscription
+        BaseHook.registerHotReloadCleanup { newSubscription.close() }
         BaseHook.putHotReloadRuntimeState(STATE_TEXT_VIEW, textView)
     }
 
-    private fun getTemp(): String {
-        var temp = 0.0
-
-        try {
-            BufferedReader(FileReader("/sys/class/power_supply/battery/temp")).use { reader ->
-                temp = BigDecimal(reader.readLine().toDouble() / 10.0)
-                    .setScale(1, RoundingMode.HALF_UP)
-                    .toDouble()
-            }
-        } catch (_: Exception) {
-            temp = 0.0
-        }
-
-        return if (isShowTemp) "$temp ℃ · " else ""
-    }
-
-    @SuppressLint("DefaultLocale")
-    private fun getCVP(): String {
-        runCatching {
-            var current = 0.0
-            var voltage = 0.0
-            val watt: Double by lazy {
-                current * voltage
-            }
-
-            current = FileReader("/sys/class/power_supply/battery/current_now").use { fileReader ->
-                BufferedReader(fileReader).use { bufferedReader ->
-                    -1.0 * bufferedReader.readLine().toDouble() / 1000000.0
-                }
-            }
-            voltage = FileReader("/sys/class/power_supply/battery/voltage_now").use { fileReader ->
-                BufferedReader(fileReader).use { bufferedReader ->
-                    bufferedReader.readLine().toDouble() / 1000000.0
-                }
-            }
-
-            // 计算功率信息
-            val power = String.format("%.2f", watt)
-
-            // 电流展示逻辑设置
-            val mCurrent = if (isShowMoreC) {
-                "${(current * 1000).toInt()} mA"
-            } else {
-                "${String.format("%.1f", abs(current))} A"
-            }
-            val mVoltage = "${String.format("%.1f", voltage)} V"
-
-            // 判断充满信息是否归零
-            val showBattery = if (current == 0.0) {
-                ""
-            } else {
-                "$mCurrent · $mVoltage · $power W"
-            }
-
-            // 输出展示信息
-            return showBattery
-        }
-        return ""
+    private fun buildChargingHint(hint: Any): String {
+        val telemetry = BatteryTelemetry.getInstance()
+        telemetry.refreshIfOlderThan(SAMPLE_MAX_AGE_MS)
+        return ChargingHintFormatter.format(
+            hint, isShowTemp, isShowMoreC,
+            telemetry.temperatureDeciC, telemetry.currentMicroAmps, telemetry.voltageMicroVolts
+        )
     }
 }
@@ -0,0 +1,116 @@
+/*
+  * This file is part of HyperCeiler.
+
+  * HyperCeiler is free software: you can redistribute it and/or modify
+  * it under the terms of the GNU Affero General Public License as
+  * published by the Free Software Foundation, either version 3 of the
+  * License.
+
+  * This program is distributed in the hope that it will be useful,
+  * but WITHOUT ANY WARRANTY; without even the implied warranty of
+  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  * GNU Affero General Public License for more details.
+
+  * You should have received a copy of the GNU Affero General Public License
+  * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+  * Copyright (C) 2023-2026 HyperCeiler Contributions
+*/
+package com.sevtinge.hyperceiler.libhook.rules.systemui.lockscreen
+
+import com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry
+import java.text.DecimalFormatSymbols
+import java.util.Locale
+import kotlin.math.abs
+
+/**
+ * 锁屏充电提示文本的拼接，直接使用 [BatteryTelemetry] 的原始整数，不经过浮点与 String.format
+ */
+internal object ChargingHintFormatter {
+    // 数字格式随默认语言缓存
+    @Volatile
+    private var numberSymbols: NumberSymbols? = null
+
+    fun format(
+        hint: Any,
+        showTemp: Boolean,
+        showMoreC: Boolean,
+        temperatureDeciC: Int,
+        currentMicroAmps: Long,
+        voltageMicroVolts: Long
+    ): String {
+        val sb = StringBuilder(64)
+        if (showTemp) appendTemp(sb, temperatureDeciC)
+        sb.append(hint).append('\n')
+        // 读取失败或充满后电流归零时不展示
+        if (currentMicroAmps != BatteryTelemetry.INVALID_VALUE &&
+            voltageMicroVolts != BatteryTelemetry.INVALID_VALUE && currentMicroAmps != 0L
+        ) {
+            appendCVP(sb, showMoreC, currentMicroAmps, voltageMicroVolts)
+        }
+        return sb.toString()
+    }
+
+    private fun appendTemp(sb: StringBuilder, temperatureDeciC: Int) {
+        val temp = if (temperatureDeciC == BatteryTelemetry.INVALID_TEMPERATURE) 0 else temperatureDeciC
+        if (temp < 0) sb.append('-')
+        sb.append(abs(temp / 10)).append('.').append(abs(temp % 10)).append(" ℃ · ")
+    }
+
+    private fun appendCVP(sb: StringBuilder, showMoreC: Boolean, currentMicroAmps: Long, voltageMicroVolts: Long) {
+        val symbols = numberSymbols()
+        // 放电时 current_now 为正，展示时取反
+        val current = -currentMicroAmps
+
+        // 电流展示逻辑设置
+        if (showMoreC) {
+            sb.append(current / 1000).append(" mA")
+        } else {
+            appendFixed(sb, symbols, abs(current), 100_000L, 1).append(" A")
+        }
+        sb.append(" · ")
+        appendFixed(sb, symbols, voltageMicroVolts, 100_000L, 1).append(" V · ")
+        // 计算功率信息，μA·μV 换算为 0.01 W
+        appendFixed(sb, symbols, current * voltageMicroVolts, 10_000_000_000L, 2).append(" W")
+    }
+
+    /**
+     * 与 String.format("%.nf") 一致：按 HALF_UP 取整到 unit，并使用默认语言的数字与小数点
+     */
+    private fun appendFixed(
+        sb: StringBuilder,
+        symbols: NumberSymbols,
+        value: Long,
+        unit: Long,
+        decimals: Int
+    ): StringBuilder {
+        val scaled = (abs(value) + unit / 2) / unit
+        if (value < 0) sb.append('-')
+        var divisor = 1L
+        repeat(decimals) { divisor *= 10 }
+        appendDigits(sb, symbols.zeroDigit, scaled / divisor, 1)
+        sb.append(symbols.decimalSeparator)
+        appendDigits(sb, symbols.zeroDigit, scaled % divisor, decimals)
+        return sb
+    }
+
+    private fun appendDigits(sb: StringBuilder, zeroDigit: Char, value: Long, minWidth: Int) {
+        val start = sb.length
+        sb.append(value)
+        while (sb.length - start < minWidth) sb.insert(start, '0')
+        if (zeroDigit != '0') {
+            for (i in start until sb.length) {
+                sb.setCharAt(i, zeroDigit + (sb[i] - '0'))
+            }
+        }
+    }
+
+    private fun numberSymbols(): NumberSymbols {
+        val locale = Locale.getDefault(Locale.Category.FORMAT)
+        numberSymbols?.takeIf { it.locale == locale }?.let { return it }
+        val symbols = DecimalFormatSymbols.getInstance(locale)
+        return NumberSymbols(locale, symbols.zeroDigit, symbols.decimalSeparator).also { numberSymbols = it }
+    }
+
+    private class NumberSymbols(val locale: Locale, val zeroDigit: Char, val decimalSeparator: Char)
+}
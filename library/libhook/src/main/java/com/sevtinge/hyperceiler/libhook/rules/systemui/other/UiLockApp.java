@@ -21,14 +21,13 @@ package com.sevtinge.hyperceiler.libhook.rules.systemui.other;
 import static com.sevtinge.hyperceiler.libhook.utils.api.DeviceHelper.Miui.isPad;
 
 import android.content.Context;
-import android.database.ContentObserver;
 import android.os.Handler;
-import android.provider.Settings;
 import android.view.View;
 import android.widget.FrameLayout;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.api.SettingsMirror;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
@@ -45,6 +44,8 @@ import io.github.libxposed.api.XposedInterface;
  */
 public class UiLockApp extends BaseHook {
     private static final String SETTING_KEY_LOCK_APP = "key_lock_app";
+    // onDraw、setAlpha 等每帧回调都会读取，走进程内镜像
+    private static final SettingsMirror.Key LOCK_APP = SettingsMirror.global(SETTING_KEY_LOCK_APP);
     private static final String STATE_CONTEXT = "UiLockApp.context";
     private static final String STATE_STATUS_BAR_VIEW = "UiLockApp.statusBarView";
 
@@ -530,29 +531,13 @@ public class UiLockApp extends BaseHook {
     }
 
     public static int getLockApp(Context context) {
-        try {
-            return Settings.Global.getInt(context.getContentResolver(), SETTING_KEY_LOCK_APP);
-        } catch (Settings.SettingNotFoundException e) {
-            XposedLog.w("LockApp", "getInt hyceiler_lock_app e: " + e);
-        }
-        return -1;
+        return LOCK_APP.getInt(context, -1);
     }
 
     private void registerObserverIfNeeded(Context context) {
         if (context == null || mObserverRegistered) return;
-        ContentObserver contentObserver = new ContentObserver(new Handler(context.getMainLooper())) {
-            @Override
-            public void onChange(boolean selfChange) {
-                updateStatusBarVisibility(context);
-            }
-        };
-        context.getContentResolver().registerContentObserver(
-            Settings.Global.getUriFor(SETTING_KEY_LOCK_APP),
-            false,
-            contentObserver
-        );
+        LOCK_APP.addListener(context, new Handler(context.getMainLooper()), () -> updateStatusBarVisibility(context));
         mObserverRegistered = true;
-        registerContentObserverHotReloadCleanup(context.getContentResolver(), contentObserver);
         putHotReloadRuntimeState(STATE_CONTEXT, context);
     }
 }
@@ -27,6 +27,7 @@ import android.util.AttributeSet;
 import android.widget.LinearLayout;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.ResourceIdCache;
 
 import java.util.List;
 
@@ -91,16 +92,16 @@ public class CustomCardTiles {
             LinearLayout linearLayout = (LinearLayout) param.getThisObject();
             Context context = linearLayout.getContext();
 
-            idEnable = context.getResources().getIdentifier(
+            idEnable = ResourceIdCache.getIdentifier(context.getResources(),
                 "qs_card_wifi_background_enabled", "drawable", "miui.systemui.plugin");
-            idDisabled = context.getResources().getIdentifier(
+            idDisabled = ResourceIdCache.getIdentifier(context.getResources(),
                 "qs_card_wifi_background_disabled", "drawable", "miui.systemui.plugin");
 
             /*if (idEnable == 0 || idDisabled == 0) {
                 XposedLog.w(TAG, "Resource not found: idEnable=" + idEnable + ", idDisabled=" + idDisabled);
             }*/
 
-            int cornerRadius = context.getResources().getIdentifier(
+            int cornerRadius = ResourceIdCache.getIdentifier(context.getResources(),
                 "control_center_universal_corner_radius", "dimen", "miui.systemui.plugin");
             if (cornerRadius != 0) {
                 cornerRadiusF = context.getResources().getDimensionPixelSize(cornerRadius);
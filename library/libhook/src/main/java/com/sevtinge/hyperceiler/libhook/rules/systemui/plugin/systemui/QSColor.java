@@ -30,6 +30,7 @@ import android.widget.TextView;
 import com.sevtinge.hyperceiler.common.log.XposedLog;
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge;
 import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.ResourceIdCache;
 import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
 
 import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
@@ -98,9 +99,9 @@ public class QSColor extends BaseHook {
                 @Override
                 public void after(HookParam param) {
                     LinearLayout linearLayout = (LinearLayout) param.getThisObject();
-                    int cornerRadius = linearLayout.getContext().getResources().getIdentifier("control_center_universal_corner_radius", "dimen", "miui.systemui.plugin");
+                    int cornerRadius = ResourceIdCache.getIdentifier(linearLayout.getContext().getResources(), "control_center_universal_corner_radius", "dimen", "miui.systemui.plugin");
                     cornerRadiusF = linearLayout.getContext().getResources().getDimensionPixelSize(cornerRadius);
-                    id = linearLayout.getContext().getResources().getIdentifier("qs_card_wifi_background_enabled", "drawable", "miui.systemui.plugin");
+                    id = ResourceIdCache.getIdentifier(linearLayout.getContext().getResources(), "qs_card_wifi_background_enabled", "drawable", "miui.systemui.plugin");
                 }
             });
 
@@ -143,8 +144,8 @@ public class QSColor extends BaseHook {
                         TextView textView, textView1;
 
                         try {
-                            int title = context.getResources().getIdentifier("title", "id", "miui.systemui.plugin");
-                            int status = context.getResources().getIdentifier("status", "id", "miui.systemui.plugin");
+                            int title = ResourceIdCache.getIdentifier(context.getResources(), "title", "id", "miui.systemui.plugin");
+                            int status = ResourceIdCache.getIdentifier(context.getResources(), "status", "id", "miui.systemui.plugin");
 
                             textView = (TextView) com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(param.getThisObject(), "_$_findCachedViewById", title);
                             textView1 = (TextView) com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(param.getThisObject(), "_$_findCachedViewById", status);
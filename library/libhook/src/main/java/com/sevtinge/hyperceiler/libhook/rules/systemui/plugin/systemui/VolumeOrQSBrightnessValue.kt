@@ -40,6 +40,7 @@ import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getStaticBooleanField
 import io.github.lingqiqi5211.ezhooktool.core.callMethod
 import io.github.lingqiqi5211.ezhooktool.core.callStaticMethod
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.findViewByIdName
+import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.getIdByName
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectField
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectFieldAs
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectFieldOrNull
@@ -493,7 +494,7 @@ object VolumeOrQSBrightnessValue {
             val topValue = getOrCacheTopText(topTextCache, item, { item }, { item.context })
 
             if (!controlCenterUtils.getBackgroundBlurOpenedInDefaultTheme(context)) {
-                val colorId = context.resources.getIdentifier("toggle_slider_top_text_color", "color", PLUGIN)
+                val colorId = context.resources.getIdByName("toggle_slider_top_text_color", "color", PLUGIN)
                 val color = item.resources.getColor(colorId, null)
                 topValue.setTextColor(color)
                 miBlurCompat.setMiViewBlurModeCompat(topValue, 0)
@@ -579,12 +580,12 @@ object VolumeOrQSBrightnessValue {
     }
 
     private fun Resources.getColorBy(name: String, defPackage: String): Int {
-        val id = this.getIdentifier(name, "color", defPackage)
+        val id = getIdByName(name, "color", defPackage)
         return this.getColor(id, this.newTheme())
     }
 
     private fun Resources.getIntArrayBy(name: String, defPackage: String): IntArray {
-        val id = this.getIdentifier(name, "array", defPackage)
+        val id = getIdByName(name, "array", defPackage)
         return this.getIntArray(id)
     }
 }
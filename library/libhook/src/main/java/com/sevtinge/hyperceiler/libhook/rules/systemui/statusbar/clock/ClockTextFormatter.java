@@ -0,0 +1,246 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.clock;
+
+import android.content.Context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 使用宿主时钟控制器中的日历渲染时钟文本。
+ * <p>
+ * 日历的 setTimeInMillis / format 与控制器的 mCalendar 字段在每个类上只解析一次为方法句柄。
+ * 格式串在创建时按秒字段切分：秒以外的部分只在分钟变化或强制刷新时交给日历渲染，
+ * 秒字段由预先渲染的数字拼接，结果写入复用的缓冲区。只应在主线程使用。
+ */
+final class ClockTextFormatter {
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private static final MethodType SET_TIME_TYPE =
+        MethodType.methodType(void.class, Object.class, long.class);
+    private static final MethodType FORMAT_TYPE =
+        MethodType.methodType(void.class, Object.class, Context.class, StringBuilder.class, StringBuilder.class);
+    private static final MethodType GETTER_TYPE =
+        MethodType.methodType(Object.class, Object.class);
+
+    private static final ConcurrentHashMap<Class<?>, CalendarHandles> sCalendarHandles = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, MethodHandle> sCalendarGetters = new ConcurrentHashMap<>();
+
+    private final Object mCalendar;
+    private final CalendarHandles mHandles;
+    // 秒字段以外的格式片段，秒字段所在位置为 null
+    private final String[] mParts;
+    // 秒字段的宽度：ss 为 2，s 为 1，其余片段为 0
+    private final int[] mSecondsWidth;
+    private final String[] mRendered;
+    private final boolean mHasSeconds;
+    // 格式中含引号时无法安全切分，整体渲染且不按分钟缓存
+    private final boolean mRenderEveryTime;
+
+    private final String[] mDigits = new String[10];
+    private final StringBuilder mPattern = new StringBuilder(32);
+    private final StringBuilder mFormatted = new StringBuilder(64);
+    private final StringBuilder mOut = new StringBuilder(64);
+    private long mMinute = Long.MIN_VALUE;
+
+    private ClockTextFormatter(Object calendar, CalendarHandles handles, String pattern) {
+        mCalendar = calendar;
+        mHandles = handles;
+
+        List<String> parts = new ArrayList<>();
+        List<Integer> widths = new ArrayList<>();
+        boolean hasSeconds = pattern.indexOf('s') >= 0;
+        mRenderEveryTime = hasSeconds && pattern.indexOf('\'') >= 0;
+        if (!hasSeconds || mRenderEveryTime) {
+            parts.add(pattern);
+            widths.add(0);
+        } else {
+            int start = 0;
+            int i = 0;
+            while (i < pattern.length()) {
+                if (pattern.charAt(i) != 's') {
+                    i++;
+                    continue;
+                }
+                int end = i;
+                while (end < pattern.length() && pattern.charAt(end) == 's') end++;
+                if (i > start) {
+                    parts.add(pattern.substring(start, i));
+                    widths.add(0);
+                }
+                parts.add(null);
+                widths.add(end - i >= 2 ? 2 : 1);
+                start = i = end;
+            }
+            if (start < pattern.length()) {
+                parts.add(pattern.substring(start));
+                widths.add(0);
+            }
+        }
+
+        mParts = parts.toArray(new String[0]);
+        mSecondsWidth = new int[widths.size()];
+        for (int j = 0; j < mSecondsWidth.length; j++) {
+            mSecondsWidth[j] = widths.get(j);
+        }
+        mRendered = new String[mParts.length];
+        mHasSeconds = hasSeconds && !mRenderEveryTime;
+    }
+
+    static ClockTextFormatter create(Object calendar, String pattern) throws ReflectiveOperationException {
+        return new ClockTextFormatter(calendar, handlesOf(calendar.getClass()), pattern);
+    }
+
+    /**
+     * 读取控制器当前持有的日历，字段句柄按控制器类缓存
+     */
+    static Object calendarOf(Object controller) throws Throwable {
+        Class<?> cls = controller.getClass();
+        MethodHandle getter = sCalendarGetters.get(cls);
+        if (getter == null) {
+            Field field = findField(cls, "mCalendar");
+            field.setAccessible(true);
+            getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+            sCalendarGetters.put(cls, getter);
+        }
+        return (Object) getter.invokeExact(controller);
+    }
+
+    boolean isFor(Object calendar) {
+        return mCalendar == calendar;
+    }
+
+    /**
+     * 渲染指定时刻的文本
+     *
+     * @param force 为 true 时重新渲染秒以外的部分，用于宿主触发的刷新（时区、语言等变化）
+     * @return 复用的缓冲区，调用方应在下一次调用前读取
+     */
+    CharSequence format(Context context, long now, boolean force) throws Throwable {
+        long minute = Math.floorDiv(now, MINUTE_MILLIS);
+        if (force || mRenderEveryTime || minute != mMinute) {
+            if (mHasSeconds && (force || mDigits[0] == null)) {
+                fillDigits(context, minute * MINUTE_MILLIS);
+            }
+            setTime(now);
+            for (int i = 0; i < mParts.length; i++) {
+                if (mParts[i] != null) mRendered[i] = render(context, mParts[i]);
+            }
+            mMinute = minute;
+        }
+
+        mOut.setLength(0);
+        int second = (int) (Math.floorMod(now, MINUTE_MILLIS) / 1000);
+        for (int i = 0; i < mParts.length; i++) {
+            int width = mSecondsWidth[i];
+            if (width == 0) {
+                mOut.append(mRendered[i]);
+            } else {
+                if (width == 2 || second >= 10) mOut.append(mDigits[second / 10]);
+                mOut.append(mDigits[second % 10]);
+            }
+        }
+        return mOut;
+    }
+
+    /**
+     * 由日历渲染 0-9 秒，保持与宿主一致的数字字形
+     */
+    private void fillDigits(Context context, long minuteStart) throws Throwable {
+        for (int d = 0; d < 10; d++) {
+            setTime(minuteStart + d * 1000L);
+            mDigits[d] = render(context, "s");
+        }
+    }
+
+    private void setTime(long millis) throws Throwable {
+        mHandles.setTime.invokeExact(mCalendar, millis);
+    }
+
+    private String render(Context context, String pattern) throws Throwable {
+        mPattern.setLength(0);
+        mPattern.append(pattern);
+        mFormatted.setLength(0);
+        mHandles.format.invokeExact(mCalendar, context, mFormatted, mPattern);
+        return mFormatted.toString();
+    }
+
+    private static CalendarHandles handlesOf(Class<?> cls) throws ReflectiveOperationException {
+        CalendarHandles handles = sCalendarHandles.get(cls);
+        if (handles == null) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Method setTime = findMethod(cls, "setTimeInMillis", long.class);
+            Method format = findMethod(cls, "format", Context.class, StringBuilder.class, StringBuilder.class);
+            setTime.setAccessible(true);
+            format.setAccessible(true);
+            handles = new CalendarHandles(
+                lookup.unreflect(setTime).asType(SET_TIME_TYPE),
+                lookup.unreflect(format).asType(FORMAT_TYPE)
+            );
+            sCalendarHandles.put(cls, handles);
+        }
+        return handles;
+    }
+
+    private static Method findMethod(Class<?> cls, String name, Class<?>... params) throws NoSuchMethodException {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredMethod(name, params);
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        // 参数类型可能声明为更宽的类型，例如 CharSequence
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(name) && isApplicable(method.getParameterTypes(), params)) {
+                    return method;
+                }
+            }
+        }
+        throw new NoSuchMethodException(cls.getName() + "#" + name);
+    }
+
+    private static boolean isApplicable(Class<?>[] declared, Class<?>[] actual) {
+        if (declared.length != actual.length) return false;
+        for (int i = 0; i < declared.length; i++) {
+            if (!declared[i].isAssignableFrom(actual[i])) return false;
+        }
+        return true;
+    }
+
+    private static Field findField(Class<?> cls, String name) throws NoSuchFieldException {
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        throw new NoSuchFieldException(cls.getName() + "#" + name);
+    }
+
+    private record CalendarHandles(MethodHandle setTime, MethodHandle format) {
+    }
+}
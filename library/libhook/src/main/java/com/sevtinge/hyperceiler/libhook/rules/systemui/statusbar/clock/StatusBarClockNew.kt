@@ -20,6 +20,7 @@ package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.clock
 
 import android.content.Context
 import android.graphics.Typeface
+import android.text.TextUtils
 import android.util.TypedValue
 import android.view.Choreographer
 import android.view.View
@@ -30,7 +31,6 @@ import com.sevtinge.hyperceiler.libhook.utils.api.DeviceHelper.System.isMoreAndr
 import com.sevtinge.hyperceiler.libhook.utils.api.DisplayUtils.dp2px
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.LazyClass.mNewClockClass
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.beforeHookMethod
-import io.github.lingqiqi5211.ezhooktool.core.callMethod
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectField
 import io.github.lingqiqi5211.ezhooktool.core.loadClass
 import io.github.lingqiqi5211.ezhooktool.core.java.Constructors
@@ -41,8 +41,6 @@ import java.lang.reflect.Method
 import java.util.Collections
 import java.util.WeakHashMap
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.ExecutorService
-import java.util.concurrent.Executors
 
 object StatusBarClockNew : BaseHook() {
     private const val STATE_CLOCK_VIEW = "StatusBarClockNew.clockView"
@@ -56,20 +54,15 @@ object StatusBarClockNew : BaseHook() {
 
     private val updateTimeMethodCache = ConcurrentHashMap<Class<*>, Method>()
 
-    private val formatExecutorHolder = lazy { Executors.newSingleThreadExecutor() }
-
-    private val formatExecutor: ExecutorService
-        get() = formatExecutorHolder.value
-
-    private data class CachedClockData(
-        val controllerRef: WeakReference<Any>,
-        val calendarRef: WeakReference<Any>,
-        val calendarClass: Class<*>?,
-        val setTimeMethod: Method?,
-        val formatMethod: Method?
-    )
+    /**
+     * 单个时钟视图的缓存：资源名、宿主控制器与格式化器
+     */
+    private class ClockState(val name: String) {
+        var controllerRef: WeakReference<Any>? = null
+        var formatter: ClockTextFormatter? = null
+    }
 
-    private val clockDataCache: MutableMap<TextView, CachedClockData> =
+    private val clockStates: MutableMap<TextView, ClockState> =
         Collections.synchronizedMap(WeakHashMap())
 
     private data class StyleSnapshot(
@@ -209,11 +202,6 @@ object StatusBarClockNew : BaseHook() {
 
     override fun init() {
         registerHotReloadCleanup { secondsFrameCallback.dispose() }
-        registerHotReloadCleanup {
-            if (formatExecutorHolder.isInitialized()) {
-                formatExecutorHolder.value.shutdownNow()
-            }
-        }
 
         BaseHook.getHotReloadRuntimeState(STATE_CLOCK_VIEW, TextView::class.java)
             ?.let { clock ->
@@ -293,41 +281,49 @@ object StatusBarClockNew : BaseHook() {
     }
 
     private fun applyMiuiClockStyleAndFormat(hook: HookParam) {
-        val textV = hook.thisObject as TextView
-        val context = textV.context
-        val miuiClockName = textV.resources.getResourceEntryName(textV.id) ?: return
+        // 宿主触发的刷新可能源于时区、语言等变化，需要完整重新渲染
+        if (applyMiuiClockStyleAndFormat(hook.thisObject as TextView, true)) {
+            hook.result = null
+        }
+    }
+
+    /**
+     * @return 是否接管了本次 updateTime
+     */
+    private fun applyMiuiClockStyleAndFormat(textV: TextView, force: Boolean): Boolean {
+        val state = clockStateOf(textV) ?: return false
+        val miuiClockName = state.name
         val isHide =
             (isHidePClock && miuiClockName == "pad_clock") || miuiClockName == "normal_control_center_date_view"
-        val isEmpty = setOf(
-            getFormatN.isEmpty() && miuiClockName == "date_time",
-            getFormatP.isEmpty() && miuiClockName == "pad_clock",
+        val isEmpty = (getFormatN.isEmpty() && miuiClockName == "date_time") ||
+            (getFormatP.isEmpty() && miuiClockName == "pad_clock") ||
             miuiClockName == "horizontal_time"
-        ).any { it }
 
-        if (isHide) return
+        if (isHide) return false
         setMiuiClockStyle(miuiClockName, textV)
 
-        if (isEmpty) return
-        setMiuiClockFormat(context, miuiClockName, textV)
-        hook.result = null
+        if (isEmpty) return false
+        setMiuiClockFormat(state, textV, force)
+        return true
+    }
+
+    private fun clockStateOf(textV: TextView): ClockState? {
+        clockStates[textV]?.let { return it }
+        val name = textV.resources.getResourceEntryName(textV.id) ?: return null
+        return ClockState(name).also { clockStates[textV] = it }
     }
 
     private fun setMiuiClockStyle(name: String, text: TextView) {
-        val shouldUseBold = setOf(
-            sBold && name == "clock",
-            bBold && name == "big_time",
-            nBold && name in setOf("date_time", "horizontal_time"),
-            pBold && name == "pad_clock"
-        ).any { it }
+        val shouldUseBold = (sBold && name == "clock") ||
+            (bBold && name == "big_time") ||
+            (nBold && (name == "date_time" || name == "horizontal_time")) ||
+            (pBold && name == "pad_clock")
 
         val expectedTextSize = when {
             clockSizeS != 12 && name == "clock" -> clockSizeS.toFloat()
             // TODO：通知中心大时钟无法调整字体大小，待排查
             clockSizeB != 50 && name == "big_time" -> clockSizeB.toFloat()
-            clockSizeN != 12 && name in setOf(
-                "date_time",
-                "horizontal_time"
-            ) -> clockSizeN.toFloat()
+            clockSizeN != 12 && (name == "date_time" || name == "horizontal_time") -> clockSizeN.toFloat()
             clockSizeP != 12 && name == "pad_clock" -> clockSizeP.toFloat()
             else -> -1f
         }
@@ -389,81 +385,37 @@ object StatusBarClockNew : BaseHook() {
         styleSnapshotMap[text] = newSnapshot
     }
 
-    private fun setMiuiClockFormat(context: Context?, name: String, textV: TextView?) {
-        if (context == null || textV == null) return
-
-        // 尝试从缓存获取 controller / calendar / method
-        val cached = clockDataCache[textV]
-        val cachedData = runCatching {
-            if (cached != null) return@runCatching cached
-            // 通过反射取 controller & calendar，仅在首次或缓存失效时执行
-            val controller =
-                textV.getObjectField("mMiuiStatusBarClockController") ?: return@runCatching null
-            val calendar = controller.getObjectField("mCalendar") ?: return@runCatching null
-            val calClass = calendar.javaClass
-            val setTime = findMethodInHierarchy(calClass, "setTimeInMillis", Long::class.java)
-            val format = findMethodInHierarchy(
-                calClass,
-                "format",
-                Context::class.java,
-                StringBuilder::class.java,
-                StringBuilder::class.java
-            )
-            val cd = CachedClockData(
-                WeakReference(controller),
-                WeakReference(calendar),
-                calClass,
-                setTime,
-                format
-            )
-            clockDataCache[textV] = cd
-            cd
-        }.getOrNull() ?: return
-
-        val localFormatSb = StringBuilder(64)
-        when (name) {
-            "clock" -> localFormatSb.append(sClockName)
-            "big_time" -> if (isSync) localFormatSb.append(safeFormatB) else localFormatSb.append(safeFormatS)
-            "pad_clock" -> localFormatSb.append(safeFormatP)
-            else -> localFormatSb.append(safeFormatN)
-        }
+    private fun formatPatternOf(name: String): String = when (name) {
+        "clock" -> sClockName
+        "big_time" -> if (isSync) safeFormatB else safeFormatS
+        "pad_clock" -> safeFormatP
+        else -> safeFormatN
+    }
 
-        val calendarObj = cachedData.calendarRef.get() ?: run {
-            clockDataCache.remove(textV)
-            return
-        }
-        val setTimeMethod = cachedData.setTimeMethod
-        val formatMethod = cachedData.formatMethod
+    private fun setMiuiClockFormat(state: ClockState, textV: TextView, force: Boolean) {
+        runCatching {
+            val controller = state.controllerRef?.get()
+                ?: textV.getObjectField("mMiuiStatusBarClockController")
+                    ?.also { state.controllerRef = WeakReference(it) }
+                ?: return
+            val calendar = ClockTextFormatter.calendarOf(controller) ?: return
 
-        formatExecutor.submit {
-            try {
-                if (setTimeMethod != null) {
-                    setTimeMethod.isAccessible = true
-                    setTimeMethod.invoke(calendarObj, System.currentTimeMillis())
-                } else {
-                    calendarObj.callMethod("setTimeInMillis", System.currentTimeMillis())
-                }
+            // 控制器可能在时区变化时替换日历
+            val formatter = state.formatter?.takeIf { it.isFor(calendar) }
+                ?: ClockTextFormatter.create(calendar, formatPatternOf(state.name))
+                    .also { state.formatter = it }
 
-                if (formatMethod != null) {
-                    val tb = StringBuilder(128)
-                    formatMethod.isAccessible = true
-                    formatMethod.invoke(calendarObj, context, tb, localFormatSb)
-                    val final = tb.toString()
-                    textV.post { textV.text = final }
-                } else {
-                    val tb = StringBuilder(128)
-                    calendarObj.callMethod("format", context, tb, localFormatSb)
-                    val final = tb.toString()
-                    textV.post { textV.text = final }
-                }
-            } catch (_: Throwable) {
-                // 若失败，移除缓存以后续重试
-                clockDataCache.remove(textV)
+            val text = formatter.format(textV.context, System.currentTimeMillis(), force)
+            if (!TextUtils.equals(textV.text, text)) {
+                textV.text = text.toString()
             }
+        }.onFailure {
+            // 若失败，移除缓存以后续重试
+            state.controllerRef = null
+            state.formatter = null
         }
     }
 
-
     private fun safeSplitFirst(str: String?): String {
         return str?.split("\n")?.firstOrNull() ?: ""
     }
@@ -511,12 +463,15 @@ object StatusBarClockNew : BaseHook() {
 
             for (entry in clockMap) {
                 val view = entry.key
-                val method = entry.value
                 if (!view.isAttachedToWindow)
                     continue
 
-                runCatching {
-                    method.invoke(view)
+                // 直接走格式化路径，只有未接管的时钟才回落到宿主的 updateTime
+                val handled = runCatching { applyMiuiClockStyleAndFormat(view, false) }.getOrDefault(false)
+                if (!handled) {
+                    runCatching {
+                        entry.value.invoke(view)
+                    }
                 }
             }
 
@@ -31,6 +31,12 @@ import io.github.lingqiqi5211.ezhooktool.core.loadClass
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.createHook
 
 object HideBatteryIcon : BaseHook() {
+    // 电池视图每次刷新都会读取，持有句柄
+    private val batteryIcon = PrefsBridge.key("system_ui_status_bar_battery_icon")
+    private val batteryPercent = PrefsBridge.key("system_ui_status_bar_battery_percent")
+    private val batteryPercentMark = PrefsBridge.key("system_ui_status_bar_battery_percent_mark")
+    private val batteryCharging = PrefsBridge.key("system_ui_status_bar_battery_charging")
+
     override fun init() {
         val mBatteryMeterViewClass by lazy {
             loadClass("com.android.systemui.statusbar.views.MiuiBatteryMeterView")
@@ -38,7 +44,7 @@ object HideBatteryIcon : BaseHook() {
 
         mBatteryMeterViewClass.findMethod { name("onBatteryStyleChanged") }.createHook {
                 after { param ->
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_icon")) {
+                    if (batteryIcon.getBoolean(false)) {
                         (param.thisObject.getObjectFieldAs<ImageView>("mBatteryIconView")).visibility =
                             View.GONE
 
@@ -53,7 +59,7 @@ object HideBatteryIcon : BaseHook() {
         mBatteryMeterViewClass.findMethod { name("updateAll$1") }.createHook {
                 after { param ->
                     // 隐藏电池图标
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_icon")) {
+                    if (batteryIcon.getBoolean(false)) {
                         (param.thisObject.getObjectFieldAs<ImageView>("mBatteryIconView")).visibility =
                             View.GONE
 
@@ -63,13 +69,13 @@ object HideBatteryIcon : BaseHook() {
                         }
                     }
                     // 隐藏电池百分号
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent") ||
-                        PrefsBridge.getBoolean("system_ui_status_bar_battery_percent_mark")
+                    if (batteryPercent.getBoolean(false) ||
+                        batteryPercentMark.getBoolean(false)
                     ) {
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentMarkView"))?.textSize = 0F
                     }
                     // 隐藏电池内的百分比
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent")) {
+                    if (batteryPercent.getBoolean(false)) {
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentView"))?.textSize = 0F
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryTextDigitView"))?.textSize = 0F
                     }
@@ -79,19 +85,19 @@ object HideBatteryIcon : BaseHook() {
         mBatteryMeterViewClass.findMethod { name("updateChargeAndText") }.createHook {
                 after { param ->
                     // 隐藏电池百分号
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent") ||
-                        PrefsBridge.getBoolean("system_ui_status_bar_battery_percent_mark")
+                    if (batteryPercent.getBoolean(false) ||
+                        batteryPercentMark.getBoolean(false)
                     ) {
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentMarkView"))?.textSize = 0F
                     }
                     // 隐藏电池内的百分比
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent")) {
+                    if (batteryPercent.getBoolean(false)) {
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentView"))?.textSize = 0F
                         (param.thisObject.getObjectFieldAs<TextView>("mBatteryTextDigitView"))?.textSize = 0F
                     }
 
                     // 隐藏电池充电图标
-                    if (PrefsBridge.getBoolean("system_ui_status_bar_battery_charging")) {
+                    if (batteryCharging.getBoolean(false)) {
                         (param.thisObject.getObjectFieldAs<ImageView>("mBatteryChargingInView")).visibility =
                             View.GONE
                         (param.thisObject.getObjectFieldAs<ImageView>("mBatteryChargingView")).visibility =
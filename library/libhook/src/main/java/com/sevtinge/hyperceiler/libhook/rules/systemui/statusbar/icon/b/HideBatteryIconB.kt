@@ -31,6 +31,11 @@ import io.github.lingqiqi5211.ezhooktool.core.loadClass
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.createHook
 
 object HideBatteryIconB : BaseHook() {
+    private val batteryIcon = PrefsBridge.key("system_ui_status_bar_battery_icon")
+    private val batteryPercent = PrefsBridge.key("system_ui_status_bar_battery_percent")
+    private val batteryPercentMark = PrefsBridge.key("system_ui_status_bar_battery_percent_mark")
+    private val batteryCharging = PrefsBridge.key("system_ui_status_bar_battery_charging")
+
     override fun init() {
         val mBatteryMeterViewClass by lazy {
             loadClass("com.android.systemui.statusbar.views.MiuiBatteryMeterView")
@@ -40,7 +45,7 @@ object HideBatteryIconB : BaseHook() {
                 after { param ->
                     if (param.thisObject != null) {
                         // 隐藏电池图标
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_icon")) {
+                        if (batteryIcon.getBoolean(false)) {
                             (param.thisObject.getObjectFieldAs<ImageView>("mBatteryIconView")).visibility =
                                 View.GONE
 
@@ -57,7 +62,7 @@ object HideBatteryIconB : BaseHook() {
                 after { param ->
                     if (param.thisObject != null) {
                         // 隐藏电池图标
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_icon")) {
+                        if (batteryIcon.getBoolean(false)) {
                             (param.thisObject.getObjectFieldAs<ImageView>("mBatteryIconView")).visibility =
                                 View.GONE
 
@@ -67,14 +72,14 @@ object HideBatteryIconB : BaseHook() {
                             }
                         }
                         // 隐藏电池百分号
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent") ||
-                            PrefsBridge.getBoolean("system_ui_status_bar_battery_percent_mark")
+                        if (batteryPercent.getBoolean(false) ||
+                            batteryPercentMark.getBoolean(false)
                         ) {
                             (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentMarkView"))?.textSize = 0F
                         }
                         // 隐藏电池的百分比
                         // Todo：内显百分比暂无法隐藏，因为布局已修改
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent")) {
+                        if (batteryPercent.getBoolean(false)) {
                             (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentView"))?.textSize = 0F
                         }
                     }
@@ -85,20 +90,20 @@ object HideBatteryIconB : BaseHook() {
                 after { param ->
                     if (param.thisObject != null) {
                         // 隐藏电池百分号
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent") ||
-                            PrefsBridge.getBoolean("system_ui_status_bar_battery_percent_mark")
+                        if (batteryPercent.getBoolean(false) ||
+                            batteryPercentMark.getBoolean(false)
                         ) {
                             (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentMarkView"))?.textSize = 0F
                         }
                         // 隐藏电池的百分比
                         // Todo：内显百分比暂无法隐藏，因为布局已修改
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_percent")) {
+                        if (batteryPercent.getBoolean(false)) {
                             (param.thisObject.getObjectFieldAs<TextView>("mBatteryPercentView"))?.textSize = 0F
                         }
 
                         // 隐藏电池充电图标
                         // Todo：内显闪电图标暂无法隐藏，因为布局已修改
-                        if (PrefsBridge.getBoolean("system_ui_status_bar_battery_charging")) {
+                        if (batteryCharging.getBoolean(false)) {
                             (param.thisObject.getObjectFieldAs<ImageView>("mBatteryChargingView")).visibility =
                                 View.GONE
                         }
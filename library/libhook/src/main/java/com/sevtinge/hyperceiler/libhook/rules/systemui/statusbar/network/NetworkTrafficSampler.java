@@ -0,0 +1,226 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.network;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.NetworkInterface;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 从 /proc/net/dev 读取各网卡的累计收发字节数。
+ * <p>
+ * 文件保持打开，每次采样回到开头重新读取到复用的缓冲区中，逐字节解析，
+ * 网卡名与已知网卡逐字节比对。回环、点对点等结构性排除只判断一次并长期缓存；
+ * 启用与地址状态会随网络变化，缓存在 {@link #invalidateLinkState()} 或超过 {@link #LINK_STATE_TTL_NANOS} 后重新判断。
+ * 稳定状态下每次采样不产生任何对象分配。除 {@link #invalidateLinkState()} 外非线程安全。
+ */
+final class NetworkTrafficSampler {
+    static final String PROC_NET_DEV = "/proc/net/dev";
+
+    private static final int MAX_INTERFACES = 64;
+    // /proc/net/dev 中接收字节数位于第 1 列，发送字节数位于第 9 列
+    private static final int RX_BYTES_FIELD = 0;
+    private static final int TX_BYTES_FIELD = 8;
+
+    // 链路状态兜底的有效期，覆盖默认网络回调感知不到的非默认网卡（如热点）启停
+    static final long LINK_STATE_TTL_NANOS = 5_000_000_000L;
+
+    // 网卡分类结果
+    static final byte UNKNOWN = 0;
+    static final byte EXCLUDED = 1;
+    static final byte INACTIVE = 2;
+    static final byte ACTIVE = 3;
+
+    interface InterfaceFilter {
+        /**
+         * @return {@link #EXCLUDED} 表示结构上永不计入；{@link #INACTIVE} / {@link #ACTIVE} 表示当前的链路状态
+         */
+        byte classify(String name);
+    }
+
+    /**
+     * 与原先枚举 NetworkInterface 时一致：只计入已启用且已分配地址的网卡，排除回环、点对点（VPN 等隧道）与虚拟子接口。
+     * 未分配地址的网卡无法解析出 NetworkInterface，也就无法判断其结构，视为暂不计入
+     */
+    static final InterfaceFilter DEFAULT_FILTER = name -> {
+        try {
+            NetworkInterface iFace = NetworkInterface.getByName(name);
+            if (iFace == null) return INACTIVE;
+            if (iFace.isVirtual() || iFace.isLoopback() || iFace.isPointToPoint()) return EXCLUDED;
+            return iFace.isUp() ? ACTIVE : INACTIVE;
+        } catch (Throwable t) {
+            return INACTIVE;
+        }
+    };
+
+    private final String mPath;
+    private final InterfaceFilter mFilter;
+
+    private RandomAccessFile mFile;
+    private byte[] mBuffer = new byte[4096];
+
+    private final byte[][] mNames = new byte[MAX_INTERFACES][];
+    private final String[] mNameStrings = new String[MAX_INTERFACES];
+    private final byte[] mStates = new byte[MAX_INTERFACES];
+    private int mNameCount = 0;
+
+    private volatile boolean mLinkStateStale = false;
+    private long mLinkStateTimeNanos;
+
+    private long mTxBytes;
+    private long mRxBytes;
+
+    NetworkTrafficSampler(String path, InterfaceFilter filter) {
+        mPath = path;
+        mFilter = filter;
+        mLinkStateTimeNanos = System.nanoTime();
+    }
+
+    long getTxBytes() {
+        return mTxBytes;
+    }
+
+    long getRxBytes() {
+        return mRxBytes;
+    }
+
+    /**
+     * 读取一次计入网卡的收发字节总和
+     *
+     * @return 读取失败时返回 false，此时 {@link #getTxBytes()} 等保持上一次的值
+     */
+    boolean sample() {
+        long nowNanos = System.nanoTime();
+        if (mLinkStateStale || nowNanos - mLinkStateTimeNanos > LINK_STATE_TTL_NANOS) {
+            mLinkStateStale = false;
+            mLinkStateTimeNanos = nowNanos;
+            for (int i = 0; i < mNameCount; i++) {
+                if (mStates[i] != EXCLUDED) mStates[i] = UNKNOWN;
+            }
+        }
+        int length;
+        try {
+            length = read();
+        } catch (IOException e) {
+            close();
+            return false;
+        }
+        parse(length);
+        return true;
+    }
+
+    /**
+     * 标记链路状态过期，下一次采样时重新判断各网卡的启用与地址状态。可在任意线程调用
+     */
+    void invalidateLinkState() {
+        mLinkStateStale = true;
+    }
+
+    void close() {
+        if (mFile != null) {
+            try {
+                mFile.close();
+            } catch (IOException ignored) {
+            }
+            mFile = null;
+        }
+    }
+
+    private int read() throws IOException {
+        if (mFile == null) {
+            mFile = new RandomAccessFile(mPath, "r");
+        } else {
+            mFile.seek(0);
+        }
+        int length = 0;
+        while (true) {
+            if (length == mBuffer.length) {
+                byte[] buffer = new byte[mBuffer.length * 2];
+                System.arraycopy(mBuffer, 0, buffer, 0, length);
+                mBuffer = buffer;
+            }
+            int n = mFile.read(mBuffer, length, mBuffer.length - length);
+            if (n < 0) return length;
+            length += n;
+        }
+    }
+
+    private void parse(int length) {
+        byte[] buf = mBuffer;
+        long tx = 0;
+        long rx = 0;
+        int pos = 0;
+        int line = 0;
+        while (pos < length) {
+            int end = pos;
+            while (end < length && buf[end] != '\n') end++;
+            // 前两行是表头
+            if (line++ >= 2) {
+                int colon = pos;
+                while (colon < end && buf[colon] != ':') colon++;
+                if (colon < end) {
+                    int nameStart = pos;
+                    while (nameStart < colon && buf[nameStart] == ' ') nameStart++;
+                    if (isIncluded(buf, nameStart, colon)) {
+                        int p = colon + 1;
+                        for (int field = 0; field <= TX_BYTES_FIELD && p < end; field++) {
+                            while (p < end && buf[p] == ' ') p++;
+                            long value = 0;
+                            while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+                                value = value * 10 + (buf[p++] - '0');
+                            }
+                            if (field == RX_BYTES_FIELD) rx += value;
+                            else if (field == TX_BYTES_FIELD) tx += value;
+                        }
+                    }
+                }
+            }
+            pos = end + 1;
+        }
+        mTxBytes = tx;
+        mRxBytes = rx;
+    }
+
+    private boolean isIncluded(byte[] buf, int start, int end) {
+        int len = end - start;
+        if (len == 0) return false;
+        for (int i = 0; i < mNameCount; i++) {
+            byte[] name = mNames[i];
+            if (name.length != len) continue;
+            int j = 0;
+            while (j < len && name[j] == buf[start + j]) j++;
+            if (j == len) {
+                if (mStates[i] == UNKNOWN) mStates[i] = mFilter.classify(mNameStrings[i]);
+                return mStates[i] == ACTIVE;
+            }
+        }
+
+        // 首次见到的网卡
+        String name = new String(buf, start, len, StandardCharsets.US_ASCII);
+        byte state = mFilter.classify(name);
+        if (mNameCount < MAX_INTERFACES) {
+            mNames[mNameCount] = name.getBytes(StandardCharsets.US_ASCII);
+            mNameStrings[mNameCount] = name;
+            mStates[mNameCount] = state;
+            mNameCount++;
+        }
+        return state == ACTIVE;
+    }
+}
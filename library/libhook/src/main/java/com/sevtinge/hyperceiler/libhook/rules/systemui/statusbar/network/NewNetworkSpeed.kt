@@ -19,11 +19,16 @@
 package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.network
 
 import android.Manifest
-import android.annotation.SuppressLint
+import android.content.BroadcastReceiver
 import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
 import android.net.ConnectivityManager
+import android.net.LinkProperties
+import android.net.Network
 import android.net.NetworkCapabilities
 import android.net.TrafficStats
+import android.os.PowerManager
 import android.text.TextUtils
 import android.widget.TextView
 import androidx.annotation.RequiresPermission
@@ -33,30 +38,39 @@ import com.sevtinge.hyperceiler.libhook.R
 import com.sevtinge.hyperceiler.libhook.base.BaseHook
 import com.sevtinge.hyperceiler.libhook.utils.api.DeviceHelper.System.isMoreHyperOSVersion
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.AppsTool.getModuleRes
-import io.github.lingqiqi5211.ezhooktool.core.callStaticMethod
 import io.github.lingqiqi5211.ezhooktool.core.findMethod
-import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectField
-import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectFieldAs
 import io.github.lingqiqi5211.ezhooktool.core.loadClassOrNull
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.createAfterHook
 import io.github.lingqiqi5211.ezhooktool.xposed.dsl.createBeforeHook
-import java.net.NetworkInterface
+import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectField
+import io.github.lingqiqi5211.ezhooktool.xposed.dsl.getObjectFieldAs
+import java.text.DecimalFormatSymbols
+import java.util.Locale
 import kotlin.math.roundToLong
 
 object NewNetworkSpeed : BaseHook() {
     private var measureTimeNanos: Long = 0L
 
-    private var newTxBytesFixed: Long = 0
-    private var newRxBytesFixed: Long = 0
-
     private var txBytesTotal: Long = 0
     private var rxBytesTotal: Long = 0
 
     private var txSpeed: Long = 0
     private var rxSpeed: Long = 0
 
-    private var txArrow = ""
-    private var rxArrow = ""
+    // 屏幕与网络状态由回调维护，避免每次刷新都跨进程查询
+    @Volatile
+    private var isScreenOn = true
+    @Volatile
+    private var isConnected = false
+    private var listenersRegistered = false
+
+    private val sampler = NetworkTrafficSampler(NetworkTrafficSampler.PROC_NET_DEV, NetworkTrafficSampler.DEFAULT_FILTER)
+    private var samplerFailed = false
+
+    // 每次刷新复用同一个缓冲区拼接文本，内容未变化时复用上一次的字符串
+    private val textBuilder = StringBuilder(32)
+    private val digits = CharArray(20)
+    private var lastText = ""
 
     //  隐藏慢速
     private val hideLow by lazy {
@@ -83,14 +97,13 @@ object NewNetworkSpeed : BaseHook() {
         PrefsBridge.getStringAsInt("system_ui_statusbar_network_speed_style", 0)
     }
 
-    private val needTotal by lazy {
-        (networkStyle == 1 || networkStyle == 2)
-    }
     private val sharedStrArr = arrayOf("", "")
     @Volatile
     private var cachedUnits: CharArray? = null
     @Volatile
     private var cachedUnitSuffix: String? = null
+    private var zeroDigit = '0'
+    private var decimalSeparator = '.'
     private const val KB = 1024.0
     private const val MB = KB * KB
 
@@ -119,159 +132,237 @@ object NewNetworkSpeed : BaseHook() {
             nscCls!!.findMethod { name("updateText"); paramCount(1) }.createBeforeHook {
                 // 获取该方法中的 Context
                 val mContext = it.thisObject.getObjectField("mContext") as Context
+                registerListeners(mContext)
+
+                // 熄屏时不采样也不刷新界面，亮屏后的第一帧重新记录基准
+                if (!isScreenOn) {
+                    measureTimeNanos = 0L
+                    it.result = null
+                    return@createBeforeHook
+                }
 
                 // 更新网速
-                updateNetworkSpeed(mContext)
+                updateNetworkSpeed()
+                loadUnits(mContext)
 
-                // 设置上下行网速图标
                 val txLow = txSpeed < lowLevel
                 val rxLow = rxSpeed < lowLevel
-                txArrow = when (icons) {
-                    2 -> if (txLow) "△" else "▲"
-                    3 -> if (txLow) " ▵" else " ▴"
-                    4 -> if (txLow) " ☖" else " ☗"
-                    5 -> "↑"
-                    6 -> "⇧"
-                    else -> ""
-                }
-                rxArrow = when (icons) {
-                    2 -> if (rxLow) "▽" else "▼"
-                    3 -> if (rxLow) " ▿" else " ▾"
-                    4 -> if (rxLow) " ⛉" else " ⛊"
-                    5 -> "↓"
-                    6 -> "⇩"
-                    else -> ""
-                }
-
-                val strArr = sharedStrArr
-                // 设置 tx/rx 字符串
-                val txStr = if (hideLow && !allHideLow && txLow) "" else {
-                    if (swapPlaces) "$txArrow${humanReadableByteCount(mContext, txSpeed)}"
-                    else "${humanReadableByteCount(mContext, txSpeed)}$txArrow"
-                }
-                val rxStr = if (hideLow && !allHideLow && rxLow) "" else {
-                    if (swapPlaces) "$rxArrow${humanReadableByteCount(mContext, rxSpeed)}"
-                    else "${humanReadableByteCount(mContext, rxSpeed)}$rxArrow"
-                }
-                val totalStr = if (needTotal) humanReadableByteCount(mContext, txSpeed + rxSpeed) else ""
+                val txHidden = hideLow && !allHideLow && txLow
+                val rxHidden = hideLow && !allHideLow && rxLow
 
                 // 存储隐藏慢速判断结果
                 val isLowSpeed = hideLow && (txSpeed + rxSpeed) < lowLevel
                 val isAllLowSpeed = hideLow && allHideLow && txLow && rxLow
 
+                val sb = textBuilder
+                sb.setLength(0)
                 when (networkStyle) {
                     1, 2 -> {
                         // 单/双排显示总速率
-                        if (isLowSpeed) {
-                            strArr[0] = ""
-                        } else {
-                            strArr[0] = totalStr
-                        }
-                        it.args[0] = strArr
+                        if (!isLowSpeed) appendSpeed(sb, txSpeed + rxSpeed)
                     }
                     3 -> {
                         // 同一行显示上/下行
-                        if (isAllLowSpeed) {
-                            strArr[0] = ""
-                        } else {
-                            strArr[0] = if (rxStr.isNotEmpty()) "$txStr $rxStr" else txStr
+                        if (!isAllLowSpeed) {
+                            if (!txHidden) appendDirection(sb, txSpeed, txArrow(txLow))
+                            if (!rxHidden) {
+                                sb.append(' ')
+                                appendDirection(sb, rxSpeed, rxArrow(rxLow))
+                            }
                         }
-                        it.args[0] = strArr
                     }
                     4 -> {
                         // 上下两行显示
-                        if (isAllLowSpeed) {
-                            strArr[0] = ""
-                        } else {
-                            strArr[0] = "$txStr\n$rxStr"
+                        if (!isAllLowSpeed) {
+                            if (!txHidden) appendDirection(sb, txSpeed, txArrow(txLow))
+                            sb.append('\n')
+                            if (!rxHidden) appendDirection(sb, rxSpeed, rxArrow(rxLow))
                         }
-                        it.args[0] = strArr
                     }
                     else -> {
                         if (isLowSpeed) {
-                            strArr[0] = ""
-                            it.args[0] = strArr
+                            sharedStrArr[0] = ""
+                            it.args[0] = sharedStrArr
                         }
+                        return@createBeforeHook
                     }
                 }
+                if (!lastText.contentEquals(sb)) {
+                    lastText = sb.toString()
+                }
+                sharedStrArr[0] = lastText
+                it.args[0] = sharedStrArr
             }
         }.onFailure { e ->
             XposedLog.e(TAG, lpparam.packageName, "hook failed by network speed: ${e.message}", e)
         }
     }
 
-    private fun getTrafficBytes(out: LongArray) {
-        out[0] = 0L // tx
-        out[1] = 0L // rx
+    @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
+    private fun registerListeners(context: Context) {
+        if (listenersRegistered) return
+        listenersRegistered = true
 
         runCatching {
-            val list = NetworkInterface.getNetworkInterfaces()
-            list?.asSequence()
-                ?.filter { it.isUp && !it.isVirtual && !it.isLoopback && !it.isPointToPoint && it.name.isNotEmpty() }
-                ?.forEach { iFace ->
-                    TrafficStats::class.java.apply {
-                        out[0] += callStaticMethod("getTxBytes", iFace.name) as Long
-                        out[1] += callStaticMethod("getRxBytes", iFace.name) as Long
+            isScreenOn = (context.getSystemService(Context.POWER_SERVICE) as PowerManager).isInteractive
+            val receiver = object : BroadcastReceiver() {
+                override fun onReceive(context: Context, intent: Intent) {
+                    when (intent.action) {
+                        Intent.ACTION_SCREEN_ON -> isScreenOn = true
+                        Intent.ACTION_SCREEN_OFF -> isScreenOn = false
                     }
                 }
-        }.onFailure { t ->
-            XposedLog.e(TAG, this.lpparam.packageName, t)
-            out[0] = TrafficStats.getTotalTxBytes()
-            out[1] = TrafficStats.getTotalRxBytes()
+            }
+            val filter = IntentFilter().apply {
+                addAction(Intent.ACTION_SCREEN_ON)
+                addAction(Intent.ACTION_SCREEN_OFF)
+            }
+            context.registerReceiver(receiver, filter, Context.RECEIVER_EXPORTED)
+            BaseHook.registerReceiverHotReloadCleanup(context, receiver)
+        }.onFailure { e ->
+            isScreenOn = true
+            XposedLog.e(TAG, lpparam.packageName, "register screen receiver failed: ${e.message}", e)
         }
-    }
 
-    //  网速计算与隐藏相关
-    @SuppressLint("DefaultLocale")
-    private fun humanReadableByteCount(ctx: Context, bytes: Long): String {
-        try {
-            // 缓存模块 resources/units/suffix 以提高性能
-            if (cachedUnits == null) {
-                val modRes = getModuleRes(ctx)
-                cachedUnitSuffix = if (PrefsBridge.getBoolean("system_ui_statusbar_network_speed_sec_unit")) "" else modRes.getString(R.string.system_ui_statusbar_network_speed_Bs)
-                val unitsStr = modRes.getString(R.string.system_ui_statusbar_network_speed_speedunits)
-                cachedUnits = when {
-                    unitsStr.isNotEmpty() -> unitsStr.toCharArray()
-                    else -> charArrayOf('K', 'M')
+        runCatching {
+            val cm = context.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
+            isConnected = isWifiOrCellular(cm.activeNetwork?.let { cm.getNetworkCapabilities(it) })
+            // 网络变化时网卡可能启停或更换地址，让采样器重新判断各网卡的链路状态
+            val callback = object : ConnectivityManager.NetworkCallback() {
+                override fun onCapabilitiesChanged(network: Network, networkCapabilities: NetworkCapabilities) {
+                    isConnected = isWifiOrCellular(networkCapabilities)
+                    sampler.invalidateLinkState()
+                }
+
+                override fun onLinkPropertiesChanged(network: Network, linkProperties: LinkProperties) {
+                    sampler.invalidateLinkState()
+                }
+
+                override fun onLost(network: Network) {
+                    isConnected = false
+                    sampler.invalidateLinkState()
                 }
             }
+            cm.registerDefaultNetworkCallback(callback)
+            BaseHook.registerNetworkCallbackHotReloadCleanup(cm, callback)
+        }.onFailure { e ->
+            isConnected = true
+            XposedLog.e(TAG, lpparam.packageName, "register network callback failed: ${e.message}", e)
+        }
+    }
 
-            val units = cachedUnits!!
-            val unitSuffix = cachedUnitSuffix ?: ""
+    private fun isWifiOrCellular(capabilities: NetworkCapabilities?): Boolean {
+        return capabilities?.run {
+            hasTransport(NetworkCapabilities.TRANSPORT_WIFI) || hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)
+        } ?: false
+    }
 
-            val value: Double
-            val expIndex: Int
+    // 设置上下行网速图标
+    private fun txArrow(low: Boolean): String = when (icons) {
+        2 -> if (low) "△" else "▲"
+        3 -> if (low) " ▵" else " ▴"
+        4 -> if (low) " ☖" else " ☗"
+        5 -> "↑"
+        6 -> "⇧"
+        else -> ""
+    }
 
-            if (bytes >= MB) {
-                value = bytes / MB
-                expIndex = 1
-            } else {
-                value = bytes / KB
-                expIndex = 0
-            }
+    private fun rxArrow(low: Boolean): String = when (icons) {
+        2 -> if (low) "▽" else "▼"
+        3 -> if (low) " ▿" else " ▾"
+        4 -> if (low) " ⛉" else " ⛊"
+        5 -> "↓"
+        6 -> "⇩"
+        else -> ""
+    }
+
+    private fun appendDirection(sb: StringBuilder, bytes: Long, arrow: String) {
+        if (swapPlaces) {
+            sb.append(arrow)
+            appendSpeed(sb, bytes)
+        } else {
+            appendSpeed(sb, bytes)
+            sb.append(arrow)
+        }
+    }
+
+    private fun getTrafficBytes() {
+        if (!samplerFailed && sampler.sample()) {
+            return
+        }
+        if (!samplerFailed) {
+            samplerFailed = true
+            XposedLog.w(TAG, lpparam.packageName, "read ${NetworkTrafficSampler.PROC_NET_DEV} failed, fall back to TrafficStats")
+        }
+    }
 
-            val valueStr = if (value < 100.0f) String.format("%.1f", value) else String.format("%.0f", value)
-            val pre = units.getOrElse(expIndex) { if (expIndex == 1) 'M' else 'K' }
-            return if (networkStyle == 2) {
-                "$valueStr\n${pre}$unitSuffix"
-            } else {
-                "$valueStr${pre}$unitSuffix"
+    private fun currentTxBytes(): Long = if (samplerFailed) TrafficStats.getTotalTxBytes() else sampler.txBytes
+
+    private fun currentRxBytes(): Long = if (samplerFailed) TrafficStats.getTotalRxBytes() else sampler.rxBytes
+
+    // 缓存模块 resources/units/suffix 以提高性能
+    private fun loadUnits(ctx: Context) {
+        if (cachedUnits != null) return
+        try {
+            val modRes = getModuleRes(ctx)
+            cachedUnitSuffix = if (PrefsBridge.getBoolean("system_ui_statusbar_network_speed_sec_unit")) "" else modRes.getString(R.string.system_ui_statusbar_network_speed_Bs)
+            val unitsStr = modRes.getString(R.string.system_ui_statusbar_network_speed_speedunits)
+            // 与 String.format 一致，按系统区域设置输出数字与小数点
+            val symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT))
+            zeroDigit = symbols.zeroDigit
+            decimalSeparator = symbols.decimalSeparator
+            cachedUnits = when {
+                unitsStr.isNotEmpty() -> unitsStr.toCharArray()
+                else -> charArrayOf('K', 'M')
             }
         } catch (t: Throwable) {
             XposedLog.e(TAG, this.lpparam.packageName, t)
-            return ""
+            cachedUnitSuffix = ""
+            cachedUnits = charArrayOf('K', 'M')
         }
     }
 
-    @RequiresPermission(Manifest.permission.ACCESS_NETWORK_STATE)
-    private fun updateNetworkSpeed(mContext: Context) {
-        val connectivityManager = mContext.getSystemService(Context.CONNECTIVITY_SERVICE) as ConnectivityManager
-        val network = connectivityManager.activeNetwork
-        val capabilities = network?.let { connectivityManager.getNetworkCapabilities(it) }
-        val isConnected = capabilities?.run {
-            hasTransport(NetworkCapabilities.TRANSPORT_WIFI) || hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)
-        } ?: false
+    //  网速计算与隐藏相关
+    private fun appendSpeed(sb: StringBuilder, bytes: Long) {
+        val units = cachedUnits ?: charArrayOf('K', 'M')
+        val unitSuffix = cachedUnitSuffix ?: ""
+
+        val value: Double
+        val expIndex: Int
+
+        if (bytes >= MB) {
+            value = bytes / MB
+            expIndex = 1
+        } else {
+            value = bytes / KB
+            expIndex = 0
+        }
+
+        // 等价于 "%.1f" / "%.0f"
+        if (value < 100.0) {
+            val tenths = (value * 10).roundToLong()
+            appendDigits(sb, tenths / 10)
+            sb.append(decimalSeparator)
+            appendDigits(sb, tenths % 10)
+        } else {
+            appendDigits(sb, value.roundToLong())
+        }
+        if (networkStyle == 2) sb.append('\n')
+        sb.append(units.getOrElse(expIndex) { if (expIndex == 1) 'M' else 'K' })
+        sb.append(unitSuffix)
+    }
+
+    private fun appendDigits(sb: StringBuilder, number: Long) {
+        var n = number
+        var i = digits.size
+        do {
+            digits[--i] = zeroDigit + (n % 10).toInt()
+            n /= 10
+        } while (n > 0)
+        sb.append(digits, i, digits.size - i)
+    }
 
+    private fun updateNetworkSpeed() {
         if (!isConnected) {
             // 如果已为 0，就不用做任何事情，避免不必要的计算
             if (txSpeed != 0L || rxSpeed != 0L) {
@@ -289,10 +380,9 @@ object NewNetworkSpeed : BaseHook() {
         if (measureTimeNanos == 0L || interval <= 0L) {
             measureTimeNanos = nowNanos
             // initialize totals but do not compute speeds this tick
-            val out = LongArray(2)
-            getTrafficBytes(out)
-            txBytesTotal = out[0]
-            rxBytesTotal = out[1]
+            getTrafficBytes()
+            txBytesTotal = currentTxBytes()
+            rxBytesTotal = currentRxBytes()
             txSpeed = 0L
             rxSpeed = 0L
             return
@@ -310,14 +400,13 @@ object NewNetworkSpeed : BaseHook() {
         }
         measureTimeNanos = nowNanos
 
-        val out = LongArray(2)
-        getTrafficBytes(out)
-        val newTxBytes = out[0]
-        val newRxBytes = out[1]
+        getTrafficBytes()
+        val newTxBytes = currentTxBytes()
+        val newRxBytes = currentRxBytes()
 
         if (txBytesTotal != 0L || rxBytesTotal != 0L) {
-            newTxBytesFixed = (newTxBytes - txBytesTotal).takeIf { it >= 0 } ?: 0
-            newRxBytesFixed = (newRxBytes - rxBytesTotal).takeIf { it >= 0 } ?: 0
+            val newTxBytesFixed = (newTxBytes - txBytesTotal).coerceAtLeast(0)
+            val newRxBytesFixed = (newRxBytes - rxBytesTotal).coerceAtLeast(0)
 
             val seconds = interval / 1_000_000_000.0
             txSpeed = (newTxBytesFixed / seconds).roundToLong()
@@ -45,12 +45,11 @@ import java.lang.reflect.Constructor
 class CrashMonitor(lpparam: XposedModuleInterface.SystemServerStartingParam) {
     private val crashHandler: ICrashHandler = SafeModeHandler
 
+    @Volatile
+    private var crashWindow: CrashWindow? = null
+
     companion object {
         private const val TAG = "CrashMonitor"
-        private const val RECORD_KEY = "hyperceiler_crash_record_data"
-        private const val CRASH_TIME_WINDOW = 60000L
-        private const val TRIGGER_INTERVAL = 10240L
-        private const val TRIGGER_COUNT = 2
     }
 
     init {
@@ -350,72 +349,18 @@ class CrashMonitor(lpparam: XposedModuleInterface.SystemServerStartingParam) {
         longMsg: String?,
         stackTrace: String?
     ) {
-        // 读取历史记录
-        val records = getCrashRecords(context)
-        val iterator = records.iterator()
-
-        var shouldReport = false
-        var updated = false
-
-        // 清理超时记录
-        while (iterator.hasNext()) {
-            val record = iterator.next()
-            if (timeMillis - record.time > CRASH_TIME_WINDOW) {
-                iterator.remove()
-                updated = true
-                continue
-            }
-
-            if (record.pkg == pkgName) {
-                if (timeMillis - record.time < TRIGGER_INTERVAL) {
-                    if (record.count >= TRIGGER_COUNT) {
-                        shouldReport = true
-                    } else {
-                        val newRecord = record.copy(time = timeMillis, count = record.count + 1)
-                        iterator.remove()
-                        records.add(newRecord)
-                        updated = true
-                    }
-                } else {
-                    iterator.remove()
-                    updated = true
-                }
-                break
-            }
-        }
-
-        // 如果没有找到记录，且没触发报告，则添加新记录
-        if (!shouldReport && !records.any { it.pkg == pkgName }) {
-            records.add(DataCrashRecord(pkgName, timeMillis, 1))
-            updated = true
-        }
-
-        // 保存记录
-        if (updated) {
-            setCrashRecords(context, records)
+        val window = crashWindow ?: synchronized(this) {
+            crashWindow ?: CrashWindow.forSettings(context.contentResolver).also { crashWindow = it }
         }
 
         // 触发扩展处理
-        if (shouldReport) {
-            records.removeIf { it.pkg == pkgName }
-            setCrashRecords(context, records)
-
+        if (window.onCrash(pkgName, timeMillis)) {
             crashHandler.onCrashDetected(context, pkgName, crashInfo, longMsg, stackTrace)
         }
     }
 
     // --- 辅助方法 ---
 
-    private fun getCrashRecords(context: Context): MutableList<DataCrashRecord> {
-        val json = Settings.System.getString(context.contentResolver, RECORD_KEY)
-        return DataCrashRecord.parseList(json)
-    }
-
-    private fun setCrashRecords(context: Context, list: List<DataCrashRecord>) {
-        val json = DataCrashRecord.listToJsonString(list)
-        Settings.System.putString(context.contentResolver, RECORD_KEY, json)
-    }
-
     private fun shouldDisableRescuePartyPlus(): Boolean {
         return SystemProperties.getBoolean("persist.sys.rescuepartyplus.disable", false) ||
             !SystemProperties.getBoolean("persist.sys.rescuepartyplus.enable", false)
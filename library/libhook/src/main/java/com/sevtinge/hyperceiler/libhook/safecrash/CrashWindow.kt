@@ -0,0 +1,153 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.safecrash
+
+import android.content.ContentResolver
+import android.provider.Settings
+import com.sevtinge.hyperceiler.common.log.XposedLog
+import com.sevtinge.hyperceiler.libhook.base.BaseHook
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * 崩溃计数窗口
+ *
+ * 记录只在首次使用时从存储读取一次，之后按包名保存在内存中判断；
+ * 计数变化延迟合并写回，只有触发报告时立即写回，
+ * 使 system_server 重启后仍能延续同样的判断。
+ */
+internal class CrashWindow(
+    private val store: Store,
+    private val scheduler: (Runnable) -> Unit
+) {
+    interface Store {
+        fun read(): String?
+        fun write(json: String)
+    }
+
+    // 保持与原先列表一致的顺序：最近更新的记录在末尾
+    private val records = LinkedHashMap<String, DataCrashRecord>()
+    private var loaded = false
+    private var persistScheduled = false
+    private var lastPersisted: String? = null
+
+    /**
+     * 记录一次崩溃
+     *
+     * @return 是否达到触发条件，此时该包的记录已被清除
+     */
+    @Synchronized
+    fun onCrash(pkgName: String, timeMillis: Long): Boolean {
+        ensureLoaded()
+
+        // 清理超时记录
+        records.values.removeIf { timeMillis - it.time > CRASH_TIME_WINDOW }
+
+        val record = records.remove(pkgName)
+        if (record != null && timeMillis - record.time < TRIGGER_INTERVAL) {
+            if (record.count >= TRIGGER_COUNT) {
+                persistNow()
+                return true
+            }
+            records[pkgName] = record.copy(time = timeMillis, count = record.count + 1)
+        } else {
+            // 没有记录或距上次崩溃过久，重新计数
+            records[pkgName] = DataCrashRecord(pkgName, timeMillis, 1)
+        }
+        schedulePersist()
+        return false
+    }
+
+    /**
+     * 立即写回尚未保存的变化
+     */
+    @Synchronized
+    fun flush() {
+        persistScheduled = false
+        if (loaded) persistNow()
+    }
+
+    private fun ensureLoaded() {
+        if (loaded) return
+        loaded = true
+        val json = runCatching { store.read() }
+            .onFailure { XposedLog.e(TAG, "Failed to read crash records", it) }
+            .getOrNull()
+        DataCrashRecord.parseList(json).forEach { records[it.pkg] = it }
+        lastPersisted = json
+    }
+
+    private fun schedulePersist() {
+        if (persistScheduled) return
+        persistScheduled = true
+        scheduler(Runnable {
+            synchronized(this) {
+                persistScheduled = false
+                persistNow()
+            }
+        })
+    }
+
+    private fun persistNow() {
+        val json = DataCrashRecord.listToJsonString(records.values.toList())
+        if (json == lastPersisted) return
+        runCatching { store.write(json) }
+            .onSuccess { lastPersisted = json }
+            .onFailure { XposedLog.e(TAG, "Failed to save crash records", it) }
+    }
+
+    private class SettingsStore(private val resolver: ContentResolver) : Store {
+        override fun read(): String? = Settings.System.getString(resolver, RECORD_KEY)
+
+        override fun write(json: String) {
+            Settings.System.putString(resolver, RECORD_KEY, json)
+        }
+    }
+
+    companion object {
+        private const val TAG = "CrashWindow"
+        private const val RECORD_KEY = "hyperceiler_crash_record_data"
+        const val CRASH_TIME_WINDOW = 60000L
+        const val TRIGGER_INTERVAL = 10240L
+        const val TRIGGER_COUNT = 2
+        const val PERSIST_DELAY = 3000L
+
+        /**
+         * 以 Settings.System 为存储、在独立的后台线程上延迟写回的窗口
+         */
+        fun forSettings(resolver: ContentResolver): CrashWindow {
+            val executor = ScheduledThreadPoolExecutor(1) { r ->
+                Thread(r, "CrashWindow-writer").apply { isDaemon = true }
+            }
+            val window = CrashWindow(SettingsStore(resolver)) { task ->
+                try {
+                    executor.schedule(task, PERSIST_DELAY, TimeUnit.MILLISECONDS)
+                } catch (_: RejectedExecutionException) {
+                    task.run()
+                }
+            }
+            BaseHook.registerHotReloadCleanup {
+                executor.shutdownNow()
+                window.flush()
+            }
+            return window
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.api;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内共享的电池遥测轮询器。
+ * <p>
+ * 温度、电流、电压三个 sysfs 节点的文件描述符保持打开，每次采样以 pread 读入复用的缓冲区并解析为基本类型，
+ * 不产生对象分配。存在订阅者且屏幕点亮时才在后台线程按最短的订阅间隔轮询，
+ * 结果在各订阅者指定的 Handler 上分发；最后一个订阅者取消后关闭文件并停止轮询。
+ */
+public final class BatteryTelemetry {
+    private static final String TAG = "BatteryTelemetry";
+
+    public static final String BATTERY_DIR = "/sys/class/power_supply/battery";
+    public static final int INVALID_TEMPERATURE = Integer.MIN_VALUE;
+    public static final long INVALID_VALUE = Long.MIN_VALUE;
+
+    private static volatile BatteryTelemetry sInstance;
+
+    public interface Listener {
+        /**
+         * @param temperatureDeciC  电池温度，单位 0.1℃，读取失败时为 {@link #INVALID_TEMPERATURE}
+         * @param currentMicroAmps  电流 current_now 原始值，单位 μA，读取失败时为 {@link #INVALID_VALUE}
+         * @param voltageMicroVolts 电压 voltage_now 原始值，单位 μV，读取失败时为 {@link #INVALID_VALUE}
+         */
+        void onBatteryTelemetry(int temperatureDeciC, long currentMicroAmps, long voltageMicroVolts);
+    }
+
+    private final Object mLock = new Object();
+    private final SysfsNode mTemperatureNode;
+    private final SysfsNode mCurrentNode;
+    private final SysfsNode mVoltageNode;
+    private final CopyOnWriteArrayList<Subscription> mSubscriptions = new CopyOnWriteArrayList<>();
+    private final Runnable mPoll = this::poll;
+
+    // 以下字段仅在 mLock 下访问
+    private int mTemperature = INVALID_TEMPERATURE;
+    private long mCurrent = INVALID_VALUE;
+    private long mVoltage = INVALID_VALUE;
+    private long mSampleTime = Long.MIN_VALUE;
+    private HandlerThread mThread;
+    private Handler mHandler;
+    private Context mReceiverContext;
+    private BroadcastReceiver mScreenReceiver;
+    private boolean mScreenOn = true;
+    private boolean mPolling = false;
+    private long mIntervalMs;
+
+    BatteryTelemetry(@NonNull File dir) {
+        mTemperatureNode = new SysfsNode(new File(dir, "temp"));
+        mCurrentNode = new SysfsNode(new File(dir, "current_now"));
+        mVoltageNode = new SysfsNode(new File(dir, "voltage_now"));
+    }
+
+    @NonNull
+    public static BatteryTelemetry getInstance() {
+        if (sInstance == null) {
+            synchronized (BatteryTelemetry.class) {
+                if (sInstance == null) {
+                    BatteryTelemetry telemetry = new BatteryTelemetry(new File(BATTERY_DIR));
+                    BaseHook.registerHotReloadCleanup(telemetry::shutdown);
+                    sInstance = telemetry;
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * 订阅周期性采样，订阅后立即采样并分发一次
+     *
+     * @param context    用于监听亮灭屏
+     * @param handler    分发回调所在的线程
+     * @param intervalMs 期望的采样间隔，多个订阅者时取最短者
+     */
+    @NonNull
+    public Subscription subscribe(@NonNull Context context, @NonNull Handler handler,
+                                  long intervalMs, @NonNull Listener listener) {
+        Subscription subscription = new Subscription(handler, Math.max(intervalMs, 500), listener);
+        synchronized (mLock) {
+            mSubscriptions.add(subscription);
+            if (mScreenReceiver == null) {
+                registerScreenReceiverLocked(context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context);
+            }
+            updatePollingLocked(true);
+        }
+        return subscription;
+    }
+
+    /**
+     * 最近一次采样早于 maxAgeMs 时立即在当前线程重新采样
+     */
+    public void refreshIfOlderThan(long maxAgeMs) {
+        synchronized (mLock) {
+            long now = SystemClock.elapsedRealtime();
+            if (mSampleTime == Long.MIN_VALUE || now - mSampleTime > maxAgeMs) {
+                sampleLocked(now);
+            }
+        }
+    }
+
+    public int getTemperatureDeciC() {
+        synchronized (mLock) {
+            return mTemperature;
+        }
+    }
+
+    public long getCurrentMicroAmps() {
+        synchronized (mLock) {
+            return mCurrent;
+        }
+    }
+
+    public long getVoltageMicroVolts() {
+        synchronized (mLock) {
+            return mVoltage;
+        }
+    }
+
+    private void poll() {
+        long interval;
+        synchronized (mLock) {
+            if (!mPolling) return;
+            sampleLocked(SystemClock.elapsedRealtime());
+            interval = mIntervalMs;
+        }
+        for (Subscription subscription : mSubscriptions) {
+            subscription.mHandler.post(subscription.mDeliver);
+        }
+        synchronized (mLock) {
+            if (mPolling) mHandler.postDelayed(mPoll, interval);
+        }
+    }
+
+    private void sampleLocked(long now) {
+        long temperature = mTemperatureNode.read();
+        mTemperature = temperature == INVALID_VALUE ? INVALID_TEMPERATURE : (int) temperature;
+        mCurrent = mCurrentNode.read();
+        mVoltage = mVoltageNode.read();
+        mSampleTime = now;
+    }
+
+    /**
+     * @param sampleNow 为 true 时立即采样一次（新订阅、亮屏），否则按新的间隔重新排期
+     */
+    private void updatePollingLocked(boolean sampleNow) {
+        long interval = Long.MAX_VALUE;
+        for (Subscription subscription : mSubscriptions) {
+            interval = Math.min(interval, subscription.mIntervalMs);
+        }
+        mIntervalMs = interval;
+
+        boolean shouldPoll = !mSubscriptions.isEmpty() && mScreenOn;
+        if (shouldPoll) {
+            if (mThread == null) {
+                mThread = new HandlerThread(TAG);
+                mThread.start();
+                mHandler = new Handler(mThread.getLooper());
+            }
+            mHandler.removeCallbacks(mPoll);
+            if (sampleNow || !mPolling) {
+                mHandler.post(mPoll);
+            } else {
+                mHandler.postDelayed(mPoll, interval);
+            }
+        } else if (mHandler != null) {
+            mHandler.removeCallbacks(mPoll);
+        }
+        mPolling = shouldPoll;
+
+        if (mSubscriptions.isEmpty()) {
+            unregisterScreenReceiverLocked();
+            closeNodesLocked();
+        }
+    }
+
+    private void registerScreenReceiverLocked(Context context) {
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                synchronized (mLock) {
+                    if (mScreenReceiver != this) return;
+                    mScreenOn = Intent.ACTION_SCREEN_ON.equals(intent.getAction());
+                    updatePollingLocked(true);
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        try {
+            context.registerReceiver(receiver, filter, Context.RECEIVER_EXPORTED);
+        } catch (Throwable t) {
+            XposedLog.w(TAG, "register screen receiver failed: " + t);
+            return;
+        }
+        mReceiverContext = context;
+        mScreenReceiver = receiver;
+
+        PowerManager pm = context.getSystemService(PowerManager.class);
+        mScreenOn = pm == null || pm.isInteractive();
+    }
+
+    private void unregisterScreenReceiverLocked() {
+        if (mScreenReceiver == null) return;
+        try {
+            mReceiverContext.unregisterReceiver(mScreenReceiver);
+        } catch (IllegalArgumentException ignored) {
+        }
+        mScreenReceiver = null;
+        mReceiverContext = null;
+        mScreenOn = true;
+    }
+
+    private void closeNodesLocked() {
+        mTemperatureNode.close();
+        mCurrentNode.close();
+        mVoltageNode.close();
+    }
+
+    private void shutdown() {
+        synchronized (mLock) {
+            mSubscriptions.clear();
+            updatePollingLocked(false);
+            if (mThread != null) {
+                mThread.quitSafely();
+                mThread = null;
+                mHandler = null;
+            }
+        }
+        if (sInstance == this) sInstance = null;
+    }
+
+    /**
+     * 订阅句柄，关闭后不再收到回调
+     */
+    public final class Subscription implements AutoCloseable {
+        private final Handler mHandler;
+        private final long mIntervalMs;
+        private final Listener mListener;
+        private final Runnable mDeliver = this::deliver;
+        private volatile boolean mClosed = false;
+
+        private Subscription(Handler handler, long intervalMs, Listener listener) {
+            mHandler = handler;
+            mIntervalMs = intervalMs;
+            mListener = listener;
+        }
+
+        private void deliver() {
+            if (mClosed) return;
+            int temperature;
+            long current;
+            long voltage;
+            synchronized (mLock) {
+                temperature = mTemperature;
+                current = mCurrent;
+                voltage = mVoltage;
+            }
+            mListener.onBatteryTelemetry(temperature, current, voltage);
+        }
+
+        @Override
+        public void close() {
+            if (mClosed) return;
+            mClosed = true;
+            mHandler.removeCallbacks(mDeliver);
+            synchronized (mLock) {
+                mSubscriptions.remove(this);
+                updatePollingLocked(false);
+            }
+        }
+    }
+
+    /**
+     * 保持打开的 sysfs 数值节点，非线程安全
+     */
+    static final class SysfsNode {
+        private final File mFile;
+        private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(32);
+        private FileChannel mChannel;
+
+        SysfsNode(File file) {
+            mFile = file;
+        }
+
+        /**
+         * 读取节点中的整数，失败时返回 {@link #INVALID_VALUE}
+         */
+        long read() {
+            try {
+                if (mChannel == null) {
+                    mChannel = new RandomAccessFile(mFile, "r").getChannel();
+                }
+                mBuffer.clear();
+                // 带偏移的读取即 pread，不依赖也不改变文件位置
+                int length = mChannel.read(mBuffer, 0);
+                return parse(mBuffer, Math.max(length, 0));
+            } catch (IOException e) {
+                close();
+                return INVALID_VALUE;
+            }
+        }
+
+        void close() {
+            if (mChannel != null) {
+                try {
+                    mChannel.close();
+                } catch (IOException ignored) {
+                }
+                mChannel = null;
+            }
+        }
+
+        private static long parse(ByteBuffer buffer, int length) {
+            int i = 0;
+            while (i < length && buffer.get(i) <= ' ') i++;
+            boolean negative = false;
+            if (i < length && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            int start = i;
+            long value = 0;
+            while (i < length) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') break;
+                value = value * 10 + (b - '0');
+                i++;
+            }
+            if (i == start) return INVALID_VALUE;
+            return negative ? -value : value;
+        }
+    }
+}
@@ -26,10 +26,15 @@ import androidx.annotation.IntDef;
 import androidx.annotation.Nullable;
 
 import com.sevtinge.hyperceiler.common.log.AndroidLog;
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @SuppressLint({"PrivateApi", "SoonBlockedPrivateApi", "DiscouragedPrivateApi"})
 public class ContextUtils {
@@ -50,6 +55,14 @@ public class ContextUtils {
     // 获取 Android 系统
     public static final int FlAG_ONLY_ANDROID = 2;
 
+    public static final long WAIT_CONTEXT_TIMEOUT_MS = 10000; // 10秒
+
+    private static final Waiter sAppContext =
+        new Waiter(() -> getContextNoError(FLAG_CURRENT_APP), ThreadPoolManager::execute);
+    private static final Waiter sSystemContext =
+        new Waiter(() -> getContextNoError(FlAG_ONLY_ANDROID), ThreadPoolManager::execute);
+    private static volatile boolean sAttachListenerRegistered = false;
+
     public static Context getContext(@Duration int flag) {
         try {
             return invokeMethod(flag);
@@ -69,7 +82,7 @@ public class ContextUtils {
     }
 
     /**
-     * 循环获取当前应用的 Context 为了防止过早获取导致的 null.
+     * 等待当前应用的 Context 可用后回调，为了防止过早获取导致的 null.
      * 使用方法:
      * <pre> {@code
      * handler = new Handler();
@@ -86,73 +99,163 @@ public class ContextUtils {
      * }, true/false);
      * }
      * 当然 Handler 是可选项, 适用于 Toast 显示等场景。
+     * <p>
+     * 回调总是在 {@link ThreadPoolManager} 的线程上执行，不会阻塞调用方或 Application.attach。
+     * Context 已可用时立即派发；否则在 Application.attach 之后派发，attach 后仍拿不到系统 Context
+     * 或超过 {@link #WAIT_CONTEXT_TIMEOUT_MS} 仍未就绪时以 null 回调。每个调用方只会被回调一次。
      * @param iContext 回调获取 Context
      * @author 焕晨HChen
      */
     public static void getWaitContext(IContext iContext, boolean isSystem) {
-        ThreadPoolManager.getInstance().submit(() -> {
-            Context context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
-            if (context == null) {
-                long time = System.currentTimeMillis();
-                long timeout = 10000; // 10秒
-                while (true) {
-                    long nowTime = System.currentTimeMillis();
-                    context = getContextNoError(isSystem ? FlAG_ONLY_ANDROID : FLAG_CURRENT_APP);
-                    // AndroidLog.i(TAG, "getWaitContext: " + context);
-                    if (context != null || nowTime - time > timeout) {
-                        break;
-                    }
-                }
-            }
-            iContext.hadContext(context);
-        });
-        ThreadPoolManager.shutdown();
+        getWaitContext(iContext, isSystem, WAIT_CONTEXT_TIMEOUT_MS);
+    }
+
+    public static void getWaitContext(IContext iContext, boolean isSystem, long timeoutMs) {
+        Waiter waiter = isSystem ? sSystemContext : sAppContext;
+        if (!waiter.dispatchIfReady(iContext)) {
+            ensureAttachListener();
+            waiter.await(iContext, timeoutMs);
+        }
+    }
+
+    /**
+     * 在 Application.attach 之后完成的 Context，同一进程内所有等待方共享。
+     * attach 后仍拿不到系统 Context 时，系统 Context 以 null 完成。
+     */
+    public static CompletableFuture<Context> waitContext(boolean isSystem) {
+        ensureAttachListener();
+        return (isSystem ? sSystemContext : sAppContext).attached();
     }
 
     public interface IContext {
         void hadContext(@Nullable Context context);
     }
 
+    private static void ensureAttachListener() {
+        if (sAttachListenerRegistered) return;
+        synchronized (ContextUtils.class) {
+            if (sAttachListenerRegistered) return;
+            sAttachListenerRegistered = true;
+            // 热重载会清空 Application 生命周期回调，下一次等待时重新注册
+            BaseHook.registerHotReloadCleanup(() -> sAttachListenerRegistered = false);
+            BaseHook.runOnApplicationAttach(ContextUtils::onApplicationAttached);
+        }
+    }
+
+    private static void onApplicationAttached(Context attached) {
+        sAppContext.onAttached(attached);
+        sSystemContext.onAttached(null);
+    }
+
+    /**
+     * 一种 Context 的等待方集合：attach 时完成一次，回调统一派发到 executor
+     */
+    static final class Waiter {
+        private final CompletableFuture<Context> mAttached = new CompletableFuture<>();
+        private final Supplier<Context> mResolver;
+        private final Executor mExecutor;
+
+        /**
+         * @param resolver 尝试直接获取 Context，拿不到时返回 null
+         * @param executor 执行回调的线程
+         */
+        Waiter(Supplier<Context> resolver, Executor executor) {
+            mResolver = resolver;
+            mExecutor = executor;
+        }
+
+        /**
+         * Context 已可用时派发回调并返回 true
+         */
+        boolean dispatchIfReady(IContext iContext) {
+            Context context = mResolver.get();
+            if (context == null) return false;
+            mExecutor.execute(() -> iContext.hadContext(context));
+            return true;
+        }
+
+        /**
+         * 等待 attach 完成后派发回调，超时以 null 回调
+         */
+        void await(IContext iContext, long timeoutMs) {
+            CompletableFuture<Context> waiter = new CompletableFuture<>();
+            mAttached.thenAccept(waiter::complete);
+            waiter.completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .thenAcceptAsync(iContext::hadContext, mExecutor);
+        }
+
+        /**
+         * Application.attach 之后调用；仍拿不到 Context 时以 fallback（可为 null）完成
+         */
+        void onAttached(@Nullable Context fallback) {
+            if (mAttached.isDone()) return;
+            Context context = mResolver.get();
+            mAttached.complete(context != null ? context : fallback);
+        }
+
+        CompletableFuture<Context> attached() {
+            return mAttached;
+        }
+    }
+
     private static Context invokeMethod(int flag) throws Throwable {
         Context context;
-        Class<?> clz = Class.forName("android.app.ActivityThread");
         switch (flag) {
             case 0 -> {
-                if ((context = currentApp(clz)) == null) {
-                    context = android(clz);
+                if ((context = currentApp()) == null) {
+                    context = android();
                 }
             }
-            case 1 -> context = currentApp(clz);
-            case 2 -> context = android(clz);
+            case 1 -> context = currentApp();
+            case 2 -> context = android();
             default -> throw new Throwable("Unexpected flag");
         }
         if (context == null) throw new Throwable("Context is null");
         return context;
     }
 
-    private static Context currentApp(Class<?> clz) throws Throwable {
+    private static Context currentApp() throws Throwable {
         // 获取当前界面应用 Context
-        Method currentApplication = clz.getDeclaredMethod("currentApplication");
-        currentApplication.setAccessible(true);
-        return (Application) currentApplication.invoke(null);
+        return (Application) ActivityThreadMethods.currentApplication.invoke(null);
     }
 
-    private static Context android(Class<?> clz) throws Throwable {
+    private static Context android() throws Throwable {
         // 获取 Android
-        Context context;
-        Method currentActivityThread = clz.getDeclaredMethod("currentActivityThread");
-        currentActivityThread.setAccessible(true);
-        Object o = currentActivityThread.invoke(null);
-        Method getSystemContext = clz.getDeclaredMethod("getSystemContext");
-        getSystemContext.setAccessible(true);
-        context = (Context) getSystemContext.invoke(o);
+        Object o = ActivityThreadMethods.currentActivityThread.invoke(null);
+        if (o == null) return null;
+        Context context = (Context) ActivityThreadMethods.getSystemContext.invoke(o);
         if (context == null) {
-            Method getSystemUiContext = clz.getDeclaredMethod("getSystemUiContext");
-            getSystemUiContext.setAccessible(true);
-            context = (Context) getSystemContext.invoke(o);
+            context = (Context) ActivityThreadMethods.getSystemUiContext.invoke(o);
         }
         return context;
     }
 
+    /**
+     * ActivityThread 反射方法只解析一次
+     */
+    private static final class ActivityThreadMethods {
+        static final Method currentApplication;
+        static final Method currentActivityThread;
+        static final Method getSystemContext;
+        static final Method getSystemUiContext;
+
+        static {
+            try {
+                Class<?> clz = Class.forName("android.app.ActivityThread");
+                currentApplication = accessible(clz.getDeclaredMethod("currentApplication"));
+                currentActivityThread = accessible(clz.getDeclaredMethod("currentActivityThread"));
+                getSystemContext = accessible(clz.getDeclaredMethod("getSystemContext"));
+                getSystemUiContext = accessible(clz.getDeclaredMethod("getSystemUiContext"));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private static Method accessible(Method method) {
+            method.setAccessible(true);
+            return method;
+        }
+    }
+
 }
 
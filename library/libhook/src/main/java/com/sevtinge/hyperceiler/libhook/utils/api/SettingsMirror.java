@@ -0,0 +1,272 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.api;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.provider.Settings;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 进程内的 Settings 镜像。
+ * <p>
+ * 每个键在首次读取时从 SettingsProvider 读取一次并注册一个 ContentObserver，
+ * 之后的读取只访问 volatile 字段，不再产生跨进程调用；值变化时由观察者刷新，
+ * 并按需通知通过 {@link Key#addListener} 注册的监听。热重载时注销观察者。
+ * <p>
+ * 适合在绘制、测量、触摸等高频回调中读取，键句柄建议以 static final 字段持有。
+ * <p>
+ * 观察者注册失败时先返回一次直接读取的值，并按退避间隔重试注册，
+ * 重试之前的读取同样不产生跨进程调用（值可能滞后至多一个退避间隔）。
+ */
+public final class SettingsMirror {
+    private static final String TAG = "SettingsMirror";
+
+    private static final int NAMESPACE_GLOBAL = 0;
+    private static final int NAMESPACE_SECURE = 1;
+    private static final int NAMESPACE_SYSTEM = 2;
+
+    private static final long REGISTER_RETRY_MIN_MS = 1000;
+    private static final long REGISTER_RETRY_MAX_MS = 60_000;
+
+    private static final ConcurrentHashMap<String, Key> sGlobalKeys = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Key> sSecureKeys = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Key> sSystemKeys = new ConcurrentHashMap<>();
+
+    private SettingsMirror() {
+    }
+
+    @NonNull
+    public static Key global(@NonNull String name) {
+        return sGlobalKeys.computeIfAbsent(name, n -> new Key(NAMESPACE_GLOBAL, n));
+    }
+
+    @NonNull
+    public static Key secure(@NonNull String name) {
+        return sSecureKeys.computeIfAbsent(name, n -> new Key(NAMESPACE_SECURE, n));
+    }
+
+    @NonNull
+    public static Key system(@NonNull String name) {
+        return sSystemKeys.computeIfAbsent(name, n -> new Key(NAMESPACE_SYSTEM, n));
+    }
+
+    public static final class Key {
+        @NonNull
+        public final String name;
+        private final int mNamespace;
+        private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+        // 为 null 表示尚未读取；mObserved 为 false 时是注册失败后的临时值
+        private volatile Value mValue;
+        private volatile boolean mObserved;
+        private volatile long mRetryAt;
+        private long mRetryDelay = REGISTER_RETRY_MIN_MS;
+        private ContentObserver mObserver;
+
+        private Key(int namespace, @NonNull String name) {
+            this.mNamespace = namespace;
+            this.name = name;
+        }
+
+        /**
+         * 与 Settings.*.getInt(resolver, name, def) 一致，缺失或无法解析时返回 def
+         */
+        public int getInt(@NonNull Context context, int def) {
+            Value value = value(context);
+            return value.hasInt ? value.intValue : def;
+        }
+
+        public long getLong(@NonNull Context context, long def) {
+            Value value = value(context);
+            return value.hasLong ? value.longValue : def;
+        }
+
+        public float getFloat(@NonNull Context context, float def) {
+            Value value = value(context);
+            return value.hasFloat ? value.floatValue : def;
+        }
+
+        @Nullable
+        public String getString(@NonNull Context context) {
+            return value(context).raw;
+        }
+
+        /**
+         * 值变化时在 handler 所在线程执行 listener，镜像中的值已先行刷新
+         */
+        public void addListener(@NonNull Context context, @NonNull Handler handler, @NonNull Runnable listener) {
+            Listener entry = new Listener(handler, listener);
+            mListeners.add(entry);
+            BaseHook.registerHotReloadCleanup(() -> {
+                mListeners.remove(entry);
+                handler.removeCallbacks(listener);
+            });
+            value(context);
+        }
+
+        private Value value(Context context) {
+            Value value = mValue;
+            if (value != null && (mObserved || SystemClock.uptimeMillis() < mRetryAt)) return value;
+            return register(context.getContentResolver());
+        }
+
+        private synchronized Value register(ContentResolver resolver) {
+            Value value = mValue;
+            if (value != null && (mObserved || SystemClock.uptimeMillis() < mRetryAt)) return value;
+
+            ContentObserver observer = new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    // 与 register/unregister 同锁，已注销的观察者不再写回；读取也在锁内，避免并发回调以旧值覆盖新值
+                    synchronized (Key.this) {
+                        if (mObserver != this) return;
+                        mValue = read(resolver);
+                    }
+                    for (Listener listener : mListeners) {
+                        listener.handler.post(listener.runnable);
+                    }
+                }
+            };
+            try {
+                // 先注册再读取，避免丢失两者之间发生的变化
+                resolver.registerContentObserver(uri(), false, observer);
+            } catch (Throwable t) {
+                XposedLog.w(TAG, "register observer for " + name + " failed, retry in " + mRetryDelay + "ms: " + t);
+                value = read(resolver);
+                mValue = value;
+                mRetryAt = SystemClock.uptimeMillis() + mRetryDelay;
+                mRetryDelay = Math.min(mRetryDelay * 2, REGISTER_RETRY_MAX_MS);
+                return value;
+            }
+            mObserver = observer;
+            BaseHook.registerHotReloadCleanup(() -> unregister(resolver, observer));
+
+            value = read(resolver);
+            mValue = value;
+            mObserved = true;
+            mRetryDelay = REGISTER_RETRY_MIN_MS;
+            return value;
+        }
+
+        private synchronized void unregister(ContentResolver resolver, ContentObserver observer) {
+            try {
+                resolver.unregisterContentObserver(observer);
+            } catch (IllegalArgumentException ignored) {
+            }
+            if (mObserver == observer) {
+                mObserver = null;
+                mObserved = false;
+                mValue = null;
+            }
+        }
+
+        private Uri uri() {
+            return switch (mNamespace) {
+                case NAMESPACE_SECURE -> Settings.Secure.getUriFor(name);
+                case NAMESPACE_SYSTEM -> Settings.System.getUriFor(name);
+                default -> Settings.Global.getUriFor(name);
+            };
+        }
+
+        private Value read(ContentResolver resolver) {
+            try {
+                String raw = switch (mNamespace) {
+                    case NAMESPACE_SECURE -> Settings.Secure.getString(resolver, name);
+                    case NAMESPACE_SYSTEM -> Settings.System.getString(resolver, name);
+                    default -> Settings.Global.getString(resolver, name);
+                };
+                return raw == null ? Value.ABSENT : new Value(raw);
+            } catch (Throwable t) {
+                XposedLog.w(TAG, "read " + name + " failed: " + t);
+                return Value.ABSENT;
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private record Listener(Handler handler, Runnable runnable) {
+    }
+
+    /**
+     * 不可变的值快照，数值在刷新时预先解析
+     */
+    private static final class Value {
+        static final Value ABSENT = new Value(null);
+
+        final String raw;
+        final boolean hasInt;
+        final int intValue;
+        final boolean hasLong;
+        final long longValue;
+        final boolean hasFloat;
+        final float floatValue;
+
+        Value(String raw) {
+            this.raw = raw;
+
+            boolean hasInt = false;
+            int intValue = 0;
+            boolean hasLong = false;
+            long longValue = 0;
+            boolean hasFloat = false;
+            float floatValue = 0;
+            if (raw != null) {
+                try {
+                    intValue = Integer.parseInt(raw);
+                    hasInt = true;
+                } catch (NumberFormatException ignored) {
+                }
+                try {
+                    longValue = Long.parseLong(raw);
+                    hasLong = true;
+                } catch (NumberFormatException ignored) {
+                }
+                try {
+                    floatValue = Float.parseFloat(raw);
+                    hasFloat = true;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            this.hasInt = hasInt;
+            this.intValue = intValue;
+            this.hasLong = hasLong;
+            this.longValue = longValue;
+            this.hasFloat = hasFloat;
+            this.floatValue = floatValue;
+        }
+    }
+}
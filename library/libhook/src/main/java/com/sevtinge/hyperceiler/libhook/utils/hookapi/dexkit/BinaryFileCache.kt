@@ -0,0 +1,525 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit
+
+import com.sevtinge.hyperceiler.common.log.XposedLog
+import org.luckypray.dexkit.DexKitCacheBridge
+import org.luckypray.dexkit.annotations.DexKitExperimentalApi
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.BasicFileAttributes
+
+/**
+ * [DexKitCacheBridge.Cache] 的二进制文件实现。
+ *
+ * 文件以只读方式 mmap，加载时只扫描记录头建立 key -> 偏移索引，
+ * 值在首次读取时才解码。新写入以记录形式追加到文件末尾并 fsync，不再整体重写；
+ * 失效记录过多、缓存被清空或文件头失效时才压缩重写（唯一命名的临时文件 + fsync + rename）。
+ * [flush] 返回后已写入的记录在断电后仍然保留，尚未 flush 的修改只存在于内存中。
+ *
+ * 与 [JsonFileCache] 的 `strings` / `lists` 分组一致，单值与列表各自使用独立的 key 空间，
+ * 同名的单值和列表互不覆盖；[remove] 同时移除两者。
+ *
+ * 追加与重写都持有同目录下 `<file>.lock` 的文件锁，缓存文件本身会被 rename 替换，不能用作锁。
+ * 追加前重新核对文件身份（fileKey）与文件头，文件已被其他进程替换时重新扫描出完整记录的结束位置，
+ * 不会把本进程记录的 [validLength] 用在另一个文件上。
+ *
+ * 文件格式（大端序）：
+ * ```
+ * header : magic(i32) version(i32) pkgVersion(str) osVersion(str)
+ * record : kind(u8) bodyLength(i32) key(str) value
+ *          kind = STRING -> value = str
+ *          kind = LIST   -> value = count(i32) str * count
+ *          kind = REMOVE -> 无 value
+ * str    : length(i32, -1 表示 null) utf8Bytes
+ * ```
+ *
+ * 同一 key 出现多次时以最后一条为准。进程在追加途中被杀留下的残缺记录会在
+ * 加载时被忽略，并在下一次追加前截断。
+ *
+ * @author Ling Qiqi
+ */
+@OptIn(DexKitExperimentalApi::class)
+internal class BinaryFileCache(
+    private val cacheFile: File,
+    private val pkgVersion: String?,
+    private val osVersion: String?,
+    private val tag: String,
+) : DexKitCacheBridge.Cache {
+
+    companion object {
+        private const val MAGIC = 0x48434458 // "HCDX"
+        // 13：单值与列表分开索引，旧文件中同名记录的覆盖关系不同，需重建
+        private const val CACHE_VERSION = 13
+
+        private const val KIND_STRING: Byte = 1
+        private const val KIND_LIST: Byte = 2
+        private const val KIND_REMOVE: Byte = 3
+
+        /** 失效记录数超过有效记录数且不少于该值时压缩重写 */
+        private const val COMPACT_MIN_DEAD_RECORDS = 64
+    }
+
+    /** 索引项：尚未解码的映射区偏移，或已解码的值 */
+    private sealed interface Entry {
+        class Mapped(val kind: Byte, val valueOffset: Int) : Entry
+        class Str(val value: String) : Entry
+        class Lst(val value: List<String>) : Entry
+    }
+
+    private class Record(val kind: Byte, val key: String, val entry: Entry?)
+
+    private val ioLock = Any()
+    private val strings = HashMap<String, Entry>()
+    private val lists = HashMap<String, Entry>()
+    private val pending = ArrayList<Record>()
+
+    private val lockFile = File(cacheFile.parentFile, cacheFile.name + ".lock")
+
+    private var mapped: ByteBuffer? = null
+    /** 文件中最后一条完整记录的结束位置，仅对 [knownFileKey] 对应的文件有效 */
+    private var validLength = 0L
+    /** 本进程最后一次加载或写入的缓存文件身份，取不到时为 null */
+    private var knownFileKey: Any? = null
+    private var diskRecordCount = 0
+    private var needRewrite = false
+
+    init {
+        loadAndValidate()
+    }
+
+    // ======================== 缓存接口实现 ========================
+
+    override fun getString(key: String, default: String?): String? {
+        synchronized(ioLock) {
+            return when (val entry = resolveLocked(strings, key)) {
+                is Entry.Str -> entry.value
+                else -> default
+            }
+        }
+    }
+
+    override fun putString(key: String, value: String) {
+        synchronized(ioLock) {
+            val entry = Entry.Str(value)
+            strings[key] = entry
+            pending.add(Record(KIND_STRING, key, entry))
+        }
+    }
+
+    override fun getStringList(key: String, default: List<String>?): List<String>? {
+        synchronized(ioLock) {
+            return when (val entry = resolveLocked(lists, key)) {
+                is Entry.Lst -> ArrayList(entry.value)
+                else -> default
+            }
+        }
+    }
+
+    override fun putStringList(key: String, value: List<String>) {
+        synchronized(ioLock) {
+            val entry = Entry.Lst(ArrayList(value))
+            lists[key] = entry
+            pending.add(Record(KIND_LIST, key, entry))
+        }
+    }
+
+    override fun remove(key: String) {
+        synchronized(ioLock) {
+            val removedString = strings.remove(key) != null
+            val removedList = lists.remove(key) != null
+            if (removedString || removedList) {
+                pending.add(Record(KIND_REMOVE, key, null))
+            }
+        }
+    }
+
+    override fun getAllKeys(): Collection<String> {
+        synchronized(ioLock) {
+            val keys = LinkedHashSet<String>(strings.size + lists.size)
+            keys.addAll(strings.keys)
+            keys.addAll(lists.keys)
+            return keys
+        }
+    }
+
+    override fun clearAll() {
+        synchronized(ioLock) {
+            strings.clear()
+            lists.clear()
+            pending.clear()
+            needRewrite = true
+        }
+    }
+
+    fun isEmpty(): Boolean {
+        synchronized(ioLock) {
+            return strings.isEmpty() && lists.isEmpty()
+        }
+    }
+
+    /**
+     * 从旧版缓存导入全部条目，导入后会在下次 [flush] 时整体写入。
+     */
+    fun importFrom(legacy: DexKitCacheBridge.Cache) {
+        synchronized(ioLock) {
+            for (key in legacy.getAllKeys()) {
+                legacy.getString(key, null)?.let { strings[key] = Entry.Str(it) }
+                legacy.getStringList(key, null)?.let { lists[key] = Entry.Lst(ArrayList(it)) }
+            }
+            pending.clear()
+            needRewrite = true
+            XposedLog.d(tag, "BinaryFileCache: imported ${liveCount()} entries from legacy cache")
+        }
+    }
+
+    // ======================== 文件操作 ========================
+
+    /**
+     * 把新增记录追加到磁盘，必要时压缩重写。
+     * 一般在当前 Hook 会话结束时调用。
+     */
+    fun flush() {
+        synchronized(ioLock) {
+            val liveRecords = liveCount()
+            val deadRecords = diskRecordCount + pending.size - liveRecords
+            val shouldCompact = deadRecords >= COMPACT_MIN_DEAD_RECORDS && deadRecords > liveRecords
+            if (!needRewrite && !shouldCompact && pending.isEmpty()) return
+            try {
+                withFileLock {
+                    if (!needRewrite && !shouldCompact && appendLocked()) {
+                        pending.clear()
+                    } else if (rewriteLocked()) {
+                        needRewrite = false
+                        pending.clear()
+                    }
+                }
+            } catch (t: Throwable) {
+                XposedLog.w(tag, "BinaryFileCache: failed to save cache", t)
+            }
+        }
+    }
+
+    /** 在跨进程文件锁内执行写操作，锁文件不随缓存文件替换 */
+    private inline fun withFileLock(block: () -> Unit) {
+        val dir = cacheFile.parentFile
+        if (dir != null && !dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw java.io.IOException("failed to create cache dir: ${dir.absolutePath}")
+        }
+        FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE).use { channel ->
+            val lock = channel.lock()
+            try {
+                block()
+            } finally {
+                lock.release()
+            }
+        }
+    }
+
+    private fun fileKeyOf(file: File): Any? = try {
+        Files.readAttributes(file.toPath(), BasicFileAttributes::class.java).fileKey()
+    } catch (_: Throwable) {
+        null
+    }
+
+    private fun loadAndValidate() {
+        synchronized(ioLock) {
+            if (!cacheFile.exists() || cacheFile.length() == 0L) {
+                XposedLog.d(tag, "BinaryFileCache: no cache file, starting fresh")
+                needRewrite = true
+                return
+            }
+
+            try {
+                val fileKey = fileKeyOf(cacheFile)
+                val buffer = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ).use { channel ->
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                }
+
+                val magic = buffer.getInt()
+                val fileVersion = buffer.getInt()
+                if (magic != MAGIC || fileVersion != CACHE_VERSION) {
+                    XposedLog.d(tag, "BinaryFileCache: version changed $fileVersion -> $CACHE_VERSION")
+                    needRewrite = true
+                    return
+                }
+                val filePkgVersion = readString(buffer)
+                val fileOsVersion = readString(buffer)
+                if (pkgVersion != null && pkgVersion != filePkgVersion) {
+                    XposedLog.d(tag, "BinaryFileCache: pkgVersion changed $filePkgVersion -> $pkgVersion")
+                    needRewrite = true
+                    return
+                }
+                if (osVersion != null && osVersion != fileOsVersion) {
+                    XposedLog.d(tag, "BinaryFileCache: osVersion changed $fileOsVersion -> $osVersion")
+                    needRewrite = true
+                    return
+                }
+
+                validLength = scanRecords(buffer, buffer.position()).toLong()
+                knownFileKey = fileKey
+                mapped = buffer
+                XposedLog.d(tag, "BinaryFileCache: indexed ${liveCount()} entries from $diskRecordCount records")
+            } catch (t: Throwable) {
+                XposedLog.w(tag, "BinaryFileCache: failed to load cache, starting fresh", t)
+                strings.clear()
+                lists.clear()
+                mapped = null
+                needRewrite = true
+            }
+        }
+    }
+
+    /**
+     * 从 [start] 开始扫描记录并更新索引，返回最后一条完整记录的结束位置。
+     */
+    private fun scanRecords(buffer: ByteBuffer, start: Int): Int {
+        val limit = buffer.limit()
+        var position = start
+        while (position + 5 <= limit) {
+            val kind = buffer.get(position)
+            val bodyLength = buffer.getInt(position + 1)
+            val bodyStart = position + 5
+            if (bodyLength < 4 || bodyLength > limit - bodyStart) break
+
+            val keyLength = buffer.getInt(bodyStart)
+            if (keyLength < 0 || keyLength > bodyLength - 4) break
+            val key = decodeUtf8(buffer, bodyStart + 4, keyLength)
+            val valueOffset = bodyStart + 4 + keyLength
+
+            when (kind) {
+                KIND_STRING -> strings[key] = Entry.Mapped(kind, valueOffset)
+                KIND_LIST -> lists[key] = Entry.Mapped(kind, valueOffset)
+                KIND_REMOVE -> {
+                    strings.remove(key)
+                    lists.remove(key)
+                }
+                else -> break
+            }
+            diskRecordCount++
+            position = bodyStart + bodyLength
+        }
+        if (position < limit) {
+            XposedLog.w(tag, "BinaryFileCache: ignored ${limit - position} trailing bytes")
+        }
+        return position
+    }
+
+    private fun liveCount(): Int = strings.size + lists.size
+
+    private fun resolveLocked(index: HashMap<String, Entry>, key: String): Entry? {
+        val entry = index[key] ?: return null
+        if (entry !is Entry.Mapped) return entry
+
+        val buffer = mapped ?: return null
+        val resolved = try {
+            val view = buffer.duplicate()
+            view.position(entry.valueOffset)
+            if (entry.kind == KIND_STRING) {
+                Entry.Str(readString(view) ?: return null)
+            } else {
+                val count = view.getInt()
+                val list = ArrayList<String>(count)
+                repeat(count) { list.add(readString(view) ?: "") }
+                Entry.Lst(list)
+            }
+        } catch (t: Throwable) {
+            XposedLog.w(tag, "BinaryFileCache: corrupted entry $key", t)
+            index.remove(key)
+            needRewrite = true
+            return null
+        }
+        index[key] = resolved
+        return resolved
+    }
+
+    /**
+     * 追加 [pending] 中的记录，调用方需持有文件锁。
+     * 文件不存在或文件头与当前版本不符时返回 false，由调用方改为重写。
+     */
+    private fun appendLocked(): Boolean {
+        if (!cacheFile.exists()) return false
+        val header = headerBytes()
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { out ->
+            for (record in pending) writeRecord(out, record)
+        }
+
+        FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE).use { channel ->
+            val size = channel.size()
+            if (size < header.size || !readBytes(channel, 0, header.size).contentEquals(header)) {
+                XposedLog.d(tag, "BinaryFileCache: header changed on disk, rewriting")
+                return false
+            }
+
+            val fileKey = fileKeyOf(cacheFile)
+            val sameFile = fileKey != null && fileKey == knownFileKey && size >= validLength
+            // 同一文件时本进程已知位置之前的记录都是完整的，只需核对之后的部分；
+            // 文件被其他进程替换或身份未知时，从文件头之后重新扫描
+            val scanStart = if (sameFile) validLength else header.size.toLong()
+            val end = wellFormedEnd(channel, scanStart, size)
+            if (end < size) {
+                XposedLog.w(tag, "BinaryFileCache: truncated ${size - end} trailing bytes")
+                channel.truncate(end)
+            }
+
+            val buf = ByteBuffer.wrap(bytes.toByteArray())
+            while (buf.hasRemaining()) {
+                channel.write(buf, end + buf.position())
+            }
+            // 只同步数据，文件元数据随后由系统写回；断电时至多丢失尾部，加载时按残缺记录处理
+            channel.force(false)
+            validLength = end + bytes.size()
+            knownFileKey = fileKey
+        }
+
+        diskRecordCount += pending.size
+        XposedLog.d(tag, "BinaryFileCache: appended ${pending.size} records")
+        return true
+    }
+
+    /**
+     * 从 [start] 开始逐条核对记录，返回最后一条完整记录的结束位置。
+     */
+    private fun wellFormedEnd(channel: FileChannel, start: Long, end: Long): Long {
+        if (end <= start) return start
+        val tail = ByteBuffer.wrap(readBytes(channel, start, (end - start).toInt()))
+        var position = 0
+        while (position + 5 <= tail.limit()) {
+            val kind = tail.get(position)
+            val bodyLength = tail.getInt(position + 1)
+            if (kind != KIND_STRING && kind != KIND_LIST && kind != KIND_REMOVE) break
+            if (bodyLength < 4 || bodyLength > tail.limit() - position - 5) break
+            position += 5 + bodyLength
+        }
+        return start + position
+    }
+
+    private fun readBytes(channel: FileChannel, start: Long, length: Int): ByteArray {
+        val buffer = ByteBuffer.allocate(length)
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) break
+        }
+        return buffer.array().copyOf(buffer.position())
+    }
+
+    private fun headerBytes(): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { out ->
+            out.writeInt(MAGIC)
+            out.writeInt(CACHE_VERSION)
+            writeString(out, pkgVersion)
+            writeString(out, osVersion)
+        }
+        return bytes.toByteArray()
+    }
+
+    /**
+     * 把当前索引整体写入唯一命名的临时文件，fsync 后 rename 替换缓存文件，调用方需持有文件锁。
+     */
+    private fun rewriteLocked(): Boolean {
+        val dir = cacheFile.absoluteFile.parentFile ?: return false
+        var tmpFile: File? = null
+        try {
+            // 重写前把所有映射区条目解码到内存，旧映射随后失效
+            for (key in ArrayList(strings.keys)) resolveLocked(strings, key)
+            for (key in ArrayList(lists.keys)) resolveLocked(lists, key)
+
+            val bytes = ByteArrayOutputStream()
+            DataOutputStream(bytes).use { out ->
+                out.write(headerBytes())
+                for ((key, entry) in strings) writeRecord(out, Record(KIND_STRING, key, entry))
+                for ((key, entry) in lists) writeRecord(out, Record(KIND_LIST, key, entry))
+            }
+
+            tmpFile = File.createTempFile(cacheFile.name + ".", ".tmp", dir)
+            FileChannel.open(tmpFile.toPath(), StandardOpenOption.WRITE).use { channel ->
+                val buf = ByteBuffer.wrap(bytes.toByteArray())
+                while (buf.hasRemaining()) channel.write(buf)
+                channel.force(true)
+            }
+            if (!tmpFile.renameTo(cacheFile)) {
+                XposedLog.w(tag, "BinaryFileCache: failed to replace cache file")
+                return false
+            }
+            tmpFile = null
+
+            mapped = null
+            validLength = bytes.size().toLong()
+            knownFileKey = fileKeyOf(cacheFile)
+            diskRecordCount = liveCount()
+            XposedLog.d(tag, "BinaryFileCache: rewrote $diskRecordCount entries")
+            return true
+        } catch (t: Throwable) {
+            XposedLog.w(tag, "BinaryFileCache: failed to save cache", t)
+            return false
+        } finally {
+            tmpFile?.delete()
+        }
+    }
+
+    private fun writeRecord(out: DataOutputStream, record: Record) {
+        val body = ByteArrayOutputStream()
+        DataOutputStream(body).use { bodyOut ->
+            writeString(bodyOut, record.key)
+            when (val entry = record.entry) {
+                is Entry.Str -> writeString(bodyOut, entry.value)
+                is Entry.Lst -> {
+                    bodyOut.writeInt(entry.value.size)
+                    for (item in entry.value) writeString(bodyOut, item)
+                }
+                else -> Unit
+            }
+        }
+        out.writeByte(record.kind.toInt())
+        out.writeInt(body.size())
+        body.writeTo(out)
+    }
+
+    private fun writeString(out: DataOutputStream, value: String?) {
+        if (value == null) {
+            out.writeInt(-1)
+            return
+        }
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        out.writeInt(bytes.size)
+        out.write(bytes)
+    }
+
+    private fun readString(buffer: ByteBuffer): String? {
+        val length = buffer.getInt()
+        if (length < 0) return null
+        val value = decodeUtf8(buffer, buffer.position(), length)
+        buffer.position(buffer.position() + length)
+        return value
+    }
+
+    private fun decodeUtf8(buffer: ByteBuffer, offset: Int, length: Int): String {
+        val bytes = ByteArray(length)
+        val view = buffer.duplicate()
+        view.position(offset)
+        view.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+}
@@ -62,6 +62,22 @@ public class DexKit {
         return DexKitCacheManager.INSTANCE.findMemberList(key, iDexKitList);
     }
 
+    /**
+     * 开始一批 Hook 的 DexKit 初始化，未命中较多时批次内的查询共享一次完整索引构建
+     *
+     * @param batching 为 false 时不预建索引，仅记录耗时用于对比
+     */
+    public static void beginBatch(int hookCount, boolean batching) {
+        DexKitCacheManager.INSTANCE.beginBatch(hookCount, batching);
+    }
+
+    /**
+     * 结束当前批次并记录耗时
+     */
+    public static void endBatch() {
+        DexKitCacheManager.INSTANCE.endBatch();
+    }
+
     /**
      * 关闭 DexKit 会话，释放原生桥并刷新缓存到磁盘
      */
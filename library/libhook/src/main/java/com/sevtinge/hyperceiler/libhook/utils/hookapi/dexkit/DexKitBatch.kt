@@ -0,0 +1,98 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * 一批 Hook 的 DexKit 初始化统计，以及是否值得预建完整索引的判断。
+ *
+ * 完整索引（`initFullCache()`）要把整个 dex 遍历一遍，只有未命中足够多时才划算：
+ * 批次内前 [MIN_MISSES_FOR_FULL_CACHE] - 1 次未命中仍按单次查询扫描，
+ * 达到阈值后才构建索引，之后的未命中查询都走索引。
+ * 只有一两条规则失效（例如宿主小版本更新）时不会为此付出整次索引构建的开销。
+ *
+ * [batching] 为 false 时从不预建索引，但仍统计未命中查询耗时，
+ * 用于和开启批量时的同一行日志直接对比。
+ *
+ * @param hookCount 本批次待执行 initDexKit 的 Hook 数量
+ * @param batching 是否允许为本批次预建完整索引
+ */
+internal class DexKitBatch(
+    val hookCount: Int,
+    val batching: Boolean
+) {
+
+    private val startTime = System.nanoTime()
+    private val hits = AtomicInteger()
+    private val misses = AtomicInteger()
+    private val missQueryCost = AtomicLong()
+
+    @Volatile
+    var fullCacheCost = -1L
+        private set
+
+    fun recordHit() {
+        hits.incrementAndGet()
+    }
+
+    /**
+     * 记录一次未命中，返回本批次累计的未命中次数
+     */
+    fun recordMiss(): Int = misses.incrementAndGet()
+
+    /**
+     * 记录一次未命中查询（不含索引构建）的耗时
+     */
+    fun recordMissQuery(costNanos: Long) {
+        missQueryCost.addAndGet(costNanos)
+    }
+
+    fun recordFullCache(costNanos: Long) {
+        fullCacheCost = costNanos
+    }
+
+    /**
+     * 累计未命中 [missCount] 次时，是否应为本批次预建完整索引
+     */
+    fun shouldBuildFullCache(missCount: Int): Boolean =
+        batching && hookCount >= MIN_BATCH_HOOKS && missCount >= MIN_MISSES_FOR_FULL_CACHE
+
+    val missCount: Int get() = misses.get()
+
+    fun summary(): String {
+        val costMs = (System.nanoTime() - startTime) / 1_000_000
+        val mode = if (batching) "batched" else "unbatched"
+        if (misses.get() == 0) {
+            return "DexKit batch[$mode]: hooks=$hookCount, all ${hits.get()} hits, cost=${costMs}ms"
+        }
+        val fullCache = if (fullCacheCost < 0) "no" else "${fullCacheCost / 1_000_000}ms"
+        return "DexKit batch[$mode]: hooks=$hookCount, hits=${hits.get()}, misses=${misses.get()}, " +
+            "fullCache=$fullCache, missQuery=${missQueryCost.get() / 1_000_000}ms, cost=${costMs}ms"
+    }
+
+    companion object {
+        /** 批次内 Hook 数量不少于该值时，才考虑预建完整索引 */
+        const val MIN_BATCH_HOOKS = 2
+
+        /** 批次内未命中次数达到该值时才预建完整索引 */
+        const val MIN_MISSES_FOR_FULL_CACHE = 3
+    }
+}
@@ -29,6 +29,7 @@ import com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit.DexKitCacheManager.
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit.DexKitCacheManager.releaseBridge
 import com.sevtinge.hyperceiler.libhook.utils.hookapi.tool.AppsTool
 import io.github.libxposed.api.XposedModuleInterface.PackageReadyParam
+import org.luckypray.dexkit.DexKitBridge
 import org.luckypray.dexkit.DexKitCacheBridge
 import org.luckypray.dexkit.DexKitCacheBridge.RecyclableBridge
 import org.luckypray.dexkit.annotations.DexKitExperimentalApi
@@ -48,7 +49,7 @@ import java.io.File
 /**
  * 管理 DexKit CacheBridge 生命周期，以及带缓存的成员解析流程。
  *
- * 缓存命中时：直接从 [JsonFileCache] 反序列化，不创建原生桥。
+ * 缓存命中时：直接从 [BinaryFileCache] 反序列化，不创建原生桥。
  * 缓存未命中时：通过 [RecyclableBridge.withBridge] 获取原生桥，执行用户查询，
  * 再把结果序列化后写回缓存。
  *
@@ -56,6 +57,11 @@ import java.io.File
  * DexKit 2.2.0 已支持同桥并发访问，框架层会在 Hook 初始化阶段自动并行调度。
  * 生命周期方法（[init] / [releaseBridge] / [clearAllCache]）使用内部锁保护状态。
  *
+ * 批量查询：`BaseLoad` 会用 [beginBatch] / [endBatch] 包住同一批 Hook 的 initDexKit。
+ * 批次内未命中次数达到 [DexKitBatch.MIN_MISSES_FOR_FULL_CACHE] 时，会对原生桥执行一次
+ * `initFullCache()`，之后同批次的字符串、类、方法匹配都走已建立的索引；
+ * 未命中较少时仍逐条扫描，避免为一两条失效规则遍历整个 dex。
+ *
  * @author Ling Qiqi
  */
 @OptIn(DexKitExperimentalApi::class)
@@ -63,7 +69,8 @@ internal object DexKitCacheManager {
 
     private const val TAG_DEFAULT = "DexKit"
     private const val DEXKIT_CACHE_DIR = "hyperceiler"
-    private const val DEXKIT_CACHE_FILE = "dexkit_cache.json"
+    private const val DEXKIT_CACHE_FILE = "dexkit_cache.bin"
+    private const val LEGACY_JSON_CACHE_FILE = "dexkit_cache.json"
 
     private val lock = Any()
 
@@ -77,18 +84,30 @@ internal object DexKitCacheManager {
     private var bridge: RecyclableBridge? = null
 
     @Volatile
-    private var cache: JsonFileCache? = null
+    private var cache: BinaryFileCache? = null
 
     @Volatile
     private var cacheInitialized = false
 
+    private val warmUpLock = Any()
+
+    @Volatile
+    private var batch: DexKitBatch? = null
+
+    /**
+     * 已建立完整索引的原生桥。RecyclableBridge 空闲回收后会换成新的原生桥，
+     * 索引随旧桥一起释放，因此按实例比较而不是用布尔标记。
+     */
+    @Volatile
+    private var fullCachedBridge: DexKitBridge? = null
+
     // ======================== 生命周期 ========================
 
     /**
      * 准备 DexKit 会话。
      *
      * 必须在任何 [findMember] / [findMemberList] 调用之前执行。
-     * 每个进程首次初始化时注册 [JsonFileCache] 到 [DexKitCacheBridge]，
+     * 每个进程首次初始化时注册 [BinaryFileCache] 到 [DexKitCacheBridge]，
      * 然后为当前目标应用创建一个 [RecyclableBridge]。
      */
     fun init(param: PackageReadyParam, tag: String) {
@@ -102,13 +121,13 @@ internal object DexKitCacheManager {
             if (!cacheInitialized) {
                 System.loadLibrary("dexkit")
 
-                val jsonCache = createJsonFileCache(appInfo, param)
+                val fileCache = createFileCache(appInfo, param)
                 try {
-                    DexKitCacheBridge.init(jsonCache)
+                    DexKitCacheBridge.init(fileCache)
                 } catch (_: IllegalStateException) {
                     // 当前进程里已经初始化过，直接复用即可
                 }
-                cache = jsonCache
+                cache = fileCache
                 cacheInitialized = true
             }
 
@@ -122,7 +141,7 @@ internal object DexKitCacheManager {
     /**
      * 查找单个成员（Method / Field / Class），并带缓存支持。
      *
-     * 缓存命中时：从 JSON 反序列化并结合 classLoader 解析，不创建原生桥。
+     * 缓存命中时：从缓存反序列化并结合 classLoader 解析，不创建原生桥。
      * 缓存未命中时：获取原生桥，执行 [iDexKit]，然后序列化并写入缓存。
      */
     @Suppress("UNCHECKED_CAST")
@@ -133,18 +152,24 @@ internal object DexKitCacheManager {
         // 缓存 key 不带前缀，由 strings / lists 分组隐式区分
         // 先尝试命中内存缓存，命中时不创建原生桥
         cache?.getString(key, null)?.let { cached ->
+            batch?.recordHit()
             return deserializeAndResolve(cached, classLoader) as T
         }
 
         // 缓存未命中，获取原生桥执行查询
+        val currentBatch = batch
+        val missCount = currentBatch?.recordMiss() ?: 0
         val currentBridge = bridge ?: throw IllegalStateException("DexKit not initialized")
         var result: Any? = null
         currentBridge.withBridge { rawBridge ->
+            if (currentBatch != null) buildFullCacheIfWorth(rawBridge, currentBatch, missCount)
+            val queryStart = System.nanoTime()
             val baseData = try {
                 iDexKit.dexkit(rawBridge)
             } catch (e: ReflectiveOperationException) {
                 throw RuntimeException(e)
             }
+            currentBatch?.recordMissQuery(System.nanoTime() - queryStart)
             if (baseData == null) return@withBridge
             result = resolveAndCache(baseData, key, classLoader)
         }
@@ -163,18 +188,24 @@ internal object DexKitCacheManager {
         // 缓存 key 不带前缀，由 strings / lists 分组隐式区分
         // 先尝试命中缓存
         cache?.getStringList(key, null)?.let { cachedList ->
+            batch?.recordHit()
             return cachedList.map { deserializeAndResolve(it, classLoader) as T }
         }
 
         // 缓存未命中，获取原生桥执行查询
+        val currentBatch = batch
+        val missCount = currentBatch?.recordMiss() ?: 0
         val currentBridge = bridge ?: throw IllegalStateException("DexKit not initialized")
         val resultList = mutableListOf<T>()
         currentBridge.withBridge { rawBridge ->
+            if (currentBatch != null) buildFullCacheIfWorth(rawBridge, currentBatch, missCount)
+            val queryStart = System.nanoTime()
             val baseDataList = try {
                 iDexKitList.dexkit(rawBridge)
             } catch (e: ReflectiveOperationException) {
                 throw RuntimeException(e)
             }
+            currentBatch?.recordMissQuery(System.nanoTime() - queryStart)
 
             val serializedList = mutableListOf<String>()
             when (baseDataList) {
@@ -197,6 +228,31 @@ internal object DexKitCacheManager {
         return resultList
     }
 
+    /**
+     * 开始一批 Hook 的 DexKit 初始化。
+     *
+     * @param hookCount 本批次待执行 initDexKit 的 Hook 数量
+     * @param batching 为 false 时不预建完整索引，仅统计耗时用于对比
+     */
+    fun beginBatch(hookCount: Int, batching: Boolean) {
+        batch = DexKitBatch(hookCount, batching)
+    }
+
+    /**
+     * 结束当前批次，并记录本批次的命中情况与耗时。
+     *
+     * 开启与关闭批量时输出同一格式的日志，便于直接对比冷启动开销。
+     */
+    fun endBatch() {
+        val finished = batch ?: return
+        batch = null
+        if (finished.missCount > 0) {
+            XposedLog.i(tag, param?.packageName ?: "", finished.summary())
+        } else {
+            XposedLog.d(tag, finished.summary())
+        }
+    }
+
     /**
      * 释放原生桥，并把缓存刷新到磁盘。
      *
@@ -208,6 +264,8 @@ internal object DexKitCacheManager {
             bridge?.close()
             bridge = null
             param = null
+            batch = null
+            fullCachedBridge = null
 
             XposedLog.d(tag, "DexKitCacheManager: bridge closed")
         }
@@ -253,13 +311,33 @@ internal object DexKitCacheManager {
 
     // ======================== 内部辅助方法 ========================
 
-    private fun createJsonFileCache(
+    /**
+     * 未命中次数达到阈值且当前原生桥尚未建立索引时，预建完整索引；
+     * 并发的其他未命中查询会在锁上等待索引建立完成后再执行。
+     */
+    private fun buildFullCacheIfWorth(rawBridge: DexKitBridge, currentBatch: DexKitBatch, missCount: Int) {
+        if (!currentBatch.shouldBuildFullCache(missCount) || fullCachedBridge === rawBridge) return
+        synchronized(warmUpLock) {
+            if (fullCachedBridge === rawBridge) return
+            val start = System.nanoTime()
+            try {
+                rawBridge.initFullCache()
+            } catch (t: Throwable) {
+                XposedLog.w(tag, "DexKit initFullCache failed, fall back to per-query scan", t)
+            }
+            currentBatch.recordFullCache(System.nanoTime() - start)
+            fullCachedBridge = rawBridge
+        }
+    }
+
+    private fun createFileCache(
         appInfo: ApplicationInfo,
         param: PackageReadyParam
-    ): JsonFileCache {
+    ): BinaryFileCache {
         val cacheDir = File(File(appInfo.dataDir, "cache"), DEXKIT_CACHE_DIR)
         if (!cacheDir.exists()) cacheDir.mkdirs()
         val cacheFile = File(cacheDir, DEXKIT_CACHE_FILE)
+        val legacyFile = File(cacheDir, LEGACY_JSON_CACHE_FILE)
 
         val pkgVersionName = AppsTool.getPackageVersionName(param)
         val pkgVersionCode = AppsTool.getPackageVersionCode(param)
@@ -269,7 +347,20 @@ internal object DexKitCacheManager {
         val isSystemUI = "com.android.systemui" == param.packageName
         val osVersion = if (isSystemUI) Build.VERSION.INCREMENTAL else null
 
-        return JsonFileCache(cacheFile, pkgVersion, osVersion, tag)
+        val fileCache = BinaryFileCache(cacheFile, pkgVersion, osVersion, tag)
+        if (legacyFile.exists()) {
+            // 从 v11 JSON 缓存迁移：版本校验沿用 JsonFileCache 的规则，失效的旧缓存不会被导入
+            try {
+                if (fileCache.isEmpty()) {
+                    fileCache.importFrom(JsonFileCache(legacyFile, pkgVersion, osVersion, tag))
+                    fileCache.flush()
+                }
+            } catch (t: Throwable) {
+                XposedLog.w(tag, "Failed to migrate legacy DexKit cache", t)
+            }
+            legacyFile.delete()
+        }
+        return fileCache
     }
 
     private fun createRecyclableBridge(
@@ -35,6 +35,8 @@ import java.util.concurrent.atomic.AtomicBoolean
 /**
  * [DexKitCacheBridge.Cache] 的 JSON 文件实现。
  *
+ * 已由 [BinaryFileCache] 取代，目前仅用于把 v11 格式的旧缓存迁移到二进制缓存。
+ *
  * 缓存数据保存在 JSON 文件中，并在构造阶段做版本校验。
  * 所有写入先进入建议队列，再由单消费者串行应用到内存映射表，
  * 最后在 [flush] 时统一落盘。
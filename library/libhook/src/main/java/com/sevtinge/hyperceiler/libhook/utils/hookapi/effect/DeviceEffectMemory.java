@@ -26,19 +26,32 @@ import android.bluetooth.BluetoothDevice;
 import androidx.annotation.NonNull;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.sevtinge.hyperceiler.common.log.XposedLog;
+import com.sevtinge.hyperceiler.libhook.base.BaseHook;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 设备音效记忆管理
+ * <p>
+ * 修改只更新内存并标记为脏，由后台线程在 {@link #WRITE_DELAY_MS} 后合并写入一次。
+ * 写入先落到临时文件并 fsync，再通过 rename 原子替换正式文件，
+ * 因此正式文件始终是某一次完整的快照；读取到被截断的旧文件时尽量保留已解析的部分。
  *
  * @author Ling Qiqi
  */
@@ -47,46 +60,222 @@ public class DeviceEffectMemory {
     private static final String TAG = "DeviceEffectMemory";
     private static final String STORAGE_DIR = "/data/system/hyperceiler";
     private static final String STORAGE_FILE = "effect_memory.json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CORRUPT_SUFFIX = ".corrupt";
+
+    static final int DATA_VERSION = 2;
+    static final long WRITE_DELAY_MS = 500;
+
+    private static final Object sWriterLock = new Object();
+    private static ScheduledExecutorService sWriter;
+    // 同一文件只由最新的实例写入，新实例加载前先写出旧实例尚未落盘的修改
+    private static volatile DeviceEffectMemory sActive;
 
     private final File mFile;
+    private final File mTempFile;
     private final Gson mGson;
+    private final Scheduler mScheduler;
+    private final Sink mSink;
+    private final AtomicBoolean mDirty = new AtomicBoolean(false);
+    private final Object mFileLock = new Object();
+    // 正式文件存在但读取失败时置位，此后的修改只保留在内存中
+    private volatile boolean mReadOnly = false;
     private DeviceEffectData mData;
 
     public DeviceEffectMemory() {
-        File dir = new File(STORAGE_DIR);
+        this(new File(STORAGE_DIR));
+    }
+
+    DeviceEffectMemory(File dir) {
+        this(dir, DeviceEffectMemory::scheduleOnWriter, null);
+    }
+
+    /**
+     * @param scheduler 延迟写入的调度方式
+     * @param sink      序列化后的数据写到哪里，为 null 时原子写入正式文件
+     */
+    DeviceEffectMemory(File dir, Scheduler scheduler, Sink sink) {
         if (!dir.exists()) dir.mkdirs();
         mFile = new File(dir, STORAGE_FILE);
-        mGson = new GsonBuilder().setPrettyPrinting().create();
+        mTempFile = new File(dir, STORAGE_FILE + TEMP_SUFFIX);
+        mGson = new Gson();
+        mScheduler = scheduler;
+        mSink = sink != null ? sink : this::writeAtomically;
+
+        DeviceEffectMemory previous = sActive;
+        if (previous != null) previous.flush();
         loadData();
+        if (mDirty.get()) flush();
+        sActive = this;
     }
 
     private synchronized void loadData() {
-        try {
-            if (mFile.exists()) {
-                String json = new String(Files.readAllBytes(mFile.toPath()));
-                if (!json.isEmpty()) {
-                    mData = mGson.fromJson(json, DeviceEffectData.class);
-                    XposedLog.d(TAG, "Loaded " + mData.devices.size() + " devices, "
-                        + mData.macToDeviceId.size() + " MAC mappings");
+        // 上次写入在 rename 前中断时留下的临时文件已无意义
+        if (mTempFile.exists() && !mTempFile.delete()) {
+            XposedLog.w(TAG, "Failed to delete stale " + mTempFile.getName());
+        }
+        if (mFile.exists()) {
+            String json = null;
+            try {
+                json = new String(Files.readAllBytes(mFile.toPath()), StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                // 读取失败不代表内容损坏：保留原文件，本次以空数据运行且不写回，避免覆盖未能读取的记录
+                XposedLog.e(TAG, "Failed to read data, keeping " + mFile.getName(), e);
+                mReadOnly = true;
+            }
+            if (json != null) {
+                try {
+                    if (!json.isEmpty()) {
+                        mData = mGson.fromJson(json, DeviceEffectData.class);
+                    }
+                } catch (Exception e) {
+                    XposedLog.e(TAG, "Failed to parse data", e);
+                    mData = recoverData(json);
+                    File corrupt = new File(mFile.getPath() + CORRUPT_SUFFIX);
+                    if (mFile.renameTo(corrupt)) {
+                        XposedLog.w(TAG, "Moved unreadable data to " + corrupt.getName());
+                    }
+                    // 立即写回可恢复的部分，不再依赖损坏的文件
+                    if (mData != null) mDirty.set(true);
                 }
             }
-        } catch (Exception e) {
-            XposedLog.e(TAG, "Failed to load data", e);
         }
         if (mData == null) mData = new DeviceEffectData();
+        if (mData.devices == null) mData.devices = new ConcurrentHashMap<>();
+        if (mData.macToDeviceId == null) mData.macToDeviceId = new ConcurrentHashMap<>();
+        XposedLog.d(TAG, "Loaded " + mData.devices.size() + " devices, "
+            + mData.macToDeviceId.size() + " MAC mappings");
     }
 
-    private synchronized void saveData() {
-        try {
-            String json = mGson.toJson(mData);
-            try (FileOutputStream fos = new FileOutputStream(mFile)) {
-                fos.write(json.getBytes(StandardCharsets.UTF_8));
+    /**
+     * 从被截断的数据中按顺序解析，遇到不完整的条目即停止，保留此前已完整读取的部分
+     */
+    private DeviceEffectData recoverData(String json) {
+        DeviceEffectData data = new DeviceEffectData();
+        int devices = 0;
+        int mappings = 0;
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                switch (name) {
+                    case "version" -> data.version = reader.nextInt();
+                    case "speakerEffect" -> data.speakerEffect = readState(reader);
+                    case "devices" -> {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String id = reader.nextName();
+                            EffectState state = readState(reader);
+                            if (state != null) {
+                                data.devices.put(id, state);
+                                devices++;
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    case "macToDeviceId" -> {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String mac = reader.nextName();
+                            String id = reader.nextString();
+                            data.macToDeviceId.put(mac, id);
+                            mappings++;
+                        }
+                        reader.endObject();
+                    }
+                    default -> reader.skipValue();
+                }
             }
         } catch (Exception e) {
-            XposedLog.e(TAG, "Failed to save data", e);
+            XposedLog.w(TAG, "Data truncated, recovered " + devices + " devices, " + mappings + " MAC mappings");
+        }
+        return data;
+    }
+
+    private EffectState readState(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return mGson.fromJson(reader, EffectState.class);
+    }
+
+    /**
+     * 标记数据已修改，由后台线程合并写入
+     */
+    private void saveData() {
+        if (!mDirty.compareAndSet(false, true)) return;
+        try {
+            mScheduler.schedule(this::flush, WRITE_DELAY_MS);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    /**
+     * 立即写出尚未落盘的修改，没有修改时直接返回
+     */
+    public void flush() {
+        synchronized (mFileLock) {
+            if (!mDirty.getAndSet(false) || mReadOnly) return;
+            try {
+                // 映射均为 ConcurrentHashMap，可与修改并发序列化，之后的修改会再次调度写入
+                mData.version = DATA_VERSION;
+                mSink.write(mGson.toJson(mData).getBytes(StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                XposedLog.e(TAG, "Failed to save data", e);
+            }
         }
     }
 
+    private void writeAtomically(byte[] bytes) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(mTempFile)) {
+            fos.write(bytes);
+            fos.getFD().sync();
+        }
+        if (!mTempFile.renameTo(mFile)) {
+            mTempFile.delete();
+            throw new IOException("rename " + mTempFile + " to " + mFile + " failed");
+        }
+    }
+
+    private static void scheduleOnWriter(Runnable task, long delayMs) {
+        getWriter().schedule(task, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService getWriter() {
+        synchronized (sWriterLock) {
+            if (sWriter == null) {
+                ScheduledThreadPoolExecutor writer = new ScheduledThreadPoolExecutor(1, r -> {
+                    Thread thread = new Thread(r, "DeviceEffectMemory-writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                writer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                sWriter = writer;
+                BaseHook.registerHotReloadCleanup(() -> {
+                    synchronized (sWriterLock) {
+                        if (sWriter == writer) sWriter = null;
+                    }
+                    writer.shutdownNow();
+                    DeviceEffectMemory active = sActive;
+                    if (active != null) active.flush();
+                });
+            }
+            return sWriter;
+        }
+    }
+
+    interface Scheduler {
+        /**
+         * @throws RejectedExecutionException 无法调度时由调用方立即写入
+         */
+        void schedule(Runnable task, long delayMs);
+    }
+
+    interface Sink {
+        void write(byte[] bytes) throws IOException;
+    }
 
     // ==================== 设备 ID 归一化 ====================
 
@@ -221,8 +410,8 @@ public class DeviceEffectMemory {
     // ==================== 数据类 ====================
 
     public static class DeviceEffectData {
-        public int version = 2;
-        public EffectState speakerEffect;
+        public int version = DATA_VERSION;
+        public volatile EffectState speakerEffect;
         public ConcurrentHashMap<String, EffectState> devices = new ConcurrentHashMap<>();
         public ConcurrentHashMap<String, String> macToDeviceId = new ConcurrentHashMap<>();
     }
@@ -0,0 +1,135 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.tool
+
+import android.annotation.SuppressLint
+import android.content.BroadcastReceiver
+import android.content.ComponentCallbacks
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.content.res.AssetManager
+import android.content.res.Configuration
+import android.content.res.Resources
+import com.sevtinge.hyperceiler.common.log.XposedLog
+import com.sevtinge.hyperceiler.libhook.base.BaseHook
+import java.lang.ref.WeakReference
+import java.util.WeakHashMap
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * 按名称解析资源 ID 的缓存
+ *
+ * getIdentifier 每次调用都要解析名称并在 AssetManager 中逐包查找。这里按 AssetManager 分表，
+ * 以 (包名, 类型, 名称) 缓存结果，找不到的资源同样以 0 缓存。启用或停用覆盖层后宿主会换用新的 AssetManager，
+ * 旧表不再命中并随之回收；配置变化（包括主题切换）或收到覆盖层变化广播时清空全部缓存。
+ */
+object ResourceIdCache {
+    private const val TAG = "ResourceIdCache"
+    private const val ACTION_OVERLAY_CHANGED = "android.intent.action.OVERLAY_CHANGED"
+
+    // 仅在自身锁下访问
+    private val tables = WeakHashMap<AssetManager, Table>()
+
+    @Volatile
+    private var lastTable: Table? = null
+
+    // 测试中预先置为 true，跳过依赖 Xposed 的生命周期注册
+    @Volatile
+    internal var listening = false
+
+    @JvmStatic
+    @SuppressLint("DiscouragedApi")
+    fun getIdentifier(resources: Resources, name: String, type: String, packageName: String): Int {
+        val names = tableOf(resources).packages
+            .getOrPut(packageName) { ConcurrentHashMap() }
+            .getOrPut(type) { ConcurrentHashMap() }
+        names[name]?.let { return it }
+        val id = resources.getIdentifier(name, type, packageName)
+        names[name] = id
+        return id
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    @JvmStatic
+    fun invalidate() {
+        synchronized(tables) {
+            tables.clear()
+            lastTable = null
+        }
+    }
+
+    private fun tableOf(resources: Resources): Table {
+        val assets = resources.assets
+        lastTable?.let { if (it.assets.get() === assets) return it }
+        ensureListening()
+        synchronized(tables) {
+            val table = tables.getOrPut(assets) { Table(WeakReference(assets)) }
+            lastTable = table
+            return table
+        }
+    }
+
+    private fun ensureListening() {
+        if (listening) return
+        synchronized(this) {
+            if (listening) return
+            listening = true
+            // 热重载会清空 Application 生命周期回调，下一次查找时重新注册
+            BaseHook.registerHotReloadCleanup {
+                listening = false
+                invalidate()
+            }
+            BaseHook.runOnApplicationAttach { context -> registerInvalidation(context) }
+        }
+    }
+
+    private fun registerInvalidation(attached: Context) {
+        val context = attached.applicationContext ?: attached
+        val callbacks = object : ComponentCallbacks {
+            override fun onConfigurationChanged(newConfig: Configuration) = invalidate()
+
+            @Deprecated("Deprecated in Java")
+            override fun onLowMemory() {
+            }
+        }
+        context.registerComponentCallbacks(callbacks)
+        BaseHook.registerHotReloadCleanup { context.unregisterComponentCallbacks(callbacks) }
+
+        val receiver = object : BroadcastReceiver() {
+            override fun onReceive(context: Context, intent: Intent) = invalidate()
+        }
+        val filter = IntentFilter(ACTION_OVERLAY_CHANGED).apply { addDataScheme("package") }
+        runCatching {
+            context.registerReceiver(receiver, filter, Context.RECEIVER_EXPORTED)
+            BaseHook.registerReceiverHotReloadCleanup(context, receiver)
+        }.onFailure {
+            XposedLog.w(TAG, "register overlay receiver failed: $it")
+        }
+    }
+
+    /**
+     * 单个 AssetManager 的解析结果：包名 → 类型 → 名称 → ID，只弱引用 AssetManager 以免阻止其回收
+     */
+    private class Table(val assets: WeakReference<AssetManager>) {
+        val packages = ConcurrentHashMap<String, ConcurrentHashMap<String, ConcurrentHashMap<String, Int>>>()
+    }
+}
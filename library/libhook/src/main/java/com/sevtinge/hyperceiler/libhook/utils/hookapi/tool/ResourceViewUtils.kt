@@ -18,7 +18,6 @@
  */
 package com.sevtinge.hyperceiler.libhook.utils.hookapi.tool
 
-import android.annotation.SuppressLint
 import android.app.Activity
 import android.content.Context
 import android.content.res.Resources
@@ -31,14 +30,13 @@ import androidx.annotation.StringRes
 
 // -------------------- Context 资源查找 --------------------
 
-@SuppressLint("DiscouragedApi")
+/** 结果经 [ResourceIdCache] 缓存，可在刷新路径上反复调用 */
 fun Resources.getIdByName(
     name: String,
     type: String,
     packageName: String
-): Int = getIdentifier(name, type, packageName)
+): Int = ResourceIdCache.getIdentifier(this, name, type, packageName)
 
-@SuppressLint("DiscouragedApi")
 fun Context.getIdByName(
     name: String,
     type: String = "id",
@@ -28,7 +28,6 @@ import android.content.res.loader.ResourcesProvider;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.ParcelFileDescriptor;
-import android.util.Pair;
 import android.util.TypedValue;
 
 import com.sevtinge.hyperceiler.common.log.XposedLog;
@@ -38,9 +37,13 @@ import com.sevtinge.hyperceiler.libhook.utils.api.ContextUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -66,7 +69,8 @@ public class ResourcesTool {
     private static final int HOOK_DIMEN = 1 << 3;
     private static final int HOOK_MISC = 1 << 4;
 
-    private static final ResKey EMPTY_KEY = new ResKey("", "", "");
+    /** 负缓存标记：该资源 ID 没有任何替换规则 */
+    private static final Replacement NO_REPLACEMENT = new Replacement(ReplacementType.OBJECT, null);
 
     private static volatile ResourcesTool sInstance = null;
 
@@ -82,16 +86,21 @@ public class ResourcesTool {
 
     private final CopyOnWriteArrayList<Resources> resourcesArrayList = new CopyOnWriteArrayList<>();
     private final CopyOnWriteArrayList<XposedInterface.HookHandle> unhooks = new CopyOnWriteArrayList<>();
-    private final ConcurrentHashMap<ResKey, Pair<ReplacementType, Object>> replacements = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ResKey, Replacement> replacements = new ConcurrentHashMap<>();
+    /** 替换规则版本号，规则变动后各 ResIdTable 在下次访问时自行清空 */
+    private volatile int replacementsVersion = 0;
     /*
      * 资源 ID 只在同一个 Resources 范围内有意义。SystemUI 与其插件会在同一进程中使用
      * 不同的 Resources，若只以 int 作为 key，二者恰好复用 ID 时会命中错误的替换规则。
+     * 因此每个 Resources 持有一张独立的 int 表；弱引用持有，避免 Resources 无法回收。
      */
-    private final ConcurrentHashMap<ResIdCacheKey, ResKey> resIdCache = new ConcurrentHashMap<>();
+    private final Map<Resources, ResIdTable> resIdTables = new WeakHashMap<>();
+    /** 最近一次命中的表，绝大多数调用来自同一个 Resources，可跳过 WeakHashMap 查询 */
+    private volatile ResIdTable lastResIdTable = null;
 
     private record ResKey(String pkg, String type, String name) {}
 
-    private record ResIdCacheKey(Resources resources, int resId) {}
+    record Replacement(ReplacementType type, Object value) {}
 
     /**
      * 资源替换类型
@@ -102,6 +111,169 @@ public class ResourcesTool {
         OBJECT
     }
 
+    /**
+     * 返回值转换类型
+     */
+    private enum ResultType {
+        INT,
+        FLOAT,
+        TEXT,
+        BOOLEAN,
+        OBJECT
+    }
+
+    /**
+     * 被 hook 的 getter，在 hook 时解析一次，避免每次调用都按方法名做字符串匹配
+     */
+    private enum Getter {
+        GET_COLOR("getColor", ResultType.INT, 0),
+        GET_COLOR_STATE_LIST("getColorStateList", ResultType.OBJECT, 1),
+        GET_DRAWABLE("getDrawable", ResultType.OBJECT, 1),
+        GET_DRAWABLE_FOR_DENSITY("getDrawableForDensity", ResultType.OBJECT, 2),
+        GET_TEXT("getText", ResultType.TEXT, 0),
+        GET_STRING_ARRAY("getStringArray", ResultType.OBJECT, 0),
+        GET_TEXT_ARRAY("getTextArray", ResultType.OBJECT, 0),
+        GET_DIMENSION("getDimension", ResultType.FLOAT, 0),
+        GET_DIMENSION_PIXEL_OFFSET("getDimensionPixelOffset", ResultType.INT, 0),
+        GET_DIMENSION_PIXEL_SIZE("getDimensionPixelSize", ResultType.INT, 0),
+        GET_INTEGER("getInteger", ResultType.INT, 0),
+        GET_BOOLEAN("getBoolean", ResultType.BOOLEAN, 0),
+        GET_FLOAT("getFloat", ResultType.FLOAT, 0),
+        GET_INT_ARRAY("getIntArray", ResultType.OBJECT, 0),
+        GET_LAYOUT("getLayout", ResultType.OBJECT, 0),
+        GET_ANIMATION("getAnimation", ResultType.OBJECT, 0),
+        GET_FRACTION("getFraction", ResultType.OBJECT, 2);
+
+        final String methodName;
+        final ResultType resultType;
+        /** 转发到模块 Resources 时，除资源 ID 外需要透传的参数个数 */
+        final int forwardArgs;
+
+        Getter(String methodName, ResultType resultType, int forwardArgs) {
+            this.methodName = methodName;
+            this.resultType = resultType;
+            this.forwardArgs = forwardArgs;
+        }
+
+        static Getter of(String methodName) {
+            for (Getter getter : values()) {
+                if (getter.methodName.equals(methodName)) return getter;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 单个 Resources 的 resId -> 替换规则表（开放寻址，int 作为 key，不产生装箱）。
+     * 同时缓存负结果；条目数超过上限时整体清空，保证内存有界。
+     */
+    private static final class ResIdTable {
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int MAX_SIZE = 1024;
+
+        final WeakReference<Resources> owner;
+        private int version;
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private Replacement[] values = new Replacement[INITIAL_CAPACITY];
+        private int size = 0;
+
+        ResIdTable(Resources owner, int version) {
+            this.owner = new WeakReference<>(owner);
+            this.version = version;
+        }
+
+        synchronized Replacement get(int resId, int currentVersion) {
+            if (!syncVersion(currentVersion)) return null;
+            int mask = keys.length - 1;
+            for (int i = mix(resId) & mask; ; i = (i + 1) & mask) {
+                int key = keys[i];
+                if (key == resId) return values[i];
+                if (key == 0) return null;
+            }
+        }
+
+        synchronized void put(int resId, Replacement replacement, int currentVersion) {
+            if (!syncVersion(currentVersion)) return;
+            if (size >= MAX_SIZE) {
+                clear();
+            } else if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            if (insert(keys, values, resId, replacement)) size++;
+        }
+
+        synchronized void clear() {
+            if (size == 0) return;
+            keys = new int[INITIAL_CAPACITY];
+            values = new Replacement[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * 规则有更新时清空旧结果；调用方持有的版本已过期时返回 false，结果不可读写
+         */
+        private boolean syncVersion(int currentVersion) {
+            if (currentVersion == version) return true;
+            if (currentVersion - version < 0) return false;
+            clear();
+            version = currentVersion;
+            return true;
+        }
+
+        private void grow() {
+            int[] newKeys = new int[keys.length * 2];
+            Replacement[] newValues = new Replacement[keys.length * 2];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) insert(newKeys, newValues, keys[i], values[i]);
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        private static boolean insert(int[] keys, Replacement[] values, int resId, Replacement replacement) {
+            int mask = keys.length - 1;
+            for (int i = mix(resId) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == resId) {
+                    values[i] = replacement;
+                    return false;
+                }
+                if (keys[i] == 0) {
+                    keys[i] = resId;
+                    values[i] = replacement;
+                    return true;
+                }
+            }
+        }
+
+        private static int mix(int resId) {
+            int h = resId * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * TypedArray 字段句柄，首次使用时解析一次
+     */
+    private static final class TypedArrayFields {
+        static final Field DATA = find("mData");
+        static final Field RESOURCES = find("mResources");
+
+        private static Field find(String name) {
+            try {
+                Field field = TypedArray.class.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (Throwable t) {
+                XposedLog.e(TAG, "Failed to resolve TypedArray." + name, t);
+                return null;
+            }
+        }
+    }
+
     private ResourcesTool(String modulePath) {
         this.mModulePath = modulePath;
         isInit = true;
@@ -359,9 +531,11 @@ public class ResourcesTool {
             Class<?>[] paramTypes = method.getParameterTypes();
 
             if (!shouldHookResourcesMethod(name, paramTypes, mask)) continue;
+            Getter getter = Getter.of(name);
+            if (getter == null) continue;
 
             try {
-                XposedInterface.HookHandle unhook = com.sevtinge.hyperceiler.libhook.base.BaseHook.hookMethod(method, ResHooker);
+                XposedInterface.HookHandle unhook = com.sevtinge.hyperceiler.libhook.base.BaseHook.hookMethod(method, new ResHooker(getter));
                 unhooks.add(unhook);
             } catch (Throwable t) {
                 XposedLog.e(TAG, "Failed to hook Resources." + name, t);
@@ -408,9 +582,11 @@ public class ResourcesTool {
         for (Method method : typedMethods) {
             String name = method.getName();
             if (!isNeedHook(method, name, mask)) continue;
+            Getter getter = Getter.of(name);
+            if (getter == null) continue;
 
             try {
-                XposedInterface.HookHandle unhook = com.sevtinge.hyperceiler.libhook.base.BaseHook.hookMethod(method, TypedArrayHooker);
+                XposedInterface.HookHandle unhook = com.sevtinge.hyperceiler.libhook.base.BaseHook.hookMethod(method, new TypedArrayHooker(getter));
                 unhooks.add(unhook);
             } catch (Throwable t) {
                 XposedLog.e(TAG, "Failed to hook TypedArray." + name, t);
@@ -484,7 +660,7 @@ public class ResourcesTool {
         }
         resourcesArrayList.clear();
         replacements.clear();
-        resIdCache.clear();
+        clearResIdTables();
         resourcesLoader = null;
         mHandler = null;
         inReplacement.remove();
@@ -495,12 +671,19 @@ public class ResourcesTool {
     // ==================== Hook 回调 ====================
 
     /**
-     * TypedArray 方法 Hook 回调
+     * TypedArray 方法 Hook 回调，每个被 hook 的方法持有一个实例
      */
-    private final IMethodHook TypedArrayHooker = new IMethodHook() {
+    private final class TypedArrayHooker implements IMethodHook {
+        private final Getter getter;
+
+        TypedArrayHooker(Getter getter) {
+            this.getter = getter;
+        }
+
         @Override
         public void before(HookParam callback) {
             if (!isInit) return;
+            if (replacements.isEmpty()) return;
             if (Boolean.TRUE.equals(inReplacement.get())) return;
 
             Object[] args = callback.getArgs();
@@ -509,7 +692,7 @@ public class ResourcesTool {
             int index = (int) args[0];
             Object thisObject = callback.getThisObject();
 
-            int[] mData = (int[]) com.sevtinge.hyperceiler.libhook.base.BaseHook.getObjectField(thisObject, "mData");
+            int[] mData = (int[]) readField(TypedArrayFields.DATA, thisObject);
             if (mData == null || index < 0) return;
 
             int base = index * TA_STYLE_NUM_ENTRIES;
@@ -520,27 +703,33 @@ public class ResourcesTool {
 
             if (id == 0 || type == TypedValue.TYPE_NULL) return;
 
-            Resources mResources = (Resources) com.sevtinge.hyperceiler.libhook.base.BaseHook.getObjectField(thisObject, "mResources");
+            Resources mResources = (Resources) readField(TypedArrayFields.RESOURCES, thisObject);
             if (mResources == null) return;
 
-            String methodName = callback.getExecutable().getName();
-            Object value = getTypedArrayReplacement(mResources, id, methodName);
+            Object value = getTypedArrayReplacement(mResources, id, getter);
             if (value == null) return;
 
-            Object finalResult = convertResultType(methodName, value);
+            Object finalResult = convertResultType(getter, value);
             if (finalResult != null) {
                 callback.setResult(finalResult);
             }
         }
-    };
+    }
 
     /**
-     * Resources 方法 Hook 回调
+     * Resources 方法 Hook 回调，每个被 hook 的方法持有一个实例
      */
-    private final IMethodHook ResHooker = new IMethodHook() {
+    private final class ResHooker implements IMethodHook {
+        private final Getter getter;
+
+        ResHooker(Getter getter) {
+            this.getter = getter;
+        }
+
         @Override
         public void before(HookParam callback) {
             if (!isInit) return;
+            if (replacements.isEmpty()) return;
             if (Boolean.TRUE.equals(inReplacement.get())) return;
 
             // 模块资源未加载时，尝试同步加载作为 fallback
@@ -559,50 +748,54 @@ public class ResourcesTool {
             if (reqId == 0) return;
 
             Resources thisRes = (Resources) callback.getThisObject();
-            String methodName = callback.getExecutable().getName();
+            Replacement replacement = findReplacement(thisRes, reqId);
+            if (replacement == null) return;
 
-            for (Resources resources : resourcesArrayList) {
-                if (resources == null) continue;
-
-                Object value;
-                try {
-                    value = getResourceReplacement(resources, thisRes, methodName, args);
-                } catch (Resources.NotFoundException ex) {
-                    continue;
+            Object value = null;
+            if (replacement.type() == ReplacementType.ID) {
+                for (Resources resources : resourcesArrayList) {
+                    if (resources == null) continue;
+                    try {
+                        value = handleIdReplacement(replacement.value(), resources, getter, args);
+                    } catch (Resources.NotFoundException ex) {
+                        continue;
+                    }
+                    if (value != null) break;
                 }
+            } else {
+                value = handleReplacement(replacement, thisRes, getter);
+            }
+            if (value == null) return;
 
-                if (value == null) continue;
-
-                Object finalResult = convertResultType(methodName, value);
-                if (finalResult != null) {
-                    callback.setResult(finalResult);
-                } else {
-                    XposedLog.w(TAG, "Mismatched replacement type for method " + methodName
-                        + ". Got " + value.getClass().getName());
-                }
-                break;
+            Object finalResult = convertResultType(getter, value);
+            if (finalResult != null) {
+                callback.setResult(finalResult);
+            } else {
+                XposedLog.w(TAG, "Mismatched replacement type for method " + getter.methodName
+                    + ". Got " + value.getClass().getName());
             }
         }
-    };
+    }
+
+    private static Object readField(Field field, Object obj) {
+        if (field == null) return null;
+        try {
+            return field.get(obj);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
 
     /**
-     * 根据方法名转换返回值类型
+     * 根据 getter 的返回类型转换替换值
      */
-    private Object convertResultType(String methodName, Object value) {
-        return switch (methodName) {
-            case "getInteger", "getColor", "getDimensionPixelOffset", "getDimensionPixelSize" ->
-                value instanceof Number ? Math.round(((Number) value).floatValue()) : null;
-
-            case "getDimension", "getFloat" ->
-                value instanceof Number ? ((Number) value).floatValue() : null;
-
-            case "getText" ->
-                value instanceof CharSequence ? value : null;
-
-            case "getBoolean" ->
-                value instanceof Boolean ? value : null;
-
-            default -> value;
+    private Object convertResultType(Getter getter, Object value) {
+        return switch (getter.resultType) {
+            case INT -> value instanceof Number ? Math.round(((Number) value).floatValue()) : null;
+            case FLOAT -> value instanceof Number ? ((Number) value).floatValue() : null;
+            case TEXT -> value instanceof CharSequence ? value : null;
+            case BOOLEAN -> value instanceof Boolean ? value : null;
+            case OBJECT -> value;
         };
     }
 
@@ -617,12 +810,7 @@ public class ResourcesTool {
      * @param replacementResId 替换的资源 ID
      */
     public void setResReplacement(String pkg, String type, String name, int replacementResId) {
-        try {
-            ensureHooksForType(type);
-            replacements.put(new ResKey(pkg, type, name), new Pair<>(ReplacementType.ID, replacementResId));
-        } catch (Throwable t) {
-            XposedLog.e(TAG, "setResReplacement failed", t);
-        }
+        putReplacement(pkg, type, name, ReplacementType.ID, replacementResId, "setResReplacement");
     }
 
     /**
@@ -634,12 +822,7 @@ public class ResourcesTool {
      * @param replacementResValue 替换的数值（会乘以屏幕密度）
      */
     public void setDensityReplacement(String pkg, String type, String name, float replacementResValue) {
-        try {
-            ensureHooksForType(type);
-            replacements.put(new ResKey(pkg, type, name), new Pair<>(ReplacementType.DENSITY, replacementResValue));
-        } catch (Throwable t) {
-            XposedLog.e(TAG, "setDensityReplacement failed", t);
-        }
+        putReplacement(pkg, type, name, ReplacementType.DENSITY, replacementResValue, "setDensityReplacement");
     }
 
     /**
@@ -651,67 +834,47 @@ public class ResourcesTool {
      * @param replacementResValue 替换的对象
      */
     public void setObjectReplacement(String pkg, String type, String name, Object replacementResValue) {
+        putReplacement(pkg, type, name, ReplacementType.OBJECT, replacementResValue, "setObjectReplacement");
+    }
+
+    private synchronized void putReplacement(String pkg, String type, String name, ReplacementType replacementType,
+                                Object value, String caller) {
         try {
             ensureHooksForType(type);
-            replacements.put(new ResKey(pkg, type, name), new Pair<>(ReplacementType.OBJECT, replacementResValue));
+            replacements.put(new ResKey(pkg, type, name), new Replacement(replacementType, value));
+            replacementsVersion++;
         } catch (Throwable t) {
-            XposedLog.e(TAG, "setObjectReplacement failed", t);
+            XposedLog.e(TAG, caller + " failed", t);
         }
     }
 
     // ==================== 替换值查找 ====================
 
-    /**
-     * 获取资源替换值
-     *
-     * @param resources 模块 Resources 对象
-     * @param res       目标 Resources 对象
-     * @param method    调用的方法名
-     * @param args      方法参数
-     * @return 替换值，如果没有替换则返回 null
-     */
-    private Object getResourceReplacement(Resources resources, Resources res, String method, Object[] args)
-        throws Resources.NotFoundException {
-        int resId = (int) args[0];
-        if (resId == 0) return null;
-
-        ResKey resKey = resolveResKey(res, resId);
-        if (resKey == null) return null;
-
-        Pair<ReplacementType, Object> replacement = findReplacement(resKey);
-        if (replacement == null) return null;
-
-        return handleReplacement(replacement, resources, res, method, args);
-    }
-
     /**
      * 获取 TypedArray 资源替换值
      */
-    private Object getTypedArrayReplacement(Resources resources, int id, String methodName) {
+    private Object getTypedArrayReplacement(Resources resources, int id, Getter getter) {
         if (id == 0) return null;
 
-        ResKey resKey = resolveResKey(resources, id);
-        if (resKey == null) return null;
-
         try {
-            Pair<ReplacementType, Object> replacement = findReplacement(resKey);
+            Replacement replacement = findReplacement(resources, id);
             if (replacement == null) return null;
 
-            return switch (replacement.first) {
-                case OBJECT -> handleObjectReplacement(replacement.second, methodName);
-                case DENSITY -> handleDensityReplacement(replacement.second, resources, methodName);
+            return switch (replacement.type()) {
+                case OBJECT -> handleObjectReplacement(replacement.value(), getter);
+                case DENSITY -> handleDensityReplacement(replacement.value(), resources, getter);
                 case ID -> {
                     try {
-                        Object[] fakeArgs = switch (methodName) {
-                            case "getColor" -> new Object[]{id, 0};
-                            case "getColorStateList", "getDrawable" -> new Object[]{id, null};
+                        Object[] fakeArgs = switch (getter) {
+                            case GET_COLOR -> new Object[]{id, 0};
+                            case GET_COLOR_STATE_LIST, GET_DRAWABLE -> new Object[]{id, null};
                             default -> null;
                         };
                         yield fakeArgs != null
-                            ? handleIdReplacement(replacement.second, resources, methodName, fakeArgs)
+                            ? handleIdReplacement(replacement.value(), resources, getter, fakeArgs)
                             : null;
                     } catch (Throwable t) {
-                        XposedLog.e(TAG, "TypedArray ID replacement failed for " + methodName, t);
+                        XposedLog.e(TAG, "TypedArray ID replacement failed for " + getter.methodName, t);
                         yield null;
                     }
                 }
@@ -723,54 +886,78 @@ public class ResourcesTool {
     }
 
     /**
-     * 解析 resId 到 ResKey
+     * 查找指定 Resources 中 resId 对应的替换规则，结果（包括未命中）按 Resources 缓存
+     *
+     * @return 替换规则，没有替换则返回 null
      */
-    private ResKey resolveResKey(Resources res, int resId) {
-        ResKey cached = resIdCache.computeIfAbsent(new ResIdCacheKey(res, resId), key -> {
-            try {
-                String pkgName = res.getResourcePackageName(key.resId());
-                String resType = res.getResourceTypeName(key.resId());
-                String resName = res.getResourceEntryName(key.resId());
-                if (pkgName == null || resType == null || resName == null) return EMPTY_KEY;
-                return new ResKey(pkgName, resType, resName);
-            } catch (Throwable ignore) {
-                return EMPTY_KEY;
+    Replacement findReplacement(Resources res, int resId) {
+        ResIdTable table = getResIdTable(res);
+        int version = replacementsVersion;
+        Replacement replacement = table.get(resId, version);
+        if (replacement == null) {
+            replacement = resolveReplacement(res, resId);
+            table.put(resId, replacement, version);
+        }
+        return replacement == NO_REPLACEMENT ? null : replacement;
+    }
+
+    private ResIdTable getResIdTable(Resources res) {
+        ResIdTable last = lastResIdTable;
+        if (last != null && last.owner.get() == res) return last;
+
+        ResIdTable table;
+        synchronized (resIdTables) {
+            table = resIdTables.get(res);
+            if (table == null) {
+                table = new ResIdTable(res, replacementsVersion);
+                resIdTables.put(res, table);
             }
-        });
-        return cached == EMPTY_KEY ? null : cached;
+        }
+        lastResIdTable = table;
+        return table;
     }
 
     /**
-     * 查找替换规则（精确匹配 + 通配符 fallback）
+     * 解析 resId 并匹配替换规则（精确匹配 + 通配符 fallback），仅在缓存未命中时调用
      */
-    private Pair<ReplacementType, Object> findReplacement(ResKey resKey) {
-        Pair<ReplacementType, Object> replacement = replacements.get(resKey);
-        if (replacement == null && !"*".equals(resKey.pkg)) {
-            replacement = replacements.get(new ResKey("*", resKey.type, resKey.name));
+    private Replacement resolveReplacement(Resources res, int resId) {
+        String pkgName;
+        String resType;
+        String resName;
+        try {
+            pkgName = res.getResourcePackageName(resId);
+            resType = res.getResourceTypeName(resId);
+            resName = res.getResourceEntryName(resId);
+        } catch (Throwable ignore) {
+            return NO_REPLACEMENT;
+        }
+        if (pkgName == null || resType == null || resName == null) return NO_REPLACEMENT;
+
+        Replacement replacement = replacements.get(new ResKey(pkgName, resType, resName));
+        if (replacement == null && !"*".equals(pkgName)) {
+            replacement = replacements.get(new ResKey("*", resType, resName));
         }
-        return replacement;
+        return replacement == null ? NO_REPLACEMENT : replacement;
     }
 
     // ==================== 替换处理 ====================
 
     /**
-     * 处理资源替换
+     * 处理非 ID 类型的资源替换
      */
-    private Object handleReplacement(Pair<ReplacementType, Object> replacement, Resources resources,
-                                     Resources res, String method, Object[] args)
-        throws Resources.NotFoundException {
-        return switch (replacement.first) {
-            case OBJECT -> handleObjectReplacement(replacement.second, method);
-            case DENSITY -> handleDensityReplacement(replacement.second, res, method);
-            case ID -> handleIdReplacement(replacement.second, resources, method, args);
+    private Object handleReplacement(Replacement replacement, Resources res, Getter getter) {
+        return switch (replacement.type()) {
+            case OBJECT -> handleObjectReplacement(replacement.value(), getter);
+            case DENSITY -> handleDensityReplacement(replacement.value(), res, getter);
+            case ID -> null;
         };
     }
 
     /**
      * 处理对象类型替换
      */
-    private Object handleObjectReplacement(Object value, String method) {
-        if ("getText".equals(method) && !(value instanceof CharSequence)) {
+    private Object handleObjectReplacement(Object value, Getter getter) {
+        if (getter == Getter.GET_TEXT && !(value instanceof CharSequence)) {
             XposedLog.w(TAG, "Mismatched type: OBJECT replacement is not a CharSequence for getText method.");
             return null;
         }
@@ -780,8 +967,8 @@ public class ResourcesTool {
     /**
      * 处理密度类型替换
      */
-    private Object handleDensityReplacement(Object value, Resources res, String method) {
-        if ("getText".equals(method)) {
+    private Object handleDensityReplacement(Object value, Resources res, Getter getter) {
+        if (getter == Getter.GET_TEXT) {
             XposedLog.w(TAG, "Mismatched type: DENSITY replacement cannot be used for getText method.");
             return null;
         }
@@ -802,7 +989,7 @@ public class ResourcesTool {
     /**
      * 处理 ID 类型替换
      */
-    private Object handleIdReplacement(Object value, Resources resources, String method, Object[] args)
+    private Object handleIdReplacement(Object value, Resources resources, Getter getter, Object[] args)
         throws Resources.NotFoundException {
         if (!(value instanceof Number)) return null;
 
@@ -811,12 +998,11 @@ public class ResourcesTool {
 
         // 验证资源存在
         resources.getResourceName(modResId);
-        if (method == null) return null;
 
         // 标记正在替换，防止递归
         inReplacement.set(true);
         try {
-            return callResourceMethod(resources, method, modResId, args);
+            return callResourceMethod(resources, getter, modResId, args);
         } finally {
             inReplacement.set(false);
         }
@@ -825,24 +1011,37 @@ public class ResourcesTool {
     /**
      * 调用 Resources 方法
      */
-    private Object callResourceMethod(Resources resources, String method, int modResId, Object[] args) {
-        if (("getDrawable".equals(method) || "getColorStateList".equals(method)) && args.length >= 2) {
-            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, method, modResId, args[1]);
-        } else if (("getDrawableForDensity".equals(method) || "getFraction".equals(method)) && args.length >= 3) {
-            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, method, modResId, args[1], args[2]);
+    private Object callResourceMethod(Resources resources, Getter getter, int modResId, Object[] args) {
+        if (getter.forwardArgs == 1 && args.length >= 2) {
+            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, getter.methodName, modResId, args[1]);
+        } else if (getter.forwardArgs == 2 && args.length >= 3) {
+            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, getter.methodName, modResId, args[1], args[2]);
         } else {
-            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, method, modResId);
+            return com.sevtinge.hyperceiler.libhook.base.BaseHook.callMethod(resources, getter.methodName, modResId);
         }
     }
 
     // ==================== 工具方法 ====================
 
+    private void clearResIdTables() {
+        synchronized (resIdTables) {
+            resIdTables.clear();
+        }
+        lastResIdTable = null;
+    }
+
     public void clearResIdCache() {
-        resIdCache.clear();
+        clearResIdTables();
         XposedLog.d(TAG, "Resource ID cache cleared");
     }
 
     public int getCacheSize() {
-        return resIdCache.size();
+        int size = 0;
+        synchronized (resIdTables) {
+            for (ResIdTable table : resIdTables.values()) {
+                size += table.size();
+            }
+        }
+        return size;
     }
 }
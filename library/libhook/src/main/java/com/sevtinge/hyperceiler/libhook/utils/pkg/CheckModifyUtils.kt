@@ -21,10 +21,19 @@ package com.sevtinge.hyperceiler.libhook.utils.pkg
 
 import android.content.Context
 import android.content.pm.PackageManager
+import android.content.pm.SigningInfo
 import com.sevtinge.hyperceiler.common.utils.PrefsBridge
+import java.io.File
 import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
 
 object CheckModifyUtils {
+    private const val VERDICT_PREFS = "check_modify_cache"
+    private const val KEY_SUFFIX = "_key"
+    private val HEX_DIGITS = "0123456789ABCDEF".toCharArray()
+
+    // 包名或 APK 路径 -> (指纹, 是否被修改)
+    private val verdictCache = ConcurrentHashMap<String, Pair<String, Boolean>>()
 
     /**
      * 获取指定包名的检查结果
@@ -58,17 +67,85 @@ object CheckModifyUtils {
 
     /**
      * 检查第三方 APK 文件（本地路径）签名是否在允许列表中。
-     * 传入的 `context` 仅用于获取 `PackageManager`
+     * 传入的 `context` 仅用于获取 `PackageManager` 与结果缓存。
+     * 结果按 (路径, 大小, 修改时间, 允许列表) 缓存，文件变化后自动失效。
      * 返回 true 表示被修改或签名不匹配/无法获取签名。
      */
     fun isApkModified(context: Context, apkFilePath: String, acceptedSignatures: List<String>): Boolean {
-        val normalizedAccepted = acceptedSignatures
-            .map { normalizeHexSignature(it) }
-            .filter { it.isNotEmpty() }
-            .toSet()
+        val normalizedAccepted = normalizeAccepted(acceptedSignatures)
+        if (normalizedAccepted.isEmpty() || apkFilePath.isEmpty()) return true
+
+        val fingerprint = fileFingerprint(apkFilePath) ?: return true
+        return cachedVerdict(context, apkFilePath, "$fingerprint|${normalizedAccepted.sorted().joinToString(",")}") {
+            isModified(readArchiveSignatures(context, apkFilePath), normalizedAccepted)
+        }
+    }
+
+    /**
+     * 检查已安装应用的签名是否在允许列表中。
+     * 优先使用系统已校验过的 PackageInfo 中的签名，不再重新解析整个 APK；
+     * 结果按 (路径, 大小, 修改时间, versionCode, lastUpdateTime, 签名证书摘要, 允许列表) 缓存，
+     * 应用被替换或重新签名后自动失效。
+     */
+    fun isApkModified(context: Context, pkg: String, vararg acceptedSignatures: String): Boolean {
+        val normalizedAccepted = normalizeAccepted(acceptedSignatures.asList())
         if (normalizedAccepted.isEmpty()) return true
 
-        val signatures = try {
+        val pi = try {
+            context.packageManager.getPackageInfo(pkg, PackageManager.GET_SIGNING_CERTIFICATES)
+        } catch (_: Exception) {
+            null
+        } ?: return true
+        val apkFilePath = pi.applicationInfo?.sourceDir ?: return true
+        val fingerprint = fileFingerprint(apkFilePath) ?: return true
+        val certificates = signingCertificates(pi.signingInfo)
+
+        val key = installedVerdictKey(fingerprint, pi.longVersionCode, pi.lastUpdateTime, certificates, normalizedAccepted)
+        return cachedVerdict(context, pkg, key) {
+            val signatures = certificates.ifEmpty {
+                readArchiveSignatures(context, apkFilePath)
+            }
+            isModified(signatures, normalizedAccepted)
+        }
+    }
+
+    internal fun installedVerdictKey(
+        fingerprint: String,
+        versionCode: Long,
+        lastUpdateTime: Long,
+        certificates: List<ByteArray>,
+        normalizedAccepted: Set<String>
+    ): String {
+        return "$fingerprint|$versionCode|$lastUpdateTime|${certificatesDigest(certificates)}|${normalizedAccepted.sorted().joinToString(",")}"
+    }
+
+    /**
+     * 所有签名证书按顺序计算的 SHA-256，没有签名信息时为空串
+     */
+    private fun certificatesDigest(certificates: List<ByteArray>): String {
+        if (certificates.isEmpty()) return ""
+        val md = MessageDigest.getInstance("SHA-256")
+        for (cert in certificates) {
+            md.update(cert.size.toString().toByteArray())
+            md.update(':'.code.toByte())
+            md.update(cert)
+        }
+        return toHex(md.digest())
+    }
+
+    internal fun isModified(signatures: List<ByteArray>, normalizedAccepted: Set<String>): Boolean {
+        if (signatures.isEmpty()) return true
+
+        val md = MessageDigest.getInstance("SHA-256")
+        for (sig in signatures) {
+            val hex = toHex(md.digest(sig))
+            if (hex in normalizedAccepted) return false
+        }
+        return true
+    }
+
+    private fun readArchiveSignatures(context: Context, apkFilePath: String): List<ByteArray> {
+        return try {
             val pm = context.packageManager
             val pi = try {
                 pm.getPackageArchiveInfo(apkFilePath, PackageManager.GET_SIGNING_CERTIFICATES)
@@ -79,42 +156,73 @@ object CheckModifyUtils {
             // 某些 Android 版本需要设置以下两项以正确解析签名
             pi?.applicationInfo?.sourceDir = apkFilePath
             pi?.applicationInfo?.publicSourceDir = apkFilePath
-            val signingInfo = pi?.signingInfo
-            val certs = signingInfo?.let {
-                if (it.hasMultipleSigners()) it.apkContentsSigners else it.signingCertificateHistory
-            }
-            certs?.map { it.toByteArray() } ?: emptyList()
+            signingCertificates(pi?.signingInfo)
         } catch (_: Exception) {
             emptyList()
         }
+    }
 
-        if (signatures.isEmpty()) return true
-
-        for (sig in signatures) {
-            val hex = sha256Hex(sig)
-            if (hex in normalizedAccepted) return false
+    private fun signingCertificates(signingInfo: SigningInfo?): List<ByteArray> {
+        val certs = signingInfo?.let {
+            if (it.hasMultipleSigners()) it.apkContentsSigners else it.signingCertificateHistory
         }
-        return true
+        return certs?.map { it.toByteArray() } ?: emptyList()
     }
 
-    fun isApkModified(context: Context, pkg: String, vararg acceptedSignatures: String): Boolean {
-        return isApkModified(context, getApkFilePath(context, pkg), acceptedSignatures.asList())
+    private fun fileFingerprint(path: String): String? {
+        val file = File(path)
+        if (!file.isFile) return null
+        return "$path|${file.length()}|${file.lastModified()}"
     }
 
-    private fun getApkFilePath(context: Context, pkg: String): String {
-        return try {
-            val pm = context.packageManager
-            val ai = pm.getApplicationInfo(pkg, 0)
-            ai.sourceDir ?: ""
+    /**
+     * 只清空内存中的结论，持久化缓存保留，下一次查询相当于新进程中的首次查询
+     */
+    internal fun clearVerdictCache() {
+        verdictCache.clear()
+    }
+
+    /**
+     * 先查内存，再查持久化缓存，均未命中时计算并写回
+     */
+    private inline fun cachedVerdict(context: Context, name: String, key: String, compute: () -> Boolean): Boolean {
+        verdictCache[name]?.let { if (it.first == key) return it.second }
+
+        val prefs = try {
+            context.getSharedPreferences(VERDICT_PREFS, Context.MODE_PRIVATE)
         } catch (_: Exception) {
-            ""
+            null
         }
+        if (prefs != null && prefs.getString("$name$KEY_SUFFIX", null) == key) {
+            val verdict = prefs.getBoolean(name, true)
+            verdictCache[name] = key to verdict
+            return verdict
+        }
+
+        val verdict = compute()
+        verdictCache[name] = key to verdict
+        prefs?.edit()
+            ?.putString("$name$KEY_SUFFIX", key)
+            ?.putBoolean(name, verdict)
+            ?.apply()
+        return verdict
     }
 
-    private fun sha256Hex(bytes: ByteArray): String {
-        val md = MessageDigest.getInstance("SHA-256")
-        val digest = md.digest(bytes)
-        return digest.joinToString("") { "%02X".format(it) }
+    private fun toHex(bytes: ByteArray): String {
+        val out = CharArray(bytes.size * 2)
+        for (i in bytes.indices) {
+            val v = bytes[i].toInt() and 0xFF
+            out[i * 2] = HEX_DIGITS[v ushr 4]
+            out[i * 2 + 1] = HEX_DIGITS[v and 0x0F]
+        }
+        return String(out)
+    }
+
+    internal fun normalizeAccepted(acceptedSignatures: List<String>): Set<String> {
+        return acceptedSignatures
+            .map { normalizeHexSignature(it) }
+            .filter { it.isNotEmpty() }
+            .toSet()
     }
 
     private fun normalizeHexSignature(s: String): String {
@@ -0,0 +1,46 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.appbase.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+public class InputMethodConfigTest {
+
+    @Test
+    public void parsesPackagesAndDropsSubtypes() {
+        Set<String> packages = InputMethodConfig.parseEnabledInputMethodPackages(
+            "com.sohu.inputmethod.sogou.xiaomi/.SogouIME;-921088104:com.google.android.inputmethod.latin/"
+                + "com.android.inputmethod.latin.LatinIME;1891618174;-1:com.baidu.input_mi/.ImeService");
+        assertEquals(List.of("com.sohu.inputmethod.sogou.xiaomi", "com.google.android.inputmethod.latin",
+            "com.baidu.input_mi"), List.copyOf(packages));
+    }
+
+    @Test
+    public void emptyOrMalformedValuesYieldNoPackages() {
+        assertTrue(InputMethodConfig.parseEnabledInputMethodPackages(null).isEmpty());
+        assertTrue(InputMethodConfig.parseEnabledInputMethodPackages("").isEmpty());
+        assertTrue(InputMethodConfig.parseEnabledInputMethodPackages("::/.NoPackage:garbage").isEmpty());
+    }
+}
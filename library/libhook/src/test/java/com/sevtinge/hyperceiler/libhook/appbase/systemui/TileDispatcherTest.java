@@ -0,0 +1,347 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.appbase.systemui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.libxposed.api.XposedInterface;
+
+/**
+ * 模拟 40 个原生磁贴与 6 个自定义磁贴，统计每次调用经过的拦截器数量：
+ * 原先每个自定义磁贴各自 Hook 并按附加字段比对磁贴名，现在每个方法只有一个分发 Hook
+ */
+public class TileDispatcherTest {
+    private static final int STOCK_TILES = 40;
+
+    // 宿主磁贴类：handleUpdateState 各自声明，handleLongClick 只在基类声明
+    public static class QSTileImpl {
+        String spec;
+        int updates;
+        int longClicks;
+
+        public void handleLongClick(Object expandable) {
+            longClicks++;
+        }
+
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class NfcTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class ScreenLockTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class NightModeTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class QuietModeTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class PowerSaverTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    public static class OtherTile extends QSTileImpl {
+        @Override
+        public void handleUpdateState(Object state, Object arg) {
+            updates++;
+        }
+    }
+
+    private static final Class<?>[] HOST_CLASSES = {
+        NfcTile.class, ScreenLockTile.class, NightModeTile.class, QuietModeTile.class, PowerSaverTile.class
+    };
+
+    // 自定义磁贴名与所借用的宿主磁贴类，两个自定义磁贴共用 NightModeTile
+    private static final Map<String, Class<?>> CUSTOM = new LinkedHashMap<>();
+
+    static {
+        CUSTOM.put("custom_5G", NfcTile.class);
+        CUSTOM.put("custom_GMS", ScreenLockTile.class);
+        CUSTOM.put("custom_GuidedAccess", NightModeTile.class);
+        CUSTOM.put("taplus_tile", NightModeTile.class);
+        CUSTOM.put("custom_SnowLeopardMode", QuietModeTile.class);
+        CUSTOM.put("custom_SunlightMode", PowerSaverTile.class);
+    }
+
+    private final Map<Method, List<XposedInterface.Hooker>> mHooks = new HashMap<>();
+    private final List<QSTileImpl> mStock = new ArrayList<>();
+    private final List<QSTileImpl> mCustom = new ArrayList<>();
+    private TileDispatcher.Installer mSavedInstaller;
+    private int mInterceptorCalls;
+    private int mFieldLookups;
+    private int mHandled;
+
+    @Before
+    public void setUp() throws Exception {
+        mSavedInstaller = TileDispatcher.sInstaller;
+        TileDispatcher.sInstaller = (method, hooker) ->
+            mHooks.computeIfAbsent(method, k -> new ArrayList<>()).add(hooker);
+        for (int i = 0; i < STOCK_TILES; i++) {
+            Class<?> clazz = i < HOST_CLASSES.length ? HOST_CLASSES[i] : OtherTile.class;
+            mStock.add(newTile(clazz, "stock" + i));
+        }
+        for (Map.Entry<String, Class<?>> entry : CUSTOM.entrySet()) {
+            mCustom.add(newTile(entry.getValue(), entry.getKey()));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TileDispatcher.clear();
+        TileDispatcher.sInstaller = mSavedInstaller;
+    }
+
+    @Test
+    public void interceptorCallsPerHandleUpdateState() throws Throwable {
+        // 原先：每个自定义磁贴在所借用类的方法上各装一个 Hook，调用时读附加字段比对磁贴名
+        Map<Object, String> extraField = new IdentityHashMap<>();
+        for (QSTileImpl tile : mCustom) extraField.put(tile, tile.spec);
+        for (Map.Entry<String, Class<?>> entry : CUSTOM.entrySet()) {
+            String name = entry.getKey();
+            XposedInterface.Hooker legacy = chain -> {
+                Object result = chain.proceed();
+                mFieldLookups++;
+                if (name.equals(extraField.get(chain.getThisObject()))) mHandled++;
+                return result;
+            };
+            TileDispatcher.sInstaller.install(declared(entry.getValue(), "handleUpdateState"), legacy);
+            TileDispatcher.sInstaller.install(declared(QSTileImpl.class, "handleLongClick"), legacy);
+        }
+        Counts legacyUpdate = refresh("handleUpdateState");
+        Counts legacyLongClick = refresh("handleLongClick");
+        assertEquals(12, hookCount());
+
+        // 现在：每个方法一个分发 Hook，磁贴创建时绑定所属者
+        mHooks.clear();
+        registerCustomTiles();
+        Counts update = refresh("handleUpdateState");
+        Counts longClick = refresh("handleLongClick");
+        // 5 个宿主类各自声明的 handleUpdateState 与基类继承的 handleLongClick
+        assertEquals(6, hookCount());
+
+        System.out.printf("handleUpdateState per call: stock %.3f -> %.3f interceptors (%d -> %d field lookups), "
+                + "custom %.2f -> %.2f%n",
+            legacyUpdate.stockPerCall(), update.stockPerCall(), legacyUpdate.stockLookups, update.stockLookups,
+            legacyUpdate.customPerCall(), update.customPerCall());
+        System.out.printf("handleLongClick per call: stock %.3f -> %.3f interceptors (%d -> %d field lookups), "
+                + "custom %.2f -> %.2f%n",
+            legacyLongClick.stockPerCall(), longClick.stockPerCall(), legacyLongClick.stockLookups,
+            longClick.stockLookups, legacyLongClick.customPerCall(), longClick.customPerCall());
+
+        // 原生 NightModeTile 原先经过两个自定义磁贴的 Hook，现在只经过一个分发 Hook
+        assertEquals(6, legacyUpdate.stockCalls);
+        assertEquals(5, update.stockCalls);
+        assertEquals(8, legacyUpdate.customCalls);
+        assertEquals(6, update.customCalls);
+        // 基类方法上的 Hook 原先每个磁贴都要经过 6 次，现在 1 次，且原生磁贴不再读附加字段
+        assertEquals(STOCK_TILES * 6, legacyLongClick.stockCalls);
+        assertEquals(STOCK_TILES, longClick.stockCalls);
+        assertEquals(STOCK_TILES * 6, legacyLongClick.stockLookups);
+        assertEquals(0, longClick.stockLookups);
+    }
+
+    @Test
+    public void routesOnlyToTheBoundOwner() throws Throwable {
+        Map<String, TileUtils> owners = registerCustomTiles();
+        for (QSTileImpl tile : mCustom) assertSame(owners.get(tile.spec), TileDispatcher.ownerOf(tile));
+        for (QSTileImpl tile : mStock) assertNull(TileDispatcher.ownerOf(tile));
+        assertTrue(!TileDispatcher.bind(new Object(), "unknown_tile"));
+
+        refresh("handleUpdateState");
+        refresh("handleLongClick");
+        // 自定义磁贴由处理者接管，原生磁贴执行原方法
+        for (QSTileImpl tile : mCustom) {
+            assertEquals(0, tile.updates);
+            assertEquals(0, tile.longClicks);
+        }
+        for (QSTileImpl tile : mStock) {
+            assertEquals(1, tile.updates);
+            assertEquals(1, tile.longClicks);
+        }
+        assertEquals(mCustom.size() * 2, mHandled);
+
+        // 重复绑定只保留一条，清空后不再命中
+        QSTileImpl first = mCustom.get(0);
+        assertTrue(TileDispatcher.bind(first, first.spec));
+        assertSame(owners.get(first.spec), TileDispatcher.ownerOf(first));
+        TileDispatcher.clear();
+        assertNull(TileDispatcher.ownerOf(first));
+    }
+
+    private Map<String, TileUtils> registerCustomTiles() {
+        Map<String, TileUtils> owners = new HashMap<>();
+        for (Map.Entry<String, Class<?>> entry : CUSTOM.entrySet()) {
+            String name = entry.getKey();
+            TileUtils owner = new TestTile();
+            owners.put(name, owner);
+            TileDispatcher.registerOwner(name, owner);
+            XposedInterface.Hooker handler = chain -> {
+                assertEquals(name, ((QSTileImpl) chain.getThisObject()).spec);
+                mHandled++;
+                return null;
+            };
+            TileDispatcher.register(declared(entry.getValue(), "handleUpdateState"), owner, handler);
+            TileDispatcher.register(declared(QSTileImpl.class, "handleLongClick"), owner, handler);
+        }
+        for (QSTileImpl tile : mCustom) assertTrue(TileDispatcher.bind(tile, tile.spec));
+        return owners;
+    }
+
+    private Counts refresh(String methodName) throws Throwable {
+        Counts counts = new Counts();
+        for (QSTileImpl tile : mStock) {
+            mInterceptorCalls = 0;
+            mFieldLookups = 0;
+            invoke(tile, methodName);
+            counts.stockCalls += mInterceptorCalls;
+            counts.stockLookups += mFieldLookups;
+        }
+        for (QSTileImpl tile : mCustom) {
+            mInterceptorCalls = 0;
+            invoke(tile, methodName);
+            counts.customCalls += mInterceptorCalls;
+        }
+        return counts;
+    }
+
+    /**
+     * 按虚方法分派找到实际执行的声明，依次经过该声明上安装的拦截器
+     */
+    private void invoke(QSTileImpl tile, String methodName) throws Throwable {
+        Method method = null;
+        for (Class<?> c = tile.getClass(); method == null; c = c.getSuperclass()) {
+            method = declaredOrNull(c, methodName);
+        }
+        Object[] args = method.getParameterCount() == 1 ? new Object[]{null} : new Object[]{null, null};
+        chain(tile, method, args, mHooks.getOrDefault(method, List.of()), 0).proceed();
+    }
+
+    /**
+     * 以动态代理实现 Chain，只支持分发器与测试用到的方法
+     */
+    private XposedInterface.Chain chain(Object self, Method method, Object[] args,
+                                        List<XposedInterface.Hooker> hookers, int index) {
+        return (XposedInterface.Chain) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{XposedInterface.Chain.class}, (proxy, called, callArgs) -> switch (called.getName()) {
+                case "getThisObject" -> self;
+                case "getArgs" -> Arrays.asList(args);
+                case "getArg" -> args[(int) callArgs[0]];
+                case "proceed" -> {
+                    if (index < hookers.size()) {
+                        mInterceptorCalls++;
+                        yield hookers.get(index).intercept(chain(self, method, args, hookers, index + 1));
+                    }
+                    yield method.invoke(self, args);
+                }
+                default -> throw new UnsupportedOperationException(called.getName());
+            });
+    }
+
+    private int hookCount() {
+        int count = 0;
+        for (List<XposedInterface.Hooker> hookers : mHooks.values()) count += hookers.size();
+        return count;
+    }
+
+    private static QSTileImpl newTile(Class<?> clazz, String spec) throws Exception {
+        QSTileImpl tile = (QSTileImpl) clazz.getConstructor().newInstance();
+        tile.spec = spec;
+        return tile;
+    }
+
+    private static Method declared(Class<?> clazz, String name) {
+        Method method = declaredOrNull(clazz, name);
+        if (method == null) throw new AssertionError(clazz + "." + name);
+        return method;
+    }
+
+    private static Method declaredOrNull(Class<?> clazz, String name) {
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.getName().equals(name)) return method;
+        }
+        return null;
+    }
+
+    private static final class Counts {
+        int stockCalls;
+        int stockLookups;
+        int customCalls;
+
+        double stockPerCall() {
+            return stockCalls / (double) STOCK_TILES;
+        }
+
+        double customPerCall() {
+            return customCalls / (double) CUSTOM.size();
+        }
+    }
+
+    /**
+     * 仅作为路由表中的所属者标识
+     */
+    private static final class TestTile extends TileUtils {
+        @NonNull
+        @Override
+        protected TileConfig onCreateTileConfig() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.libxposed.api.XposedInterface;
+import io.github.lingqiqi5211.ezhooktool.xposed.common.HookParam;
+import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
+
+public class NestedHookGuardTest {
+
+    private final AtomicInteger mInstalled = new AtomicInteger();
+    private final AtomicInteger mUnhooked = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        NestedHookGuard.clear();
+    }
+
+    @Test
+    public void registrationOutsideCallbackIsNotDeduplicated() {
+        IMethodHook callback = new IMethodHook() {
+        };
+        register(callback);
+        register(callback);
+        assertEquals(2, mInstalled.get());
+        assertFalse(NestedHookGuard.isInHookCallback());
+    }
+
+    @Test
+    public void sameInstanceInsideCallbackIsInstalledOnce() throws Throwable {
+        IMethodHook callback = new IMethodHook() {
+        };
+        XposedInterface.HookHandle[] handles = new XposedInterface.HookHandle[2];
+        runInCallback(() -> {
+            handles[0] = register(callback);
+            handles[1] = register(callback);
+        });
+        assertEquals(1, mInstalled.get());
+        assertSame(handles[0], handles[1]);
+    }
+
+    @Test
+    public void freshInstancePerInflationIsInstalledOnce() throws Throwable {
+        // 旧写法：每次 inflate 都在回调内新建同一匿名类的实例并注册
+        XposedInterface.HookHandle[] first = new XposedInterface.HookHandle[1];
+        for (int i = 0; i < 100; i++) {
+            int captured = i;
+            runInCallback(() -> {
+                XposedInterface.HookHandle handle = register(new IMethodHook() {
+                    @Override
+                    public void after(HookParam param) {
+                        param.getArgs()[0] = captured;
+                    }
+                });
+                if (first[0] == null) first[0] = handle;
+                assertSame(first[0], handle);
+            });
+        }
+        assertEquals(1, mInstalled.get());
+    }
+
+    @Test
+    public void differentCallbackClassesAreInstalledSeparately() throws Throwable {
+        runInCallback(() -> {
+            register(new IMethodHook() {
+            });
+            register(new IMethodHook() {
+            });
+        });
+        assertEquals(2, mInstalled.get());
+    }
+
+    @Test
+    public void unhookedHandleIsNotReturnedAgain() throws Throwable {
+        IMethodHook callback = new IMethodHook() {
+        };
+        runInCallback(() -> register(callback).unhook());
+        assertEquals(1, mUnhooked.get());
+
+        runInCallback(() -> register(callback));
+        assertEquals(2, mInstalled.get());
+    }
+
+    @Test
+    public void unhookingOneHandleOfABatchAllowsReinstall() throws Throwable {
+        IMethodHook callback = new IMethodHook() {
+        };
+        List<Object> key = NestedHookGuard.keyOf(String.class, "length", callback);
+        runInCallback(() -> {
+            List<XposedInterface.HookHandle> handles =
+                NestedHookGuard.registerHandles(key, () -> Arrays.asList(newHandle(), newHandle()));
+            assertSame(handles, NestedHookGuard.registerHandles(key, () -> {
+                fail("should be deduplicated");
+                return null;
+            }));
+            handles.get(1).unhook();
+            NestedHookGuard.registerHandles(key, () -> Arrays.asList(newHandle(), newHandle()));
+        });
+        assertEquals(4, mInstalled.get());
+        assertEquals(1, mUnhooked.get());
+    }
+
+    @Test
+    public void depthIsRestoredWhenCallbackThrows() {
+        IMethodHook guarded = NestedHookGuard.guard(new IMethodHook() {
+            @Override
+            public void before(HookParam param) {
+                assertTrue(NestedHookGuard.isInHookCallback());
+                throw new IllegalStateException();
+            }
+        });
+        try {
+            guarded.before(null);
+            fail();
+        } catch (Throwable expected) {
+            assertTrue(expected instanceof IllegalStateException);
+        }
+        assertFalse(NestedHookGuard.isInHookCallback());
+    }
+
+    private XposedInterface.HookHandle register(IMethodHook callback) {
+        return NestedHookGuard.registerHandle(NestedHookGuard.keyOf(String.class, "length", callback), this::newHandle);
+    }
+
+    private XposedInterface.HookHandle newHandle() {
+        mInstalled.incrementAndGet();
+        return (XposedInterface.HookHandle) Proxy.newProxyInstance(
+            XposedInterface.HookHandle.class.getClassLoader(),
+            new Class<?>[]{XposedInterface.HookHandle.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("unhook")) mUnhooked.incrementAndGet();
+                return null;
+            });
+    }
+
+    private static void runInCallback(Runnable body) throws Throwable {
+        NestedHookGuard.guard(new IMethodHook() {
+            @Override
+            public void before(HookParam param) {
+                body.run();
+            }
+        }).before(null);
+    }
+}
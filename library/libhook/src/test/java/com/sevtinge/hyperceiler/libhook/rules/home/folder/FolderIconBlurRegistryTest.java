@@ -0,0 +1,111 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.home.folder;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.ImageView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.lingqiqi5211.ezhooktool.xposed.java.IMethodHook;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class FolderIconBlurRegistryTest {
+
+    private static final int INFLATIONS = 100;
+
+    private final Map<String, IMethodHook> mHooks = new HashMap<>();
+    private final List<View> mBlurViews = new ArrayList<>();
+    private final List<ImageView> mIconViews = new ArrayList<>();
+    private int mInstalled;
+
+    @Before
+    public void setUp() {
+        FolderIconBlurRegistry.reset();
+    }
+
+    @After
+    public void tearDown() {
+        FolderIconBlurRegistry.reset();
+    }
+
+    @Test
+    public void hookCountStaysConstantAcrossInflations() {
+        Context context = RuntimeEnvironment.getApplication();
+        for (int i = 0; i < INFLATIONS; i++) {
+            inflate(context);
+            assertEquals(4, mInstalled);
+        }
+        assertEquals(List.of("closeFolder", "onStateSetStart", "openFolder", "showEditPanel"),
+            mHooks.keySet().stream().sorted().toList());
+    }
+
+    @Test
+    public void sharedHooksReachEveryInflatedIcon() throws Throwable {
+        Context context = RuntimeEnvironment.getApplication();
+        for (int i = 0; i < INFLATIONS; i++) {
+            inflate(context);
+        }
+
+        // openFolder / closeFolder 的回调不读取参数
+        mHooks.get("openFolder").after(null);
+        for (View view : mBlurViews) {
+            assertEquals(View.GONE, view.getVisibility());
+        }
+
+        mHooks.get("closeFolder").after(null);
+        for (View view : mBlurViews) {
+            assertEquals(View.VISIBLE, view.getVisibility());
+        }
+        for (ImageView view : mIconViews) {
+            assertEquals(View.GONE, view.getVisibility());
+        }
+    }
+
+    /**
+     * 模拟一次文件夹图标 inflate：规则在回调中确保安装共享 Hook，再登记自己的视图
+     */
+    private void inflate(Context context) {
+        FolderIconBlurRegistry.install(name -> Object.class, (clazz, methodName, parameterTypesAndCallback) -> {
+            mInstalled++;
+            mHooks.put(methodName, (IMethodHook) parameterTypesAndCallback[parameterTypesAndCallback.length - 1]);
+        });
+        View blurView = new View(context);
+        ImageView iconView = new ImageView(context);
+        iconView.setVisibility(View.GONE);
+        mBlurViews.add(blurView);
+        mIconViews.add(iconView);
+        FolderIconBlurRegistry.register(blurView, iconView);
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemframework.freeform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.util.Pair;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Rect 与 Pair 在可模拟的 android.jar 中没有实现，需在 Robolectric 下运行
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class FloatingWindowStoreTest {
+
+    @Test
+    public void encodeWritesVersionedEntries() {
+        Map<String, Pair<Float, Rect>> apps = new LinkedHashMap<>();
+        apps.put("com.example.a", new Pair<>(0.5f, new Rect(10, 20, 300, 400)));
+        apps.put("com.example.b", new Pair<>(1f, null));
+        apps.put("com.example.c", new Pair<>(null, new Rect(-5, 0, 5, 10)));
+
+        assertEquals("2;com.example.a,0.5,10,20,300,400;com.example.b,1.0;com.example.c,0.0,-5,0,5,10",
+            FloatingWindowStore.encode(apps));
+    }
+
+    @Test
+    public void encodeEmptyMapWritesOnlyVersion() {
+        String encoded = FloatingWindowStore.encode(new LinkedHashMap<>());
+        assertEquals("2;", encoded);
+
+        Map<String, Pair<Float, Rect>> decoded = new LinkedHashMap<>();
+        decoded.put("stale", new Pair<>(1f, null));
+        FloatingWindowStore.decode(encoded, decoded);
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    public void decodeRestoresEncodedRecords() {
+        Map<String, Pair<Float, Rect>> apps = new LinkedHashMap<>();
+        apps.put("com.example.a", new Pair<>(0.75f, new Rect(0, 100, 720, 1380)));
+        apps.put("com.example.b", new Pair<>(0.6f, null));
+
+        Map<String, Pair<Float, Rect>> decoded = new LinkedHashMap<>();
+        FloatingWindowStore.decode(FloatingWindowStore.encode(apps), decoded);
+        assertEquals(apps, decoded);
+    }
+
+    @Test
+    public void decodeReadsLegacyFormat() {
+        Map<String, Pair<Float, Rect>> decoded = new LinkedHashMap<>();
+        FloatingWindowStore.decode("com.example.a:0.5:10 20 300 400|com.example.b:1.0:-", decoded);
+
+        assertEquals(2, decoded.size());
+        assertEquals(0.5f, decoded.get("com.example.a").first, 0f);
+        assertEquals(new Rect(10, 20, 300, 400), decoded.get("com.example.a").second);
+        assertEquals(1f, decoded.get("com.example.b").first, 0f);
+        assertNull(decoded.get("com.example.b").second);
+    }
+
+    @Test
+    public void decodeSkipsMalformedEntries() {
+        Map<String, Pair<Float, Rect>> decoded = new LinkedHashMap<>();
+        FloatingWindowStore.decode("2;com.example.a,0.5;com.example.b,x;com.example.c;;com.example.d,1.0,1,2,3,4",
+            decoded);
+
+        assertEquals(2, decoded.size());
+        assertEquals(new Pair<>(0.5f, null), decoded.get("com.example.a"));
+        assertEquals(new Pair<>(1f, new Rect(1, 2, 3, 4)), decoded.get("com.example.d"));
+    }
+
+    @Test
+    public void decodeReplacesExistingRecords() {
+        Map<String, Pair<Float, Rect>> decoded = new LinkedHashMap<>();
+        decoded.put("com.example.old", new Pair<>(1f, null));
+
+        FloatingWindowStore.decode("2;com.example.new,0.8", decoded);
+        assertEquals(1, decoded.size());
+        assertEquals(new Pair<>(0.8f, null), decoded.get("com.example.new"));
+
+        FloatingWindowStore.decode(null, decoded);
+        assertTrue(decoded.isEmpty());
+    }
+
+    @Test
+    public void resizeBurstIsWrittenOnceAfterIdle() {
+        Map<String, Pair<Float, Rect>> apps = new ConcurrentHashMap<>();
+        FakeScheduler scheduler = new FakeScheduler();
+        List<Write> writes = new ArrayList<>();
+        FloatingWindowStore store = new FloatingWindowStore(apps, scheduler,
+            (context, encoded) -> writes.add(new Write(SystemClock.uptimeMillis(), encoded)));
+        Context context = RuntimeEnvironment.getApplication();
+
+        // 500 次 resizeTask，间隔 8ms，总时长不到 MAX_WRITE_DELAY_MS
+        long lastEvent = 0;
+        for (int i = 0; i < 500; i++) {
+            scheduler.advanceBy(8);
+            apps.put("com.example.a", new Pair<>(0.5f, new Rect(i, i, 300 + i, 400 + i)));
+            store.markDirty(context);
+            lastEvent = SystemClock.uptimeMillis();
+        }
+        assertTrue(writes.isEmpty());
+
+        scheduler.advanceBy(FloatingWindowStore.MAX_WRITE_DELAY_MS);
+        assertEquals(1, writes.size());
+        assertEquals(lastEvent + FloatingWindowStore.WRITE_DELAY_MS, writes.get(0).time);
+        assertEquals("2;com.example.a,0.5,499,499,799,899", writes.get(0).encoded);
+    }
+
+    @Test
+    public void continuousResizeIsWrittenAtLeastEveryMaxDelay() {
+        Map<String, Pair<Float, Rect>> apps = new ConcurrentHashMap<>();
+        FakeScheduler scheduler = new FakeScheduler();
+        List<Write> writes = new ArrayList<>();
+        FloatingWindowStore store = new FloatingWindowStore(apps, scheduler,
+            (context, encoded) -> writes.add(new Write(SystemClock.uptimeMillis(), encoded)));
+        Context context = RuntimeEnvironment.getApplication();
+
+        // 12 秒内每 100ms 一次修改，修改从未停顿超过 WRITE_DELAY_MS
+        long firstEvent = -1;
+        for (int i = 0; i < 120; i++) {
+            scheduler.advanceBy(100);
+            apps.put("com.example.a", new Pair<>(0.5f, new Rect(0, 0, 100 + i, 100 + i)));
+            store.markDirty(context);
+            if (firstEvent < 0) firstEvent = SystemClock.uptimeMillis();
+        }
+        scheduler.advanceBy(FloatingWindowStore.MAX_WRITE_DELAY_MS);
+
+        // 第 5 秒、第 10 秒附近各因上限写入一次，停止后再写入一次
+        assertEquals(3, writes.size());
+        long previous = firstEvent;
+        for (int i = 0; i < 2; i++) {
+            long wait = writes.get(i).time - previous;
+            assertTrue("wait " + wait, wait >= FloatingWindowStore.MAX_WRITE_DELAY_MS - 100);
+            assertTrue("wait " + wait,
+                wait <= FloatingWindowStore.MAX_WRITE_DELAY_MS + FloatingWindowStore.WRITE_DELAY_MS);
+            previous = writes.get(i).time;
+        }
+        assertTrue(writes.get(2).encoded, writes.get(2).encoded.endsWith(",0,0,219,219"));
+    }
+
+    @Test
+    public void unchangedContentIsNotRewritten() {
+        Map<String, Pair<Float, Rect>> apps = new ConcurrentHashMap<>();
+        FakeScheduler scheduler = new FakeScheduler();
+        List<Write> writes = new ArrayList<>();
+        FloatingWindowStore store = new FloatingWindowStore(apps, scheduler,
+            (context, encoded) -> writes.add(new Write(SystemClock.uptimeMillis(), encoded)));
+        Context context = RuntimeEnvironment.getApplication();
+
+        apps.put("com.example.a", new Pair<>(1f, null));
+        store.markDirty(context);
+        store.flush();
+        // 拖回原位：内容与已写入的一致
+        store.markDirty(context);
+        scheduler.advanceBy(FloatingWindowStore.MAX_WRITE_DELAY_MS);
+        assertEquals(1, writes.size());
+    }
+
+    private record Write(long time, String encoded) {
+    }
+
+    /**
+     * 按 SystemClock 时间触发任务的调度器，由测试推进时间
+     */
+    private static final class FakeScheduler implements FloatingWindowStore.Scheduler {
+        private final List<Pair<Long, Runnable>> mTasks = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            mTasks.add(new Pair<>(SystemClock.uptimeMillis() + delayMs, task));
+        }
+
+        void advanceBy(long ms) {
+            long target = SystemClock.uptimeMillis() + ms;
+            while (true) {
+                Pair<Long, Runnable> next = null;
+                for (Pair<Long, Runnable> task : mTasks) {
+                    if (task.first <= target && (next == null || task.first < next.first)) next = task;
+                }
+                if (next == null) break;
+                mTasks.remove(next);
+                setTime(next.first);
+                next.second.run();
+            }
+            setTime(target);
+        }
+
+        private static void setTime(long time) {
+            long now = SystemClock.uptimeMillis();
+            if (time > now) ShadowSystemClock.advanceBy(Duration.ofMillis(time - now));
+        }
+    }
+}
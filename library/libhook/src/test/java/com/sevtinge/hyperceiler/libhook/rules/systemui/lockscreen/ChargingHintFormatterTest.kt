@@ -0,0 +1,115 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemui.lockscreen
+
+import com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry.INVALID_TEMPERATURE
+import com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry.INVALID_VALUE
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import java.math.BigDecimal
+import java.math.RoundingMode
+import java.util.Locale
+import kotlin.random.Random
+
+/**
+ * 覆盖充电提示在正常、缺失与异常采样下的文本
+ */
+class ChargingHintFormatterTest {
+
+    private lateinit var savedLocale: Locale
+
+    @Before
+    fun setUp() {
+        savedLocale = Locale.getDefault(Locale.Category.FORMAT)
+        Locale.setDefault(Locale.Category.FORMAT, Locale.US)
+    }
+
+    @After
+    fun tearDown() {
+        Locale.setDefault(Locale.Category.FORMAT, savedLocale)
+    }
+
+    private fun format(
+        temp: Int = 325,
+        current: Long = -1_500_000L,
+        voltage: Long = 4_400_000L,
+        showTemp: Boolean = true,
+        showMoreC: Boolean = false
+    ) = ChargingHintFormatter.format("hint", showTemp, showMoreC, temp, current, voltage)
+
+    @Test
+    fun charging() {
+        assertEquals("32.5 ℃ · hint\n1.5 A · 4.4 V · 6.60 W", format())
+        assertEquals("32.5 ℃ · hint\n1500 mA · 4.4 V · 6.60 W", format(showMoreC = true))
+        assertEquals("hint\n1.5 A · 4.4 V · 6.60 W", format(showTemp = false))
+    }
+
+    @Test
+    fun discharging() {
+        // 放电时功率为负，电流按绝对值展示
+        assertEquals("32.5 ℃ · hint\n0.5 A · 3.9 V · -1.95 W", format(current = 500_000L, voltage = 3_900_000L))
+        assertEquals("32.5 ℃ · hint\n-500 mA · 3.9 V · -1.95 W",
+            format(current = 500_000L, voltage = 3_900_000L, showMoreC = true))
+    }
+
+    @Test
+    fun negativeTemperature() {
+        assertEquals("-5.2 ℃ · hint\n", format(temp = -52, current = 0))
+        assertEquals("-0.5 ℃ · hint\n", format(temp = -5, current = 0))
+    }
+
+    @Test
+    fun missingSamples() {
+        // 温度读取失败按 0 展示，电流或电压读取失败时省略整行
+        assertEquals("0.0 ℃ · hint\n", format(temp = INVALID_TEMPERATURE, current = INVALID_VALUE))
+        assertEquals("32.5 ℃ · hint\n", format(voltage = INVALID_VALUE))
+        assertEquals("32.5 ℃ · hint\n", format(current = 0))
+    }
+
+    @Test
+    fun roundsHalfUpLikeBigDecimal() {
+        val random = Random(19)
+        repeat(2000) {
+            val current = -random.nextLong(1, 12_000_000L)
+            val voltage = random.nextLong(3_000_000L, 20_000_000L)
+            val amps = BigDecimal.valueOf(-current, 6).setScale(1, RoundingMode.HALF_UP)
+            val volts = BigDecimal.valueOf(voltage, 6).setScale(1, RoundingMode.HALF_UP)
+            val watts = BigDecimal.valueOf(-current).multiply(BigDecimal.valueOf(voltage))
+                .movePointLeft(12).setScale(2, RoundingMode.HALF_UP)
+            assertEquals("hint\n$amps A · $volts V · $watts W",
+                format(current = current, voltage = voltage, showTemp = false))
+        }
+        // 恰好位于一半处时进位
+        assertEquals("hint\n0.2 A · 1.0 V · 0.15 W", format(current = -150_000L, voltage = 1_000_000L, showTemp = false))
+    }
+
+    @Test
+    fun followsDefaultLocale() {
+        Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY)
+        assertEquals("hint\n1,5 A · 4,4 V · 6,60 W", format(showTemp = false))
+
+        val arabic = Locale.forLanguageTag("ar-EG")
+        Locale.setDefault(Locale.Category.FORMAT, arabic)
+        val expected = "hint\n" + String.format(arabic, "%.1f", 1.5) + " A · " +
+            String.format(arabic, "%.1f", 4.4) + " V · " + String.format(arabic, "%.2f", 6.6) + " W"
+        assertEquals(expected, format(showTemp = false))
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.clock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+public class ClockTextFormatterTest {
+
+    // 2024-01-01 12:34:00 UTC
+    private static final long MINUTE_START = 1704112440000L;
+
+    @Test
+    public void twoDigitSecondsMatchFullRender() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, "HH:mm:ss");
+        for (long now = MINUTE_START - 3_000L; now < MINUTE_START + 75_000L; now += 500L) {
+            assertEquals(calendar.expected("HH:mm:ss", now), formatter.format(null, now, false).toString());
+        }
+    }
+
+    @Test
+    public void singleDigitSecondsHaveNoPadding() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, "mm:s");
+        assertEquals("34:5", formatter.format(null, MINUTE_START + 5_000L, false).toString());
+        assertEquals("34:15", formatter.format(null, MINUTE_START + 15_000L, false).toString());
+        assertEquals("34:0", formatter.format(null, MINUTE_START, false).toString());
+    }
+
+    @Test
+    public void secondsOnlyRenderWithinSameMinute() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, "HH:mm:ss");
+        formatter.format(null, MINUTE_START, false);
+        int renders = calendar.formatCount;
+
+        for (int second = 1; second < 60; second++) {
+            formatter.format(null, MINUTE_START + second * 1000L, false);
+        }
+        assertEquals(renders, calendar.formatCount);
+
+        // 进入下一分钟只重新渲染秒以外的片段 "HH:mm:"，数字不再重新渲染
+        assertEquals("12:35:00", formatter.format(null, MINUTE_START + 60_000L, false).toString());
+        assertEquals(renders + 1, calendar.formatCount);
+    }
+
+    @Test
+    public void forceRendersAgainWithinSameMinute() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, "HH:mm:ss");
+        formatter.format(null, MINUTE_START, false);
+        int renders = calendar.formatCount;
+
+        calendar.setZone("GMT+08:00");
+        assertEquals("12:34:01", formatter.format(null, MINUTE_START + 1_000L, false).toString());
+        assertEquals("20:34:02", formatter.format(null, MINUTE_START + 2_000L, true).toString());
+        assertTrue(calendar.formatCount > renders);
+    }
+
+    @Test
+    public void quotedPatternRendersWholeEveryTime() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        String pattern = "HH:mm 'ss' ss";
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, pattern);
+        for (int second = 0; second < 3; second++) {
+            long now = MINUTE_START + second * 1000L;
+            assertEquals(calendar.expected(pattern, now), formatter.format(null, now, false).toString());
+        }
+        assertEquals(3, calendar.formatCount);
+    }
+
+    @Test
+    public void patternWithoutSecondsCachesPerMinute() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(calendar, "HH:mm");
+        assertEquals("12:34", formatter.format(null, MINUTE_START, false).toString());
+        assertEquals("12:34", formatter.format(null, MINUTE_START + 59_000L, false).toString());
+        assertEquals(1, calendar.formatCount);
+        assertEquals("12:35", formatter.format(null, MINUTE_START + 60_000L, false).toString());
+        assertEquals(2, calendar.formatCount);
+    }
+
+    @Test
+    public void calendarOfReadsInheritedField() throws Throwable {
+        FakeCalendar calendar = new FakeCalendar();
+        Object controller = new DerivedController(calendar);
+        Object found = ClockTextFormatter.calendarOf(controller);
+        assertSame(calendar, found);
+        assertTrue(ClockTextFormatter.create(found, "HH:mm").isFor(calendar));
+    }
+
+    /**
+     * 每秒一次 tick 的开销：逐次反射调用日历（原实现）与 ClockTextFormatter 对比
+     */
+    @Test
+    public void perTickBenchmark() throws Throwable {
+        String pattern = "HH:mm:ss";
+        int ticks = 3_600;
+        FakeCalendar reflective = new FakeCalendar();
+        FakeCalendar cached = new FakeCalendar();
+        ClockTextFormatter formatter = ClockTextFormatter.create(cached, pattern);
+
+        long sink = 0;
+        long reflectiveNanos = Long.MAX_VALUE;
+        long cachedNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                sink += reflectiveTick(reflective, pattern, MINUTE_START + i * 1000L).length();
+            }
+            reflectiveNanos = Math.min(reflectiveNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < ticks; i++) {
+                sink += formatter.format(null, MINUTE_START + i * 1000L, false).length();
+            }
+            cachedNanos = Math.min(cachedNanos, System.nanoTime() - start);
+        }
+        int reflectiveRenders = reflective.formatCount / 10;
+        // 首次渲染的 10 个数字之后，每分钟只渲染一次 "HH:mm:"
+        int cachedTotal = cached.formatCount;
+        int cachedRenders = (cachedTotal - 10) / 10;
+
+        // 同一分钟内的 tick 只拼接秒数字，不应分配对象
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        formatter.format(null, MINUTE_START, false);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < 1_000; round++) {
+            for (int second = 0; second < 60; second++) {
+                sink += formatter.format(null, MINUTE_START + second * 1000L, false).length();
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        System.out.printf("ClockTextFormatter per tick: reflective %.0f ns (%d renders/hour), "
+                + "cached %.0f ns (%d renders/hour), %d bytes over 60000 in-minute ticks (sink %d)%n",
+            reflectiveNanos / (double) ticks, reflectiveRenders,
+            cachedNanos / (double) ticks, cachedRenders, allocated, sink);
+
+        assertEquals(ticks, reflectiveRenders);
+        assertEquals(10 + 10 * (ticks / 60), cachedTotal);
+        assertTrue(cachedNanos < reflectiveNanos);
+        assertTrue(allocated < 64 * 1024);
+    }
+
+    private static CharSequence reflectiveTick(Object calendar, String pattern, long now) throws Exception {
+        Method setTime = calendar.getClass().getDeclaredMethod("setTimeInMillis", long.class);
+        setTime.setAccessible(true);
+        setTime.invoke(calendar, now);
+        Method format = calendar.getClass()
+            .getDeclaredMethod("format", Context.class, StringBuilder.class, CharSequence.class);
+        format.setAccessible(true);
+        StringBuilder out = new StringBuilder();
+        format.invoke(calendar, null, out, new StringBuilder(pattern));
+        return out;
+    }
+
+    /**
+     * 模拟宿主日历，format 的模式参数声明为 CharSequence
+     */
+    static final class FakeCalendar {
+        private final SimpleDateFormat mFormat = new SimpleDateFormat("", Locale.ROOT);
+        private long mMillis;
+        int formatCount;
+
+        FakeCalendar() {
+            setZone("UTC");
+        }
+
+        void setZone(String zone) {
+            mFormat.setTimeZone(TimeZone.getTimeZone(zone));
+        }
+
+        public void setTimeInMillis(long millis) {
+            mMillis = millis;
+        }
+
+        public void format(Context context, StringBuilder out, CharSequence pattern) {
+            formatCount++;
+            mFormat.applyPattern(pattern.toString());
+            out.append(mFormat.format(mMillis));
+        }
+
+        String expected(String pattern, long millis) {
+            SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ROOT);
+            format.setTimeZone(mFormat.getTimeZone());
+            return format.format(millis);
+        }
+    }
+
+    static class BaseController {
+        @SuppressWarnings("unused")
+        private final Object mCalendar;
+
+        BaseController(Object calendar) {
+            mCalendar = calendar;
+        }
+    }
+
+    static final class DerivedController extends BaseController {
+        DerivedController(Object calendar) {
+            super(calendar);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.rules.systemui.statusbar.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NetworkTrafficSamplerTest {
+
+    private static final String HEADER =
+        "Inter-|   Receive                                                |  Transmit\n"
+            + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n";
+
+    private final Map<String, Byte> mStates = new HashMap<>();
+    private final Map<String, Integer> mClassifyCount = new HashMap<>();
+    private File mFile;
+    private NetworkTrafficSampler mSampler;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("net_dev", null);
+        mSampler = new NetworkTrafficSampler(mFile.getPath(), name -> {
+            mClassifyCount.merge(name, 1, Integer::sum);
+            return mStates.getOrDefault(name, NetworkTrafficSampler.INACTIVE);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        mSampler.close();
+        mFile.delete();
+    }
+
+    @Test
+    public void sumsActiveInterfacesOnly() throws IOException {
+        mStates.put("lo", NetworkTrafficSampler.EXCLUDED);
+        mStates.put("wlan0", NetworkTrafficSampler.ACTIVE);
+        mStates.put("rmnet_data0", NetworkTrafficSampler.ACTIVE);
+        writeDev(line("lo", 1000, 1000), line("wlan0", 200, 20), line("rmnet_data0", 300, 30), line("dummy0", 7, 7));
+
+        assertTrue(mSampler.sample());
+        assertEquals(500, mSampler.getRxBytes());
+        assertEquals(50, mSampler.getTxBytes());
+    }
+
+    @Test
+    public void inactiveInterfaceIsCountedAfterInvalidate() throws IOException {
+        writeDev(line("wlan0", 200, 20));
+        assertTrue(mSampler.sample());
+        assertEquals(0, mSampler.getRxBytes());
+
+        // 网卡启用后，在链路状态失效前仍沿用缓存结果
+        mStates.put("wlan0", NetworkTrafficSampler.ACTIVE);
+        assertTrue(mSampler.sample());
+        assertEquals(0, mSampler.getRxBytes());
+
+        mSampler.invalidateLinkState();
+        assertTrue(mSampler.sample());
+        assertEquals(200, mSampler.getRxBytes());
+        assertEquals(20, mSampler.getTxBytes());
+
+        // 网卡停用后同样在失效时重新判断
+        mStates.put("wlan0", NetworkTrafficSampler.INACTIVE);
+        mSampler.invalidateLinkState();
+        assertTrue(mSampler.sample());
+        assertEquals(0, mSampler.getRxBytes());
+    }
+
+    @Test
+    public void excludedInterfaceIsNotReclassified() throws IOException {
+        mStates.put("lo", NetworkTrafficSampler.EXCLUDED);
+        writeDev(line("lo", 1000, 1000));
+        assertTrue(mSampler.sample());
+        mSampler.invalidateLinkState();
+        assertTrue(mSampler.sample());
+
+        assertEquals(1, (int) mClassifyCount.get("lo"));
+        assertEquals(0, mSampler.getRxBytes());
+    }
+
+    @Test
+    public void sampleFailsWhenFileIsMissing() {
+        mFile.delete();
+        assertFalse(mSampler.sample());
+    }
+
+    private void writeDev(String... lines) throws IOException {
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (String line : lines) sb.append(line);
+        Files.write(mFile.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String line(String name, long rx, long tx) {
+        return String.format("%6s: %d 10 0 0 0 0 0 0 %d 10 0 0 0 0 0 0\n", name, rx, tx);
+    }
+}
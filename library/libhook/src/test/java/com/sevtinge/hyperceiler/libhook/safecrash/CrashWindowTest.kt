@@ -0,0 +1,150 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.safecrash
+
+import com.sevtinge.hyperceiler.libhook.safecrash.CrashWindow.Companion.TRIGGER_INTERVAL
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+/**
+ * 覆盖崩溃风暴下的写回次数与触发判断
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class CrashWindowTest {
+
+    private class FakeStore(var value: String? = null) : CrashWindow.Store {
+        var reads = 0
+        var writes = 0
+
+        override fun read(): String? {
+            reads++
+            return value
+        }
+
+        override fun write(json: String) {
+            writes++
+            value = json
+        }
+    }
+
+    /** 只排队不执行，由测试决定延迟写回何时发生 */
+    private class FakeScheduler : (Runnable) -> Unit {
+        val pending = ArrayList<Runnable>()
+
+        override fun invoke(task: Runnable) {
+            pending.add(task)
+        }
+
+        fun runAll() {
+            val tasks = ArrayList(pending)
+            pending.clear()
+            tasks.forEach { it.run() }
+        }
+    }
+
+    @Test
+    fun crashStormIsPersistedOnce() {
+        val store = FakeStore()
+        val scheduler = FakeScheduler()
+        val window = CrashWindow(store, scheduler)
+
+        // 200 个进程各崩溃两次，均未达到触发条件
+        for (round in 0 until 2) {
+            for (i in 0 until 200) {
+                assertFalse(window.onCrash("com.example.p$i", 1000L + round * 100 + i))
+            }
+        }
+        assertEquals(1, store.reads)
+        assertEquals(0, store.writes)
+        assertEquals(1, scheduler.pending.size)
+
+        scheduler.runAll()
+        assertEquals(1, store.writes)
+        val records = DataCrashRecord.parseList(store.value)
+        assertEquals(200, records.size)
+        assertTrue(records.all { it.count == 2 })
+
+        // 内容未变化时 flush 不再写入
+        window.flush()
+        assertEquals(1, store.writes)
+    }
+
+    @Test
+    fun tripIsPersistedImmediately() {
+        val store = FakeStore()
+        val scheduler = FakeScheduler()
+        val window = CrashWindow(store, scheduler)
+
+        assertFalse(window.onCrash("com.example.a", 0))
+        assertFalse(window.onCrash("com.example.b", 10))
+        assertFalse(window.onCrash("com.example.a", 1000))
+        assertEquals(0, store.writes)
+
+        assertTrue(window.onCrash("com.example.a", 2000))
+        // 不等待延迟任务，触发时已写回且不再包含该包
+        assertEquals(1, store.writes)
+        assertEquals(listOf("com.example.b"), DataCrashRecord.parseList(store.value).map { it.pkg })
+
+        // 延迟任务随后执行时内容相同，不重复写入
+        scheduler.runAll()
+        assertEquals(1, store.writes)
+    }
+
+    @Test
+    fun tripPointsInSustainedStorm() {
+        val store = FakeStore()
+        val window = CrashWindow(store, FakeScheduler())
+
+        // 每秒崩溃一次：第 3 次触发并清除记录，此后每 3 次触发一次
+        val trips = (0 until 30).filter { window.onCrash("com.example.a", it * 1000L) }
+        assertEquals((2 until 30 step 3).toList(), trips)
+    }
+
+    @Test
+    fun slowCrashesNeverTrip() {
+        val window = CrashWindow(FakeStore(), FakeScheduler())
+
+        // 间隔达到 TRIGGER_INTERVAL 时重新计数
+        for (i in 0 until 10) {
+            assertFalse(window.onCrash("com.example.a", i * TRIGGER_INTERVAL))
+        }
+        assertFalse(window.onCrash("com.example.a", 9 * TRIGGER_INTERVAL + 1))
+        assertTrue(window.onCrash("com.example.a", 9 * TRIGGER_INTERVAL + 2))
+    }
+
+    @Test
+    fun countSurvivesRestart() {
+        val store = FakeStore()
+        val first = CrashWindow(store, FakeScheduler())
+        assertFalse(first.onCrash("com.example.a", 0))
+        assertFalse(first.onCrash("com.example.a", 1000))
+        first.flush()
+
+        // system_server 重启后从存储延续计数
+        val second = CrashWindow(store, FakeScheduler())
+        assertTrue(second.onCrash("com.example.a", 2000))
+        assertEquals(2, store.reads)
+    }
+}
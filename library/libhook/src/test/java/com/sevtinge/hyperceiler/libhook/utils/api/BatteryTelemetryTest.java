@@ -0,0 +1,135 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.api;
+
+import static com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry.INVALID_TEMPERATURE;
+import static com.sevtinge.hyperceiler.libhook.utils.api.BatteryTelemetry.INVALID_VALUE;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+
+/**
+ * 以临时目录模拟 /sys/class/power_supply/battery，覆盖节点内容的解析
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class BatteryTelemetryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private BatteryTelemetry sample(String temp, String current, String voltage) throws IOException {
+        File dir = folder.newFolder();
+        write(dir, "temp", temp);
+        write(dir, "current_now", current);
+        write(dir, "voltage_now", voltage);
+        BatteryTelemetry telemetry = new BatteryTelemetry(dir);
+        telemetry.refreshIfOlderThan(0);
+        return telemetry;
+    }
+
+    private static void write(File dir, String name, String content) throws IOException {
+        // null 表示节点不存在
+        if (content == null) return;
+        Files.write(new File(dir, name).toPath(), content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void normalValues() throws IOException {
+        BatteryTelemetry telemetry = sample("325\n", "-1500000\n", "4400000\n");
+        assertEquals(325, telemetry.getTemperatureDeciC());
+        assertEquals(-1500000L, telemetry.getCurrentMicroAmps());
+        assertEquals(4400000L, telemetry.getVoltageMicroVolts());
+    }
+
+    @Test
+    public void signsAndWhitespace() throws IOException {
+        BatteryTelemetry telemetry = sample("-52\n", "  +812000 \n", "0");
+        assertEquals(-52, telemetry.getTemperatureDeciC());
+        assertEquals(812000L, telemetry.getCurrentMicroAmps());
+        assertEquals(0L, telemetry.getVoltageMicroVolts());
+    }
+
+    @Test
+    public void missingNodes() throws IOException {
+        BatteryTelemetry telemetry = sample(null, null, null);
+        assertEquals(INVALID_TEMPERATURE, telemetry.getTemperatureDeciC());
+        assertEquals(INVALID_VALUE, telemetry.getCurrentMicroAmps());
+        assertEquals(INVALID_VALUE, telemetry.getVoltageMicroVolts());
+    }
+
+    @Test
+    public void malformedNodes() throws IOException {
+        BatteryTelemetry telemetry = sample("", "abc\n", "-\n");
+        assertEquals(INVALID_TEMPERATURE, telemetry.getTemperatureDeciC());
+        assertEquals(INVALID_VALUE, telemetry.getCurrentMicroAmps());
+        assertEquals(INVALID_VALUE, telemetry.getVoltageMicroVolts());
+
+        // 数字后的多余内容被忽略，只取前导整数
+        telemetry = sample("301 C\n", "12.5\n", "4400000\n");
+        assertEquals(301, telemetry.getTemperatureDeciC());
+        assertEquals(12L, telemetry.getCurrentMicroAmps());
+        assertEquals(4400000L, telemetry.getVoltageMicroVolts());
+    }
+
+    @Test
+    public void missingNodeIsRetried() throws IOException {
+        File dir = folder.newFolder();
+        BatteryTelemetry telemetry = new BatteryTelemetry(dir);
+        telemetry.refreshIfOlderThan(0);
+        assertEquals(INVALID_TEMPERATURE, telemetry.getTemperatureDeciC());
+
+        // 打开失败不会被记住，节点出现后下一次采样即可读到
+        write(dir, "temp", "290\n");
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1));
+        telemetry.refreshIfOlderThan(0);
+        assertEquals(290, telemetry.getTemperatureDeciC());
+    }
+
+    @Test
+    public void refreshRereadsOpenNode() throws IOException {
+        File dir = folder.newFolder();
+        write(dir, "temp", "300\n");
+        BatteryTelemetry telemetry = new BatteryTelemetry(dir);
+        telemetry.refreshIfOlderThan(0);
+        assertEquals(300, telemetry.getTemperatureDeciC());
+
+        // 采样未过期时不重新读取
+        write(dir, "temp", "315\n");
+        telemetry.refreshIfOlderThan(1000);
+        assertEquals(300, telemetry.getTemperatureDeciC());
+
+        // 文件描述符保持打开，内容被覆写后仍读到新值
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1001));
+        telemetry.refreshIfOlderThan(1000);
+        assertEquals(315, telemetry.getTemperatureDeciC());
+    }
+}
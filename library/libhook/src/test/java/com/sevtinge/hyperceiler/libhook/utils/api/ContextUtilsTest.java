@@ -0,0 +1,157 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 需要可实例化的 Context，在 Robolectric 下运行
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class ContextUtilsTest {
+
+    private static final long LONG_TIMEOUT_MS = 10_000;
+
+    private final BlockingQueue<Runnable> mQueued = new LinkedBlockingQueue<>();
+    private final List<Context> mDelivered = Collections.synchronizedList(new ArrayList<>());
+    private final Context mContext = new ContextWrapper(null);
+
+    private ContextUtils.Waiter waiter(AtomicReference<Context> resolved) {
+        return new ContextUtils.Waiter(resolved::get, mQueued::add);
+    }
+
+    /**
+     * 执行已派发到 executor 的回调；回调由其他线程派发时最多等待 timeoutMs
+     */
+    private int drain(long timeoutMs) throws InterruptedException {
+        int ran = 0;
+        Runnable task = mQueued.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        while (task != null) {
+            task.run();
+            ran++;
+            task = mQueued.poll();
+        }
+        return ran;
+    }
+
+    @Test
+    public void waiterBeforeAttachIsReleasedOnExecutor() throws Exception {
+        AtomicReference<Context> resolved = new AtomicReference<>();
+        ContextUtils.Waiter waiter = waiter(resolved);
+
+        assertFalse(waiter.dispatchIfReady(mDelivered::add));
+        waiter.await(mDelivered::add, LONG_TIMEOUT_MS);
+        assertTrue(mQueued.isEmpty());
+
+        waiter.onAttached(mContext);
+        // attach 线程只负责派发，不直接执行回调
+        assertTrue(mDelivered.isEmpty());
+        assertEquals(1, drain(0));
+        assertEquals(1, mDelivered.size());
+        assertSame(mContext, mDelivered.get(0));
+    }
+
+    @Test
+    public void waiterAfterAttachIsDispatchedOnExecutor() throws Exception {
+        AtomicReference<Context> resolved = new AtomicReference<>(mContext);
+        ContextUtils.Waiter waiter = waiter(resolved);
+
+        assertTrue(waiter.dispatchIfReady(mDelivered::add));
+        assertTrue(mDelivered.isEmpty());
+        assertEquals(1, drain(0));
+        assertSame(mContext, mDelivered.get(0));
+    }
+
+    @Test
+    public void resolvedContextWinsOverAttachedOne() throws Exception {
+        Context current = new ContextWrapper(null);
+        AtomicReference<Context> resolved = new AtomicReference<>();
+        ContextUtils.Waiter waiter = waiter(resolved);
+        waiter.await(mDelivered::add, LONG_TIMEOUT_MS);
+
+        resolved.set(current);
+        waiter.onAttached(mContext);
+        drain(0);
+
+        assertSame(current, mDelivered.get(0));
+        assertSame(current, waiter.attached().getNow(null));
+    }
+
+    @Test
+    public void attachWithoutContextReleasesWaitersWithNull() throws Exception {
+        ContextUtils.Waiter waiter = waiter(new AtomicReference<>());
+        waiter.await(mDelivered::add, LONG_TIMEOUT_MS);
+
+        long start = System.nanoTime();
+        waiter.onAttached(null);
+        assertEquals(1, drain(0));
+        assertNull(mDelivered.get(0));
+        // 不必等到超时
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < LONG_TIMEOUT_MS / 2);
+        assertTrue(waiter.attached().isDone());
+    }
+
+    @Test
+    public void timeoutDeliversNull() throws Exception {
+        ContextUtils.Waiter waiter = waiter(new AtomicReference<>());
+        waiter.await(mDelivered::add, 50);
+
+        assertEquals(1, drain(LONG_TIMEOUT_MS));
+        assertEquals(1, mDelivered.size());
+        assertNull(mDelivered.get(0));
+        assertFalse(waiter.attached().isDone());
+    }
+
+    @Test
+    public void eachWaiterIsCalledOnce() throws Exception {
+        ContextUtils.Waiter waiter = waiter(new AtomicReference<>());
+        for (int i = 0; i < 100; i++) {
+            waiter.await(mDelivered::add, 200);
+        }
+
+        waiter.onAttached(mContext);
+        assertEquals(100, drain(0));
+        // 超时之后不会再次回调
+        assertEquals(0, drain(400));
+        assertEquals(100, mDelivered.size());
+        for (Context context : mDelivered) {
+            assertNotNull(context);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.content.ContentResolver;
+import android.content.ContextWrapper;
+import android.provider.Settings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class SettingsMirrorTest {
+
+    private ContentResolver mResolver;
+
+    @Before
+    public void setUp() {
+        mResolver = RuntimeEnvironment.getApplication().getContentResolver();
+    }
+
+    @Test
+    public void hitDoesNotRequery() {
+        Settings.Secure.putInt(mResolver, "mirror_hit", 5);
+        CountingContext context = new CountingContext(mResolver);
+        SettingsMirror.Key key = SettingsMirror.secure("mirror_hit");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(5, key.getInt(context, -1));
+        }
+        assertEquals("5", key.getString(context));
+        assertEquals(1, context.resolverCalls);
+    }
+
+    @Test
+    public void changeNotificationRefreshesValue() {
+        Settings.System.putInt(mResolver, "mirror_change", 1);
+        CountingContext context = new CountingContext(mResolver);
+        SettingsMirror.Key key = SettingsMirror.system("mirror_change");
+        assertEquals(1, key.getInt(context, -1));
+
+        Settings.System.putInt(mResolver, "mirror_change", 2);
+        mResolver.notifyChange(Settings.System.getUriFor("mirror_change"), null);
+
+        assertEquals(2, key.getInt(context, -1));
+        assertEquals(2L, key.getLong(context, -1L));
+        assertEquals(1, context.resolverCalls);
+    }
+
+    @Test
+    public void removedValueFallsBackToDefault() {
+        Settings.Global.putString(mResolver, "mirror_removed", "0.5");
+        CountingContext context = new CountingContext(mResolver);
+        SettingsMirror.Key key = SettingsMirror.global("mirror_removed");
+        assertEquals(0.5f, key.getFloat(context, 1f), 0f);
+        assertEquals(7, key.getInt(context, 7));
+
+        Settings.Global.putString(mResolver, "mirror_removed", null);
+        mResolver.notifyChange(Settings.Global.getUriFor("mirror_removed"), null);
+
+        assertNull(key.getString(context));
+        assertEquals(1f, key.getFloat(context, 1f), 0f);
+    }
+
+    @Test
+    public void registerFailureBacksOff() {
+        // 没有 ContentResolver 时注册必然失败
+        CountingContext context = new CountingContext(null);
+        SettingsMirror.Key key = SettingsMirror.secure("mirror_unregistered");
+
+        for (int i = 0; i < 100; i++) {
+            key.getInt(context, 0);
+        }
+        assertEquals(1, context.resolverCalls);
+
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1000));
+        key.getInt(context, 0);
+        key.getInt(context, 0);
+        assertEquals(2, context.resolverCalls);
+
+        // 再次失败后退避间隔翻倍
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1000));
+        key.getInt(context, 0);
+        assertEquals(2, context.resolverCalls);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1000));
+        key.getInt(context, 0);
+        assertEquals(3, context.resolverCalls);
+    }
+
+    @Test
+    public void registerRecoversAfterFailure() {
+        Settings.Secure.putInt(mResolver, "mirror_recover", 3);
+        CountingContext failing = new CountingContext(null);
+        SettingsMirror.Key key = SettingsMirror.secure("mirror_recover");
+        key.getInt(failing, 0);
+
+        ShadowSystemClock.advanceBy(Duration.ofMillis(1000));
+        CountingContext context = new CountingContext(mResolver);
+        assertEquals(3, key.getInt(context, 0));
+
+        // 注册成功后不再受退避影响，之后的读取都是命中
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(5));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(3, key.getInt(context, 0));
+        }
+        assertEquals(1, context.resolverCalls);
+    }
+
+    /**
+     * 统计 getContentResolver 调用次数，即镜像回源（注册并读取）的次数
+     */
+    private static final class CountingContext extends ContextWrapper {
+        private final ContentResolver mResolver;
+        int resolverCalls;
+
+        CountingContext(ContentResolver resolver) {
+            super(RuntimeEnvironment.getApplication());
+            mResolver = resolver;
+        }
+
+        @Override
+        public ContentResolver getContentResolver() {
+            resolverCalls++;
+            return mResolver;
+        }
+    }
+}
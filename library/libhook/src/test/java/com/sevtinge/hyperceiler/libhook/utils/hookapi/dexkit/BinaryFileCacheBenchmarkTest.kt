@@ -0,0 +1,137 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.luckypray.dexkit.DexKitCacheBridge
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * 500 条缓存下与旧 JSON 缓存的对比：写入、冷启动读取单个 key、冷启动读取全部
+ *
+ * JsonFileCache 依赖 org.json，使用 Robolectric 提供真实实现。
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class BinaryFileCacheBenchmarkTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val strings = (0 until 400).associate {
+        "Hook$it#method" to "Lcom/miui/systemui/pkg$it/SomeController$it;->update${it}(Landroid/content/Context;I)V"
+    }
+    private val lists = (0 until 100).associate { i ->
+        "Hook$i#fields" to (0 until 4).map { "Lcom/miui/home/Cls$i;->field$it:Ljava/lang/Object;" }
+    }
+
+    private fun fill(cache: DexKitCacheBridge.Cache) {
+        strings.forEach { (k, v) -> cache.putString(k, v) }
+        lists.forEach { (k, v) -> cache.putStringList(k, v) }
+    }
+
+    private fun readAll(cache: DexKitCacheBridge.Cache) {
+        strings.forEach { (k, v) -> assertEquals(v, cache.getString(k, null)) }
+        lists.forEach { (k, v) -> assertEquals(v, cache.getStringList(k, null)) }
+    }
+
+    /** 多次运行取中位数，单位微秒 */
+    private inline fun median(block: () -> Unit): Long {
+        repeat(5) { block() }
+        val samples = LongArray(21)
+        for (i in samples.indices) {
+            val start = System.nanoTime()
+            block()
+            samples[i] = System.nanoTime() - start
+        }
+        samples.sort()
+        return TimeUnit.NANOSECONDS.toMicros(samples[samples.size / 2])
+    }
+
+    @Test
+    fun compareWithJson() {
+        val binaryFile = File(folder.root, "cache.bin")
+        val jsonFile = File(folder.root, "cache.json")
+
+        val binaryWrite = median {
+            binaryFile.delete()
+            BinaryFileCache(binaryFile, "1", "os", "bench").apply { fill(this); flush() }
+        }
+        val jsonWrite = median {
+            jsonFile.delete()
+            JsonFileCache(jsonFile, "1", "os", "bench").apply { fill(this); flush() }
+        }
+
+        // 命中路径：进程启动后打开缓存并读取一个 key
+        val binarySingle = median {
+            assertEquals(strings["Hook7#method"], BinaryFileCache(binaryFile, "1", "os", "bench").getString("Hook7#method", null))
+        }
+        val jsonSingle = median {
+            assertEquals(strings["Hook7#method"], JsonFileCache(jsonFile, "1", "os", "bench").getString("Hook7#method", null))
+        }
+
+        val binaryAll = median { readAll(BinaryFileCache(binaryFile, "1", "os", "bench")) }
+        val jsonAll = median { readAll(JsonFileCache(jsonFile, "1", "os", "bench")) }
+
+        // 追加一条记录相对整体重写
+        val binaryAppend = median {
+            BinaryFileCache(binaryFile, "1", "os", "bench").apply { putString("extra", "v"); flush() }
+        }
+
+        System.out.printf(
+            "DexKit cache, %d entries: size binary %d B / json %d B; write %d / %d us; " +
+                "cold single key %d / %d us; cold read all %d / %d us; binary append+fsync %d us%n",
+            strings.size + lists.size, binaryFile.length(), jsonFile.length(),
+            binaryWrite, jsonWrite, binarySingle, jsonSingle, binaryAll, jsonAll, binaryAppend
+        )
+        assertTrue(binaryFile.length() < jsonFile.length())
+        // 二进制缓存只扫描记录头，冷启动读单个 key 不解析全部值
+        assertTrue("binary $binarySingle us, json $jsonSingle us", binarySingle < jsonSingle)
+    }
+
+    @Test
+    fun legacyImportKeepsSameNamedStringAndList() {
+        val jsonFile = File(folder.root, "cache.json")
+        JsonFileCache(jsonFile, "1", "os", "bench").apply {
+            fill(this)
+            putString("shared", "single")
+            putStringList("shared", listOf("a", "b"))
+            flush()
+        }
+
+        val binaryFile = File(folder.root, "cache.bin")
+        BinaryFileCache(binaryFile, "1", "os", "bench").apply {
+            importFrom(JsonFileCache(jsonFile, "1", "os", "bench"))
+            flush()
+        }
+
+        val cache = BinaryFileCache(binaryFile, "1", "os", "bench")
+        readAll(cache)
+        assertEquals("single", cache.getString("shared", null))
+        assertEquals(listOf("a", "b"), cache.getStringList("shared", null))
+    }
+}
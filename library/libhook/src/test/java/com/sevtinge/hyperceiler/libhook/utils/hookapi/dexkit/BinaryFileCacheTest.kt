@@ -0,0 +1,183 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+
+class BinaryFileCacheTest {
+
+    private lateinit var dir: File
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        dir = Files.createTempDirectory("dexkit_cache").toFile()
+        file = File(dir, "cache.bin")
+    }
+
+    @After
+    fun tearDown() {
+        dir.deleteRecursively()
+    }
+
+    private fun open(pkgVersion: String = "1", osVersion: String = "os") =
+        BinaryFileCache(file, pkgVersion, osVersion, "test")
+
+    @Test
+    fun valuesSurviveReload() {
+        open().apply {
+            putString("a", "1")
+            putStringList("b", listOf("x", "y"))
+            flush()
+            putString("a", "2")
+            remove("b")
+            putString("c", "3")
+            flush()
+        }
+
+        val cache = open()
+        assertEquals("2", cache.getString("a", null))
+        assertNull(cache.getStringList("b", null))
+        assertEquals("3", cache.getString("c", null))
+        assertEquals(setOf("a", "c"), cache.getAllKeys().toSet())
+    }
+
+    @Test
+    fun stringAndListWithSameKeyAreIndependent() {
+        open().apply {
+            putString("k", "single")
+            putStringList("k", listOf("a", "b"))
+            flush()
+        }
+
+        val cache = open()
+        assertEquals("single", cache.getString("k", null))
+        assertEquals(listOf("a", "b"), cache.getStringList("k", null))
+        assertEquals(setOf("k"), cache.getAllKeys().toSet())
+
+        // 覆盖其中一种不影响另一种，remove 同时移除两者
+        cache.putStringList("k", listOf("c"))
+        cache.putString("other", "1")
+        cache.flush()
+        open().apply {
+            assertEquals("single", getString("k", null))
+            assertEquals(listOf("c"), getStringList("k", null))
+            remove("k")
+            flush()
+        }
+        open().apply {
+            assertNull(getString("k", null))
+            assertNull(getStringList("k", null))
+            assertEquals("1", getString("other", null))
+        }
+    }
+
+    @Test
+    fun compactionKeepsBothKinds() {
+        open().apply {
+            putString("k", "single")
+            flush()
+            // 失效的列表记录超过阈值，本次 flush 压缩重写为两条记录
+            repeat(200) { putStringList("k", listOf(it.toString())) }
+            flush()
+        }
+        assertTrue(file.length() < 200)
+
+        val cache = open()
+        assertEquals("single", cache.getString("k", null))
+        assertEquals(listOf("199"), cache.getStringList("k", null))
+    }
+
+    @Test
+    fun versionChangeStartsFresh() {
+        open().apply {
+            putString("a", "1")
+            flush()
+        }
+        assertTrue(open(pkgVersion = "2").isEmpty())
+    }
+
+    @Test
+    fun tornTailIsIgnoredAndTruncatedBeforeAppend() {
+        open().apply {
+            putString("a", "1")
+            flush()
+        }
+        val intact = file.length()
+        RandomAccessFile(file, "rw").use {
+            it.seek(intact)
+            it.write(byteArrayOf(1, 0, 0, 0x7f))
+        }
+
+        val cache = open()
+        assertEquals("1", cache.getString("a", null))
+        cache.putString("b", "2")
+        cache.flush()
+
+        val reloaded = open()
+        assertEquals("1", reloaded.getString("a", null))
+        assertEquals("2", reloaded.getString("b", null))
+    }
+
+    @Test
+    fun appendAfterAnotherInstanceRewroteTheFile() {
+        open().apply {
+            putString("a", "1")
+            flush()
+        }
+        val first = open()
+        val second = open()
+
+        // 另一实例清空后重写，文件被替换为更长的新文件，旧的结束位置落在新文件某条记录中间
+        second.clearAll()
+        repeat(20) { second.putString("z$it", "value $it") }
+        second.flush()
+
+        // 第一个实例记录的结束位置属于旧文件，不能直接用于新文件
+        first.putString("b", "2")
+        first.flush()
+
+        val reloaded = open()
+        repeat(20) { assertEquals("value $it", reloaded.getString("z$it", null)) }
+        assertEquals("2", reloaded.getString("b", null))
+        assertNull(reloaded.getString("a", null))
+    }
+
+    @Test
+    fun rewriteLeavesNoTemporaryFiles() {
+        open().apply {
+            repeat(200) { putString("k", it.toString()) }
+            flush()
+            clearAll()
+            putString("k", "last")
+            flush()
+        }
+        assertEquals("last", open().getString("k", null))
+        assertFalse(dir.listFiles()!!.any { it.name.endsWith(".tmp") })
+    }
+}
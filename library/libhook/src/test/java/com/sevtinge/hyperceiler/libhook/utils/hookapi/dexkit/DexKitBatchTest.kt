@@ -0,0 +1,78 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit
+
+import com.sevtinge.hyperceiler.libhook.utils.hookapi.dexkit.DexKitBatch.Companion.MIN_MISSES_FOR_FULL_CACHE
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class DexKitBatchTest {
+
+    @Test
+    fun fewMissesScanPerQuery() {
+        val batch = DexKitBatch(hookCount = 10, batching = true)
+        repeat(MIN_MISSES_FOR_FULL_CACHE - 1) {
+            assertFalse(batch.shouldBuildFullCache(batch.recordMiss()))
+        }
+        assertTrue(batch.shouldBuildFullCache(batch.recordMiss()))
+    }
+
+    @Test
+    fun singleHookBatchNeverBuildsFullCache() {
+        val batch = DexKitBatch(hookCount = 1, batching = true)
+        repeat(MIN_MISSES_FOR_FULL_CACHE * 2) {
+            assertFalse(batch.shouldBuildFullCache(batch.recordMiss()))
+        }
+    }
+
+    @Test
+    fun disabledBatchingNeverBuildsFullCache() {
+        val batch = DexKitBatch(hookCount = 10, batching = false)
+        repeat(MIN_MISSES_FOR_FULL_CACHE * 2) {
+            assertFalse(batch.shouldBuildFullCache(batch.recordMiss()))
+        }
+    }
+
+    @Test
+    fun summaryReportsModeAndCosts() {
+        val batched = DexKitBatch(hookCount = 4, batching = true)
+        batched.recordHit()
+        batched.recordMiss()
+        batched.recordMissQuery(3_000_000)
+        batched.recordFullCache(7_000_000)
+        val summary = batched.summary()
+        assertTrue(summary, summary.startsWith("DexKit batch[batched]: hooks=4, hits=1, misses=1"))
+        assertTrue(summary, summary.contains("fullCache=7ms, missQuery=3ms"))
+
+        val unbatched = DexKitBatch(hookCount = 4, batching = false)
+        unbatched.recordMiss()
+        assertTrue(unbatched.summary(), unbatched.summary().contains("[unbatched]"))
+        assertTrue(unbatched.summary(), unbatched.summary().contains("fullCache=no"))
+    }
+
+    @Test
+    fun allHitsSummary() {
+        val batch = DexKitBatch(hookCount = 3, batching = true)
+        repeat(3) { batch.recordHit() }
+        assertEquals(0, batch.missCount)
+        assertTrue(batch.summary(), batch.summary().contains("all 3 hits"))
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.effect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DeviceEffectMemoryTest {
+
+    @Rule
+    public final TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void savedStateIsReloaded() throws Exception {
+        File dir = mFolder.newFolder();
+        DeviceEffectMemory memory = new DeviceEffectMemory(dir);
+        memory.saveSpeakerEffect(new DeviceEffectMemory.EffectState("dolby", true, false));
+        memory.flush();
+
+        DeviceEffectMemory reloaded = new DeviceEffectMemory(dir);
+        assertNotNull(reloaded.getSpeakerEffect());
+        assertEquals("dolby", reloaded.getSpeakerEffect().mainEffect);
+    }
+
+    @Test
+    public void truncatedFileIsMovedAsideAndRecovered() throws Exception {
+        File dir = mFolder.newFolder();
+        File file = new File(dir, "effect_memory.json");
+        Files.write(file.toPath(), ("{\"version\":2,\"devices\":{\"a\":{\"mainEffect\":\"x\"},"
+            + "\"b\":{\"mainEff").getBytes(StandardCharsets.UTF_8));
+
+        DeviceEffectMemory memory = new DeviceEffectMemory(dir);
+
+        assertNotNull(memory.getDeviceEffect("a"));
+        assertNull(memory.getDeviceEffect("b"));
+        assertTrue(new File(dir, "effect_memory.json.corrupt").isFile());
+        // 可恢复的部分已写回正式文件
+        assertNotNull(new DeviceEffectMemory(dir).getDeviceEffect("a"));
+    }
+
+    @Test
+    public void unreadableFileIsKept() throws Exception {
+        File dir = mFolder.newFolder();
+        // 以同名目录模拟读取失败，内容本身并未损坏
+        File file = new File(dir, "effect_memory.json");
+        assertTrue(file.mkdir());
+
+        DeviceEffectMemory memory = new DeviceEffectMemory(dir);
+        assertTrue(memory.getAllDevices().isEmpty());
+        memory.saveSpeakerEffect(new DeviceEffectMemory.EffectState("dolby", true, false));
+        memory.flush();
+
+        assertTrue(file.isDirectory());
+        assertFalse(new File(dir, "effect_memory.json.corrupt").exists());
+        assertFalse(new File(dir, "effect_memory.json.tmp").exists());
+    }
+
+    @Test
+    public void burstOfMutationsIsWrittenOnce() throws Exception {
+        List<Runnable> scheduled = new ArrayList<>();
+        List<Long> delays = new ArrayList<>();
+        List<String> writes = new ArrayList<>();
+        DeviceEffectMemory memory = new DeviceEffectMemory(mFolder.newFolder(),
+            (task, delayMs) -> {
+                scheduled.add(task);
+                delays.add(delayMs);
+            },
+            bytes -> writes.add(new String(bytes, StandardCharsets.UTF_8)));
+
+        for (int i = 0; i < 1000; i++) {
+            memory.saveDeviceEffect("device" + (i % 10), new DeviceEffectMemory.EffectState("effect" + i, i % 2 == 0, false), null);
+        }
+        assertEquals(1, scheduled.size());
+        assertEquals(List.of(DeviceEffectMemory.WRITE_DELAY_MS), delays);
+        assertTrue(writes.isEmpty());
+
+        scheduled.get(0).run();
+        assertEquals(1, writes.size());
+        assertTrue(writes.get(0), writes.get(0).contains("effect999"));
+
+        // 写出后没有新修改时不再写入，新修改重新调度一次
+        memory.flush();
+        assertEquals(1, writes.size());
+        memory.saveSpeakerEffect(new DeviceEffectMemory.EffectState("dolby", true, false));
+        memory.saveSpeakerEffect(new DeviceEffectMemory.EffectState("misound", true, false));
+        assertEquals(2, scheduled.size());
+        scheduled.get(1).run();
+        assertEquals(2, writes.size());
+    }
+
+    @Test
+    public void concurrentBurstIsWrittenOnce() throws Exception {
+        List<Runnable> scheduled = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger writes = new AtomicInteger();
+        DeviceEffectMemory memory = new DeviceEffectMemory(mFolder.newFolder(),
+            (task, delayMs) -> scheduled.add(task), bytes -> writes.incrementAndGet());
+
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 250; i++) {
+                        memory.saveDeviceEffect("t" + thread, new DeviceEffectMemory.EffectState("e" + i, true, true), null);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, scheduled.size());
+        scheduled.get(0).run();
+        assertEquals(1, writes.get());
+        assertEquals(threads, memory.getAllDevices().size());
+    }
+
+    @Test
+    public void rejectedScheduleWritesImmediately() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        DeviceEffectMemory memory = new DeviceEffectMemory(mFolder.newFolder(),
+            (task, delayMs) -> {
+                throw new RejectedExecutionException();
+            },
+            bytes -> writes.incrementAndGet());
+
+        memory.saveSpeakerEffect(new DeviceEffectMemory.EffectState("dolby", true, false));
+        assertEquals(1, writes.get());
+    }
+}
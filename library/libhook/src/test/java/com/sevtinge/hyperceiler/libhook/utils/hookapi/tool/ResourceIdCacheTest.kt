@@ -0,0 +1,151 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.tool
+
+import android.content.res.Resources
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import java.lang.reflect.Modifier
+
+/**
+ * 200 个名称的解析开销：首次（冷）、重复（热）与不存在的名称（负缓存）
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class ResourceIdCacheTest {
+
+    /** 统计实际落到 getIdentifier 的次数 */
+    @Suppress("DEPRECATION")
+    private class CountingResources(base: Resources) :
+        Resources(base.assets, base.displayMetrics, base.configuration) {
+        var resolves = 0
+
+        override fun getIdentifier(name: String, defType: String, defPackage: String?): Int {
+            resolves++
+            return super.getIdentifier(name, defType, defPackage)
+        }
+    }
+
+    private lateinit var resources: CountingResources
+
+    // 180 个存在的框架属性名与 20 个不存在的名称
+    private lateinit var present: List<String>
+    private val missing = (0 until 20).map { "hc_missing_$it" }
+    private lateinit var names: List<String>
+
+    @Before
+    fun setUp() {
+        ResourceIdCache.invalidate()
+        ResourceIdCache.listening = true
+        val base = RuntimeEnvironment.getApplication().resources
+        resources = CountingResources(base)
+        // R.attr 中可能有当前框架资源里没有的新属性，只取能解析到的
+        present = android.R.attr::class.java.fields
+            .filter { Modifier.isStatic(it.modifiers) }
+            .map { it.name }
+            .sorted()
+            .filter { base.getIdentifier(it, "attr", "android") != 0 }
+            .take(180)
+        names = present + missing
+    }
+
+    @After
+    fun tearDown() {
+        ResourceIdCache.invalidate()
+        ResourceIdCache.listening = false
+    }
+
+    private fun lookupAll(names: List<String>): Long {
+        var sum = 0L
+        for (name in names) sum += ResourceIdCache.getIdentifier(resources, name, "attr", "android")
+        return sum
+    }
+
+    @Test
+    fun coldWarmAndNegativeLookups() {
+        assertEquals(180, present.size)
+        for (name in present) {
+            assertNotEquals(name, 0, ResourceIdCache.getIdentifier(resources, name, "attr", "android"))
+        }
+        for (name in missing) {
+            assertEquals(name, 0, ResourceIdCache.getIdentifier(resources, name, "attr", "android"))
+        }
+        assertEquals(200, resources.resolves)
+
+        // 热路径与负缓存都不再解析
+        repeat(10) { lookupAll(names) }
+        assertEquals(200, resources.resolves)
+
+        // 同名不同类型、不同包互不影响
+        assertEquals(0, ResourceIdCache.getIdentifier(resources, present[0], "drawable", "android"))
+        assertEquals(0, ResourceIdCache.getIdentifier(resources, present[0], "attr", "com.example.missing"))
+        assertEquals(202, resources.resolves)
+
+        ResourceIdCache.invalidate()
+        lookupAll(names)
+        assertEquals(402, resources.resolves)
+    }
+
+    @Test
+    fun benchmark() {
+        val rounds = 200
+        var sink = 0L
+        var cold = Long.MAX_VALUE
+        var direct = Long.MAX_VALUE
+        var warm = Long.MAX_VALUE
+        var negative = Long.MAX_VALUE
+        repeat(5) {
+            ResourceIdCache.invalidate()
+            var start = System.nanoTime()
+            sink += lookupAll(names)
+            cold = minOf(cold, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            repeat(rounds) { for (name in names) sink += resources.getIdentifier(name, "attr", "android") }
+            direct = minOf(direct, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            repeat(rounds) { sink += lookupAll(names) }
+            warm = minOf(warm, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            repeat(rounds) { sink += lookupAll(missing) }
+            negative = minOf(negative, System.nanoTime() - start)
+        }
+
+        val lookups = rounds * names.size.toDouble()
+        println(
+            "ResourceIdCache 200 names: cold %.1f us/name, getIdentifier %.1f ns/name, warm %.1f ns/name, negative %.1f ns/name (sink %d)"
+                .format(
+                    cold / 1000.0 / names.size, direct / lookups, warm / lookups,
+                    negative / (rounds * missing.size.toDouble()), sink
+                )
+        )
+        assertTrue(warm < direct)
+        assertTrue(negative * names.size < direct * missing.size)
+    }
+}
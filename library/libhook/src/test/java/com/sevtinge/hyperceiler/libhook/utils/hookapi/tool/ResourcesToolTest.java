@@ -0,0 +1,178 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.hookapi.tool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.res.Resources;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * getter hook 热路径上的替换规则查找：精确命中、通配符命中与未命中
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 35)
+public class ResourcesToolTest {
+
+    private static final int GROUP = 50;
+
+    private ResourcesTool tool;
+    private Resources res;
+    // 三组各 50 个框架 color：包名精确规则、"*" 通配规则、无规则
+    private final List<Integer> exact = new ArrayList<>();
+    private final List<Integer> wildcard = new ArrayList<>();
+    private final List<Integer> missing = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IllegalAccessException {
+        res = RuntimeEnvironment.getApplication().getResources();
+        List<Integer> ids = new ArrayList<>();
+        for (Field field : android.R.color.class.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) continue;
+            int id = field.getInt(null);
+            // R.color 中可能有当前框架资源里没有的新条目，只取能解析到的
+            try {
+                res.getResourceEntryName(id);
+                ids.add(id);
+            } catch (Resources.NotFoundException ignore) {
+            }
+        }
+        assertTrue(ids.size() >= GROUP * 3);
+
+        // 不存在 XposedInterface，登记规则时不会安装 hook
+        tool = ResourcesTool.getInstance("/nonexistent");
+        for (int i = 0; i < GROUP * 3; i++) {
+            int id = ids.get(i);
+            String name = res.getResourceEntryName(id);
+            if (i < GROUP) {
+                exact.add(id);
+                tool.setObjectReplacement("android", "color", name, "exact:" + name);
+            } else if (i < GROUP * 2) {
+                wildcard.add(id);
+                tool.setObjectReplacement("*", "color", name, "wildcard:" + name);
+            } else {
+                missing.add(id);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ResourcesTool.releaseInstance();
+    }
+
+    @Test
+    public void lookupsMatchRules() {
+        for (int id : exact) {
+            assertEquals("exact:" + res.getResourceEntryName(id), tool.findReplacement(res, id).value());
+        }
+        for (int id : wildcard) {
+            assertEquals("wildcard:" + res.getResourceEntryName(id), tool.findReplacement(res, id).value());
+        }
+        for (int id : missing) {
+            assertNull(tool.findReplacement(res, id));
+        }
+
+        // 精确规则优先于通配规则；新增规则会让已缓存的未命中失效
+        int id = wildcard.get(0);
+        String name = res.getResourceEntryName(id);
+        tool.setObjectReplacement("android", "color", name, "override");
+        assertEquals("override", tool.findReplacement(res, id).value());
+        int miss = missing.get(0);
+        tool.setObjectReplacement("*", "color", res.getResourceEntryName(miss), "late");
+        assertEquals("late", tool.findReplacement(res, miss).value());
+    }
+
+    private long lookup(List<Integer> ids, int rounds) {
+        long sink = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (int i = 0, n = ids.size(); i < n; i++) {
+                ResourcesTool.Replacement replacement = tool.findReplacement(res, ids.get(i));
+                if (replacement != null) sink++;
+            }
+        }
+        return sink;
+    }
+
+    private long timed(List<Integer> ids, int rounds) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            lookup(ids, rounds);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    @Test
+    public void benchmark() {
+        int rounds = 20_000;
+        List<Integer> all = new ArrayList<>(exact);
+        all.addAll(wildcard);
+        all.addAll(missing);
+        // 预热，让三组结果都进入缓存
+        lookup(all, 2_000);
+
+        // 冷路径：改动规则后版本号变化，下一次查找需要重新解析名称
+        long cold = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            tool.setObjectReplacement("android", "color", "hc_unused", "unused");
+            long start = System.nanoTime();
+            lookup(all, 1);
+            cold = Math.min(cold, System.nanoTime() - start);
+        }
+        lookup(all, 2_000);
+
+        long hit = timed(exact, rounds);
+        long star = timed(wildcard, rounds);
+        long miss = timed(missing, rounds);
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        long sink = lookup(all, rounds);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        double perLookup = (double) rounds * GROUP;
+        System.out.printf("ResourcesTool.findReplacement: cold %.1f ns, hit %.1f ns, wildcard %.1f ns, "
+                + "miss %.1f ns, %d bytes over %d warm lookups (sink %d)%n",
+            cold / (double) all.size(), hit / perLookup, star / perLookup, miss / perLookup,
+            allocated, rounds * all.size(), sink);
+
+        assertEquals((long) rounds * GROUP * 2, sink);
+        assertTrue(hit * all.size() < cold * (long) rounds * GROUP);
+        // 命中缓存后不应逐次分配对象，留出计量本身的少量余量
+        assertTrue(allocated < 64 * 1024);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.pkg
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.security.MessageDigest
+
+class CheckModifyUtilsTest {
+
+    private val cert = byteArrayOf(1, 2, 3, 4)
+    private val otherCert = byteArrayOf(5, 6, 7, 8)
+    private val accepted = CheckModifyUtils.normalizeAccepted(listOf(sha256Hex(cert)))
+
+    @Test
+    fun normalizeAcceptedStripsSeparatorsAndUppercases() {
+        assertEquals(setOf("ABCD01"), CheckModifyUtils.normalizeAccepted(listOf("ab:cd: 01", "", " : ")))
+    }
+
+    @Test
+    fun acceptedCertificateIsNotModified() {
+        assertFalse(CheckModifyUtils.isModified(listOf(otherCert, cert), accepted))
+    }
+
+    @Test
+    fun unknownOrMissingCertificateIsModified() {
+        assertTrue(CheckModifyUtils.isModified(listOf(otherCert), accepted))
+        assertTrue(CheckModifyUtils.isModified(emptyList(), accepted))
+    }
+
+    @Test
+    fun installedKeyIsStableForSameInputs() {
+        val reordered = CheckModifyUtils.normalizeAccepted(listOf("BB", "AA"))
+        assertEquals(
+            CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(cert.clone()), setOf("AA", "BB")),
+            CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(cert.clone()), reordered)
+        )
+    }
+
+    @Test
+    fun installedKeyChangesWithSigningCertificate() {
+        // 路径、大小、修改时间与版本均相同，仅签名不同的重签名包不能命中旧结论
+        val original = CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(cert), accepted)
+        assertNotEquals(original, CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(otherCert), accepted))
+        assertNotEquals(original, CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, emptyList(), accepted))
+        assertNotEquals(
+            CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(byteArrayOf(1), byteArrayOf(2, 3)), accepted),
+            CheckModifyUtils.installedVerdictKey("/a.apk|1|2", 3, 4, listOf(byteArrayOf(1, 2), byteArrayOf(3)), accepted)
+        )
+    }
+
+    private fun sha256Hex(bytes: ByteArray): String {
+        return MessageDigest.getInstance("SHA-256").digest(bytes).joinToString(":") { "%02x".format(it) }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * This file is part of HyperCeiler.
+ *
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.sevtinge.hyperceiler.libhook.utils.pkg
+
+import android.app.Application
+import android.content.Context
+import android.content.SharedPreferences
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.content.pm.Signature
+import android.content.pm.SigningInfo
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.Shadows.shadowOf
+import org.robolectric.annotation.Config
+import org.robolectric.shadow.api.Shadow
+import org.robolectric.shadows.ShadowSigningInfo
+import java.io.File
+import java.security.MessageDigest
+
+/**
+ * 覆盖 isApkModified 的结论缓存：命中、应用更新后失效、APK 被替换后重新校验
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [35])
+class CheckModifyVerdictCacheTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private val pkg = "com.example.signed"
+    private val cert = byteArrayOf(1, 2, 3, 4)
+    private val otherCert = byteArrayOf(5, 6, 7, 8)
+    private val accepted = sha256Hex(cert)
+
+    private lateinit var app: Application
+    private lateinit var prefs: SharedPreferences
+    private lateinit var apk: File
+
+    @Before
+    fun setUp() {
+        app = RuntimeEnvironment.getApplication()
+        prefs = app.getSharedPreferences("check_modify_cache", Context.MODE_PRIVATE)
+        apk = folder.newFile("base.apk").apply { writeBytes(ByteArray(64)) }
+        CheckModifyUtils.clearVerdictCache()
+    }
+
+    @After
+    fun tearDown() {
+        CheckModifyUtils.clearVerdictCache()
+    }
+
+    private fun install(certificate: ByteArray, versionCode: Long = 1, lastUpdateTime: Long = 100) {
+        val signingInfo = Shadow.newInstanceOf(SigningInfo::class.java)
+        Shadow.extract<ShadowSigningInfo>(signingInfo).setSignatures(arrayOf(Signature(certificate)))
+        val info = PackageInfo().apply {
+            packageName = pkg
+            longVersionCode = versionCode
+            this.lastUpdateTime = lastUpdateTime
+            this.signingInfo = signingInfo
+            applicationInfo = ApplicationInfo().apply {
+                packageName = pkg
+                sourceDir = apk.path
+            }
+        }
+        shadowOf(app.packageManager).installPackage(info)
+    }
+
+    /**
+     * 把持久化的结论改成相反值，之后只有真正重新校验才会得到正确结果
+     */
+    private fun flipPersistedVerdict() {
+        val verdict = prefs.getBoolean(pkg, true)
+        prefs.edit().putBoolean(pkg, !verdict).commit()
+    }
+
+    @Test
+    fun repeatedCheckIsServedFromCache() {
+        install(cert)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        val key = prefs.getString("${pkg}_key", null)
+        assertFalse(prefs.getBoolean(pkg, true))
+
+        // 内存命中：持久化值被改动也不影响
+        flipPersistedVerdict()
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+
+        // 新进程：直接采用持久化结论，不重新校验
+        CheckModifyUtils.clearVerdictCache()
+        assertTrue(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        assertEquals(key, prefs.getString("${pkg}_key", null))
+    }
+
+    @Test
+    fun packageUpdateInvalidatesCachedVerdict() {
+        install(cert)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        val key = prefs.getString("${pkg}_key", null)
+        flipPersistedVerdict()
+        CheckModifyUtils.clearVerdictCache()
+
+        install(cert, versionCode = 2, lastUpdateTime = 200)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        assertNotEquals(key, prefs.getString("${pkg}_key", null))
+        assertFalse(prefs.getBoolean(pkg, true))
+    }
+
+    @Test
+    fun tamperedApkIsRechecked() {
+        install(cert)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+
+        flipPersistedVerdict()
+        CheckModifyUtils.clearVerdictCache()
+
+        // 版本号与更新时间不变，仅 APK 文件被替换：旧结论失效，重新校验
+        apk.appendBytes(ByteArray(16))
+        apk.setLastModified(apk.lastModified() + 5_000)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+
+        // 签名也被替换
+        install(otherCert)
+
+        assertTrue(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        assertTrue(prefs.getBoolean(pkg, false))
+    }
+
+    @Test
+    fun changedAllowListIsRechecked() {
+        install(cert)
+        assertFalse(CheckModifyUtils.isApkModified(app, pkg, accepted))
+        assertTrue(CheckModifyUtils.isApkModified(app, pkg, sha256Hex(otherCert)))
+    }
+
+    private fun sha256Hex(bytes: ByteArray): String {
+        return MessageDigest.getInstance("SHA-256").digest(bytes).joinToString(":") { "%02x".format(it) }
+    }
+}
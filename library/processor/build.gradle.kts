@@ -11,4 +11,7 @@ java {
 dependencies {
     implementation(libs.auto.service)
     annotationProcessor(libs.auto.service)
+
+    testImplementation(libs.junit)
+    testImplementation(libs.compile.testing)
 }
\ No newline at end of file
@@ -22,7 +22,12 @@ import com.google.auto.service.AutoService;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Processor;
@@ -40,6 +45,9 @@ import javax.lang.model.element.TypeElement;
 @SupportedAnnotationTypes("com.hchen.database.HookBase")
 @SupportedSourceVersion(SourceVersion.RELEASE_25)
 public class HookBaseProcessor extends AbstractProcessor {
+    private static final String VARIOUS_THIRD_APPS = "VariousThirdApps";
+    private static final String VARIOUS_SYSTEM_APPS = "VariousSystemApps";
+
     private int count = 0;
 
     @Override
@@ -82,37 +90,42 @@ public class HookBaseProcessor extends AbstractProcessor {
                  */
                 package com.sevtinge.hyperceiler.libhook.base;
 
-                import java.util.HashMap;
-
                 /**
                  * 注解处理器自动生成的模块数据
+                 * <p>
+                 * 按作用域包名建立索引，同一包名下加载条件完全相同的模块合并为一个分组，
+                 * 运行时只需查询当前包名与两个通配作用域，无需遍历全部模块。
                  *
                  * @author 焕晨HChen
                  */
                 public class DataBase {
+                    public static final DataBase[] EMPTY = new DataBase[0];
+
                     public final String targetPackage;
                     public final int minSdk;
                     public final int maxSdk;
                     public final float minOSVersion;
                     public final float maxOSVersion;
                     public final int deviceType;
+                    public final String[] classNames;
 
                     public DataBase(String targetPackage, int minSdk, int maxSdk,
-                                   float minOSVersion, float maxOSVersion, int deviceType) {
+                                   float minOSVersion, float maxOSVersion, int deviceType,
+                                   String... classNames) {
                         this.targetPackage = targetPackage;
                         this.minSdk = minSdk;
                         this.maxSdk = maxSdk;
                         this.minOSVersion = minOSVersion;
                         this.maxOSVersion = maxOSVersion;
                         this.deviceType = deviceType;
+                        this.classNames = classNames;
                     }
-
-                    public static HashMap<String, DataBase> get() {
-                        HashMap<String, DataBase> dataMap = new HashMap<>();
                 """);
     }
 
-    private void writeDataEntries(Writer writer, RoundEnvironment roundEnv) throws IOException {
+    private Map<String, Map<String, List<String>>> collectEntries(RoundEnvironment roundEnv) {
+        // 包名 -> 加载条件 -> 模块类名，保持源码中的声明顺序
+        Map<String, Map<String, List<String>>> index = new TreeMap<>();
         for (Element element : roundEnv.getElementsAnnotatedWith(HookBase.class)) {
             if (!(element instanceof TypeElement typeElement)) {
                 System.out.println("W: Element is not TypeElement!");
@@ -121,23 +134,78 @@ public class HookBaseProcessor extends AbstractProcessor {
 
             String fullClassName = typeElement.getQualifiedName().toString();
             HookBase hookBase = element.getAnnotation(HookBase.class);
-
-            writer.write(String.format(
-                "        dataMap.put(\"%s\", new DataBase(\"%s\", %d, %d, %sF, %sF, %d));\n",
-                fullClassName,
-                hookBase.targetPackage(),
+            String constraint = String.format("%d, %d, %sF, %sF, %d",
                 hookBase.minSdk(),
                 hookBase.maxSdk(),
                 hookBase.minOSVersion(),
                 hookBase.maxOSVersion(),
-                hookBase.deviceType()));
+                hookBase.deviceType());
+
+            index.computeIfAbsent(hookBase.targetPackage(), k -> new LinkedHashMap<>())
+                .computeIfAbsent(constraint, k -> new ArrayList<>())
+                .add(fullClassName);
         }
+        return index;
     }
 
-    private void writeFooter(Writer writer) throws IOException {
+    private void writeDataEntries(Writer writer, RoundEnvironment roundEnv) throws IOException {
+        Map<String, Map<String, List<String>>> index = collectEntries(roundEnv);
+        Map<String, List<String>> systemApps = index.remove(VARIOUS_SYSTEM_APPS);
+        Map<String, List<String>> thirdApps = index.remove(VARIOUS_THIRD_APPS);
+
+        writer.write("""
+
+                    /**
+                     * 获取精确匹配指定包名的模块分组
+                     */
+                    public static DataBase[] forPackage(String packageName) {
+                        return switch (packageName) {
+                """);
+        for (Map.Entry<String, Map<String, List<String>>> entry : index.entrySet()) {
+            writer.write(String.format("            case \"%s\" -> new DataBase[]{\n", entry.getKey()));
+            writeBuckets(writer, entry.getKey(), entry.getValue(), "                ");
+            writer.write("            };\n");
+        }
         writer.write("""
-                        return dataMap;
+                            default -> EMPTY;
+                        };
                     }
-                }""");
+                """);
+
+        writeWildcard(writer, "variousSystemApps", VARIOUS_SYSTEM_APPS, systemApps);
+        writeWildcard(writer, "variousThirdApps", VARIOUS_THIRD_APPS, thirdApps);
+    }
+
+    private void writeWildcard(Writer writer, String methodName, String targetPackage,
+                               Map<String, List<String>> buckets) throws IOException {
+        writer.write(String.format("""
+
+                    public static DataBase[] %s() {
+                """, methodName));
+        if (buckets == null || buckets.isEmpty()) {
+            writer.write("        return EMPTY;\n");
+        } else {
+            writer.write("        return new DataBase[]{\n");
+            writeBuckets(writer, targetPackage, buckets, "            ");
+            writer.write("        };\n");
+        }
+        writer.write("    }\n");
+    }
+
+    private void writeBuckets(Writer writer, String targetPackage, Map<String, List<String>> buckets,
+                              String indent) throws IOException {
+        for (Map.Entry<String, List<String>> bucket : buckets.entrySet()) {
+            StringBuilder classNames = new StringBuilder();
+            for (String className : bucket.getValue()) {
+                if (!classNames.isEmpty()) classNames.append(", ");
+                classNames.append('"').append(className).append('"');
+            }
+            writer.write(String.format("%snew DataBase(\"%s\", %s, %s),\n",
+                indent, targetPackage, bucket.getKey(), classNames));
+        }
+    }
+
+    private void writeFooter(Writer writer) throws IOException {
+        writer.write("}\n");
     }
 }
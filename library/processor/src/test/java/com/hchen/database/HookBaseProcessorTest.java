@@ -0,0 +1,315 @@
+/*
+ * This file is part of HyperCeiler.
+
+ * HyperCeiler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License.
+
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+
+ * Copyright (C) 2023-2026 HyperCeiler Contributions
+ */
+package com.hchen.database;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.JavaFileObject;
+
+public class HookBaseProcessorTest {
+    private static final String DATA_BASE = "com.sevtinge.hyperceiler.libhook.base.DataBase";
+    private static final String VARIOUS_THIRD_APPS = "VariousThirdApps";
+    private static final String VARIOUS_SYSTEM_APPS = "VariousSystemApps";
+
+    private Class<?> mDataBase;
+
+    @Before
+    public void setUp() throws Exception {
+        Compilation compilation = javac()
+            .withProcessors(new HookBaseProcessor())
+            .compile(
+                hook("SystemUiA", "targetPackage = \"com.android.systemui\""),
+                hook("SystemUiB", "targetPackage = \"com.android.systemui\""),
+                hook("SystemUiSdk35", "targetPackage = \"com.android.systemui\", minSdk = 35"),
+                hook("Home", "targetPackage = \"com.miui.home\", deviceType = 1"),
+                hook("ThirdApps", "targetPackage = \"VariousThirdApps\""));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile(DATA_BASE);
+        mDataBase = new GeneratedClassLoader(compilation).loadClass(DATA_BASE);
+    }
+
+    @Test
+    public void modulesWithSameConstraintsShareOneGroup() throws Exception {
+        Object[] groups = forPackage("com.android.systemui");
+        assertEquals(2, groups.length);
+
+        assertEquals("com.android.systemui", field(groups[0], "targetPackage"));
+        assertEquals(-1, field(groups[0], "minSdk"));
+        assertArrayEquals(new String[]{"test.SystemUiA", "test.SystemUiB"}, (String[]) field(groups[0], "classNames"));
+
+        assertEquals(35, field(groups[1], "minSdk"));
+        assertArrayEquals(new String[]{"test.SystemUiSdk35"}, (String[]) field(groups[1], "classNames"));
+    }
+
+    @Test
+    public void constraintsAreCopiedIntoGroup() throws Exception {
+        Object[] groups = forPackage("com.miui.home");
+        assertEquals(1, groups.length);
+        assertEquals(1, field(groups[0], "deviceType"));
+        assertEquals(-1F, (float) field(groups[0], "minOSVersion"), 0F);
+        assertEquals(-1F, (float) field(groups[0], "maxOSVersion"), 0F);
+    }
+
+    @Test
+    public void unknownPackageReturnsSharedEmptyArray() throws Exception {
+        Object empty = mDataBase.getMethod("forPackage", String.class).invoke(null, "com.example.unknown");
+        assertSame(mDataBase.getField("EMPTY").get(null), empty);
+    }
+
+    @Test
+    public void wildcardScopesAreNotIndexedByPackage() throws Exception {
+        assertEquals(0, forPackage("VariousThirdApps").length);
+
+        Object[] thirdApps = invoke("variousThirdApps");
+        assertEquals(1, thirdApps.length);
+        assertEquals("VariousThirdApps", field(thirdApps[0], "targetPackage"));
+        assertArrayEquals(new String[]{"test.ThirdApps"}, (String[]) field(thirdApps[0], "classNames"));
+
+        assertEquals(0, invoke("variousSystemApps").length);
+    }
+
+    /**
+     * 随机生成数百个模块，在各种包名与设备环境下比较索引查询与原先逐个模块判断
+     * （ModuleMatcher#matchEntry 的规则）得到的加载集合
+     */
+    @Test
+    public void indexMatchesPerModuleScan() throws Exception {
+        String[] packages = {
+            "system", "com.android.systemui", "com.android.settings", "com.miui.home",
+            "com.miui.securitycenter", "com.xiaomi.misound", "com.tencent.mm",
+            VARIOUS_SYSTEM_APPS, VARIOUS_THIRD_APPS
+        };
+        int[] minSdks = {-1, 34, 35};
+        int[] maxSdks = {-1, 35, 36};
+        float[] minOSVersions = {-1F, 2.0F};
+        float[] maxOSVersions = {-1F, 2.0F, 3.0F};
+
+        Random random = new Random(1);
+        List<Module> modules = new ArrayList<>();
+        List<JavaFileObject> sources = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Module module = new Module("test.Hook" + i,
+                packages[random.nextInt(packages.length)],
+                minSdks[random.nextInt(minSdks.length)],
+                maxSdks[random.nextInt(maxSdks.length)],
+                minOSVersions[random.nextInt(minOSVersions.length)],
+                maxOSVersions[random.nextInt(maxOSVersions.length)],
+                random.nextInt(3));
+            modules.add(module);
+            sources.add(hook("Hook" + i, String.format(
+                "targetPackage = \"%s\", minSdk = %d, maxSdk = %d, minOSVersion = %sF, maxOSVersion = %sF, deviceType = %d",
+                module.targetPackage, module.minSdk, module.maxSdk,
+                module.minOSVersion, module.maxOSVersion, module.deviceType)));
+        }
+        Compilation compilation = javac().withProcessors(new HookBaseProcessor()).compile(sources);
+        assertThat(compilation).succeeded();
+        Class<?> dataBase = new GeneratedClassLoader(compilation).loadClass(DATA_BASE);
+
+        String[] processes = {
+            "system", "com.android.systemui", "com.android.settings", "com.miui.home",
+            "com.miui.securitycenter", "com.xiaomi.misound", "com.tencent.mm",
+            "com.android.unindexed", "com.example.third"
+        };
+        int checked = 0;
+        for (String packageName : processes) {
+            for (int sdk = 33; sdk <= 36; sdk++) {
+                for (float os : new float[]{1.0F, 2.0F, 3.0F}) {
+                    for (boolean pad : new boolean[]{false, true}) {
+                        Env env = new Env(packageName, sdk, os, pad);
+                        assertEquals(packageName + " sdk=" + sdk + " os=" + os + " pad=" + pad,
+                            scan(modules, env), lookup(dataBase, env));
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertEquals(216, checked);
+    }
+
+    /**
+     * 原先的加载方式：遍历全部模块逐个判断
+     */
+    private static Set<String> scan(List<Module> modules, Env env) {
+        boolean hasExactMatch = false;
+        for (Module module : modules) {
+            if (module.targetPackage.equals(env.packageName)) hasExactMatch = true;
+        }
+        Set<String> loaded = new TreeSet<>();
+        for (Module module : modules) {
+            if (matchEntry(module.targetPackage, module.minSdk, module.maxSdk, module.minOSVersion,
+                module.maxOSVersion, module.deviceType, env, hasExactMatch)) {
+                loaded.add(module.className);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 与 XposedInitEntry#invokeInitInternal 相同的索引查询顺序
+     */
+    private static Set<String> lookup(Class<?> dataBase, Env env) throws Exception {
+        Object[] exact = toArray(dataBase.getMethod("forPackage", String.class).invoke(null, env.packageName));
+        boolean hasExactMatch = exact.length > 0;
+        Set<String> loaded = new TreeSet<>();
+        addMatching(loaded, exact, env, hasExactMatch);
+        if (env.isSystemServer()) return loaded;
+        addMatching(loaded, toArray(dataBase.getMethod("variousSystemApps").invoke(null)), env, hasExactMatch);
+        if (hasExactMatch) return loaded;
+        addMatching(loaded, toArray(dataBase.getMethod("variousThirdApps").invoke(null)), env, hasExactMatch);
+        return loaded;
+    }
+
+    private static void addMatching(Set<String> loaded, Object[] groups, Env env, boolean hasExactMatch)
+        throws Exception {
+        for (Object group : groups) {
+            if (!matchEntry((String) field(group, "targetPackage"), (int) field(group, "minSdk"),
+                (int) field(group, "maxSdk"), (float) field(group, "minOSVersion"),
+                (float) field(group, "maxOSVersion"), (int) field(group, "deviceType"), env, hasExactMatch)) {
+                continue;
+            }
+            for (String className : (String[]) field(group, "classNames")) {
+                assertTrue(className + " loaded twice", loaded.add(className));
+            }
+        }
+    }
+
+    /**
+     * ModuleMatcher#matchEntry 的规则，设备信息由参数给出
+     */
+    private static boolean matchEntry(String targetPackage, int minSdk, int maxSdk, float minOSVersion,
+                                      float maxOSVersion, int deviceType, Env env, boolean hasExactMatch) {
+        boolean packageMatched;
+        if (targetPackage.equals(env.packageName)) {
+            packageMatched = true;
+        } else if (env.isSystemServer()) {
+            packageMatched = false;
+        } else if (VARIOUS_SYSTEM_APPS.equals(targetPackage) && (env.packageName.startsWith("com.miui")
+            || env.packageName.startsWith("com.xiaomi") || env.packageName.startsWith("com.android"))) {
+            packageMatched = true;
+        } else {
+            packageMatched = !hasExactMatch && VARIOUS_THIRD_APPS.equals(targetPackage);
+        }
+        if (!packageMatched) return false;
+
+        if (minSdk != -1 && env.sdk < minSdk) return false;
+        if (maxSdk != -1 && env.sdk > maxSdk) return false;
+        if (minOSVersion != -1F && env.os < minOSVersion) return false;
+        if (maxOSVersion != -1F && env.os > maxOSVersion) return false;
+        return switch (deviceType) {
+            case 1 -> env.pad;
+            case 2 -> !env.pad;
+            default -> true;
+        };
+    }
+
+    private record Module(String className, String targetPackage, int minSdk, int maxSdk,
+                          float minOSVersion, float maxOSVersion, int deviceType) {
+    }
+
+    private record Env(String packageName, int sdk, float os, boolean pad) {
+        boolean isSystemServer() {
+            return "system".equals(packageName);
+        }
+    }
+
+    private Object[] forPackage(String packageName) throws Exception {
+        Method method = mDataBase.getMethod("forPackage", String.class);
+        return toArray(method.invoke(null, packageName));
+    }
+
+    private Object[] invoke(String methodName) throws Exception {
+        return toArray(mDataBase.getMethod(methodName).invoke(null));
+    }
+
+    private static Object[] toArray(Object array) {
+        Object[] result = new Object[Array.getLength(array)];
+        for (int i = 0; i < result.length; i++) result[i] = Array.get(array, i);
+        return result;
+    }
+
+    private static Object field(Object target, String name) throws Exception {
+        return target.getClass().getField(name).get(target);
+    }
+
+    private static JavaFileObject hook(String simpleName, String arguments) {
+        return JavaFileObjects.forSourceString("test." + simpleName, """
+            package test;
+
+            @com.hchen.database.HookBase(%s)
+            public class %s {
+            }
+            """.formatted(arguments, simpleName));
+    }
+
+    /**
+     * 从编译结果的 class 输出中加载生成的类
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        private final Map<String, JavaFileObject> mClasses = new HashMap<>();
+
+        GeneratedClassLoader(Compilation compilation) {
+            super(HookBaseProcessorTest.class.getClassLoader());
+            for (JavaFileObject file : compilation.generatedFiles()) {
+                if (file.getKind() != JavaFileObject.Kind.CLASS) continue;
+                String path = file.toUri().getPath();
+                String name = path.substring(path.indexOf("/CLASS_OUTPUT/") + "/CLASS_OUTPUT/".length(),
+                    path.length() - ".class".length()).replace('/', '.');
+                mClasses.put(name, file);
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            JavaFileObject file = mClasses.get(name);
+            if (file == null) throw new ClassNotFoundException(name);
+            try (InputStream in = file.openInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                in.transferTo(out);
+                byte[] bytes = out.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}